@@ -1,10 +1,19 @@
 package org.eclipse.dltk.core.tools.internal.ui;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import org.eclipse.dltk.core.RuntimePerformanceMonitor;
 import org.eclipse.dltk.core.RuntimePerformanceMonitor.DataEntry;
+import org.eclipse.dltk.dbgp.DbgpMetrics;
+import org.eclipse.dltk.dbgp.DbgpMetrics.CommandMetrics;
+import org.eclipse.dltk.debug.core.DLTKDebugPlugin;
 import org.eclipse.dltk.ui.DLTKUIPlugin;
 import org.eclipse.jface.viewers.ITableLabelProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
@@ -19,6 +28,7 @@ import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.TreeColumn;
 import org.eclipse.ui.IViewSite;
 import org.eclipse.ui.PartInitException;
@@ -38,6 +48,11 @@ public class DLTKPerformanceViewPart extends ViewPart {
 		}
 
 		public String getColumnText(Object element, int columnIndex) {
+			if (element instanceof DbgpMetrics) {
+				return getSessionText((DbgpMetrics) element, columnIndex);
+			} else if (element instanceof CommandMetrics) {
+				return getCommandText((CommandMetrics) element, columnIndex);
+			}
 			switch (columnIndex) {
 			case 0:
 				if (element instanceof Map.Entry) {
@@ -107,6 +122,73 @@ public class DLTKPerformanceViewPart extends ViewPart {
 			}
 			return "";
 		}
+
+		private String getSessionText(DbgpMetrics metrics, int columnIndex) {
+			switch (columnIndex) {
+			case 0:
+				return "DBGP " + metrics.getName();
+			case 1:
+				return Long.toString(toMillis(metrics.getParseTime()));
+			case 7:
+				return Long.toString(metrics.getBytesIn()
+						+ metrics.getBytesOut());
+			case 8:
+				return Long.toString(metrics.getPacketsIn()
+						+ metrics.getPacketsOut());
+			case 9:
+				return "in: " + metrics.getBytesIn() + " bytes/"
+						+ metrics.getPacketsIn() + " packets, out: "
+						+ metrics.getBytesOut() + " bytes/"
+						+ metrics.getPacketsOut() + " packets, parse: "
+						+ toMillis(metrics.getParseTime())
+						+ " ms, queue wait: "
+						+ toMillis(metrics.getQueueWaitTime()) + " ms/"
+						+ metrics.getQueueWaitCount();
+			}
+			return "";
+		}
+
+		private String getCommandText(CommandMetrics metrics, int columnIndex) {
+			switch (columnIndex) {
+			case 0:
+				return metrics.getCommand();
+			case 1:
+				return Long.toString(toMillis(metrics.getTotalTime()));
+			case 3:
+				return Long.toString(metrics.getCount());
+			case 4:
+				if (metrics.getCount() != 0) {
+					return Double.toString((double) toMillis(metrics
+							.getTotalTime())
+							/ metrics.getCount());
+				}
+				break;
+			case 9:
+				final StringBuilder sb = new StringBuilder();
+				sb.append("max: ").append(toMillis(metrics.getMaxTime()))
+						.append(" ms,");
+				final long[] bounds = DbgpMetrics.getBucketBounds();
+				final long[] histogram = metrics.getHistogram();
+				for (int i = 0; i < histogram.length; ++i) {
+					if (histogram[i] == 0) {
+						continue;
+					}
+					sb.append(' ');
+					if (i < bounds.length) {
+						sb.append('<').append(bounds[i]);
+					} else {
+						sb.append(">=").append(bounds[bounds.length - 1]);
+					}
+					sb.append("ms: ").append(histogram[i]);
+				}
+				return sb.toString();
+			}
+			return "";
+		}
+
+		private long toMillis(long nanos) {
+			return nanos / 1000000;
+		}
 	}
 
 	private static final class PerformanceContentProvider implements
@@ -122,11 +204,17 @@ public class DLTKPerformanceViewPart extends ViewPart {
 		public Object[] getElements(Object inputElement) {
 			Map<String, Map<String, DataEntry>> map = RuntimePerformanceMonitor
 					.getAllEntries();
-			return map.entrySet().toArray();
+			final List<Object> elements = new ArrayList<Object>(map
+					.entrySet());
+			elements.addAll(Arrays.asList(DLTKDebugPlugin.getDefault()
+					.getDbgpMetricsService().getMetrics()));
+			return elements.toArray();
 		}
 
 		public boolean hasChildren(Object element) {
-			if (element instanceof Map) {
+			if (element instanceof DbgpMetrics) {
+				return !((DbgpMetrics) element).getCommands().isEmpty();
+			} else if (element instanceof Map) {
 				return !((Map) element).isEmpty();
 			} else if (element instanceof Map.Entry) {
 				Map.Entry e = (Entry) element;
@@ -144,7 +232,9 @@ public class DLTKPerformanceViewPart extends ViewPart {
 		}
 
 		public Object[] getChildren(Object parentElement) {
-			if (parentElement instanceof Map) {
+			if (parentElement instanceof DbgpMetrics) {
+				return ((DbgpMetrics) parentElement).getCommands().toArray();
+			} else if (parentElement instanceof Map) {
 				return ((Map) parentElement).entrySet().toArray();
 			} else if (parentElement instanceof Map.Entry) {
 				Map.Entry e = (Entry) parentElement;
@@ -214,6 +304,18 @@ public class DLTKPerformanceViewPart extends ViewPart {
 		speed.setText("Speed");
 		speed.setWidth(80);
 
+		TreeColumn bytes = new TreeColumn(viewer.getTree(), SWT.NONE);
+		bytes.setText("Bytes");
+		bytes.setWidth(80);
+
+		TreeColumn packets = new TreeColumn(viewer.getTree(), SWT.NONE);
+		packets.setText("Packets");
+		packets.setWidth(80);
+
+		TreeColumn details = new TreeColumn(viewer.getTree(), SWT.NONE);
+		details.setText("Details");
+		details.setWidth(400);
+
 		viewer.setContentProvider(new PerformanceContentProvider());
 		viewer.setLabelProvider(new PerformanceLabelProvide());
 		viewer.setInput(new Object());
@@ -224,6 +326,18 @@ public class DLTKPerformanceViewPart extends ViewPart {
 
 			public void widgetSelected(SelectionEvent e) {
 				RuntimePerformanceMonitor.clear();
+				DLTKDebugPlugin.getDefault().getDbgpMetricsService().clear();
+			}
+
+			public void widgetDefaultSelected(SelectionEvent e) {
+			}
+		});
+		Button export = new Button(composite, SWT.PUSH);
+		export.setText("Export DBGP...");
+		export.addSelectionListener(new SelectionListener() {
+
+			public void widgetSelected(SelectionEvent e) {
+				exportDbgpMetrics();
 			}
 
 			public void widgetDefaultSelected(SelectionEvent e) {
@@ -237,6 +351,27 @@ public class DLTKPerformanceViewPart extends ViewPart {
 		}
 	}
 
+	private void exportDbgpMetrics() {
+		FileDialog dialog = new FileDialog(viewer.getTree().getShell(),
+				SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.csv" });
+		String fileName = dialog.open();
+		if (fileName == null) {
+			return;
+		}
+		try {
+			Writer writer = new FileWriter(fileName);
+			try {
+				DLTKDebugPlugin.getDefault().getDbgpMetricsService().export(
+						writer);
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			DLTKDebugPlugin.log(e);
+		}
+	}
+
 	@Override
 	public void setFocus() {
 	}
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+
+ *******************************************************************************/
+package org.eclipse.dltk.codeassist;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.compiler.CharOperation;
+import org.eclipse.dltk.compiler.env.IModuleSource;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.ElementChangedEvent;
+import org.eclipse.dltk.core.IElementChangedListener;
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.core.IModelElementDelta;
+import org.eclipse.dltk.core.ISourceModule;
+
+/**
+ * The state of the code completion at some site, kept between the
+ * invocations of the completion engine, so the next keystroke at the same
+ * site could reuse the receiver type, candidates and other computed values
+ * instead of evaluating them again.
+ *
+ * <p>
+ * The session is valid while the completion happens in the same module at
+ * the same replacement start, the source before the site and the engine
+ * provided context are the same and the new prefix extends the previous
+ * one. The session is discarded as soon as some other element of the model
+ * changes.
+ * </p>
+ *
+ * @see ScriptCompletionEngine#openSession(IModuleSource, int, Object, char[])
+ * @since 5.1
+ */
+public class CompletionSession {
+
+	private final String moduleKey;
+	private final int siteStart;
+	private final int sourceHash;
+	private final Object context;
+	private char[] prefix;
+
+	private Object receiver;
+	private final Map<Object, Object> attributes = new HashMap<Object, Object>();
+	private final Map<Object, List<?>> candidates = new HashMap<Object, List<?>>();
+
+	private volatile boolean valid = true;
+
+	CompletionSession(String moduleKey, int siteStart, int sourceHash,
+			Object context, char[] prefix) {
+		this.moduleKey = moduleKey;
+		this.siteStart = siteStart;
+		this.sourceHash = sourceHash;
+		this.context = context;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Returns the prefix this session was last used with
+	 */
+	public char[] getPrefix() {
+		return prefix;
+	}
+
+	/**
+	 * Returns the engine provided context of the completion site
+	 */
+	public Object getContext() {
+		return context;
+	}
+
+	/**
+	 * Returns the previously evaluated receiver or <code>null</code>
+	 */
+	public Object getReceiver() {
+		return receiver;
+	}
+
+	public void setReceiver(Object receiver) {
+		this.receiver = receiver;
+	}
+
+	public Object getAttribute(Object key) {
+		return attributes.get(key);
+	}
+
+	public void setAttribute(Object key, Object value) {
+		attributes.put(key, value);
+	}
+
+	/**
+	 * Returns the candidates stored with the specified key, already narrowed
+	 * down to the ones matched by the previous (shorter) prefix, or
+	 * <code>null</code> if they should be searched.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> List<E> getCandidates(Object key) {
+		return (List<E>) candidates.get(key);
+	}
+
+	/**
+	 * Saves the candidates found for the current prefix, so they are reused by
+	 * the next invocations at this site.
+	 */
+	public <E> void putCandidates(Object key, List<E> list) {
+		candidates.put(key, list);
+	}
+
+	/**
+	 * Returns <code>true</code> if the specified list is one of the stored
+	 * candidate lists.
+	 */
+	boolean isCandidates(List<?> list) {
+		for (List<?> value : candidates.values()) {
+			if (value == list) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Replaces the stored candidate list with the candidates matched by the
+	 * current prefix, so the next (longer) prefix looks through the refined
+	 * list only.
+	 */
+	void refine(List<?> list, List<?> matched) {
+		if (matched.size() == list.size()) {
+			return;
+		}
+		for (Map.Entry<Object, List<?>> entry : candidates.entrySet()) {
+			if (entry.getValue() == list) {
+				entry.setValue(matched);
+			}
+		}
+	}
+
+	boolean isValid() {
+		return valid;
+	}
+
+	void invalidate() {
+		valid = false;
+	}
+
+	/**
+	 * Answers if the session could be continued at the specified site
+	 */
+	boolean isReusable(String moduleKey, int siteStart, int sourceHash,
+			Object context, char[] prefix) {
+		return valid && this.siteStart == siteStart
+				&& this.sourceHash == sourceHash
+				&& this.moduleKey.equals(moduleKey)
+				&& (this.context == null ? context == null : this.context
+						.equals(context))
+				&& CharOperation.prefixEquals(this.prefix, prefix, false);
+	}
+
+	void continueWith(char[] prefix) {
+		this.prefix = prefix;
+	}
+
+	boolean isAffectedBy(IModelElementDelta delta) {
+		final IModelElement element = delta.getElement();
+		if (element instanceof ISourceModule) {
+			return !moduleKey.equals(element.getHandleIdentifier());
+		}
+		final IModelElementDelta[] children = delta.getAffectedChildren();
+		if (children.length == 0) {
+			return true;
+		}
+		for (IModelElementDelta child : children) {
+			if (isAffectedBy(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static String getModuleKey(IModuleSource module) {
+		final IModelElement element = module.getModelElement();
+		if (element != null) {
+			return element.getHandleIdentifier();
+		}
+		return module.getFileName();
+	}
+
+	static int hashSource(IModuleSource module, int end) {
+		final char[] contents = module.getContentsAsCharArray();
+		if (contents == null) {
+			return 0;
+		}
+		if (end > contents.length) {
+			end = contents.length;
+		}
+		int hash = end;
+		for (int i = 0; i < end; ++i) {
+			hash = 31 * hash + contents[i];
+		}
+		return hash;
+	}
+
+	/**
+	 * The last sessions of the completion engines, mapped by the engine class,
+	 * since engine instances are created for each completion request.
+	 */
+	static class Registry implements IElementChangedListener {
+
+		private final Map<Class<?>, CompletionSession> sessions = new HashMap<Class<?>, CompletionSession>();
+		private boolean listening = false;
+
+		synchronized CompletionSession open(Class<?> engineClass,
+				IModuleSource module, int siteStart, Object context,
+				char[] prefix) {
+			final String moduleKey = getModuleKey(module);
+			if (moduleKey == null) {
+				sessions.remove(engineClass);
+				return null;
+			}
+			if (!listening) {
+				DLTKCore.addElementChangedListener(this,
+						ElementChangedEvent.POST_CHANGE);
+				listening = true;
+			}
+			final int sourceHash = hashSource(module, siteStart);
+			final CompletionSession previous = sessions.get(engineClass);
+			if (previous != null
+					&& previous.isReusable(moduleKey, siteStart, sourceHash,
+							context, prefix)) {
+				previous.continueWith(prefix);
+				return previous;
+			}
+			final CompletionSession session = new CompletionSession(
+					moduleKey, siteStart, sourceHash, context, prefix);
+			sessions.put(engineClass, session);
+			return session;
+		}
+
+		synchronized void discard(Class<?> engineClass) {
+			final CompletionSession session = sessions.remove(engineClass);
+			if (session != null) {
+				session.invalidate();
+			}
+		}
+
+		public synchronized void elementChanged(ElementChangedEvent event) {
+			for (CompletionSession session : sessions.values()) {
+				if (session.isAffectedBy(event.getDelta())) {
+					session.invalidate();
+				}
+			}
+		}
+	}
+
+	static final Registry REGISTRY = new Registry();
+
+}
@@ -9,6 +9,7 @@
  *******************************************************************************/
 package org.eclipse.dltk.codeassist;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -96,6 +97,8 @@ public abstract class ScriptCompletionEngine extends Engine implements
 	protected char[] source;
 	private IProgressMonitor progressMonitor;
 
+	private CompletionSession session;
+
 	public ScriptCompletionEngine(/*
 								 * ISearchableEnvironment nameEnvironment,
 								 * CompletionRequestor requestor, Map settings,
@@ -445,6 +448,7 @@ public abstract class ScriptCompletionEngine extends Engine implements
 		int length = token.length;
 		String tok = new String(token);
 		if (canCompleteEmptyToken || length > 0) {
+			final List<Object> matched = beginRefine(methods);
 			for (int i = 0; i < methods.size(); i++) {
 				IMethod method = methods.get(i);
 				String qname = processMethodName(method, tok);
@@ -454,6 +458,9 @@ public abstract class ScriptCompletionEngine extends Engine implements
 				}
 				if (length <= name.length()
 						&& CharOperation.prefixEquals(token, name, false)) {
+					if (matched != null) {
+						matched.add(method);
+					}
 					int relevance = computeBaseRelevance();
 					relevance += computeRelevanceForInterestingProposal();
 					relevance += computeRelevanceForCaseMatching(token, name);
@@ -496,6 +503,7 @@ public abstract class ScriptCompletionEngine extends Engine implements
 					}
 				}
 			}
+			endRefine(methods, matched);
 		}
 	}
 
@@ -510,6 +518,7 @@ public abstract class ScriptCompletionEngine extends Engine implements
 		int length = token.length;
 		// String tok = new String(token);
 		if (canCompleteEmptyToken || length > 0) {
+			final List<Object> matched = beginRefine(fields);
 			for (int i = 0; i < fields.size(); i++) {
 				IField field = fields.get(i);
 				String qname = nameProvider.getName(field);
@@ -519,6 +528,9 @@ public abstract class ScriptCompletionEngine extends Engine implements
 				}
 				if (length <= name.length()
 						&& CharOperation.prefixEquals(token, name, false)) {
+					if (matched != null) {
+						matched.add(field);
+					}
 					int relevance = computeBaseRelevance();
 					relevance += computeRelevanceForInterestingProposal();
 					relevance += computeRelevanceForCaseMatching(token, name);
@@ -542,6 +554,7 @@ public abstract class ScriptCompletionEngine extends Engine implements
 					}
 				}
 			}
+			endRefine(fields, matched);
 		}
 	}
 
@@ -591,6 +604,7 @@ public abstract class ScriptCompletionEngine extends Engine implements
 		int length = token.length;
 		String tok = new String(token);
 		if (canCompleteEmptyToken || length > 0) {
+			final List<Object> matched = beginRefine(types);
 			for (int i = 0; i < types.size(); i++) {
 				IType type = types.get(i);
 				String qname = processTypeName(type, tok);
@@ -600,6 +614,9 @@ public abstract class ScriptCompletionEngine extends Engine implements
 				}
 				if (length <= name.length()
 						&& CharOperation.prefixEquals(token, name, false)) {
+					if (matched != null) {
+						matched.add(type);
+					}
 					int relevance = computeBaseRelevance();
 					relevance += computeRelevanceForInterestingProposal();
 					relevance += computeRelevanceForCaseMatching(token, name);
@@ -624,6 +641,82 @@ public abstract class ScriptCompletionEngine extends Engine implements
 					}
 				}
 			}
+			endRefine(types, matched);
+		}
+	}
+
+	// Session
+	/**
+	 * Opens the completion session at the specified site. If the previous
+	 * completion of this engine happened at the same site with the same
+	 * context and the specified prefix extends the previous one, then the
+	 * previous session is returned, so the receiver and candidates evaluated
+	 * before could be reused. Otherwise a new empty session is started.
+	 * 
+	 * <p>
+	 * Candidate lists stored in the session are refined by the
+	 * {@code find*} methods, so the following invocations only look through
+	 * the candidates matching the current prefix.
+	 * </p>
+	 * 
+	 * @param module
+	 *            the module where the completion is taking place
+	 * @param siteStart
+	 *            the start of the completion site, usually the start of the
+	 *            prefix being completed
+	 * @param context
+	 *            engine specific context of the site (e.g. the receiver
+	 *            expression), compared with {@link Object#equals(Object)}
+	 * @param prefix
+	 *            the prefix being completed
+	 * @return the session or <code>null</code> if sessions are not supported
+	 *         for the specified module
+	 * @since 5.1
+	 */
+	protected CompletionSession openSession(IModuleSource module,
+			int siteStart, Object context, char[] prefix) {
+		this.session = CompletionSession.REGISTRY.open(getClass(), module,
+				siteStart, context, prefix != null ? prefix
+						: CharOperation.NO_CHAR);
+		return this.session;
+	}
+
+	/**
+	 * Returns the session opened by this engine or <code>null</code>
+	 * 
+	 * @since 5.1
+	 */
+	protected CompletionSession getSession() {
+		return session;
+	}
+
+	/**
+	 * Discards the session of this engine, so the next completion performs
+	 * the full search.
+	 * 
+	 * @since 5.1
+	 */
+	protected void discardSession() {
+		this.session = null;
+		CompletionSession.REGISTRY.discard(getClass());
+	}
+
+	/**
+	 * Returns the list to collect the candidates matching the current prefix
+	 * if the specified list is stored in the session or <code>null</code>
+	 * otherwise.
+	 */
+	private List<Object> beginRefine(List<?> candidates) {
+		if (session != null && session.isValid()
+				&& session.isCandidates(candidates)) {
+			return new ArrayList<Object>();
+		}
+		return null;
+	}
+
+	private void endRefine(List<?> candidates, List<Object> matched) {
+		if (matched != null) {
+			session.refine(candidates, matched);
 		}
 	}
 
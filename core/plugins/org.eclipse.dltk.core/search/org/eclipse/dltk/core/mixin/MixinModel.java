@@ -11,12 +11,16 @@ package org.eclipse.dltk.core.mixin;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -77,7 +81,8 @@ public class MixinModel {
 			REQUEST_CACHE_LIMIT);
 
 	// true if exists, false if doesn't
-	private Map<String, Boolean> knownKeysCache = new HashMap<String, Boolean>();
+	private final KnownKeysCache knownKeysCache = new KnownKeysCache(
+			KEYS_CACHE_LIMIT);
 	// boolean, for the atomicity of it
 	public boolean removes = true;
 
@@ -85,15 +90,23 @@ public class MixinModel {
 
 	private final IScriptProject project;
 
-	private MixinRequestor mixinRequestor = new MixinRequestor();
-
-	private ISourceModule currentModule;
-
 	/**
 	 * modules required to be reparsed
 	 */
 	private Set<ISourceModule> modulesToReparse = new HashSet<ISourceModule>();
 
+	/**
+	 * Modules which are being parsed at the moment, the parsing itself is
+	 * performed without holding the model lock.
+	 */
+	private final Map<ISourceModule, ModuleContribution> pendingModules = new HashMap<ISourceModule, ModuleContribution>();
+
+	/**
+	 * The contributions of the other threads the threads are waiting for, used
+	 * to detect the threads waiting for each other.
+	 */
+	private final Map<Thread, ModuleContribution> waitingThreads = new HashMap<Thread, ModuleContribution>();
+
 	/**
 	 * Creates workspace instance
 	 * 
@@ -135,17 +148,17 @@ public class MixinModel {
 		if (DLTKCore.VERBOSE) {
 			System.out.println("MixinModel.get(" + key + ')'); //$NON-NLS-1$
 		}
+		if (knownKeysCache.get(key) == Boolean.FALSE) {
+			return null;
+		}
 		MixinElement element = null;
 		synchronized (this) {
-			if (knownKeysCache.get(key) == Boolean.FALSE) {
-				return null;
-			}
 			element = (MixinElement) cache.get(key);
 			if (element == null) {
 				if (!removes) {
 					return null;
 				} else {
-					element = new MixinElement(key, currentModule);
+					element = new MixinElement(key, null);
 					cache.put(key, element);
 					cache.ensureSpaceLimit(1, element);
 				}
@@ -157,12 +170,15 @@ public class MixinModel {
 			}
 		}
 		buildElementTree(element);
+		if (element.isFinal() && element.sourceModules.size() > 0) {
+			knownKeysCache.put(key, Boolean.TRUE);
+			return element;
+		}
 		synchronized (this) {
-			if (element.isFinal() && element.sourceModules.size() > 0) {
-				knownKeysCache.put(key, Boolean.TRUE);
-				return element;
+			// the module could be applied concurrently after the tree was built
+			if (element.sourceModules.isEmpty()) {
+				knownKeysCache.put(key, Boolean.FALSE);
 			}
-			knownKeysCache.put(key, Boolean.FALSE);
 			cache.remove(element.key);
 			cache.resetSpaceLimit(CACHE_LIMIT, element);
 		}
@@ -233,7 +249,7 @@ public class MixinModel {
 
 		synchronized (this) {
 			for (String key : entry.keys) {
-				MixinElement element = getCreateEmpty(key);
+				MixinElement element = getCreateEmpty(key, null);
 				if (!monitor.isCanceled()) {
 					markElementAsFinal(element);
 				}
@@ -328,6 +344,11 @@ public class MixinModel {
 
 	// long-running operation
 	public boolean keyExists(String key) {
+		if (removes) {
+			final Boolean cached = knownKeysCache.get(key);
+			if (cached != null)
+				return cached;
+		}
 		synchronized (this) {
 			// TODO: For this version we cache all information, so should be
 			// false.
@@ -338,18 +359,9 @@ public class MixinModel {
 			if (e != null && e.sourceModules.size() > 0) {
 				return true;
 			}
-			Boolean cached = knownKeysCache.get(key);
-			if (cached != null)
-				return cached;
-		}
-		boolean exists = get(key) != null;
-		synchronized (this) {
-			if (knownKeysCache.size() > KEYS_CACHE_LIMIT) {
-				knownKeysCache.clear();
-			}
-			knownKeysCache.put(key, exists);
 		}
-		return exists;
+		// get() remembers the result in the knownKeysCache
+		return get(key) != null;
 	}
 
 	// long-running operation
@@ -360,7 +372,7 @@ public class MixinModel {
 		}
 		ISourceModule[] containedModules = findModules(element.getKey());
 		if (containedModules.length == 0) {
-			synchronized (cache) {
+			synchronized (this) {
 				cache.remove(element.key);
 				cache.resetSpaceLimit(CACHE_LIMIT, element);
 			}
@@ -383,31 +395,129 @@ public class MixinModel {
 		}
 	}
 
-	// TODO long-running operation. shouldn't be synchronized
-	public synchronized void reportModule(ISourceModule sourceModule) {
-			if (!elementToMixinCache.containsKey(sourceModule)) {
-				elementToMixinCache.put(sourceModule,
-						new ArrayList<MixinElement>());
-			} else {
-				// Module already in model. So we do not to rebuild it.
-				if (!modulesToReparse.remove(sourceModule)) {
+	/**
+	 * Parses the specified module and merges its elements into this model.
+	 * The module is parsed without holding the model lock, so concurrent
+	 * readers are blocked only while the collected contribution is applied.
+	 * If the same module is being parsed by another thread at the moment, then
+	 * this method waits until that contribution is applied. If that thread is
+	 * waiting for this one (e.g. each of them parses the module requesting the
+	 * module parsed by the other one), then the module is parsed again by this
+	 * thread and the contribution of the other thread is ignored.
+	 */
+	// long-running operation
+	public void reportModule(ISourceModule sourceModule) {
+		final ModuleContribution contribution;
+		synchronized (this) {
+			final ModuleContribution pending = pendingModules
+					.get(sourceModule);
+			if (pending != null) {
+				if (pending.isOwner()) {
+					// re-entered while parsing this module
 					return;
 				}
-				// We need to reparse module if some elements are moved from it.
+				if (isWaitingFor(pending.owner)) {
+					contribution = new ModuleContribution(sourceModule);
+					pendingModules.put(sourceModule, contribution);
+				} else {
+					contribution = pending;
+					waitingThreads.put(Thread.currentThread(), pending);
+				}
+			} else {
+				if (!elementToMixinCache.containsKey(sourceModule)) {
+					elementToMixinCache.put(sourceModule,
+							new ArrayList<MixinElement>());
+				} else {
+					// Module already in model. So we do not to rebuild it.
+					if (!modulesToReparse.remove(sourceModule)) {
+						return;
+					}
+					// We need to reparse module if some elements are moved
+					// from it.
+				}
+				contribution = new ModuleContribution(sourceModule);
+				pendingModules.put(sourceModule, contribution);
+			}
+		}
+		if (!contribution.isOwner()) {
+			try {
+				contribution.await();
+			} finally {
+				synchronized (this) {
+					waitingThreads.remove(Thread.currentThread());
+				}
 			}
-		try {
-			IMixinParser mixinParser = MixinManager
-					.getMixinParser(sourceModule);
-			if (mixinParser != null) {
-				this.currentModule = sourceModule;
-				mixinParser.setRequirestor(mixinRequestor);
-				mixinParser.parserSourceModule(true, sourceModule);
-				this.currentModule = null;
-			}
-		} catch (CoreException e) {
-			DLTKCore.error("Error in reportModule", e); //$NON-NLS-1$
 			return;
 		}
+		try {
+			if (!contribution.collect()) {
+				return;
+			}
+			synchronized (this) {
+				if (pendingModules.get(sourceModule) == contribution) {
+					pendingModules.remove(sourceModule);
+					applyContribution(contribution);
+				}
+			}
+		} finally {
+			synchronized (this) {
+				if (pendingModules.get(sourceModule) == contribution) {
+					pendingModules.remove(sourceModule);
+				}
+			}
+			contribution.done();
+		}
+	}
+
+	/**
+	 * Answers if the specified thread is waiting (directly or through the
+	 * other threads) for the contribution of the current thread.
+	 */
+	// called with lock being held
+	private boolean isWaitingFor(Thread thread) {
+		final Thread current = Thread.currentThread();
+		while (thread != null) {
+			if (thread == current) {
+				return true;
+			}
+			final ModuleContribution contribution = waitingThreads.get(thread);
+			thread = contribution != null ? contribution.owner : null;
+		}
+		return false;
+	}
+
+	// called with lock being held
+	private void applyContribution(ModuleContribution contribution) {
+		final ISourceModule module = contribution.module;
+		for (Map.Entry<String, List<Object>> entry : contribution.elements
+				.entrySet()) {
+			final String key = entry.getKey();
+			knownKeysCache.put(key, Boolean.TRUE);
+			MixinElement element = getCreateEmpty(key, module);
+			addElementToModule(element, module);
+			element.addModule(module);
+			element.setObjects(module, entry.getValue());
+			// Append as childs for all other elements. Also append modules to
+			// all selected elements.
+			String parentKey = element.getParentKey();
+			while (parentKey != null) {
+				MixinElement parent = getCreateEmpty(parentKey, module);
+				parent.children.add(element);
+				addElementToModule(parent, module);
+				element = parent;
+				parentKey = parent.getParentKey();
+			}
+		}
+	}
+
+	// called with lock being held
+	private void addElementToModule(MixinElement element, ISourceModule module) {
+		List<MixinElement> elements = elementToMixinCache.get(module);
+		if (elements == null) {
+			elements = new ArrayList<MixinElement>();
+			elementToMixinCache.put(module, elements);
+		}
+		elements.add(element);
 	}
 
 	/**
@@ -435,13 +545,16 @@ public class MixinModel {
 	 * if cache doesn't contain required element
 	 * 
 	 * @param key
+	 * @param module
+	 *            the module the new element is reported from or
+	 *            <code>null</code>
 	 * @return
 	 */
-	private MixinElement getCreateEmpty(String key) {
+	private MixinElement getCreateEmpty(String key, ISourceModule module) {
 		// called with lock being held
 		MixinElement element = (MixinElement) cache.get(key);
 		if (element == null) {
-			element = new MixinElement(key, currentModule);
+			element = new MixinElement(key, module);
 			this.cache.put(key, element);
 			this.cache.ensureSpaceLimit(1, element);
 		}
@@ -455,13 +568,19 @@ public class MixinModel {
 	private IMixinChangedListener changedListener = new IMixinChangedListener() {
 		public void elementChanged(ElementChangedEvent event) {
 			IModelElementDelta delta = event.getDelta();
+			final List<ISourceModule> addedModules = new ArrayList<ISourceModule>();
 			synchronized (MixinModel.this) {
-				processDelta(delta);
+				processDelta(delta, addedModules);
+			}
+			// parse added modules outside of the lock
+			for (ISourceModule module : addedModules) {
+				reportModule(module);
 			}
 		}
 
 		// called with lock being held
-		private void processDelta(IModelElementDelta delta) {
+		private void processDelta(IModelElementDelta delta,
+				List<ISourceModule> addedModules) {
 			IModelElement element = delta.getElement();
 			if (delta.getKind() == IModelElementDelta.REMOVED
 					|| delta.getKind() == IModelElementDelta.CHANGED
@@ -511,7 +630,7 @@ public class MixinModel {
 			if (delta.getKind() == IModelElementDelta.ADDED) {
 				if (element.getElementType() == IModelElement.SOURCE_MODULE) {
 					if (modulesToReparse.add((ISourceModule) element)) {
-						reportModule((ISourceModule) element);
+						addedModules.add((ISourceModule) element);
 					}
 				}
 				knownKeysCache.clear();
@@ -520,7 +639,7 @@ public class MixinModel {
 
 			if ((delta.getFlags() & IModelElementDelta.F_CHILDREN) != 0) {
 				for (IModelElementDelta child : delta.getAffectedChildren()) {
-					processDelta(child);
+					processDelta(child, addedModules);
 				}
 			} else if (delta.getKind() == IModelElementDelta.REMOVED
 					&& element.getElementType() == IModelElement.SCRIPT_FOLDER) {
@@ -609,6 +728,10 @@ public class MixinModel {
 		if (DEBUG) {
 			log("remove " + element.getElementName()); //$NON-NLS-1$
 		}
+		final ModuleContribution pending = pendingModules.remove(element);
+		if (pending != null) {
+			pending.discard();
+		}
 		List<MixinElement> mixinCache = elementToMixinCache.get(element);
 		if (mixinCache != null) {
 			removeFromRequestCache(element);
@@ -686,14 +809,19 @@ public class MixinModel {
 
 	private static final Object[] NO_OBJECTS = new Object[0];
 
+	/**
+	 * Mixin element. The state of the element is modified with the model lock
+	 * being held, but all the collections are safe to be read without locking.
+	 */
 	private final class MixinElement implements IMixinElement,
 			IInternalMixinElement {
-		private String key;
-		private boolean bFinal = false;
-		private List<ISourceModule> sourceModules = new ArrayList<ISourceModule>();
-		private Map<ISourceModule, List<Object>> sourceModuleToObject = new HashMap<ISourceModule, List<Object>>();
+		private final String key;
+		private volatile boolean bFinal = false;
+		private final List<ISourceModule> sourceModules = new CopyOnWriteArrayList<ISourceModule>();
+		private final Map<ISourceModule, List<Object>> sourceModuleToObject = new ConcurrentHashMap<ISourceModule, List<Object>>();
 
-		private Set<MixinElement> children = new HashSet<MixinElement>();
+		private final Set<MixinElement> children = Collections
+				.newSetFromMap(new ConcurrentHashMap<MixinElement, Boolean>());
 
 		public boolean equals(Object obj) {
 			if (this == obj)
@@ -717,19 +845,17 @@ public class MixinModel {
 					+ this.children + " "; //$NON-NLS-1$
 		}
 
-		/*
-		 * public MixinElement(ElementInfo info, ISourceModule module) {
-		 * this(info.key, currentModule); addInfo(info, module); }
+		/**
+		 * Replaces the objects reported for the specified module. The list is
+		 * published as a whole, so readers never observe partial state.
 		 */
 		// called with lock being held
-		void addInfo(ElementInfo info, ISourceModule module) {
-			if (info.object != null) {
-				List<Object> list = this.sourceModuleToObject.get(module);
-				if (list == null) {
-					list = new ArrayList<Object>();
-					this.sourceModuleToObject.put(module, list);
-				}
-				list.add(info.object);
+		void setObjects(ISourceModule module, List<Object> objects) {
+			if (objects.isEmpty()) {
+				this.sourceModuleToObject.remove(module);
+			} else {
+				this.sourceModuleToObject.put(module,
+						Collections.unmodifiableList(objects));
 			}
 		}
 
@@ -750,9 +876,7 @@ public class MixinModel {
 
 		public IMixinElement[] getChildren() {
 			this.validate();
-			synchronized (MixinModel.this) {
-				return children.toArray(new IMixinElement[children.size()]);
-			}
+			return children.toArray(new IMixinElement[children.size()]);
 		}
 
 		public IMixinElement getChildren(String key) {
@@ -796,37 +920,30 @@ public class MixinModel {
 			if (!isFinal()) {
 				get(key);
 			}
-			synchronized (MixinModel.this) {
-				return this.sourceModules
-						.toArray(new ISourceModule[this.sourceModules.size()]);
-			}
+			return this.sourceModules.toArray(new ISourceModule[0]);
 		}
 
 		public Object[] getObjects(ISourceModule module) {
 			this.validate();
-			synchronized (MixinModel.this) {
-				List<Object> list = this.sourceModuleToObject.get(module);
-				if (list == null)
-					return NO_OBJECTS;
-				Object[] objs = list.toArray();
-				for (Object obj : objs) {
-					notifyInitializeListener(this, module, obj);
-				}
-				return objs;
+			List<Object> list = this.sourceModuleToObject.get(module);
+			if (list == null)
+				return NO_OBJECTS;
+			Object[] objs = list.toArray();
+			for (Object obj : objs) {
+				notifyInitializeListener(this, module, obj);
 			}
+			return objs;
 		}
 
 		public Object[] getAllObjects() {
 			this.validate();
-			synchronized (MixinModel.this) {
-				Set<Object> objects = new HashSet<Object>();
-				for (ISourceModule module : sourceModules) {
-					for (Object obj : this.getObjects(module)) {
-						objects.add(obj);
-					}
+			Set<Object> objects = new HashSet<Object>();
+			for (ISourceModule module : sourceModules) {
+				for (Object obj : this.getObjects(module)) {
+					objects.add(obj);
 				}
-				return objects.toArray();
 			}
+			return objects.toArray();
 		}
 
 		public boolean isFinal() {
@@ -882,44 +999,138 @@ public class MixinModel {
 		}
 	};
 
-	private final class MixinRequestor implements IMixinRequestor {
-		public void reportElement(ElementInfo info) {
-			// if( DLTKCore.VERBOSE_MIXIN ) {
-			// System.out.println("Append mixin:" + info.key);
-			// }
-			synchronized (MixinModel.this) {
-				knownKeysCache.put(info.key, Boolean.TRUE);
-				String[] list = info.key.split("\\" //$NON-NLS-1$
-						+ IMixinRequestor.MIXIN_NAME_SEPARATOR);
-				MixinElement element = getCreateEmpty(info.key);
-				addElementToModules(element);
-				element.addModule(currentModule);
-				element.addInfo(info, currentModule);
-				// Append as childs for all other elements. Also append modules
-				// to
-				// all selected elements.
-				if (list.length != 1) {
-					for (int i = 0; i < list.length - 1; ++i) {
-						MixinElement parent = getCreateEmpty(element
-								.getParentKey());
-						parent.children.add(element);
-						addElementToModules(parent);
-						element = parent;
+	/**
+	 * Elements reported by the single source module. The module is parsed
+	 * without holding the model lock and then collected elements are applied
+	 * to the model at once.
+	 */
+	private static final class ModuleContribution implements IMixinRequestor {
+
+		/**
+		 * The contribution being collected by the thread. The parsers are
+		 * shared, so the elements they report are forwarded to it.
+		 */
+		private static final ThreadLocal<ModuleContribution> current = new ThreadLocal<ModuleContribution>();
+
+		private static final IMixinRequestor dispatcher = new IMixinRequestor() {
+			public void reportElement(ElementInfo info) {
+				final ModuleContribution contribution = current.get();
+				if (contribution != null) {
+					contribution.reportElement(info);
+				}
+			}
+		};
+
+		final ISourceModule module;
+		final Thread owner = Thread.currentThread();
+		final Map<String, List<Object>> elements = new LinkedHashMap<String, List<Object>>();
+		private volatile boolean discarded = false;
+		private boolean completed = false;
+
+		ModuleContribution(ISourceModule module) {
+			this.module = module;
+		}
+
+		boolean isOwner() {
+			return owner == Thread.currentThread();
+		}
+
+		/**
+		 * Parses the module collecting the reported elements.
+		 * 
+		 * @return <code>true</code> if elements were collected and should be
+		 *         applied to the model
+		 */
+		// long-running operation, called without lock
+		boolean collect() {
+			try {
+				IMixinParser mixinParser = MixinManager.getMixinParser(module);
+				if (mixinParser != null) {
+					final ModuleContribution previous = current.get();
+					current.set(this);
+					try {
+						mixinParser.setRequirestor(dispatcher);
+						mixinParser.parserSourceModule(true, module);
+					} finally {
+						current.set(previous);
 					}
 				}
+			} catch (CoreException e) {
+				DLTKCore.error("Error in reportModule", e); //$NON-NLS-1$
+				return false;
 			}
+			return !discarded;
 		}
 
-		// called with lock being held
-		private void addElementToModules(MixinElement element) {
-			List<MixinElement> elements = MixinModel.this.elementToMixinCache
-					.get(currentModule);
-			if (elements == null) {
-				elements = new ArrayList<MixinElement>();
-				MixinModel.this.elementToMixinCache
-						.put(currentModule, elements);
+		public void reportElement(ElementInfo info) {
+			if (discarded) {
+				return;
+			}
+			List<Object> objects = elements.get(info.key);
+			if (objects == null) {
+				objects = new ArrayList<Object>(1);
+				elements.put(info.key, objects);
+			}
+			if (info.object != null) {
+				objects.add(info.object);
+			}
+		}
+
+		void discard() {
+			discarded = true;
+		}
+
+		synchronized void done() {
+			completed = true;
+			notifyAll();
+		}
+
+		synchronized void await() {
+			while (!completed) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
 			}
-			elements.add(element);
+		}
+	}
+
+	/**
+	 * Bounded cache of the known key states, the least recently used entries
+	 * are evicted when the limit is reached. It uses it's own lock, so it
+	 * could be queried while the model is being updated.
+	 */
+	private static final class KnownKeysCache {
+		private final Map<String, Boolean> keys;
+
+		KnownKeysCache(final int limit) {
+			keys = new LinkedHashMap<String, Boolean>(1024, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<String, Boolean> eldest) {
+					return size() > limit;
+				}
+			};
+		}
+
+		synchronized Boolean get(String key) {
+			return keys.get(key);
+		}
+
+		synchronized void put(String key, Boolean value) {
+			keys.put(key, value);
+		}
+
+		synchronized void remove(String key) {
+			keys.remove(key);
+		}
+
+		synchronized void clear() {
+			keys.clear();
 		}
 	}
 
@@ -983,6 +1194,10 @@ public class MixinModel {
 	}
 
 	protected synchronized void clear() {
+		for (ModuleContribution pending : pendingModules.values()) {
+			pending.discard();
+		}
+		pendingModules.clear();
 		cache.flush();
 		elementToMixinCache.clear();
 		knownKeysCache.clear();
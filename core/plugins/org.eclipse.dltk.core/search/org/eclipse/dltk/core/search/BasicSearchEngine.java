@@ -37,6 +37,7 @@ import org.eclipse.dltk.core.ISourceModule;
 import org.eclipse.dltk.core.IType;
 import org.eclipse.dltk.core.ModelException;
 import org.eclipse.dltk.core.WorkingCopyOwner;
+import org.eclipse.dltk.core.search.index.Index;
 import org.eclipse.dltk.core.search.indexing.IIndexConstants;
 import org.eclipse.dltk.core.search.indexing.IndexManager;
 import org.eclipse.dltk.core.search.matching.ModuleFactory;
@@ -54,6 +55,7 @@ import org.eclipse.dltk.internal.core.search.HierarchyScope;
 import org.eclipse.dltk.internal.core.search.IRestrictedAccessMethodRequestor;
 import org.eclipse.dltk.internal.core.search.IRestrictedAccessTypeRequestor;
 import org.eclipse.dltk.internal.core.search.IndexQueryRequestor;
+import org.eclipse.dltk.internal.core.search.NameSearchCache;
 import org.eclipse.dltk.internal.core.search.PathCollector;
 import org.eclipse.dltk.internal.core.search.PatternSearchJob;
 import org.eclipse.dltk.internal.core.search.SuperHierarchyScope;
@@ -93,6 +95,14 @@ public class BasicSearchEngine {
 	 */
 	public static boolean VERBOSE = DLTKCore.VERBOSE_SEARCH;
 
+	/*
+	 * Index matches of the recent type and method name searches.
+	 */
+	private static final NameSearchCache<TypeNameRecord> TYPE_NAME_CACHE = new NameSearchCache<TypeNameRecord>(
+			16, 50000);
+	private static final NameSearchCache<MethodNameRecord> METHOD_NAME_CACHE = new NameSearchCache<MethodNameRecord>(
+			16, 50000);
+
 	/*
 	 * Creates a new search basic engine.
 	 */
@@ -916,23 +926,23 @@ public class BasicSearchEngine {
 						packageMatchRule, typeName, typeSuffix, typeMatchRule,
 						scope.getLanguageToolkit());
 
-		// Get working copy path(s). Store in a single string in case of only
-		// one to optimize comparison in requestor
-		final HashSet<String> workingCopyPaths = new HashSet<String>();
-		String workingCopyPath = null;
-		ISourceModule[] copies = getWorkingCopies();
+		// Get working copy path(s) to filter them out in requestor
+		final ISourceModule[] copies = getWorkingCopies();
 		final int copiesLength = copies == null ? 0 : copies.length;
-		if (copies != null) {
-			if (copiesLength == 1) {
-				workingCopyPath = copies[0].getPath().toString();
-			} else {
-				for (int i = 0; i < copiesLength; i++) {
-					ISourceModule workingCopy = copies[i];
-					workingCopyPaths.add(workingCopy.getPath().toString());
-				}
-			}
-		}
-		final String singleWkcpPath = workingCopyPath;
+		final WorkingCopyPaths workingCopyPaths = new WorkingCopyPaths(copies);
+
+		// Prepare the results cache
+		final Object cacheKey = NameSearchCache.createQueryKey(scope,
+				"type", packageName, packageMatchRule, typeSuffix); //$NON-NLS-1$
+		final NameSearchCache.IndexState indexState = cacheKey != null ? getIndexState(
+				indexManager, pattern, scope) : null;
+		final List<TypeNameRecord> cachedResults = indexState != null ? TYPE_NAME_CACHE
+				.lookup(cacheKey, typeName, typeMatchRule, indexState.getIndexes())
+				: null;
+		final List<TypeNameRecord> collectedResults = indexState != null
+				&& cachedResults == null ? new ArrayList<TypeNameRecord>()
+				: null;
+
 		// final List documentPathFilter = new ArrayList();
 		// Index requestor
 		IndexQueryRequestor searchRequestor = new IndexQueryRequestor() {
@@ -951,19 +961,9 @@ public class BasicSearchEngine {
 				// IIndexConstants.ONE_ZERO_CHAR) {
 				// return true; // filter out local and anonymous classes
 				// }
-				switch (copiesLength) {
-				case 0:
-					break;
-				case 1:
-					if (singleWkcpPath.equals(documentPath)) {
-						return true; // fliter out *the* working copy
-					}
-					break;
-				default:
-					if (workingCopyPaths.contains(documentPath)) {
-						return true; // filter out working copies
-					}
-					break;
+				if (collectedResults == null
+						&& workingCopyPaths.contains(documentPath)) {
+					return true; // filter out working copies
 				}
 
 				// Accept document path
@@ -994,9 +994,19 @@ public class BasicSearchEngine {
 					}
 				}
 				if (match(record.typeSuffix, record.modifiers)) {
-					nameRequestor.acceptType(record.modifiers, record.pkg,
-							record.simpleName, record.enclosingTypeNames,
-							record.superTypes, documentPath, accessRestriction);
+					final TypeNameRecord match = new TypeNameRecord(
+							record.modifiers, record.pkg, record.simpleName,
+							record.enclosingTypeNames, record.superTypes,
+							documentPath, accessRestriction);
+					if (collectedResults != null) {
+						// working copies are filtered when cached results are
+						// reported, as they depend on the engine
+						collectedResults.add(match);
+						if (workingCopyPaths.contains(documentPath)) {
+							return true; // filter out working copies
+						}
+					}
+					match.reportTo(nameRequestor);
 				}
 				return true;
 			}
@@ -1006,12 +1016,28 @@ public class BasicSearchEngine {
 			if (progressMonitor != null) {
 				progressMonitor.beginTask(Messages.engine_searching, 100);
 			}
-			// add type names from indexes
-			indexManager.performConcurrentJob(new PatternSearchJob(pattern,
-					getDefaultSearchParticipant(), // Script search only
-					scope, searchRequestor), waitingPolicy,
-					progressMonitor == null ? null : new SubProgressMonitor(
-							progressMonitor, 100));
+			if (cachedResults != null) {
+				// add type names from the cache
+				for (TypeNameRecord match : cachedResults) {
+					if (!workingCopyPaths.contains(match.path)) {
+						match.reportTo(nameRequestor);
+					}
+				}
+			} else {
+				// add type names from indexes
+				final boolean complete = indexManager.performConcurrentJob(
+						new PatternSearchJob(pattern,
+								getDefaultSearchParticipant(), // Script search
+								// only
+								scope, searchRequestor), waitingPolicy,
+						progressMonitor == null ? null
+								: new SubProgressMonitor(progressMonitor, 100));
+				if (collectedResults != null && complete
+						&& indexManager.awaitingJobsCount() == 0) {
+					TYPE_NAME_CACHE.store(cacheKey, typeName, typeMatchRule,
+							indexState, collectedResults);
+				}
+			}
 
 			// add type names from working copies
 			if (copies != null) {
@@ -1584,23 +1610,23 @@ public class BasicSearchEngine {
 		final MethodDeclarationPattern pattern = new MethodDeclarationPattern(
 				methodName, methodMatchRule, scope.getLanguageToolkit());
 
-		// Get working copy path(s). Store in a single string in case of only
-		// one to optimize comparison in requestor
-		final HashSet workingCopyPaths = new HashSet();
-		String workingCopyPath = null;
-		ISourceModule[] copies = getWorkingCopies();
+		// Get working copy path(s) to filter them out in requestor
+		final ISourceModule[] copies = getWorkingCopies();
 		final int copiesLength = copies == null ? 0 : copies.length;
-		if (copies != null) {
-			if (copiesLength == 1) {
-				workingCopyPath = copies[0].getPath().toString();
-			} else {
-				for (int i = 0; i < copiesLength; i++) {
-					ISourceModule workingCopy = copies[i];
-					workingCopyPaths.add(workingCopy.getPath().toString());
-				}
-			}
-		}
-		final String singleWkcpPath = workingCopyPath;
+		final WorkingCopyPaths workingCopyPaths = new WorkingCopyPaths(copies);
+
+		// Prepare the results cache
+		final Object cacheKey = NameSearchCache.createQueryKey(scope,
+				"method"); //$NON-NLS-1$
+		final NameSearchCache.IndexState indexState = cacheKey != null ? getIndexState(
+				indexManager, pattern, scope) : null;
+		final List<MethodNameRecord> cachedResults = indexState != null ? METHOD_NAME_CACHE
+				.lookup(cacheKey, methodName, methodMatchRule,
+						indexState.getIndexes()) : null;
+		final List<MethodNameRecord> collectedResults = indexState != null
+				&& cachedResults == null ? new ArrayList<MethodNameRecord>()
+				: null;
+
 		// final List documentPathFilter = new ArrayList();
 		// Index requestor
 		IndexQueryRequestor searchRequestor = new IndexQueryRequestor() {
@@ -1614,24 +1640,17 @@ public class BasicSearchEngine {
 				// documentPathFilter.add(fullPath);
 				// Filter unexpected types
 				MethodDeclarationPattern record = (MethodDeclarationPattern) indexRecord;
-				switch (copiesLength) {
-				case 0:
-					break;
-				case 1:
-					if (singleWkcpPath.equals(documentPath)) {
-						return true; // fliter out *the* working copy
-					}
-					break;
-				default:
-					if (workingCopyPaths.contains(documentPath)) {
-						return true; // filter out working copies
-					}
-					break;
+				final MethodNameRecord match = new MethodNameRecord(
+						record.modifiers, record.pkg, record.simpleName,
+						record.enclosingTypeNames, record.parameterNames,
+						documentPath);
+				if (collectedResults != null) {
+					collectedResults.add(match);
 				}
-
-				nameRequestor.acceptMethod(record.modifiers, record.pkg,
-						record.simpleName, record.enclosingTypeNames,
-						record.parameterNames, documentPath);
+				if (workingCopyPaths.contains(documentPath)) {
+					return true; // filter out working copies
+				}
+				match.reportTo(nameRequestor);
 				return true;
 			}
 		};
@@ -1640,12 +1659,28 @@ public class BasicSearchEngine {
 			if (progressMonitor != null) {
 				progressMonitor.beginTask(Messages.engine_searching, 100);
 			}
-			// add type names from indexes
-			indexManager.performConcurrentJob(new PatternSearchJob(pattern,
-					getDefaultSearchParticipant(), // Script search only
-					scope, searchRequestor), waitingPolicy,
-					progressMonitor == null ? null : new SubProgressMonitor(
-							progressMonitor, 100));
+			if (cachedResults != null) {
+				// add method names from the cache
+				for (MethodNameRecord match : cachedResults) {
+					if (!workingCopyPaths.contains(match.path)) {
+						match.reportTo(nameRequestor);
+					}
+				}
+			} else {
+				// add method names from indexes
+				final boolean complete = indexManager.performConcurrentJob(
+						new PatternSearchJob(pattern,
+								getDefaultSearchParticipant(), // Script search
+								// only
+								scope, searchRequestor), waitingPolicy,
+						progressMonitor == null ? null
+								: new SubProgressMonitor(progressMonitor, 100));
+				if (collectedResults != null && complete
+						&& indexManager.awaitingJobsCount() == 0) {
+					METHOD_NAME_CACHE.store(cacheKey, methodName,
+							methodMatchRule, indexState, collectedResults);
+				}
+			}
 
 			// add type names from working copies
 			if (copies != null) {
@@ -1693,4 +1728,106 @@ public class BasicSearchEngine {
 		}
 
 	}
+
+	/**
+	 * Returns the state of the indexes the specified pattern is going to be
+	 * searched in or <code>null</code> if the indexes are not ready, so search
+	 * results should not be cached.
+	 */
+	private static NameSearchCache.IndexState getIndexState(
+			IndexManager indexManager, SearchPattern pattern,
+			IDLTKSearchScope scope) {
+		if (indexManager.awaitingJobsCount() != 0) {
+			return null;
+		}
+		final PatternSearchJob job = new PatternSearchJob(pattern,
+				getDefaultSearchParticipant(), scope, null);
+		final Index[] indexes = job.getIndexes(null);
+		if (!job.areIndexesReady()) {
+			return null;
+		}
+		return new NameSearchCache.IndexState(indexes);
+	}
+
+	/**
+	 * Paths of the working copies, index matches in these paths are filtered
+	 * out as working copies are searched separately.
+	 */
+	private static class WorkingCopyPaths {
+		// Store in a single string in case of only one to optimize comparison
+		private final String singlePath;
+		private final Set<String> paths;
+
+		WorkingCopyPaths(ISourceModule[] copies) {
+			if (copies != null && copies.length == 1) {
+				singlePath = copies[0].getPath().toString();
+				paths = null;
+			} else if (copies != null && copies.length != 0) {
+				singlePath = null;
+				paths = new HashSet<String>();
+				for (ISourceModule workingCopy : copies) {
+					paths.add(workingCopy.getPath().toString());
+				}
+			} else {
+				singlePath = null;
+				paths = null;
+			}
+		}
+
+		boolean contains(String documentPath) {
+			if (singlePath != null) {
+				return singlePath.equals(documentPath);
+			} else if (paths != null) {
+				return paths.contains(documentPath);
+			} else {
+				return false;
+			}
+		}
+	}
+
+	private static class TypeNameRecord extends NameSearchCache.Record {
+		final int modifiers;
+		final char[] pkg;
+		final char[][] enclosingTypeNames;
+		final char[][] superTypes;
+		final AccessRestriction access;
+
+		TypeNameRecord(int modifiers, char[] pkg, char[] simpleName,
+				char[][] enclosingTypeNames, char[][] superTypes, String path,
+				AccessRestriction access) {
+			super(simpleName, path);
+			this.modifiers = modifiers;
+			this.pkg = pkg;
+			this.enclosingTypeNames = enclosingTypeNames;
+			this.superTypes = superTypes;
+			this.access = access;
+		}
+
+		void reportTo(IRestrictedAccessTypeRequestor requestor) {
+			requestor.acceptType(modifiers, pkg, simpleName,
+					enclosingTypeNames, superTypes, path, access);
+		}
+	}
+
+	private static class MethodNameRecord extends NameSearchCache.Record {
+		final int modifiers;
+		final char[] pkg;
+		final char[][] enclosingTypeNames;
+		final char[][] parameterNames;
+
+		MethodNameRecord(int modifiers, char[] pkg, char[] simpleName,
+				char[][] enclosingTypeNames, char[][] parameterNames,
+				String path) {
+			super(simpleName, path);
+			this.modifiers = modifiers;
+			this.pkg = pkg;
+			this.enclosingTypeNames = enclosingTypeNames;
+			this.parameterNames = parameterNames;
+		}
+
+		void reportTo(IRestrictedAccessMethodRequestor requestor) {
+			requestor.acceptMethod(modifiers, pkg, simpleName,
+					enclosingTypeNames, parameterNames, path);
+		}
+	}
 }
@@ -614,14 +614,28 @@ public class DiskIndex {
 					}
 				}
 			}
-			onDisk.categoryTables.put(categoryName, null); // flush cached
-			// table
+			synchronized (onDisk) {
+				// could be queried concurrently
+				onDisk.categoryTables.put(categoryName, null); // flush cached
+				// table
+			}
 		}
 		writeCategoryTable(categoryName, wordsToDocs, stream);
 	}
 
 	DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
 		// assume write lock is held
+		return commitMerge(prepareMerge(memoryIndex));
+	}
+
+	/**
+	 * Writes the result of merging this index with the specified memory index
+	 * into the temporary file. The file of this index is only read, so this
+	 * index and the memory index could be queried concurrently. The returned
+	 * index should be activated by calling {@link #commitMerge(DiskIndex)}
+	 * when there are no more readers of this index.
+	 */
+	DiskIndex prepareMerge(MemoryIndex memoryIndex) throws IOException {
 		// compute & write out new docNames
 		String[] docNames = readAllDocumentNames();
 		int previousLength = docNames.length;
@@ -643,10 +657,9 @@ public class DiskIndex {
 				return this; // nothing to do... memory index contained
 			// deleted documents that had never been saved
 
-			// index is now empty since all the saved documents were removed
-			DiskIndex newDiskIndex = new DiskIndex(this.fileName);
-			newDiskIndex.initialize(false);
-			return newDiskIndex;
+			// index is now empty since all the saved documents were removed,
+			// the file is re-initialized in commitMerge()
+			return new DiskIndex(this.fileName);
 		}
 
 		DiskIndex newDiskIndex = new DiskIndex(this.fileName + ".tmp"); //$NON-NLS-1$
@@ -689,7 +702,32 @@ public class DiskIndex {
 				stream.close();
 			}
 			newDiskIndex.writeOffsetToHeader(offsetToHeader);
+		} catch (IOException e) {
+			if (newIndexFile.exists() && !newIndexFile.delete())
+				if (DEBUG)
+					System.out
+							.println("mergeWith - Failed to delete temp index " + newDiskIndex.fileName); //$NON-NLS-1$
+			throw e;
+		}
+		return newDiskIndex;
+	}
 
+	/**
+	 * Replaces the file of this index with the one written by
+	 * {@link #prepareMerge(MemoryIndex)} and returns the index to be used
+	 * instead of this one. Assumes there are no readers of this index.
+	 */
+	DiskIndex commitMerge(DiskIndex newDiskIndex) throws IOException {
+		if (newDiskIndex == this) {
+			return this;
+		}
+		if (newDiskIndex.fileName.equals(this.fileName)) {
+			// empty index
+			newDiskIndex.initialize(false);
+			return newDiskIndex;
+		}
+		File newIndexFile = newDiskIndex.getIndexFile();
+		try {
 			// rename file by deleting previous index file & renaming temp one
 			File old = getIndexFile();
 			if (old.exists() && !old.delete()) {
@@ -47,6 +47,12 @@ public class Index {
 
 	protected MemoryIndex memoryIndex;
 
+	/**
+	 * Incremented on each modification of the index contents, so clients
+	 * could detect if results computed earlier are still valid.
+	 */
+	private volatile int generation = 0;
+
 	/**
 	 * Mask used on match rule for indexing.
 	 */
@@ -125,6 +131,22 @@ public class Index {
 			System.out.println("DEBUG INDEX: Add Index Entry:" + new String( category ) + " " + new String( key ) + " path:" + containerRelativePath ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		}
 		this.memoryIndex.addIndexEntry(category, key, containerRelativePath);
+		modified();
+	}
+
+	/**
+	 * Returns the number which is changed each time the contents of this index
+	 * are modified.
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Should be called when the contents of this index are modified.
+	 */
+	protected void modified() {
+		generation++;
 	}
 
 	public File getIndexFile() {
@@ -206,6 +228,7 @@ public class Index {
 
 	public void remove(String containerRelativePath) {
 		this.memoryIndex.remove(containerRelativePath);
+		modified();
 	}
 
 	public void save() throws IOException {
@@ -218,7 +241,21 @@ public class Index {
 		}
 		// int numberOfChanges = this.memoryIndex.docsToReferences.elementSize;
 		this.diskIndex.separator = this.separator;
-		this.diskIndex = this.diskIndex.mergeWith(this.memoryIndex);
+		final ReadWriteMonitor monitor = this.monitor;
+		final DiskIndex newDiskIndex;
+		if (monitor != null) {
+			// merging only reads the current disk & memory indexes, so queries
+			// could run against them until the merged index is committed
+			monitor.enterSnapshotReads();
+		}
+		try {
+			newDiskIndex = this.diskIndex.prepareMerge(this.memoryIndex);
+		} finally {
+			if (monitor != null) {
+				monitor.exitSnapshotReads();
+			}
+		}
+		this.diskIndex = this.diskIndex.commitMerge(newDiskIndex);
 		this.memoryIndex = new MemoryIndex();
 		// if (numberOfChanges > 1000)
 		// System.gc(); // reclaim space if the MemoryIndex was very BIG
@@ -64,6 +64,7 @@ public class MixinIndex extends Index {
 					+ "' path '" + containerRelativePath + "'"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		addIndexEntry(key, internDocName(containerRelativePath));
+		modified();
 	}
 
 	/**
@@ -169,6 +170,7 @@ public class MixinIndex extends Index {
 
 	public void remove(String containerRelativePath) {
 		this.dirty = true;
+		modified();
 		if (documentNames.remove(containerRelativePath) != null) {
 			final char[][] keyTable = keyToDocs.keyTable;
 			for (int i = 0; i < keyTable.length; i++) {
@@ -759,12 +759,14 @@ public class IndexManager extends JobManager implements IIndexConstants {
 		this.scriptPluginLocation = null;
 	}
 
-	public synchronized void saveIndex(Index index) throws IOException {
+	public void saveIndex(Index index) throws IOException {
 		// must have permission to write from the write monitor
 		if (index.hasChanged()) {
 			if (VERBOSE) {
 				Util.verbose("-> saving index " + index.getIndexFile()); //$NON-NLS-1$
 			}
+			// not holding the lock of this manager, since the queries admitted
+			// while the index is merged could request the indexes
 			index.save();
 		}
 		if (!index.isRebuildable()) {
@@ -774,11 +776,11 @@ public class IndexManager extends JobManager implements IIndexConstants {
 		// avoid bugs such as
 		// https://bugs.eclipse.org/bugs/show_bug.cgi?id=62267
 		String indexLocation = index.getIndexFile().getPath();
-		if (this.jobEnd > this.jobStart) {
-			Object containerPath = this.indexLocations
-					.keyForValue(indexLocation);
-			if (containerPath != null) {
-				synchronized (this) {
+		synchronized (this) {
+			if (this.jobEnd > this.jobStart) {
+				Object containerPath = this.indexLocations
+						.keyForValue(indexLocation);
+				if (containerPath != null) {
 					for (int i = this.jobEnd; i > this.jobStart; i--) { // skip
 						// the
 						// current
@@ -793,8 +795,8 @@ public class IndexManager extends JobManager implements IIndexConstants {
 					}
 				}
 			}
+			this.updateIndexState(indexLocation, SAVED_STATE);
 		}
-		this.updateIndexState(indexLocation, SAVED_STATE);
 	}
 
 	/**
@@ -12,6 +12,10 @@ package org.eclipse.dltk.core.search.indexing;
 /**
  * Monitor ensuring no more than one writer working concurrently. Multiple
  * readers are allowed to perform simultaneously.
+ * 
+ * The writer could temporary admit readers while it is not modifying the
+ * guarded structures (e.g. while the index is being merged into the new file),
+ * see {@link #enterSnapshotReads()}.
  */
 public class ReadWriteMonitor {
 
@@ -21,18 +25,46 @@ public class ReadWriteMonitor {
 	 */
 	private int status = 0;
 
+	/**
+	 * <code>true</code> if the writer allows readers to enter
+	 */
+	private boolean snapshotReads = false;
+
+	/**
+	 * number of readers admitted while writing
+	 */
+	private int snapshotReaders = 0;
+
+	/**
+	 * number of the snapshot reads entered by the current thread and not
+	 * exited yet, so the nested reads are admitted even if the writer stops
+	 * admitting the new readers.
+	 */
+	private final ThreadLocal<int[]> snapshotDepth = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
 	/**
 	 * Concurrent reading is allowed Blocking only when already writing.
 	 */
 	public synchronized void enterRead() {
-		while (status < 0) {
+		final int[] depth = snapshotDepth.get();
+		while (status < 0 && !snapshotReads && depth[0] == 0) {
 			try {
 				wait();
 			} catch (InterruptedException e) {
 				// ignore
 			}
 		}
-		status++;
+		if (status < 0) {
+			snapshotReaders++;
+			depth[0]++;
+		} else {
+			status++;
+		}
 	}
 
 	/**
@@ -54,11 +86,45 @@ public class ReadWriteMonitor {
 	 * Only notify waiting writer(s) if last reader
 	 */
 	public synchronized void exitRead() {
-
+		if (status < 0) {
+			// reader admitted while writing
+			snapshotDepth.get()[0]--;
+			if (--snapshotReaders == 0)
+				notifyAll();
+			return;
+		}
 		if (--status == 0)
 			notifyAll();
 	}
 
+	/**
+	 * Allows readers to enter while the current thread keeps the write
+	 * permission. Must be called by the writer only, and only when it is not
+	 * going to modify the guarded structures until
+	 * {@link #exitSnapshotReads()}.
+	 */
+	public synchronized void enterSnapshotReads() {
+		snapshotReads = true;
+		notifyAll();
+	}
+
+	/**
+	 * Stops admitting new readers and waits until all the readers admitted by
+	 * {@link #enterSnapshotReads()} are finished, so the writer has exclusive
+	 * access again when this method returns. The admitted readers could still
+	 * enter the nested reads until they are finished.
+	 */
+	public synchronized void exitSnapshotReads() {
+		snapshotReads = false;
+		while (snapshotReaders > 0) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		}
+	}
+
 	/**
 	 * When writing is over, all readers and possible writers are granted
 	 * permission to restart concurrently
@@ -106,6 +172,11 @@ public class ReadWriteMonitor {
 			buffer.append("Monitor idle "); //$NON-NLS-1$
 		} else if (status < 0) {
 			buffer.append("Monitor writing "); //$NON-NLS-1$
+			if (snapshotReaders > 0) {
+				buffer.append("with "); //$NON-NLS-1$
+				buffer.append(snapshotReaders);
+				buffer.append(" snapshot readers "); //$NON-NLS-1$
+			}
 		} else if (status > 0) {
 			buffer.append("Monitor reading "); //$NON-NLS-1$
 		}
@@ -10,6 +10,7 @@
 package org.eclipse.dltk.internal.core.search;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -68,6 +69,16 @@ public class DLTKSearchScope extends AbstractSearchScope {
 	private IPath[] enclosingProjectsAndArchives;
 	protected final IDLTKLanguageToolkit toolkit;
 
+	/*
+	 * The description of this scope contents, computed on demand
+	 */
+	private String contentKey;
+
+	/*
+	 * The full paths of this scope, computed on demand
+	 */
+	private volatile FullPathTable fullPathTable;
+
 	public final static AccessRuleSet NOT_ENCLOSED = new AccessRuleSet(null,
 			null);
 
@@ -433,11 +444,55 @@ public class DLTKSearchScope extends AbstractSearchScope {
 			this.pathRestrictions[index] = access;
 		}
 
+		resetCaches();
+
 		// assumes the threshold is never equal to the size of the table
 		if (++this.pathsCount > this.threshold)
 			rehash();
 	}
 
+	/**
+	 * Returns the object describing the contents of this scope, so scopes with
+	 * equal keys enclose the same resources. Returns <code>null</code> if the
+	 * contents could not be described that way, e.g. if there are access
+	 * restrictions.
+	 */
+	public Object getContentKey() {
+		String key = this.contentKey;
+		if (key != null) {
+			return key;
+		}
+		if (this.pathRestrictions != null) {
+			for (AccessRuleSet access : this.pathRestrictions) {
+				if (access != null) {
+					return null;
+				}
+			}
+		}
+		final List<String> paths = new ArrayList<String>(this.pathsCount);
+		for (int i = 0, length = this.relativePaths.length; i < length; i++) {
+			final String relativePath = this.relativePaths[i];
+			if (relativePath != null) {
+				paths.add(this.containerPaths[i] + '|' + relativePath
+						+ (this.isPkgPath[i] ? "|P" : "")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		Collections.sort(paths);
+		final StringBuilder sb = new StringBuilder();
+		sb.append(toolkit != null ? toolkit.getNatureId() : null);
+		for (String path : paths) {
+			sb.append('\n').append(path);
+		}
+		if (this.elements != null) {
+			for (IModelElement element : this.elements) {
+				sb.append('\n').append(element.getHandleIdentifier());
+			}
+		}
+		key = sb.toString();
+		this.contentKey = key;
+		return key;
+	}
+
 	public boolean encloses(String resourcePathString) {
 		int separatorIndex = resourcePathString.indexOf(FILE_ENTRY_SEPARATOR);
 		if (separatorIndex != -1) {
@@ -460,8 +515,40 @@ public class DLTKSearchScope extends AbstractSearchScope {
 	 *            /P/src/pkg
 	 */
 	private int indexOf(String fullPath) {
-		// cannot guess the index of the container path
-		// fallback to sequentially looking at all known paths
+		// cannot guess the index of the container path, so look up each
+		// parent path of the given one (the deepest enclosing path wins)
+		FullPathTable table = this.fullPathTable;
+		if (table == null) {
+			table = buildFullPathTable();
+		}
+		// ignore trailing slashes
+		int length = fullPath.length();
+		while (length > 0 && fullPath.charAt(length - 1) == '/') {
+			length--;
+		}
+		final int lastSeparator = length == 0 ? -1 : fullPath.lastIndexOf(
+				'/', length - 1);
+		int result = table.emptyPathIndex;
+		int hash = 0;
+		for (int i = 0; i <= length; i++) {
+			if ((i == length || fullPath.charAt(i) == '/') && i != 0) {
+				final int index = table.get(fullPath, i, hash);
+				// if looking at a package, the given path must be a direct
+				// child of the folder or the folder itself
+				if (index != -1
+						&& (!this.isPkgPath[index] || i == length || i == lastSeparator)) {
+					result = index;
+				}
+			}
+			if (i < length) {
+				hash = 31 * hash + fullPath.charAt(i);
+			}
+		}
+		return result;
+	}
+
+	private FullPathTable buildFullPathTable() {
+		final FullPathTable table = new FullPathTable(this.pathsCount);
 		for (int i = 0, length = this.relativePaths.length; i < length; i++) {
 			String currentRelativePath = this.relativePaths[i];
 			if (currentRelativePath == null)
@@ -470,10 +557,82 @@ public class DLTKSearchScope extends AbstractSearchScope {
 			String currentContainerPath = containerPaths[i];
 			String currentFullPath = currentRelativePath.length() == 0 ? currentContainerPath
 					: (currentContainerPath + '/' + currentRelativePath);
-			if (encloses(currentFullPath, fullPath, i))
-				return i;
+			table.add(currentFullPath, i, this.isPkgPath[i]);
 		}
-		return -1;
+		this.fullPathTable = table;
+		return table;
+	}
+
+	/*
+	 * Open addressing hash table of the full paths (container path + relative
+	 * path) of this scope. Lookup is performed by the prefix of the given
+	 * string, so enclosing paths are found without allocations.
+	 */
+	private static final class FullPathTable {
+		private final String[] paths;
+		private final int[] indexes;
+		private final boolean[] packages;
+		int emptyPathIndex = -1;
+
+		FullPathTable(int count) {
+			int size = 8;
+			while (size < count * 2) {
+				size <<= 1;
+			}
+			this.paths = new String[size];
+			this.indexes = new int[size];
+			this.packages = new boolean[size];
+		}
+
+		void add(String fullPath, int index, boolean isPackage) {
+			if (fullPath.length() == 0) {
+				if (emptyPathIndex == -1) {
+					emptyPathIndex = index;
+				}
+				return;
+			}
+			final int mask = paths.length - 1;
+			int slot = fullPath.hashCode() & mask;
+			String current;
+			while ((current = paths[slot]) != null) {
+				if (current.equals(fullPath)) {
+					// the same path added as folder encloses more
+					if (packages[slot] && !isPackage) {
+						indexes[slot] = index;
+						packages[slot] = false;
+					}
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+			paths[slot] = fullPath;
+			indexes[slot] = index;
+			packages[slot] = isPackage;
+		}
+
+		/*
+		 * Returns the index of the path equal to the first length characters
+		 * of the given string, the hash should be computed as
+		 * String.hashCode() of that prefix.
+		 */
+		int get(String path, int length, int hash) {
+			final int mask = paths.length - 1;
+			int slot = hash & mask;
+			String current;
+			while ((current = paths[slot]) != null) {
+				if (current.length() == length
+						&& path.regionMatches(0, current, 0, length)) {
+					return indexes[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+	}
+
+	private void resetCaches() {
+		this.contentKey = null;
+		this.fullPathTable = null;
 	}
 
 	/**
@@ -646,6 +805,7 @@ public class DLTKSearchScope extends AbstractSearchScope {
 		this.isPkgPath = new boolean[extraRoom];
 		this.pathRestrictions = null; // null to optimize case where no access
 		// rules are used
+		resetCaches();
 
 		this.enclosingProjectsAndArchives = new IPath[0];
 	}
@@ -678,6 +838,7 @@ public class DLTKSearchScope extends AbstractSearchScope {
 				if (this.elements != null) {
 					this.elements.remove(element);
 				}
+				resetCaches();
 				IPath path = null;
 				switch (element.getElementType()) {
 				case IModelElement.SCRIPT_PROJECT:
@@ -805,6 +966,7 @@ public class DLTKSearchScope extends AbstractSearchScope {
 		this.isPkgPath = newScope.isPkgPath;
 		this.pathRestrictions = newScope.pathRestrictions;
 		this.threshold = newScope.threshold;
+		resetCaches();
 	}
 
 	public String toString() {
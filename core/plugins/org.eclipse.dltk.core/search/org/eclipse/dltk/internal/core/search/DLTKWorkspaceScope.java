@@ -74,6 +74,12 @@ public class DLTKWorkspaceScope extends DLTKSearchScope {
 		return o instanceof DLTKWorkspaceScope;
 	}
 
+	public Object getContentKey() {
+		// workspace scope encloses everything
+		return "workspace:" //$NON-NLS-1$
+				+ (toolkit != null ? toolkit.getNatureId() : null);
+	}
+
 	public AccessRuleSet getAccessRuleSet(String relativePath,
 			String containerPath) {
 		if (this.pathRestrictions == null)
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+
+ *******************************************************************************/
+package org.eclipse.dltk.internal.core.search;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.compiler.CharOperation;
+import org.eclipse.dltk.core.search.IDLTKSearchScope;
+import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.index.Index;
+
+/**
+ * Caches the index matches of the type/method name searches, so repeated
+ * queries (e.g. while user is typing in the completion or Open Type dialog)
+ * are answered without querying the indexes again.
+ *
+ * Entries are keyed by the query (kind, qualifier and scope contents), the
+ * name with the match rule and the generations of the queried indexes, so
+ * they become invalid as soon as any of the indexes is modified. The results
+ * of a prefix query are reused and filtered for the longer prefixes.
+ */
+public class NameSearchCache<R extends NameSearchCache.Record> {
+
+	/**
+	 * The cached index match
+	 */
+	public static abstract class Record {
+		public final char[] simpleName;
+		public final String path;
+
+		public Record(char[] simpleName, String path) {
+			this.simpleName = simpleName;
+			this.path = path;
+		}
+	}
+
+	/**
+	 * The state of the indexes the results were computed against
+	 */
+	public static class IndexState {
+		final Index[] indexes;
+		final int[] generations;
+
+		public IndexState(Index[] indexes) {
+			this.indexes = indexes;
+			this.generations = new int[indexes.length];
+			for (int i = 0; i < indexes.length; ++i) {
+				generations[i] = indexes[i].getGeneration();
+			}
+		}
+
+		public Index[] getIndexes() {
+			return indexes;
+		}
+
+		/**
+		 * Returns <code>true</code> if the same indexes are still unmodified.
+		 */
+		public boolean isCurrent(Index[] current) {
+			if (current.length != indexes.length) {
+				return false;
+			}
+			final Map<Index, Integer> map = new IdentityHashMap<Index, Integer>(
+					indexes.length * 2);
+			for (int i = 0; i < indexes.length; ++i) {
+				map.put(indexes[i], generations[i]);
+			}
+			for (Index index : current) {
+				final Integer generation = map.get(index);
+				if (generation == null
+						|| generation.intValue() != index.getGeneration()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns <code>true</code> if none of the indexes were modified since
+		 * this object was created.
+		 */
+		public boolean isCurrent() {
+			for (int i = 0; i < indexes.length; ++i) {
+				if (generations[i] != indexes[i].getGeneration()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static class Entry<R> {
+		final Object queryKey;
+		final char[] name;
+		final int matchRule;
+		final IndexState state;
+		final List<R> results;
+
+		Entry(Object queryKey, char[] name, int matchRule, IndexState state,
+				List<R> results) {
+			this.queryKey = queryKey;
+			this.name = name;
+			this.matchRule = matchRule;
+			this.state = state;
+			this.results = results;
+		}
+	}
+
+	private static final int MATCH_MASK = SearchPattern.R_EXACT_MATCH
+			| SearchPattern.R_PREFIX_MATCH | SearchPattern.R_PATTERN_MATCH
+			| SearchPattern.R_REGEXP_MATCH | SearchPattern.R_CAMELCASE_MATCH;
+
+	private final int entryLimit;
+	private final int resultLimit;
+
+	/**
+	 * Entries, the most recently used first.
+	 */
+	private final LinkedList<Entry<R>> entries = new LinkedList<Entry<R>>();
+
+	public NameSearchCache(int entryLimit, int resultLimit) {
+		this.entryLimit = entryLimit;
+		this.resultLimit = resultLimit;
+	}
+
+	/**
+	 * Returns the key to cache queries in the specified scope or
+	 * <code>null</code> if they should not be cached.
+	 */
+	public static Object createQueryKey(IDLTKSearchScope scope,
+			Object... qualifiers) {
+		if (!(scope instanceof DLTKSearchScope)) {
+			return null;
+		}
+		final Object scopeKey = ((DLTKSearchScope) scope).getContentKey();
+		if (scopeKey == null) {
+			return null;
+		}
+		final List<Object> key = new ArrayList<Object>(qualifiers.length + 1);
+		key.add(scopeKey);
+		for (Object qualifier : qualifiers) {
+			key.add(qualifier instanceof char[] ? new String(
+					(char[]) qualifier) : qualifier);
+		}
+		return key;
+	}
+
+	/**
+	 * Returns the cached results for the specified query or <code>null</code>
+	 * if the results are not available.
+	 *
+	 * @param indexes
+	 *            the indexes which are going to be queried
+	 */
+	public synchronized List<R> lookup(Object queryKey, char[] name,
+			int matchRule, Index[] indexes) {
+		Entry<R> candidate = null;
+		for (Iterator<Entry<R>> i = entries.iterator(); i.hasNext();) {
+			final Entry<R> entry = i.next();
+			if (!entry.queryKey.equals(queryKey)) {
+				continue;
+			}
+			if (!entry.state.isCurrent(indexes)) {
+				i.remove();
+				continue;
+			}
+			if (entry.matchRule == matchRule
+					&& CharOperation.equals(entry.name, name)) {
+				i.remove();
+				entries.addFirst(entry);
+				return entry.results;
+			}
+			if (candidate == null && covers(entry, name, matchRule)) {
+				candidate = entry;
+			}
+		}
+		if (candidate == null) {
+			return null;
+		}
+		final boolean caseSensitive = (matchRule & SearchPattern.R_CASE_SENSITIVE) != 0;
+		final boolean prefix = (matchRule & MATCH_MASK) == SearchPattern.R_PREFIX_MATCH;
+		final List<R> results = new ArrayList<R>();
+		for (R record : candidate.results) {
+			if (record.simpleName == null) {
+				continue;
+			}
+			if (prefix ? CharOperation.prefixEquals(name, record.simpleName,
+					caseSensitive) : CharOperation.equals(name,
+					record.simpleName, caseSensitive)) {
+				results.add(record);
+			}
+		}
+		add(new Entry<R>(queryKey, name, matchRule, candidate.state, results));
+		return results;
+	}
+
+	/**
+	 * Answers if the results of the specified entry include all the results of
+	 * the specified query, so they could be filtered instead of querying the
+	 * indexes.
+	 */
+	private static boolean covers(Entry<?> entry, char[] name, int matchRule) {
+		if (name == null) {
+			return false;
+		}
+		final int rule = matchRule & MATCH_MASK;
+		if (rule != SearchPattern.R_PREFIX_MATCH
+				&& rule != SearchPattern.R_EXACT_MATCH) {
+			return false;
+		}
+		if (entry.name == null) {
+			return true;
+		}
+		if ((entry.matchRule & MATCH_MASK) != SearchPattern.R_PREFIX_MATCH) {
+			return false;
+		}
+		if ((entry.matchRule & SearchPattern.R_CASE_SENSITIVE) != 0) {
+			return (matchRule & SearchPattern.R_CASE_SENSITIVE) != 0
+					&& CharOperation.prefixEquals(entry.name, name, true);
+		}
+		return CharOperation.prefixEquals(entry.name, name, false);
+	}
+
+	/**
+	 * Saves the results of the query, if the indexes were not modified while
+	 * the query was running.
+	 */
+	public synchronized void store(Object queryKey, char[] name,
+			int matchRule, IndexState state, List<R> results) {
+		if (results.size() > resultLimit || !state.isCurrent()) {
+			return;
+		}
+		for (Iterator<Entry<R>> i = entries.iterator(); i.hasNext();) {
+			final Entry<R> entry = i.next();
+			if (entry.queryKey.equals(queryKey)
+					&& entry.matchRule == matchRule
+					&& CharOperation.equals(entry.name, name)) {
+				i.remove();
+			}
+		}
+		add(new Entry<R>(queryKey, name, matchRule, state, results));
+	}
+
+	private void add(Entry<R> entry) {
+		entries.addFirst(entry);
+		while (entries.size() > entryLimit) {
+			entries.removeLast();
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+}
@@ -90,6 +90,14 @@ public class PatternSearchJob implements IJob {
 		}
 	}
 
+	/**
+	 * Answers if all the indexes were available during the last
+	 * {@link #getIndexes(IProgressMonitor)} call.
+	 */
+	public boolean areIndexesReady() {
+		return areIndexesReady;
+	}
+
 	public Index[] getIndexes(IProgressMonitor progressMonitor) {
 		// acquire the in-memory indexes on the fly
 		IPath[] indexLocations = this.participant.selectIndexes(this.pattern,
@@ -86,6 +86,11 @@ import org.eclipse.swt.widgets.TableColumn;
 public abstract class InterpretersBlock implements
 		IAddInterpreterDialogRequestor, ISelectionProvider {
 
+	/**
+	 * The number of the threads searching for the interpreters
+	 */
+	private static final int SEARCH_THREADS = 4;
+
 	/**
 	 * This block's control
 	 */
@@ -714,6 +719,24 @@ public abstract class InterpretersBlock implements
 
 		// search
 		final InterpreterSearcher searcher = new InterpreterSearcher();
+		final int[] widths = { 15, 15 };
+		final boolean[] added = { false };
+		// the directories are listed concurrently and the interpreters are
+		// shown as soon as they are found
+		searcher.setThreadCount(SEARCH_THREADS);
+		searcher.setListener(new InterpreterSearcher.IInterpreterSearchListener() {
+			public void interpreterFound(final IFileHandle file,
+					final IInterpreterInstallType type) {
+				fTable.getDisplay().asyncExec(new Runnable() {
+					public void run() {
+						if (!fTable.isDisposed()
+								&& addFoundInterpreter(file, type, widths)) {
+							added[0] = true;
+						}
+					}
+				});
+			}
+		});
 
 		final IEnvironment currentEnvironment = getCurrentEnvironment();
 
@@ -749,7 +772,6 @@ public abstract class InterpretersBlock implements
 		} catch (InterruptedException e) {
 			return; // cancelled
 		}
-		final int[] widths = { 15, 15 };
 		if (!searcher.hasResults()) {
 			MessageDialog.openInformation(getShell(),
 					InterpretersMessages.InstalledInterpretersBlock_12,
@@ -758,35 +780,13 @@ public abstract class InterpretersBlock implements
 			final IFileHandle[] locations = searcher.getFoundFiles();
 			final IInterpreterInstallType[] types = searcher
 					.getFoundInstallTypes();
-			boolean added = false;
 			for (int i = 0; i < locations.length; ++i) {
-				final IFileHandle file = locations[i];
-				final IInterpreterInstallType type = types[i];
-				if (isDuplicate(file)) {
-					continue;
+				// the ones not added by the listener yet
+				if (addFoundInterpreter(locations[i], types[i], widths)) {
+					added[0] = true;
 				}
-				added = true;
-
-				IInterpreterInstall interpreter = new InterpreterStandin(type,
-						createUniqueId(type));
-				final String name = file.getName();
-
-				String nameCopy = name;
-				int j = 1;
-				while (isDuplicateName(nameCopy, null)) {
-					nameCopy = name + '(' + (j++) + ')';
-				}
-				if (widths[0] < nameCopy.length()) {
-					widths[0] = nameCopy.length() + 2;
-				}
-				if (widths[1] < type.getName().length()) {
-					widths[1] = type.getName().length() + 2;
-				}
-				interpreter.setName(nameCopy);
-				interpreter.setInstallLocation(file);
-				interpreterAdded(interpreter);
 			}
-			if (!added) {
+			if (!added[0]) {
 				MessageDialog.openInformation(getShell(),
 						InterpretersMessages.InstalledInterpretersBlock_12,
 						InterpretersMessages.InstalledInterpretersBlock_113);
@@ -807,6 +807,32 @@ public abstract class InterpretersBlock implements
 		}
 	}
 
+	private boolean addFoundInterpreter(IFileHandle file,
+			IInterpreterInstallType type, int[] widths) {
+		if (isDuplicate(file)) {
+			return false;
+		}
+		IInterpreterInstall interpreter = new InterpreterStandin(type,
+				createUniqueId(type));
+		final String name = file.getName();
+
+		String nameCopy = name;
+		int j = 1;
+		while (isDuplicateName(nameCopy, null)) {
+			nameCopy = name + '(' + (j++) + ')';
+		}
+		if (widths[0] < nameCopy.length()) {
+			widths[0] = nameCopy.length() + 2;
+		}
+		if (widths[1] < type.getName().length()) {
+			widths[1] = type.getName().length() + 2;
+		}
+		interpreter.setName(nameCopy);
+		interpreter.setInstallLocation(file);
+		interpreterAdded(interpreter);
+		return true;
+	}
+
 	protected Shell getShell() {
 		return getControl().getShell();
 	}
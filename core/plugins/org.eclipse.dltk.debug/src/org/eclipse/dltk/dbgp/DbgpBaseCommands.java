@@ -11,6 +11,8 @@ package org.eclipse.dltk.dbgp;
 
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.dbgp.internal.DbgpTransactionManager;
+import org.eclipse.dltk.debug.core.DebugOption;
+import org.eclipse.dltk.debug.core.IDebugOptions;
 import org.w3c.dom.Element;
 
 public class DbgpBaseCommands {
@@ -43,6 +45,24 @@ public class DbgpBaseCommands {
 		return communicator.communicate(request);
 	}
 
+	/**
+	 * Sends the request without waiting for the response, see
+	 * {@link IDbgpCommunicator#communicateAsync(DbgpRequest)}
+	 */
+	protected IDbgpResponseFuture communicateAsync(DbgpRequest request)
+			throws DbgpException {
+		return communicator.communicateAsync(request);
+	}
+
+	/**
+	 * Answers if the requests sent with {@link #communicateAsync(DbgpRequest)}
+	 * are pipelined, otherwise they are performed one by one.
+	 */
+	protected boolean isPipelined() {
+		final IDebugOptions options = communicator.getDebugOptions();
+		return options != null && options.get(DebugOption.DBGP_ASYNC);
+	}
+
 	protected void send(DbgpRequest request) throws DbgpException {
 		communicator.send(request);
 	}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+
+ *******************************************************************************/
+package org.eclipse.dltk.dbgp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The protocol statistics of the single debugging engine connection: the
+ * round-trip latencies of the commands, the traffic, the time spent parsing
+ * the received packets and the time the requests were waiting for the engine
+ * to become available. All the times are in nanoseconds.
+ *
+ * <p>
+ * The values are updated by the DBGP layer without locking, so the reader may
+ * observe the values of the different counters not exactly matching each
+ * other.
+ * </p>
+ *
+ * @since 5.1
+ */
+public class DbgpMetrics {
+
+	/**
+	 * The upper bounds (exclusive, in milliseconds) of the latency histogram
+	 * buckets, the last bucket counts the longer commands.
+	 */
+	private static final long[] BUCKET_BOUNDS = { 1, 2, 5, 10, 20, 50, 100,
+			200, 500, 1000 };
+
+	private static final long NANOS_PER_MILLI = 1000000;
+
+	/**
+	 * Returns the upper bounds of the latency histogram buckets in
+	 * milliseconds. There is one more bucket than the bounds.
+	 */
+	public static long[] getBucketBounds() {
+		return BUCKET_BOUNDS.clone();
+	}
+
+	/**
+	 * The statistics of the single command
+	 */
+	public static class CommandMetrics {
+		private final String command;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalTime = new AtomicLong();
+		private final AtomicLong maxTime = new AtomicLong();
+		private final AtomicLongArray histogram = new AtomicLongArray(
+				BUCKET_BOUNDS.length + 1);
+
+		CommandMetrics(String command) {
+			this.command = command;
+		}
+
+		void record(long time) {
+			count.incrementAndGet();
+			totalTime.addAndGet(time);
+			long max;
+			while (time > (max = maxTime.get())) {
+				if (maxTime.compareAndSet(max, time)) {
+					break;
+				}
+			}
+			final long millis = time / NANOS_PER_MILLI;
+			int bucket = 0;
+			while (bucket < BUCKET_BOUNDS.length
+					&& millis >= BUCKET_BOUNDS[bucket]) {
+				++bucket;
+			}
+			histogram.incrementAndGet(bucket);
+		}
+
+		public String getCommand() {
+			return command;
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		public long getTotalTime() {
+			return totalTime.get();
+		}
+
+		public long getMaxTime() {
+			return maxTime.get();
+		}
+
+		/**
+		 * Returns the number of commands in each latency bucket
+		 *
+		 * @see DbgpMetrics#getBucketBounds()
+		 */
+		public long[] getHistogram() {
+			final long[] result = new long[histogram.length()];
+			for (int i = 0; i < result.length; ++i) {
+				result[i] = histogram.get(i);
+			}
+			return result;
+		}
+	}
+
+	private final int id;
+	private final long created = System.currentTimeMillis();
+	private volatile String name;
+
+	private final ConcurrentMap<String, CommandMetrics> commands = new ConcurrentHashMap<String, CommandMetrics>();
+
+	private final AtomicLong bytesIn = new AtomicLong();
+	private final AtomicLong bytesOut = new AtomicLong();
+	private final AtomicLong packetsIn = new AtomicLong();
+	private final AtomicLong packetsOut = new AtomicLong();
+	private final AtomicLong parseTime = new AtomicLong();
+	private final AtomicLong queueWaitTime = new AtomicLong();
+	private final AtomicLong queueWaitCount = new AtomicLong();
+
+	public DbgpMetrics(int id) {
+		this.id = id;
+		this.name = "Session " + id; //$NON-NLS-1$
+	}
+
+	/**
+	 * Records the round-trip time of the command
+	 */
+	public void commandCompleted(String command, long time) {
+		CommandMetrics metrics = commands.get(command);
+		if (metrics == null) {
+			final CommandMetrics created = new CommandMetrics(command);
+			metrics = commands.putIfAbsent(command, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		metrics.record(time);
+	}
+
+	public void packetSent(int size) {
+		packetsOut.incrementAndGet();
+		bytesOut.addAndGet(size);
+	}
+
+	public void packetReceived(int size, long parseTime) {
+		packetsIn.incrementAndGet();
+		bytesIn.addAndGet(size);
+		this.parseTime.addAndGet(parseTime);
+	}
+
+	/**
+	 * Records the time the request was waiting for the previous request to
+	 * complete before it could be sent
+	 */
+	public void requestQueued(long time) {
+		queueWaitCount.incrementAndGet();
+		queueWaitTime.addAndGet(time);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the time this connection was accepted
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the statistics of the commands sorted by the total time
+	 * descending, so the commands dominating the session are first
+	 */
+	public List<CommandMetrics> getCommands() {
+		final List<CommandMetrics> result = new ArrayList<CommandMetrics>(
+				commands.values());
+		Collections.sort(result, new Comparator<CommandMetrics>() {
+			public int compare(CommandMetrics o1, CommandMetrics o2) {
+				final long t1 = o1.getTotalTime();
+				final long t2 = o2.getTotalTime();
+				return t1 < t2 ? 1 : t1 > t2 ? -1 : 0;
+			}
+		});
+		return result;
+	}
+
+	public long getBytesIn() {
+		return bytesIn.get();
+	}
+
+	public long getBytesOut() {
+		return bytesOut.get();
+	}
+
+	public long getPacketsIn() {
+		return packetsIn.get();
+	}
+
+	public long getPacketsOut() {
+		return packetsOut.get();
+	}
+
+	public long getParseTime() {
+		return parseTime.get();
+	}
+
+	public long getQueueWaitTime() {
+		return queueWaitTime.get();
+	}
+
+	public long getQueueWaitCount() {
+		return queueWaitCount.get();
+	}
+
+	public String toString() {
+		return name;
+	}
+}
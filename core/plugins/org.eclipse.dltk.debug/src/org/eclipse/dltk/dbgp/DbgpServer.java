@@ -1,16 +1,21 @@
 package org.eclipse.dltk.dbgp;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.dltk.dbgp.internal.DbgpDebugingEngine;
+import org.eclipse.dltk.dbgp.internal.DbgpMultiplexedEngine;
+import org.eclipse.dltk.dbgp.internal.DbgpMultiplexer;
 import org.eclipse.dltk.dbgp.internal.DbgpSession;
 import org.eclipse.dltk.dbgp.internal.DbgpWorkingThread;
+import org.eclipse.dltk.dbgp.internal.IDbgpDebugingEngine;
 import org.eclipse.dltk.debug.core.DLTKDebugPlugin;
 
 public class DbgpServer extends DbgpWorkingThread {
@@ -19,6 +24,12 @@ public class DbgpServer extends DbgpWorkingThread {
 
 	private final int clientTimeout;
 
+	/**
+	 * If the accepted connections are served by the shared
+	 * {@link DbgpMultiplexer} instead of the dedicated threads
+	 */
+	private final boolean multiplexed;
+
 	public static int findAvailablePort(int fromPort, int toPort) {
 		if (fromPort > toPort) {
 			throw new IllegalArgumentException(
@@ -81,14 +92,21 @@ public class DbgpServer extends DbgpWorkingThread {
 
 	protected void workingCycle() throws Exception, IOException {
 		try {
-			server = new ServerSocket(port);
+			if (multiplexed) {
+				server = ServerSocketChannel.open().socket();
+				server.bind(new InetSocketAddress(port));
+			} else {
+				server = new ServerSocket(port);
+			}
 			synchronized (stateLock) {
 				state = STATE_STARTED;
 				stateLock.notifyAll();
 			}
 			while (!server.isClosed()) {
 				final Socket client = server.accept();
-				client.setSoTimeout(clientTimeout);
+				if (!multiplexed) {
+					client.setSoTimeout(clientTimeout);
+				}
 				createSession(client);
 			}
 		} finally {
@@ -105,11 +123,16 @@ public class DbgpServer extends DbgpWorkingThread {
 	private static final class DbgpSessionJob extends Job {
 		private final Socket client;
 		private final IDbgpServerListener listener;
+		private final boolean multiplexed;
+		private final int clientTimeout;
 
-		private DbgpSessionJob(Socket client, IDbgpServerListener listener) {
+		private DbgpSessionJob(Socket client, IDbgpServerListener listener,
+				boolean multiplexed, int clientTimeout) {
 			super(Messages.DbgpServer_acceptingDebuggingEngineConnection);
 			this.client = client;
 			this.listener = listener;
+			this.multiplexed = multiplexed;
+			this.clientTimeout = clientTimeout;
 			setSystem(true);
 		}
 
@@ -118,30 +141,58 @@ public class DbgpServer extends DbgpWorkingThread {
 		}
 
 		protected IStatus run(IProgressMonitor monitor) {
-			DbgpDebugingEngine engine = null;
+			IDbgpDebugingEngine engine = null;
 			try {
-				engine = new DbgpDebugingEngine(client);
+				if (multiplexed) {
+					engine = new DbgpMultiplexedEngine(client.getChannel(),
+							DbgpMultiplexer.getDefault(), clientTimeout);
+				} else {
+					engine = new DbgpDebugingEngine(client);
+				}
 				DbgpSession session = new DbgpSession(engine);
 				listener.clientConnected(session);
 			} catch (Exception e) {
 				DLTKDebugPlugin.log(e);
-				if (engine != null)
+				if (engine != null) {
 					engine.requestTermination();
+				} else {
+					try {
+						client.close();
+					} catch (IOException e1) {
+						// ignore
+					}
+				}
 			}
 			return Status.OK_STATUS;
 		}
 	}
 
 	private void createSession(final Socket client) {
-		Job job = new DbgpSessionJob(client, listener);
+		Job job = new DbgpSessionJob(client, listener, multiplexed,
+				clientTimeout);
 		job.schedule();
 	}
 
 	public DbgpServer(int port, int clientTimeout) {
+		this(port, clientTimeout, false);
+	}
+
+	/**
+	 * @param port
+	 * @param clientTimeout
+	 *            the read timeout of the accepted connections
+	 * @param multiplexed
+	 *            if the accepted connections should be served by the single
+	 *            selector thread and the bounded pool of workers instead of
+	 *            the thread per connection
+	 * @since 5.1
+	 */
+	public DbgpServer(int port, int clientTimeout, boolean multiplexed) {
 		super("DbgpServer"); //$NON-NLS-1$
 
 		this.port = port;
 		this.clientTimeout = clientTimeout;
+		this.multiplexed = multiplexed;
 	}
 
 	/**
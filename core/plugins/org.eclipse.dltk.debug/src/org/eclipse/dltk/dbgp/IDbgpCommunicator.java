@@ -16,5 +16,15 @@ import org.w3c.dom.Element;
 public interface IDbgpCommunicator extends IDebugConfigurable {
 	Element communicate(DbgpRequest request) throws DbgpException;
 
+	/**
+	 * Sends the request and returns immediately, so multiple requests could be
+	 * in flight at the same time. Responses are matched to the requests by
+	 * the transaction id. If the debugging engine does not support the
+	 * pipelined requests, then the request is performed synchronously and the
+	 * completed future is returned.
+	 */
+	IDbgpResponseFuture communicateAsync(DbgpRequest request)
+			throws DbgpException;
+
 	void send(DbgpRequest request) throws DbgpException;
 }
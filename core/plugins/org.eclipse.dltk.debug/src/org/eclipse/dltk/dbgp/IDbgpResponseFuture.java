@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ 
+ *******************************************************************************/
+package org.eclipse.dltk.dbgp;
+
+import org.eclipse.dltk.dbgp.exceptions.DbgpException;
+import org.w3c.dom.Element;
+
+/**
+ * The pending response of the request sent with
+ * {@link IDbgpCommunicator#communicateAsync(DbgpRequest)}.
+ */
+public interface IDbgpResponseFuture {
+
+	DbgpRequest getRequest();
+
+	/**
+	 * Answers if the response is already available
+	 */
+	boolean isDone();
+
+	/**
+	 * Waits for the response and returns it. Throws the same exceptions as
+	 * {@link IDbgpCommunicator#communicate(DbgpRequest)}.
+	 */
+	Element get() throws DbgpException;
+
+	/**
+	 * Notifies that the response is not needed anymore, so it is dropped when
+	 * received.
+	 */
+	void cancel();
+}
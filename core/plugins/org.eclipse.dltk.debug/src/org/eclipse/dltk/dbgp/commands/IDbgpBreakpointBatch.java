@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ 
+ *******************************************************************************/
+package org.eclipse.dltk.dbgp.commands;
+
+import java.net.URI;
+
+import org.eclipse.dltk.dbgp.breakpoints.DbgpBreakpointConfig;
+import org.eclipse.dltk.dbgp.exceptions.DbgpException;
+
+/**
+ * Sets multiple breakpoints without waiting for each response: the
+ * <code>breakpoint_set</code> commands are sent immediately and the
+ * identifiers of the breakpoints are retrieved later.
+ * 
+ * @see IDbgpBreakpointCommands#createBreakpointBatch()
+ */
+public interface IDbgpBreakpointBatch {
+
+	interface IBreakpointId {
+		/**
+		 * Waits for the response and returns the identifier of the breakpoint
+		 */
+		String get() throws DbgpException;
+
+		/**
+		 * Notifies the identifier is not needed anymore, so the response is
+		 * dropped when received. Does nothing if the response is already
+		 * retrieved.
+		 */
+		void cancel();
+	}
+
+	IBreakpointId setLineBreakpoint(URI uri, int lineNumber,
+			DbgpBreakpointConfig config) throws DbgpException;
+
+	IBreakpointId setCallBreakpoint(URI uri, String function,
+			DbgpBreakpointConfig config) throws DbgpException;
+
+	IBreakpointId setReturnBreakpoint(URI uri, String function,
+			DbgpBreakpointConfig config) throws DbgpException;
+
+	IBreakpointId setExceptionBreakpoint(String exception,
+			DbgpBreakpointConfig config) throws DbgpException;
+
+	IBreakpointId setConditionalBreakpoint(URI uri, int lineNumber,
+			DbgpBreakpointConfig config) throws DbgpException;
+
+	IBreakpointId setWatchBreakpoint(URI uri, int line,
+			DbgpBreakpointConfig config) throws DbgpException;
+}
@@ -53,4 +53,7 @@ public interface IDbgpBreakpointCommands {
 	IDbgpBreakpoint getBreakpoint(String id) throws DbgpException;
 
 	IDbgpBreakpoint[] getBreakpoints() throws DbgpException;
+
+	// Multiple breakpoints
+	IDbgpBreakpointBatch createBreakpointBatch();
 }
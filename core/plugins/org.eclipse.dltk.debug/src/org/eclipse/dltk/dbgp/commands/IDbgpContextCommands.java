@@ -25,4 +25,13 @@ public interface IDbgpContextCommands {
 
 	IDbgpProperty[] getContextProperties(int stackDepth, int contextId)
 			throws DbgpException;
+
+	/**
+	 * Returns the properties of the specified contexts at the specified stack
+	 * depth. The context names and all the contexts are requested at once if
+	 * the engine supports pipelined requests. Contexts which are not available
+	 * at the specified depth are not included in the result.
+	 */
+	Map<Integer, IDbgpProperty[]> getContextProperties(int stackDepth,
+			int[] contextIds) throws DbgpException;
 }
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ 
+ *******************************************************************************/
+package org.eclipse.dltk.dbgp.commands;
+
+import org.eclipse.dltk.dbgp.IDbgpProperty;
+import org.eclipse.dltk.dbgp.exceptions.DbgpException;
+
+/**
+ * Optionally implemented by the {@link IDbgpPropertyCommands} able to request
+ * several pages of the property at once. The clients should fall back to
+ * {@link IDbgpPropertyCommands#getProperty(int, String, int)} otherwise.
+ * 
+ * @since 5.1
+ */
+public interface IDbgpPropertyPageCommands {
+
+	/**
+	 * Returns the specified pages of the property, all the pages are requested
+	 * at once if the engine supports pipelined requests. The first page is
+	 * required and its failure is thrown, the other pages the engine failed
+	 * to return are <code>null</code> in the result.
+	 */
+	IDbgpProperty[] getPropertyPages(int[] pages, String name, int stackDepth)
+			throws DbgpException;
+
+	/**
+	 * Answers if the pages are requested at once, so requesting the
+	 * neighbouring pages together with the required one costs no additional
+	 * round trips. Otherwise the pages are requested one by one.
+	 */
+	boolean isPipelined();
+
+}
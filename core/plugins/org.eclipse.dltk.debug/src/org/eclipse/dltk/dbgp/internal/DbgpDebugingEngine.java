@@ -16,6 +16,7 @@ import java.net.Socket;
 
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.dbgp.DbgpMetrics;
 import org.eclipse.dltk.dbgp.DbgpRequest;
 import org.eclipse.dltk.dbgp.IDbgpRawListener;
 import org.eclipse.dltk.dbgp.IDbgpRawPacket;
@@ -26,6 +27,7 @@ import org.eclipse.dltk.dbgp.internal.packets.DbgpResponsePacket;
 import org.eclipse.dltk.dbgp.internal.packets.DbgpStreamPacket;
 import org.eclipse.dltk.dbgp.internal.packets.IDbgpRawLogger;
 import org.eclipse.dltk.debug.core.ExtendedDebugEventDetails;
+import org.eclipse.dltk.internal.debug.core.model.DbgpMetricsService;
 import org.eclipse.dltk.internal.debug.core.model.DebugEventHelper;
 
 public class DbgpDebugingEngine extends DbgpTermination implements
@@ -41,6 +43,8 @@ public class DbgpDebugingEngine extends DbgpTermination implements
 
 	private final int id;
 
+	private final DbgpMetrics metrics;
+
 	private static int lastId = 0;
 	private static final Object idLock = new Object();
 
@@ -49,16 +53,24 @@ public class DbgpDebugingEngine extends DbgpTermination implements
 		synchronized (idLock) {
 			id = ++lastId;
 		}
+		metrics = new DbgpMetrics(id);
+		DbgpMetricsService.register(metrics);
 
 		receiver = new DbgpPacketReceiver(new BufferedInputStream(socket
 				.getInputStream()));
 
 		receiver.setLogger(new IDbgpRawLogger() {
 			public void log(IDbgpRawPacket output) {
-				firePacketReceived(output);
+				if (!listeners.isEmpty()) {
+					// the receiver reuses the buffer for the next packet, the
+					// listeners could keep this one
+					firePacketReceived(((DbgpRawPacket) output).copy());
+				}
 			}
 		});
 
+		receiver.setMetrics(metrics);
+
 		receiver.addTerminationListener(this);
 
 		receiver.start();
@@ -71,6 +83,8 @@ public class DbgpDebugingEngine extends DbgpTermination implements
 				firePacketSent(output);
 			}
 		});
+
+		sender.setMetrics(metrics);
 		/*
 		 * FIXME this event is delivered on the separate thread, so sometimes
 		 * logging misses a few initial packets.
@@ -94,6 +108,14 @@ public class DbgpDebugingEngine extends DbgpTermination implements
 		return receiver.getResponsePacket(transactionId, timeout);
 	}
 
+	public boolean hasResponsePacket(int transactionId) {
+		return receiver.hasResponsePacket(transactionId);
+	}
+
+	public void discardResponsePacket(int transactionId) {
+		receiver.discardResponsePacket(transactionId);
+	}
+
 	public void sendCommand(DbgpRequest command) throws IOException {
 		sender.sendCommand(command);
 	}
@@ -156,6 +178,10 @@ public class DbgpDebugingEngine extends DbgpTermination implements
 		}
 	}
 
+	public DbgpMetrics getMetrics() {
+		return metrics;
+	}
+
 	public void addRawListener(IDbgpRawListener listener) {
 		listeners.add(listener);
 	}
@@ -0,0 +1,463 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+
+ *******************************************************************************/
+package org.eclipse.dltk.dbgp.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+
+import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.dbgp.DbgpMetrics;
+import org.eclipse.dltk.dbgp.DbgpRequest;
+import org.eclipse.dltk.dbgp.IDbgpRawListener;
+import org.eclipse.dltk.dbgp.IDbgpRawPacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpNotifyPacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpPacketReceiver;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpResponsePacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpStreamPacket;
+import org.eclipse.dltk.dbgp.internal.packets.IDbgpRawLogger;
+import org.eclipse.dltk.debug.core.DLTKDebugPlugin;
+import org.eclipse.dltk.debug.core.ExtendedDebugEventDetails;
+import org.eclipse.dltk.internal.debug.core.model.DbgpMetricsService;
+import org.eclipse.dltk.internal.debug.core.model.DebugEventHelper;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * The debugging engine connection served by the {@link DbgpMultiplexer}
+ * instead of the dedicated receiver thread and the blocking streams. It
+ * behaves the same way as {@link DbgpDebugingEngine} for the clients.
+ */
+public class DbgpMultiplexedEngine extends DbgpTermination implements
+		IDbgpDebugingEngine {
+	/**
+	 * The number of the received packets waiting to be delivered, when it is
+	 * reached the channel is not read until the workers catch up.
+	 */
+	private static final int MAX_INCOMING = 256;
+
+	/**
+	 * The number of the waiting packets the reading is resumed at
+	 */
+	private static final int RESUME_INCOMING = MAX_INCOMING / 2;
+
+	private final SocketChannel channel;
+
+	private final DbgpMultiplexer multiplexer;
+
+	private final DbgpPacketReceiver receiver;
+
+	private final Object terminatedLock = new Object();
+	private boolean terminated = false;
+
+	private final int id;
+
+	private final DbgpMetrics metrics;
+
+	/**
+	 * The maximum time in milliseconds to wait for the data or 0 to wait
+	 * infinitely
+	 */
+	private final int readTimeout;
+
+	/**
+	 * The time the data were received or the reading was resumed last time
+	 */
+	private volatile long lastReceived;
+
+	private static int lastId = 0;
+	private static final Object idLock = new Object();
+
+	// Decoding state, accessed by the selector thread only
+	private static final int STATE_SIZE = 0;
+	private static final int STATE_BODY = 1;
+	private static final int STATE_TERMINATOR = 2;
+
+	private int state = STATE_SIZE;
+	private int size = 0;
+	private byte[] body;
+	private int offset;
+
+	/**
+	 * Received packets waiting to be delivered
+	 */
+	private final LinkedList<DbgpRawPacket> incoming = new LinkedList<DbgpRawPacket>();
+	private boolean dispatching = false;
+	private boolean readSuspended = false;
+
+	/**
+	 * If the termination should be delivered after the received packets
+	 */
+	private boolean terminationPending = false;
+	private Exception terminationCause;
+
+	/**
+	 * Encoded requests waiting to be written
+	 */
+	private final LinkedList<ByteBuffer> outgoing = new LinkedList<ByteBuffer>();
+
+	private final Runnable dispatcher = new Runnable() {
+		public void run() {
+			dispatchPackets();
+		}
+	};
+
+	public DbgpMultiplexedEngine(SocketChannel channel,
+			DbgpMultiplexer multiplexer) throws IOException {
+		this(channel, multiplexer, 0);
+	}
+
+	/**
+	 * @param readTimeout
+	 *            the maximum time in milliseconds to wait for the data, the
+	 *            connection is terminated with the
+	 *            {@link SocketTimeoutException} when it elapses. 0 means to
+	 *            wait infinitely.
+	 * @since 5.1
+	 */
+	public DbgpMultiplexedEngine(SocketChannel channel,
+			DbgpMultiplexer multiplexer, int readTimeout) throws IOException {
+		this.channel = channel;
+		this.multiplexer = multiplexer;
+		this.readTimeout = readTimeout;
+		this.lastReceived = System.currentTimeMillis();
+		synchronized (idLock) {
+			id = ++lastId;
+		}
+		metrics = new DbgpMetrics(id);
+		DbgpMetricsService.register(metrics);
+
+		receiver = new DbgpPacketReceiver();
+		receiver.setLogger(new IDbgpRawLogger() {
+			public void log(IDbgpRawPacket output) {
+				firePacketReceived(output);
+			}
+		});
+		receiver.setMetrics(metrics);
+
+		channel.configureBlocking(false);
+		multiplexer.register(this);
+
+		DebugEventHelper.fireExtendedEvent(this,
+				ExtendedDebugEventDetails.DGBP_NEW_CONNECTION);
+	}
+
+	SocketChannel getChannel() {
+		return channel;
+	}
+
+	Runnable getDispatcher() {
+		return dispatcher;
+	}
+
+	/**
+	 * Splits the received bytes into the packets. Called by the selector
+	 * thread.
+	 */
+	void received(ByteBuffer buffer) throws IOException {
+		lastReceived = System.currentTimeMillis();
+		while (buffer.hasRemaining()) {
+			switch (state) {
+			case STATE_SIZE: {
+				final int b = buffer.get();
+				if (b == 0) {
+					if (size == 0) {
+						throw new IOException(
+								Messages.DbgpRawPacket_zeroPacketSize);
+					}
+					body = new byte[size];
+					offset = 0;
+					state = STATE_BODY;
+				} else if (b >= '0' && b <= '9') {
+					size = size * 10 + (b - '0');
+				} else {
+					final String msg = NLS.bind(
+							Messages.DbgpRawPacket_invalidCharInPacketSize,
+							Integer.toString(b & 0xFF));
+					DLTKDebugPlugin.logWarning(msg);
+					throw new IOException(msg);
+				}
+				break;
+			}
+			case STATE_BODY: {
+				final int count = Math.min(size - offset, buffer.remaining());
+				buffer.get(body, offset, count);
+				offset += count;
+				if (offset == size) {
+					state = STATE_TERMINATOR;
+				}
+				break;
+			}
+			case STATE_TERMINATOR:
+				if (buffer.get() != 0) {
+					throw new IOException(
+							Messages.DbgpRawPacket_noTerminationByte);
+				}
+				packetReceived(new DbgpRawPacket(size, body));
+				body = null;
+				size = 0;
+				state = STATE_SIZE;
+				break;
+			}
+		}
+	}
+
+	private void packetReceived(DbgpRawPacket packet) {
+		synchronized (incoming) {
+			incoming.add(packet);
+			if (incoming.size() >= MAX_INCOMING) {
+				readSuspended = true;
+			}
+			if (dispatching) {
+				return;
+			}
+			dispatching = true;
+		}
+		multiplexer.dispatchRequested(this);
+	}
+
+	/**
+	 * Answers if the channel should not be read because too many received
+	 * packets are waiting to be delivered.
+	 */
+	boolean isReadSuspended() {
+		synchronized (incoming) {
+			return readSuspended;
+		}
+	}
+
+	/**
+	 * Answers if no data were received for longer than the read timeout.
+	 * Called by the selector thread.
+	 */
+	boolean isTimedOut(long now) {
+		return readTimeout > 0 && !isReadSuspended()
+				&& now - lastReceived > readTimeout;
+	}
+
+	/**
+	 * Returns the operations the selector should wait for.
+	 */
+	int getInterestOps() {
+		int ops = isReadSuspended() ? 0 : SelectionKey.OP_READ;
+		synchronized (outgoing) {
+			if (!outgoing.isEmpty()) {
+				ops |= SelectionKey.OP_WRITE;
+			}
+		}
+		return ops;
+	}
+
+	/**
+	 * Delivers the received packets and then the termination if it was
+	 * requested. Called by the worker thread, only one worker delivers the
+	 * packets of this engine at a time.
+	 */
+	private void dispatchPackets() {
+		for (;;) {
+			final DbgpRawPacket packet;
+			boolean resume = false;
+			synchronized (incoming) {
+				if (incoming.isEmpty()) {
+					if (terminationPending) {
+						terminationPending = false;
+						break;
+					}
+					dispatching = false;
+					return;
+				}
+				packet = incoming.removeFirst();
+				if (readSuspended && incoming.size() <= RESUME_INCOMING) {
+					readSuspended = false;
+					lastReceived = System.currentTimeMillis();
+					resume = true;
+				}
+			}
+			if (resume) {
+				multiplexer.interestChanged(this);
+			}
+			try {
+				receiver.dispatch(packet);
+			} catch (Exception e) {
+				DLTKDebugPlugin.log(e);
+			}
+		}
+		final Exception cause;
+		synchronized (incoming) {
+			cause = terminationCause;
+			terminationCause = null;
+		}
+		try {
+			receiver.terminate();
+			fireObjectTerminated(cause);
+		} finally {
+			synchronized (incoming) {
+				dispatching = false;
+			}
+		}
+	}
+
+	/**
+	 * Writes the pending requests. Called by the selector thread.
+	 */
+	void write(SelectionKey key) throws IOException {
+		synchronized (outgoing) {
+			while (!outgoing.isEmpty()) {
+				final ByteBuffer buffer = outgoing.getFirst();
+				channel.write(buffer);
+				if (buffer.hasRemaining()) {
+					break;
+				}
+				outgoing.removeFirst();
+			}
+		}
+		key.interestOps(getInterestOps());
+	}
+
+	/**
+	 * Called by the selector thread when no data were received for longer
+	 * than the read timeout.
+	 */
+	void timedOut() {
+		channelClosed(new SocketTimeoutException());
+	}
+
+	/**
+	 * Called by the selector thread when the connection is closed or failed.
+	 */
+	void channelClosed(Exception e) {
+		try {
+			channel.close();
+		} catch (IOException e1) {
+			if (DLTKCore.DEBUG) {
+				e1.printStackTrace();
+			}
+		}
+		terminate(e);
+	}
+
+	private void terminate(Exception e) {
+		synchronized (terminatedLock) {
+			if (terminated) {
+				return;
+			}
+			terminated = true;
+			terminatedLock.notifyAll();
+		}
+		// delivered by the worker after the packets already received
+		synchronized (incoming) {
+			terminationPending = true;
+			terminationCause = e;
+			if (dispatching) {
+				return;
+			}
+			dispatching = true;
+		}
+		multiplexer.dispatchRequested(this);
+	}
+
+	/**
+	 * Delivers the notifications and the stream packets to the specified
+	 * handler by the worker threads of the multiplexer, so no thread waits
+	 * for them.
+	 * 
+	 * @since 5.1
+	 */
+	public void setPacketHandler(DbgpPacketReceiver.IPacketHandler handler) {
+		receiver.setPacketHandler(handler);
+	}
+
+	public DbgpStreamPacket getStreamPacket() throws IOException,
+			InterruptedException {
+		return receiver.getStreamPacket();
+	}
+
+	public DbgpNotifyPacket getNotifyPacket() throws IOException,
+			InterruptedException {
+		return receiver.getNotifyPacket();
+	}
+
+	public DbgpResponsePacket getResponsePacket(int transactionId, int timeout)
+			throws IOException, InterruptedException {
+		return receiver.getResponsePacket(transactionId, timeout);
+	}
+
+	public boolean hasResponsePacket(int transactionId) {
+		return receiver.hasResponsePacket(transactionId);
+	}
+
+	public void discardResponsePacket(int transactionId) {
+		receiver.discardResponsePacket(transactionId);
+	}
+
+	public void sendCommand(DbgpRequest command) throws IOException {
+		firePacketSent(command);
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		command.writeTo(output);
+		output.write(0);
+		metrics.packetSent(output.size());
+		synchronized (outgoing) {
+			if (!channel.isOpen()) {
+				throw new IOException();
+			}
+			outgoing.add(ByteBuffer.wrap(output.toByteArray()));
+		}
+		multiplexer.interestChanged(this);
+	}
+
+	// IDbgpTerminataion
+	public void requestTermination() {
+		// the selector thread notices the closed channel, but not always
+		channelClosed(null);
+	}
+
+	public void waitTerminated() throws InterruptedException {
+		synchronized (terminatedLock) {
+			while (!terminated) {
+				terminatedLock.wait();
+			}
+		}
+	}
+
+	private final ListenerList listeners = new ListenerList();
+
+	protected void firePacketReceived(IDbgpRawPacket content) {
+		Object[] list = listeners.getListeners();
+
+		for (int i = 0; i < list.length; ++i) {
+			((IDbgpRawListener) list[i]).dbgpPacketReceived(id, content);
+		}
+	}
+
+	protected void firePacketSent(IDbgpRawPacket content) {
+		Object[] list = listeners.getListeners();
+
+		for (int i = 0; i < list.length; ++i) {
+			((IDbgpRawListener) list[i]).dbgpPacketSent(id, content);
+		}
+	}
+
+	public DbgpMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void addRawListener(IDbgpRawListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeRawListenr(IDbgpRawListener listener) {
+		listeners.remove(listener);
+	}
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+
+ *******************************************************************************/
+package org.eclipse.dltk.dbgp.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.dltk.core.DLTKCore;
+
+/**
+ * Serves the socket channels of all the {@link DbgpMultiplexedEngine}s with a
+ * single selector thread. The received packets are handed to the bounded pool
+ * of worker threads, which parse and deliver them, packets of the same engine
+ * are always delivered one by one in the order they were received. The channel
+ * is not read while too many of its packets are waiting for the workers. The
+ * workers also notify the stream and notification listeners of the sessions,
+ * so no thread is started per connection.
+ */
+public class DbgpMultiplexer extends DbgpWorkingThread {
+
+	/**
+	 * The maximum number of the threads parsing and delivering the packets
+	 */
+	private static final int WORKER_COUNT = Math.max(2, Runtime.getRuntime()
+			.availableProcessors());
+
+	private static final int WORKER_KEEP_ALIVE = 30;
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The interval in milliseconds the read timeouts are checked at
+	 */
+	private static final int TIMEOUT_CHECK_INTERVAL = 1000;
+
+	private static DbgpMultiplexer instance = null;
+
+	/**
+	 * Returns the shared multiplexer, starting it if needed.
+	 */
+	public static synchronized DbgpMultiplexer getDefault() throws IOException {
+		if (instance == null || instance.isClosed()) {
+			instance = new DbgpMultiplexer();
+			instance.start();
+		}
+		return instance;
+	}
+
+	/**
+	 * Stops the shared multiplexer if it was started, closing all the channels
+	 * it serves.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.requestTermination();
+			instance = null;
+		}
+	}
+
+	private final Selector selector;
+
+	private final ThreadPoolExecutor workers;
+
+	/**
+	 * Engines waiting to be registered with the selector
+	 */
+	private final LinkedList<DbgpMultiplexedEngine> registrations = new LinkedList<DbgpMultiplexedEngine>();
+
+	/**
+	 * Engines having the pending output or resuming the reading
+	 */
+	private final LinkedList<DbgpMultiplexedEngine> changes = new LinkedList<DbgpMultiplexedEngine>();
+
+	private volatile boolean closed = false;
+
+	private final ByteBuffer readBuffer = ByteBuffer
+			.allocateDirect(READ_BUFFER_SIZE);
+
+	private DbgpMultiplexer() throws IOException {
+		super("DBGP - Multiplexer"); //$NON-NLS-1$
+		this.selector = Selector.open();
+		// Each engine has at most one dispatcher queued (see
+		// DbgpMultiplexedEngine#packetReceived), so the queue does not grow
+		// beyond the number of the connections. It is not bounded, since the
+		// rejected dispatcher would then be run by the selector thread.
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				WORKER_COUNT, WORKER_COUNT, WORKER_KEEP_ALIVE,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						final Thread thread = new Thread(r,
+								"DBGP - Packet dispatcher"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		this.workers = executor;
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Starts serving the channel of the specified engine.
+	 */
+	void register(DbgpMultiplexedEngine engine) throws IOException {
+		synchronized (registrations) {
+			if (closed) {
+				throw new ClosedChannelException();
+			}
+			registrations.add(engine);
+		}
+		selector.wakeup();
+	}
+
+	/**
+	 * Notifies the selector thread the engine has the output to write or can
+	 * be read again.
+	 */
+	void interestChanged(DbgpMultiplexedEngine engine) {
+		synchronized (changes) {
+			changes.add(engine);
+		}
+		selector.wakeup();
+	}
+
+	/**
+	 * Schedules the delivery of the packets received by the engine. If the
+	 * workers are already stopped the packets are delivered by the calling
+	 * thread.
+	 */
+	void dispatchRequested(DbgpMultiplexedEngine engine) {
+		try {
+			workers.execute(engine.getDispatcher());
+		} catch (RejectedExecutionException e) {
+			engine.getDispatcher().run();
+		}
+	}
+
+	protected void workingCycle() throws Exception {
+		try {
+			while (!Thread.interrupted()) {
+				selector.select(TIMEOUT_CHECK_INTERVAL);
+				processRegistrations();
+				processChanges();
+				final Iterator<SelectionKey> i = selector.selectedKeys()
+						.iterator();
+				while (i.hasNext()) {
+					final SelectionKey key = i.next();
+					i.remove();
+					final DbgpMultiplexedEngine engine = (DbgpMultiplexedEngine) key
+							.attachment();
+					try {
+						if (key.isValid() && key.isReadable()) {
+							read(key, engine);
+						}
+						if (key.isValid() && key.isWritable()) {
+							engine.write(key);
+						}
+					} catch (IOException e) {
+						key.cancel();
+						engine.channelClosed(e);
+					}
+				}
+				checkTimeouts();
+			}
+		} finally {
+			close();
+		}
+	}
+
+	private void read(SelectionKey key, DbgpMultiplexedEngine engine)
+			throws IOException {
+		final SocketChannel channel = (SocketChannel) key.channel();
+		for (;;) {
+			readBuffer.clear();
+			final int count = channel.read(readBuffer);
+			if (count < 0) {
+				key.cancel();
+				engine.channelClosed(null);
+				return;
+			}
+			if (count == 0) {
+				return;
+			}
+			readBuffer.flip();
+			engine.received(readBuffer);
+			if (engine.isReadSuspended()) {
+				key.interestOps(engine.getInterestOps());
+				return;
+			}
+			if (count < readBuffer.capacity()) {
+				return;
+			}
+		}
+	}
+
+	private void checkTimeouts() {
+		final long now = System.currentTimeMillis();
+		for (SelectionKey key : selector.keys()) {
+			final DbgpMultiplexedEngine engine = (DbgpMultiplexedEngine) key
+					.attachment();
+			if (key.isValid() && engine.isTimedOut(now)) {
+				key.cancel();
+				engine.timedOut();
+			}
+		}
+	}
+
+	private void processRegistrations() {
+		for (;;) {
+			final DbgpMultiplexedEngine engine;
+			synchronized (registrations) {
+				if (registrations.isEmpty()) {
+					return;
+				}
+				engine = registrations.removeFirst();
+			}
+			try {
+				engine.getChannel().register(selector, SelectionKey.OP_READ,
+						engine);
+			} catch (IOException e) {
+				engine.channelClosed(e);
+			}
+		}
+	}
+
+	private void processChanges() {
+		for (;;) {
+			final DbgpMultiplexedEngine engine;
+			synchronized (changes) {
+				if (changes.isEmpty()) {
+					return;
+				}
+				engine = changes.removeFirst();
+			}
+			final SelectionKey key = engine.getChannel().keyFor(selector);
+			if (key != null && key.isValid()) {
+				try {
+					engine.write(key);
+				} catch (IOException e) {
+					key.cancel();
+					engine.channelClosed(e);
+				}
+			}
+		}
+	}
+
+	private void close() {
+		synchronized (registrations) {
+			closed = true;
+		}
+		for (SelectionKey key : selector.keys()) {
+			((DbgpMultiplexedEngine) key.attachment()).requestTermination();
+		}
+		synchronized (registrations) {
+			for (DbgpMultiplexedEngine engine : registrations) {
+				engine.requestTermination();
+			}
+			registrations.clear();
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+		}
+		workers.shutdown();
+	}
+
+	public void requestTermination() {
+		selector.wakeup();
+		super.requestTermination();
+	}
+}
@@ -51,7 +51,12 @@ public class DbgpRawPacket implements IDbgpRawPacket {
 	protected static byte[] readPacketXml(InputStream input, int size)
 			throws IOException {
 		byte[] bytes = new byte[size];
+		readPacketXml(input, bytes, size);
+		return bytes;
+	}
 
+	protected static void readPacketXml(InputStream input, byte[] bytes,
+			int size) throws IOException {
 		int offset = 0;
 		int n;
 		while ((offset < size)
@@ -66,8 +71,6 @@ public class DbgpRawPacket implements IDbgpRawPacket {
 		if (input.read() != 0) {
 			throw new IOException(Messages.DbgpRawPacket_noTerminationByte);
 		}
-
-		return bytes;
 	}
 
 	public static DbgpRawPacket readPacket(InputStream input)
@@ -77,6 +80,23 @@ public class DbgpRawPacket implements IDbgpRawPacket {
 		return new DbgpRawPacket(size, xml);
 	}
 
+	/**
+	 * Reads the packet into the specified buffer if it is large enough,
+	 * otherwise a new buffer is allocated. The returned packet refers to the
+	 * buffer, so it is valid only until the buffer is reused for the next
+	 * packet.
+	 * 
+	 * @see #getXml()
+	 */
+	public static DbgpRawPacket readPacket(InputStream input, byte[] buffer)
+			throws IOException {
+		int size = readPacketSize(input);
+		byte[] xml = buffer != null && buffer.length >= size ? buffer
+				: new byte[size];
+		readPacketXml(input, xml, size);
+		return new DbgpRawPacket(size, xml);
+	}
+
 	private final int size;
 
 	private final byte[] xml;
@@ -90,12 +110,26 @@ public class DbgpRawPacket implements IDbgpRawPacket {
 		return size;
 	}
 
+	/**
+	 * Returns the buffer containing the packet, only the first
+	 * {@link #getSize()} bytes of it are valid.
+	 */
 	public byte[] getXml() {
 		return xml;
 	}
 
+	/**
+	 * Returns the packet with its own copy of the data, which stays valid
+	 * after the buffer of this packet is reused.
+	 */
+	public DbgpRawPacket copy() {
+		final byte[] bytes = new byte[size];
+		System.arraycopy(xml, 0, bytes, 0, size);
+		return new DbgpRawPacket(size, bytes);
+	}
+
 	public Document getParsedXml() throws DbgpException {
-		return DbgpXmlParser.parseXml(xml);
+		return DbgpXmlParser.parseXml(xml, size);
 	}
 
 	public String toString() {
@@ -104,9 +138,9 @@ public class DbgpRawPacket implements IDbgpRawPacket {
 
 	public String getPacketAsString() {
 		try {
-			return new String(xml, "ASCII"); //$NON-NLS-1$
+			return new String(xml, 0, size, "ASCII"); //$NON-NLS-1$
 		} catch (UnsupportedEncodingException e) {
-			return new String(xml);
+			return new String(xml, 0, size);
 		}
 	}
 }
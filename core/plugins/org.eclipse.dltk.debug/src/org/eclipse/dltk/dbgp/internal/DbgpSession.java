@@ -27,7 +27,10 @@ import org.eclipse.dltk.dbgp.internal.commands.DbgpSpawnpointCommands;
 import org.eclipse.dltk.dbgp.internal.managers.DbgpNotificationManager;
 import org.eclipse.dltk.dbgp.internal.managers.DbgpStreamManager;
 import org.eclipse.dltk.dbgp.internal.managers.IDbgpStreamManager;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpNotifyPacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpPacketReceiver;
 import org.eclipse.dltk.dbgp.internal.packets.DbgpResponsePacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpStreamPacket;
 import org.eclipse.dltk.dbgp.internal.utils.DbgpXmlEntityParser;
 import org.eclipse.dltk.debug.core.IDebugOptions;
 import org.eclipse.dltk.debug.core.model.DefaultDebugOptions;
@@ -95,6 +98,8 @@ public class DbgpSession extends DbgpTermination implements IDbgpSession,
 			}
 			info = DbgpXmlEntityParser
 					.parseSession(responsePacket.getContent());
+			engine.getMetrics().setName(
+					info.getIdeKey() + " " + info.getFileUri()); //$NON-NLS-1$
 		} catch (InterruptedException e) {
 		}
 
@@ -118,8 +123,22 @@ public class DbgpSession extends DbgpTermination implements IDbgpSession,
 		this.spawnpointCommands = new DbgpSpawnpointCommands(communicator, this);
 
 		// Starting all
-		this.notificationManager.start();
-		this.streamManager.start();
+		if (engine instanceof DbgpMultiplexedEngine) {
+			// the workers of the multiplexer deliver the packets
+			((DbgpMultiplexedEngine) engine)
+					.setPacketHandler(new DbgpPacketReceiver.IPacketHandler() {
+						public void notifyReceived(DbgpNotifyPacket packet) {
+							notificationManager.notifyReceived(packet);
+						}
+
+						public void streamReceived(DbgpStreamPacket packet) {
+							streamManager.streamReceived(packet);
+						}
+					});
+		} else {
+			this.notificationManager.start();
+			this.streamManager.start();
+		}
 	}
 
 	public IDbgpSessionInfo getInfo() {
@@ -11,6 +11,7 @@ package org.eclipse.dltk.dbgp.internal;
 
 import java.io.IOException;
 
+import org.eclipse.dltk.dbgp.DbgpMetrics;
 import org.eclipse.dltk.dbgp.DbgpRequest;
 import org.eclipse.dltk.dbgp.IDbgpRawListener;
 import org.eclipse.dltk.dbgp.internal.packets.DbgpNotifyPacket;
@@ -25,10 +26,16 @@ public interface IDbgpDebugingEngine extends IDbgpTermination {
 	DbgpResponsePacket getResponsePacket(int transactionId, int timeout)
 			throws IOException, InterruptedException;
 
+	boolean hasResponsePacket(int transactionId);
+
+	void discardResponsePacket(int transactionId);
+
 	DbgpNotifyPacket getNotifyPacket() throws IOException, InterruptedException;
 
 	DbgpStreamPacket getStreamPacket() throws IOException, InterruptedException;
 
+	DbgpMetrics getMetrics();
+
 	// Listeners
 	void addRawListener(IDbgpRawListener listener);
 
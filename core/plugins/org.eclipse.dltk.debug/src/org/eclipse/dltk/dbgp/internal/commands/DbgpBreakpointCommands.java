@@ -16,8 +16,10 @@ import java.util.List;
 import org.eclipse.dltk.dbgp.DbgpBaseCommands;
 import org.eclipse.dltk.dbgp.DbgpRequest;
 import org.eclipse.dltk.dbgp.IDbgpCommunicator;
+import org.eclipse.dltk.dbgp.IDbgpResponseFuture;
 import org.eclipse.dltk.dbgp.breakpoints.DbgpBreakpointConfig;
 import org.eclipse.dltk.dbgp.breakpoints.IDbgpBreakpoint;
+import org.eclipse.dltk.dbgp.commands.IDbgpBreakpointBatch;
 import org.eclipse.dltk.dbgp.commands.IDbgpBreakpointCommands;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.dbgp.internal.utils.DbgpXmlEntityParser;
@@ -72,7 +74,13 @@ public class DbgpBreakpointCommands extends DbgpBaseCommands implements
 	protected String setBreakpoint(String type, URI uri, Integer lineNumber,
 			String function, String exception, DbgpBreakpointConfig info)
 			throws DbgpException {
+		return parseSetBreakpointResponse(communicate(createSetBreakpointRequest(
+				type, uri, lineNumber, function, exception, info)));
+	}
 
+	private DbgpRequest createSetBreakpointRequest(String type, URI uri,
+			Integer lineNumber, String function, String exception,
+			DbgpBreakpointConfig info) {
 		DbgpRequest request = createRequest(BREAKPOINT_SET_COMMAND);
 		request.addOption("-t", type); //$NON-NLS-1$
 
@@ -107,7 +115,73 @@ public class DbgpBreakpointCommands extends DbgpBaseCommands implements
 			}
 		}
 
-		return parseSetBreakpointResponse(communicate(request));
+		return request;
+	}
+
+	private class BreakpointId implements IDbgpBreakpointBatch.IBreakpointId {
+		private final IDbgpResponseFuture response;
+
+		BreakpointId(IDbgpResponseFuture response) {
+			this.response = response;
+		}
+
+		public String get() throws DbgpException {
+			return parseSetBreakpointResponse(response.get());
+		}
+
+		public void cancel() {
+			response.cancel();
+		}
+	}
+
+	private class BreakpointBatch implements IDbgpBreakpointBatch {
+
+		private IBreakpointId setBreakpoint(String type, URI uri,
+				Integer lineNumber, String function, String exception,
+				DbgpBreakpointConfig info) throws DbgpException {
+			return new BreakpointId(communicateAsync(createSetBreakpointRequest(
+					type, uri, lineNumber, function, exception, info)));
+		}
+
+		public IBreakpointId setLineBreakpoint(URI uri, int lineNumber,
+				DbgpBreakpointConfig info) throws DbgpException {
+			return setBreakpoint(LINE_BREAKPOINT, uri, new Integer(lineNumber),
+					null, null, info);
+		}
+
+		public IBreakpointId setCallBreakpoint(URI uri, String function,
+				DbgpBreakpointConfig info) throws DbgpException {
+			return setBreakpoint(CALL_BREAKPOINT, uri, null, function, null,
+					info);
+		}
+
+		public IBreakpointId setReturnBreakpoint(URI uri, String function,
+				DbgpBreakpointConfig info) throws DbgpException {
+			return setBreakpoint(RETURN_BREAKPOINT, uri, null, function, null,
+					info);
+		}
+
+		public IBreakpointId setExceptionBreakpoint(String exception,
+				DbgpBreakpointConfig info) throws DbgpException {
+			return setBreakpoint(EXCEPTION_BREAKPOINT, null, null, null,
+					exception, info);
+		}
+
+		public IBreakpointId setConditionalBreakpoint(URI uri, int lineNumber,
+				DbgpBreakpointConfig info) throws DbgpException {
+			return setBreakpoint(CONDITIONAL_BREAKPOINT, uri, new Integer(
+					lineNumber), null, null, info);
+		}
+
+		public IBreakpointId setWatchBreakpoint(URI uri, int line,
+				DbgpBreakpointConfig info) throws DbgpException {
+			return setBreakpoint(WATCH_BREAKPOINT, uri, new Integer(line),
+					null, null, info);
+		}
+	}
+
+	public IDbgpBreakpointBatch createBreakpointBatch() {
+		return new BreakpointBatch();
 	}
 
 	public DbgpBreakpointCommands(IDbgpCommunicator communicator) {
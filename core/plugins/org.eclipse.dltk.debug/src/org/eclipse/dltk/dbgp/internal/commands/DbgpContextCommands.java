@@ -18,7 +18,9 @@ import org.eclipse.dltk.dbgp.DbgpBaseCommands;
 import org.eclipse.dltk.dbgp.DbgpRequest;
 import org.eclipse.dltk.dbgp.IDbgpCommunicator;
 import org.eclipse.dltk.dbgp.IDbgpProperty;
+import org.eclipse.dltk.dbgp.IDbgpResponseFuture;
 import org.eclipse.dltk.dbgp.commands.IDbgpContextCommands;
+import org.eclipse.dltk.dbgp.exceptions.DbgpDebuggingEngineException;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.dbgp.internal.utils.DbgpXmlEntityParser;
 import org.w3c.dom.Element;
@@ -75,9 +77,14 @@ public class DbgpContextCommands extends DbgpBaseCommands implements
 	}
 
 	public Map getContextNames(int stackDepth) throws DbgpException {
+		return parseContextNamesResponse(communicate(createContextNamesRequest(
+				stackDepth)));
+	}
+
+	private DbgpRequest createContextNamesRequest(int stackDepth) {
 		DbgpRequest request = createRequest(CONTEXT_NAMES_COMMAND);
 		request.addOption("-d", stackDepth); //$NON-NLS-1$
-		return parseContextNamesResponse(communicate(request));
+		return request;
 	}
 
 	public IDbgpProperty[] getContextProperties(int stackDepth)
@@ -89,9 +96,70 @@ public class DbgpContextCommands extends DbgpBaseCommands implements
 
 	public IDbgpProperty[] getContextProperties(int stackDepth, int contextId)
 			throws DbgpException {
+		return parseContextPropertiesResponse(communicate(createContextGetRequest(
+				stackDepth, contextId)));
+	}
+
+	private DbgpRequest createContextGetRequest(int stackDepth, int contextId) {
 		DbgpRequest request = createRequest(CONTEXT_GET);
 		request.addOption("-d", stackDepth); //$NON-NLS-1$
 		request.addOption("-c", contextId); //$NON-NLS-1$
-		return parseContextPropertiesResponse(communicate(request));
+		return request;
+	}
+
+	private static final IDbgpProperty[] NO_PROPERTIES = new IDbgpProperty[0];
+
+	public Map<Integer, IDbgpProperty[]> getContextProperties(int stackDepth,
+			int[] contextIds) throws DbgpException {
+		final Map<Integer, IDbgpProperty[]> result = new HashMap<Integer, IDbgpProperty[]>();
+		if (!isPipelined()) {
+			final Map names = getContextNames(stackDepth);
+			for (int i = 0; i < contextIds.length; ++i) {
+				final Integer id = new Integer(contextIds[i]);
+				if (names.containsKey(id)) {
+					result.put(id, getContextPropertiesOrEmpty(stackDepth,
+							contextIds[i]));
+				}
+			}
+			return result;
+		}
+		final IDbgpResponseFuture names = communicateAsync(createContextNamesRequest(
+				stackDepth));
+		final IDbgpResponseFuture[] contexts = new IDbgpResponseFuture[contextIds.length];
+		try {
+			for (int i = 0; i < contextIds.length; ++i) {
+				contexts[i] = communicateAsync(createContextGetRequest(
+						stackDepth, contextIds[i]));
+			}
+			final Map available = parseContextNamesResponse(names.get());
+			for (int i = 0; i < contextIds.length; ++i) {
+				final Integer id = new Integer(contextIds[i]);
+				if (available.containsKey(id)) {
+					try {
+						result.put(id, parseContextPropertiesResponse(contexts[i]
+								.get()));
+					} catch (DbgpDebuggingEngineException e) {
+						result.put(id, NO_PROPERTIES);
+					}
+				}
+			}
+		} finally {
+			names.cancel();
+			for (int i = 0; i < contexts.length; ++i) {
+				if (contexts[i] != null) {
+					contexts[i].cancel();
+				}
+			}
+		}
+		return result;
+	}
+
+	private IDbgpProperty[] getContextPropertiesOrEmpty(int stackDepth,
+			int contextId) throws DbgpException {
+		try {
+			return getContextProperties(stackDepth, contextId);
+		} catch (DbgpDebuggingEngineException e) {
+			return NO_PROPERTIES;
+		}
 	}
 }
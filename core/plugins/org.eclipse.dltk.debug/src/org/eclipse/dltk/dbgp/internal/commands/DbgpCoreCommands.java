@@ -19,6 +19,7 @@ import org.eclipse.dltk.dbgp.IDbgpStackLevel;
 import org.eclipse.dltk.dbgp.IDbgpStatus;
 import org.eclipse.dltk.dbgp.breakpoints.DbgpBreakpointConfig;
 import org.eclipse.dltk.dbgp.breakpoints.IDbgpBreakpoint;
+import org.eclipse.dltk.dbgp.commands.IDbgpBreakpointBatch;
 import org.eclipse.dltk.dbgp.commands.IDbgpBreakpointCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpContextCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpContinuationCommands;
@@ -26,13 +27,15 @@ import org.eclipse.dltk.dbgp.commands.IDbgpCoreCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpDataTypeCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpFeatureCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpPropertyCommands;
+import org.eclipse.dltk.dbgp.commands.IDbgpPropertyPageCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpSourceCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpStackCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpStatusCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpStreamCommands;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 
-public class DbgpCoreCommands implements IDbgpCoreCommands {
+public class DbgpCoreCommands implements IDbgpCoreCommands,
+		IDbgpPropertyPageCommands {
 
 	private final IDbgpFeatureCommands featureCommands;
 
@@ -129,6 +132,10 @@ public class DbgpCoreCommands implements IDbgpCoreCommands {
 		breakpointCommands.updateBreakpoint(id, config);
 	}
 
+	public IDbgpBreakpointBatch createBreakpointBatch() {
+		return breakpointCommands.createBreakpointBatch();
+	}
+
 	public IDbgpStatus detach() throws DbgpException {
 		return continuationCommands.detach();
 	}
@@ -200,6 +207,11 @@ public class DbgpCoreCommands implements IDbgpCoreCommands {
 		return contextCommands.getContextProperties(stackDepth, contextId);
 	}
 
+	public Map<Integer, IDbgpProperty[]> getContextProperties(int stackDepth,
+			int[] contextIds) throws DbgpException {
+		return contextCommands.getContextProperties(stackDepth, contextIds);
+	}
+
 	public boolean configureStderr(int value) throws DbgpException {
 		return streamCommands.configureStderr(value);
 	}
@@ -241,4 +253,14 @@ public class DbgpCoreCommands implements IDbgpCoreCommands {
 		return propertyCommands.getProperty(page, name, stackDepth);
 	}
 
+	public IDbgpProperty[] getPropertyPages(int[] pages, String name,
+			int stackDepth) throws DbgpException {
+		return ((IDbgpPropertyPageCommands) propertyCommands)
+				.getPropertyPages(pages, name, stackDepth);
+	}
+
+	public boolean isPipelined() {
+		return ((IDbgpPropertyPageCommands) propertyCommands).isPipelined();
+	}
+
 }
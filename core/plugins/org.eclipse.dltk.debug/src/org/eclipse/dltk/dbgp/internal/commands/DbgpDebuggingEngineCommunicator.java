@@ -16,6 +16,7 @@ import java.util.Map;
 import org.eclipse.dltk.dbgp.DbgpBaseCommands;
 import org.eclipse.dltk.dbgp.DbgpRequest;
 import org.eclipse.dltk.dbgp.IDbgpCommunicator;
+import org.eclipse.dltk.dbgp.IDbgpResponseFuture;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.dbgp.exceptions.DbgpIOException;
 import org.eclipse.dltk.dbgp.exceptions.DbgpOpertionCanceledException;
@@ -62,44 +63,182 @@ public class DbgpDebuggingEngineCommunicator implements IDbgpCommunicator {
 	public Element communicate(DbgpRequest request) throws DbgpException {
 		try {
 			final DbgpResponsePacket packet;
-			final int requestId = Integer.parseInt(request
-					.getOption(DbgpBaseCommands.ID_OPTION));
-			if (options.get(DebugOption.DBGP_ASYNC) || request.isAsync()) {
+			final int requestId = getRequestId(request);
+			if (isPipelined(request)) {
+				final long sent = System.nanoTime();
 				sendRequest(request);
 				packet = receiveResponse(requestId);
+				commandCompleted(request, packet, sent);
 			} else {
-				final long startTime = DEBUG ? System.currentTimeMillis() : 0;
+				final long queued = System.nanoTime();
 				beginSyncRequest(request);
-				if (DEBUG) {
-					final long waited = System.currentTimeMillis() - startTime;
-					if (waited > 0) {
-						System.out.println("Waited " + waited + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
-					}
-				}
+				final long sent = System.nanoTime();
+				engine.getMetrics().requestQueued(sent - queued);
 				try {
 					sendRequest(request);
 					packet = receiveResponse(requestId);
+					commandCompleted(request, packet, sent);
 				} finally {
 					endSyncRequest(request);
 				}
 			}
+			return checkResponse(packet);
+		} catch (InterruptedException e) {
+			throw new DbgpOpertionCanceledException(e);
+		} catch (IOException e) {
+			throw new DbgpIOException(e);
+		}
+	}
 
-			if (packet == null) {
-				throw new DbgpTimeoutException();
+	public IDbgpResponseFuture communicateAsync(DbgpRequest request)
+			throws DbgpException {
+		if (!isPipelined(request)) {
+			// engine processes one request at a time
+			try {
+				return new CompletedResponse(request, communicate(request),
+						null);
+			} catch (DbgpException e) {
+				return new CompletedResponse(request, null, e);
 			}
+		}
+		final int requestId = getRequestId(request);
+		final long sent = System.nanoTime();
+		try {
+			sendRequest(request);
+		} catch (IOException e) {
+			throw new DbgpIOException(e);
+		}
+		return new PendingResponse(request, requestId, sent);
+	}
 
-			Element response = packet.getContent();
+	/**
+	 * Records the round-trip time of the request if the response was received
+	 */
+	private void commandCompleted(DbgpRequest request,
+			DbgpResponsePacket packet, long sent) {
+		if (packet != null) {
+			engine.getMetrics().commandCompleted(request.getCommand(),
+					System.nanoTime() - sent);
+		}
+	}
 
-			DbgpException e = DbgpXmlParser.checkError(response);
-			if (e != null) {
-				throw e;
+	/**
+	 * Answers if the request could be sent while other requests are waiting
+	 * for the responses.
+	 */
+	private boolean isPipelined(DbgpRequest request) {
+		return options.get(DebugOption.DBGP_ASYNC) || request.isAsync();
+	}
+
+	private static int getRequestId(DbgpRequest request) {
+		return Integer.parseInt(request.getOption(DbgpBaseCommands.ID_OPTION));
+	}
+
+	private static Element checkResponse(DbgpResponsePacket packet)
+			throws DbgpException {
+		if (packet == null) {
+			throw new DbgpTimeoutException();
+		}
+
+		Element response = packet.getContent();
+
+		DbgpException e = DbgpXmlParser.checkError(response);
+		if (e != null) {
+			throw e;
+		}
+
+		return response;
+	}
+
+	private static class CompletedResponse implements IDbgpResponseFuture {
+		private final DbgpRequest request;
+		private final Element response;
+		private final DbgpException exception;
+
+		CompletedResponse(DbgpRequest request, Element response,
+				DbgpException exception) {
+			this.request = request;
+			this.response = response;
+			this.exception = exception;
+		}
+
+		public DbgpRequest getRequest() {
+			return request;
+		}
+
+		public boolean isDone() {
+			return true;
+		}
+
+		public Element get() throws DbgpException {
+			if (exception != null) {
+				throw exception;
 			}
+			return response;
+		}
+
+		public void cancel() {
+			// already completed
+		}
+	}
+
+	private class PendingResponse implements IDbgpResponseFuture {
+		private final DbgpRequest request;
+		private final int requestId;
+		private final long sent;
+		private boolean done = false;
+		private boolean cancelled = false;
+		private Element response;
+		private DbgpException exception;
+
+		PendingResponse(DbgpRequest request, int requestId, long sent) {
+			this.request = request;
+			this.requestId = requestId;
+			this.sent = sent;
+		}
+
+		public DbgpRequest getRequest() {
+			return request;
+		}
+
+		public synchronized boolean isDone() {
+			return done || engine.hasResponsePacket(requestId);
+		}
 
+		public synchronized Element get() throws DbgpException {
+			if (!done) {
+				if (cancelled) {
+					throw new DbgpOpertionCanceledException();
+				}
+				DbgpResponsePacket packet = null;
+				try {
+					packet = receiveResponse(requestId);
+					commandCompleted(request, packet, sent);
+					response = checkResponse(packet);
+				} catch (DbgpException e) {
+					exception = e;
+				} catch (InterruptedException e) {
+					exception = new DbgpOpertionCanceledException(e);
+				} catch (IOException e) {
+					exception = new DbgpIOException(e);
+				}
+				if (packet == null) {
+					// drop the response if it arrives later
+					engine.discardResponsePacket(requestId);
+				}
+				done = true;
+			}
+			if (exception != null) {
+				throw exception;
+			}
 			return response;
-		} catch (InterruptedException e) {
-			throw new DbgpOpertionCanceledException(e);
-		} catch (IOException e) {
-			throw new DbgpIOException(e);
+		}
+
+		public synchronized void cancel() {
+			if (!done && !cancelled) {
+				cancelled = true;
+				engine.discardResponsePacket(requestId);
+			}
 		}
 	}
 
@@ -128,8 +267,6 @@ public class DbgpDebuggingEngineCommunicator implements IDbgpCommunicator {
 		}
 	}
 
-	private static final boolean DEBUG = false;
-
 	public IDebugOptions getDebugOptions() {
 		return options;
 	}
@@ -13,7 +13,10 @@ import org.eclipse.dltk.dbgp.DbgpBaseCommands;
 import org.eclipse.dltk.dbgp.DbgpRequest;
 import org.eclipse.dltk.dbgp.IDbgpCommunicator;
 import org.eclipse.dltk.dbgp.IDbgpProperty;
+import org.eclipse.dltk.dbgp.IDbgpResponseFuture;
 import org.eclipse.dltk.dbgp.commands.IDbgpPropertyCommands;
+import org.eclipse.dltk.dbgp.commands.IDbgpPropertyPageCommands;
+import org.eclipse.dltk.dbgp.exceptions.DbgpDebuggingEngineException;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.dbgp.internal.utils.DbgpXmlEntityParser;
 import org.eclipse.dltk.dbgp.internal.utils.DbgpXmlParser;
@@ -21,7 +24,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 public class DbgpPropertyCommands extends DbgpBaseCommands implements
-		IDbgpPropertyCommands {
+		IDbgpPropertyCommands, IDbgpPropertyPageCommands {
 	private static final String PROPERTY_GET_COMMAND = "property_get"; //$NON-NLS-1$
 
 	private static final String PROPERTY_SET_COMMAND = "property_set"; //$NON-NLS-1$
@@ -45,6 +48,12 @@ public class DbgpPropertyCommands extends DbgpBaseCommands implements
 
 	protected IDbgpProperty getProperty(Integer page, String name,
 			Integer stackDepth, Integer contextId) throws DbgpException {
+		return parsePropertyResponse(communicate(createPropertyGetRequest(
+				page, name, stackDepth, contextId)));
+	}
+
+	private DbgpRequest createPropertyGetRequest(Integer page, String name,
+			Integer stackDepth, Integer contextId) {
 		DbgpRequest request = createRequest(PROPERTY_GET_COMMAND);
 		request.addOption("-n", name); //$NON-NLS-1$
 
@@ -59,7 +68,7 @@ public class DbgpPropertyCommands extends DbgpBaseCommands implements
 		if (page != null) {
 			request.addOption("-p", page); //$NON-NLS-1$
 		}
-		return parsePropertyResponse(communicate(request));
+		return request;
 	}
 
 	public IDbgpProperty getPropertyByKey(String name, String key)
@@ -91,6 +100,54 @@ public class DbgpPropertyCommands extends DbgpBaseCommands implements
 				null);
 	}
 
+	public IDbgpProperty[] getPropertyPages(int[] pages, String name,
+			int stackDepth) throws DbgpException {
+		final IDbgpProperty[] result = new IDbgpProperty[pages.length];
+		final Integer depth = new Integer(stackDepth);
+		if (!isPipelined()) {
+			for (int i = 0; i < pages.length; ++i) {
+				try {
+					result[i] = getProperty(new Integer(pages[i]), name,
+							depth, null);
+				} catch (DbgpDebuggingEngineException e) {
+					if (i == 0) {
+						throw e;
+					}
+					// leave null
+				}
+			}
+			return result;
+		}
+		final IDbgpResponseFuture[] responses = new IDbgpResponseFuture[pages.length];
+		try {
+			for (int i = 0; i < pages.length; ++i) {
+				responses[i] = communicateAsync(createPropertyGetRequest(
+						new Integer(pages[i]), name, depth, null));
+			}
+			for (int i = 0; i < pages.length; ++i) {
+				try {
+					result[i] = parsePropertyResponse(responses[i].get());
+				} catch (DbgpDebuggingEngineException e) {
+					if (i == 0) {
+						throw e;
+					}
+					// leave null
+				}
+			}
+		} finally {
+			for (int i = 0; i < responses.length; ++i) {
+				if (responses[i] != null) {
+					responses[i].cancel();
+				}
+			}
+		}
+		return result;
+	}
+
+	public boolean isPipelined() {
+		return super.isPipelined();
+	}
+
 	public boolean setProperty(IDbgpProperty property) throws DbgpException {
 		DbgpRequest request = createRequest(PROPERTY_SET_COMMAND);
 		request.addOption("-n", property.getName()); //$NON-NLS-1$
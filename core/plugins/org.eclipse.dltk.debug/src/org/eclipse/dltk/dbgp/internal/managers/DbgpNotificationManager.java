@@ -34,16 +34,25 @@ public class DbgpNotificationManager extends DbgpWorkingThread implements
 	protected void workingCycle() throws Exception {
 		try {
 			while (!Thread.interrupted()) {
-				DbgpNotifyPacket packet = engine.getNotifyPacket();
-
-				fireDbgpNotify(new DbgpNotification(packet.getName(), packet
-						.getContent()));
+				notifyReceived(engine.getNotifyPacket());
 			}
 		} catch (InterruptedException e) {
 			// OK, interrupted
 		}
 	}
 
+	/**
+	 * Notifies the listeners about the received packet. Called by the working
+	 * cycle or, if this manager is not started, by the thread dispatching the
+	 * packets of the engine.
+	 * 
+	 * @since 5.1
+	 */
+	public void notifyReceived(DbgpNotifyPacket packet) {
+		fireDbgpNotify(new DbgpNotification(packet.getName(), packet
+				.getContent()));
+	}
+
 	public DbgpNotificationManager(IDbgpDebugingEngine engine) {
 		super("DBGP - Notification Manager"); //$NON-NLS-1$
 		if (engine == null) {
@@ -42,19 +42,28 @@ public class DbgpStreamManager extends DbgpWorkingThread implements
 	protected void workingCycle() throws Exception {
 		try {
 			while (!Thread.interrupted()) {
-				final DbgpStreamPacket packet = engine.getStreamPacket();
-
-				if (packet.isStderr()) {
-					fireStderrReceived(packet.getTextContent());
-				} else if (packet.isStdout()) {
-					fireStdoutReceived(packet.getTextContent());
-				}
+				streamReceived(engine.getStreamPacket());
 			}
 		} catch (InterruptedException e) {
 			// OK, interrupted
 		}
 	}
 
+	/**
+	 * Notifies the listeners about the received packet. Called by the working
+	 * cycle or, if this manager is not started, by the thread dispatching the
+	 * packets of the engine.
+	 * 
+	 * @since 5.1
+	 */
+	public void streamReceived(DbgpStreamPacket packet) {
+		if (packet.isStderr()) {
+			fireStderrReceived(packet.getTextContent());
+		} else if (packet.isStdout()) {
+			fireStdoutReceived(packet.getTextContent());
+		}
+	}
+
 	public DbgpStreamManager(IDbgpDebugingEngine engine, String name) {
 		super(name);
 
@@ -10,9 +10,16 @@
 package org.eclipse.dltk.dbgp.internal.packets;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 
+import org.eclipse.dltk.dbgp.DbgpMetrics;
+import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.dbgp.internal.DbgpRawPacket;
 import org.eclipse.dltk.dbgp.internal.DbgpWorkingThread;
 import org.eclipse.dltk.dbgp.internal.utils.DbgpXmlPacketParser;
@@ -20,22 +27,65 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 public class DbgpPacketReceiver extends DbgpWorkingThread {
+	/**
+	 * Handles the notifications and the stream packets as soon as they are
+	 * received, instead of queueing them for {@link #getNotifyPacket()} and
+	 * {@link #getStreamPacket()}.
+	 * 
+	 * @since 5.1
+	 */
+	public interface IPacketHandler {
+		void notifyReceived(DbgpNotifyPacket packet);
+
+		void streamReceived(DbgpStreamPacket packet);
+	}
+
 	private static class ResponcePacketWaiter {
 		private static final int MIN_TIMEOUT = 5;
+		/**
+		 * The maximum number of the discarded transaction ids remembered, the
+		 * oldest ones are forgotten first, since their responses are unlikely
+		 * to arrive.
+		 */
+		private static final int MAX_DISCARDED = 1024;
 		private final HashMap map;
+		/**
+		 * Transaction ids of the responses nobody is going to wait for
+		 */
+		private final Set<Integer> discarded;
 		private boolean terminated;
 
 		public ResponcePacketWaiter() {
 			map = new HashMap();
+			discarded = new LinkedHashSet<Integer>();
 			terminated = false;
 		}
 
 		public synchronized void put(DbgpResponsePacket packet) {
 			int id = packet.getTransactionId();
+			if (discarded.remove(new Integer(id))) {
+				return;
+			}
 			map.put(new Integer(id), packet);
 			notifyAll();
 		}
 
+		public synchronized boolean hasPacket(int id) {
+			return map.containsKey(new Integer(id));
+		}
+
+		public synchronized void discard(int id) {
+			Integer key = new Integer(id);
+			if (map.remove(key) == null && !terminated) {
+				if (discarded.size() >= MAX_DISCARDED) {
+					final Iterator<Integer> i = discarded.iterator();
+					i.next();
+					i.remove();
+				}
+				discarded.add(key);
+			}
+		}
+
 		public synchronized DbgpResponsePacket waitPacket(int id, int timeout)
 				throws InterruptedException {
 			Integer key = new Integer(id);
@@ -68,8 +118,13 @@ public class DbgpPacketReceiver extends DbgpWorkingThread {
 
 		public synchronized void terminate() {
 			terminated = true;
+			discarded.clear();
 			notifyAll();
 		}
+
+		synchronized int getDiscardedCount() {
+			return discarded.size();
+		}
 	}
 
 	private static class PacketWaiter {
@@ -100,6 +155,12 @@ public class DbgpPacketReceiver extends DbgpWorkingThread {
 			return (DbgpPacket) queue.removeFirst();
 		}
 
+		public synchronized List<DbgpPacket> takeAll() {
+			final List<DbgpPacket> packets = new ArrayList<DbgpPacket>(queue);
+			queue.clear();
+			return packets;
+		}
+
 		public synchronized void terminate() {
 			terminated = true;
 			notifyAll();
@@ -115,27 +176,71 @@ public class DbgpPacketReceiver extends DbgpWorkingThread {
 	private final PacketWaiter notifyWaiter;
 	private final PacketWaiter streamWaiter;
 
+	/**
+	 * The initial size of the buffer packets are read into
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * The buffers up to this size are kept for the subsequent packets, larger
+	 * ones are released as soon as the packet is parsed.
+	 */
+	private static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
 	private final InputStream input;
 	private IDbgpRawLogger logger;
+	private DbgpMetrics metrics;
+
+	private final Object handlerLock = new Object();
+	private IPacketHandler handler;
 
 	protected void workingCycle() throws Exception {
 		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
 			while (!Thread.interrupted()) {
-				DbgpRawPacket packet = DbgpRawPacket.readPacket(input);
-
-				if (logger != null) {
-					logger.log(packet);
+				// the packet is logged and parsed before the buffer is reused
+				DbgpRawPacket packet = DbgpRawPacket.readPacket(input, buffer);
+				if (packet.getXml() != buffer
+						&& packet.getXml().length <= MAX_BUFFER_SIZE) {
+					buffer = packet.getXml();
 				}
 
-				addDocument(packet.getParsedXml());
+				dispatch(packet);
 			}
 		} finally {
-			responseWaiter.terminate();
-			notifyWaiter.terminate();
-			streamWaiter.terminate();
+			terminate();
+		}
+	}
+
+	/**
+	 * Logs and parses the packet and delivers it to the waiting threads. Called
+	 * by the working cycle or, if this receiver is not started, by the
+	 * multiplexer reading the packets from the socket channel.
+	 */
+	public void dispatch(DbgpRawPacket packet) throws DbgpException {
+		if (logger != null) {
+			logger.log(packet);
+		}
+
+		if (metrics != null) {
+			final long start = System.nanoTime();
+			addDocument(packet.getParsedXml());
+			metrics.packetReceived(packet.getSize(), System.nanoTime() - start);
+		} else {
+			addDocument(packet.getParsedXml());
 		}
 	}
 
+	/**
+	 * Releases the threads waiting for the packets, the waiting for the
+	 * responses ends with {@link InterruptedException}.
+	 */
+	public void terminate() {
+		responseWaiter.terminate();
+		notifyWaiter.terminate();
+		streamWaiter.terminate();
+	}
+
 	protected void addDocument(Document doc) {
 		Element element = (Element) doc.getFirstChild();
 		String tag = element.getTagName();
@@ -148,9 +253,44 @@ public class DbgpPacketReceiver extends DbgpWorkingThread {
 					.parseResponsePacket(element);
 			responseWaiter.put(packet);
 		} else if (tag.equals(STREAM_TAG)) {
-			streamWaiter.put(DbgpXmlPacketParser.parseStreamPacket(element));
+			final DbgpStreamPacket packet = DbgpXmlPacketParser
+					.parseStreamPacket(element);
+			synchronized (handlerLock) {
+				if (handler != null) {
+					handler.streamReceived(packet);
+				} else {
+					streamWaiter.put(packet);
+				}
+			}
 		} else if (tag.equals(NOTIFY_TAG)) {
-			notifyWaiter.put(DbgpXmlPacketParser.parseNotifyPacket(element));
+			final DbgpNotifyPacket packet = DbgpXmlPacketParser
+					.parseNotifyPacket(element);
+			synchronized (handlerLock) {
+				if (handler != null) {
+					handler.notifyReceived(packet);
+				} else {
+					notifyWaiter.put(packet);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Delivers the notifications and the stream packets to the specified
+	 * handler by the thread dispatching them, starting with the ones already
+	 * queued. Nobody should wait for these packets then.
+	 * 
+	 * @since 5.1
+	 */
+	public void setPacketHandler(IPacketHandler handler) {
+		synchronized (handlerLock) {
+			this.handler = handler;
+			for (DbgpPacket packet : notifyWaiter.takeAll()) {
+				handler.notifyReceived((DbgpNotifyPacket) packet);
+			}
+			for (DbgpPacket packet : streamWaiter.takeAll()) {
+				handler.streamReceived((DbgpStreamPacket) packet);
+			}
 		}
 	}
 
@@ -167,6 +307,29 @@ public class DbgpPacketReceiver extends DbgpWorkingThread {
 		return responseWaiter.waitPacket(transactionId, timeout);
 	}
 
+	/**
+	 * Answers if the response with the specified transaction id is received
+	 * and not retrieved yet.
+	 */
+	public boolean hasResponsePacket(int transactionId) {
+		return responseWaiter.hasPacket(transactionId);
+	}
+
+	/**
+	 * Drops the response with the specified transaction id, either already
+	 * received or arriving later.
+	 */
+	public void discardResponsePacket(int transactionId) {
+		responseWaiter.discard(transactionId);
+	}
+
+	/**
+	 * Returns the number of the discarded responses not received yet
+	 */
+	public int getDiscardedCount() {
+		return responseWaiter.getDiscardedCount();
+	}
+
 	public DbgpPacketReceiver(InputStream input) {
 		super("DBGP - Packet receiver"); //$NON-NLS-1$
 
@@ -180,7 +343,25 @@ public class DbgpPacketReceiver extends DbgpWorkingThread {
 		this.responseWaiter = new ResponcePacketWaiter();
 	}
 
+	/**
+	 * Creates the receiver which does not read any stream, the packets are
+	 * supplied via {@link #dispatch(DbgpRawPacket)}, so it should not be
+	 * started.
+	 */
+	public DbgpPacketReceiver() {
+		super("DBGP - Packet receiver"); //$NON-NLS-1$
+
+		this.input = null;
+		this.notifyWaiter = new PacketWaiter();
+		this.streamWaiter = new PacketWaiter();
+		this.responseWaiter = new ResponcePacketWaiter();
+	}
+
 	public void setLogger(IDbgpRawLogger logger) {
 		this.logger = logger;
 	}
+
+	public void setMetrics(DbgpMetrics metrics) {
+		this.metrics = metrics;
+	}
 }
@@ -9,39 +9,68 @@
  *******************************************************************************/
 package org.eclipse.dltk.dbgp.internal.packets;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.eclipse.dltk.dbgp.DbgpMetrics;
 import org.eclipse.dltk.dbgp.DbgpRequest;
 
 public class DbgpPacketSender {
+	private static class CountingOutputStream extends FilterOutputStream {
+		int count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		public void write(int b) throws IOException {
+			out.write(b);
+			++count;
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
 	private final Object lock = new Object();
 
-	private final OutputStream output;
+	private final CountingOutputStream output;
 
 	private IDbgpRawLogger logger;
+	private DbgpMetrics metrics;
 
 	public DbgpPacketSender(OutputStream output) {
 		if (output == null) {
 			throw new IllegalArgumentException();
 		}
 
-		this.output = output;
+		this.output = new CountingOutputStream(output);
 	}
 
 	public void setLogger(IDbgpRawLogger logger) {
 		this.logger = logger;
 	}
 
+	public void setMetrics(DbgpMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	public void sendCommand(DbgpRequest command) throws IOException {
 		if (logger != null) {
 			logger.log(command);
 		}
 
 		synchronized (lock) {
+			output.count = 0;
 			command.writeTo(output);
 			output.write(0);
 			output.flush();
+			if (metrics != null) {
+				metrics.packetSent(output.count);
+			}
 		}
 	}
 }
@@ -9,6 +9,7 @@
  *******************************************************************************/
 package org.eclipse.dltk.dbgp.internal.packets;
 
+import org.eclipse.dltk.dbgp.internal.utils.DbgpXmlParser;
 import org.w3c.dom.Element;
 
 public class DbgpStreamPacket extends DbgpPacket {
@@ -18,7 +19,7 @@ public class DbgpStreamPacket extends DbgpPacket {
 
 	private final String type;
 
-	private final String textContent;
+	private String textContent;
 
 	public DbgpStreamPacket(String type, String textContent, Element content) {
 		super(content);
@@ -35,6 +36,20 @@ public class DbgpStreamPacket extends DbgpPacket {
 		this.textContent = textContent;
 	}
 
+	/**
+	 * Creates the packet which decodes the text content when it is requested
+	 * for the first time, so the packet receiver does not spend time on it.
+	 */
+	public DbgpStreamPacket(String type, Element content) {
+		super(content);
+
+		if (!STDERR.equalsIgnoreCase(type) && !STDOUT.equalsIgnoreCase(type)) {
+			throw new IllegalArgumentException(Messages.DbgpStreamPacket_invalidTypeValue);
+		}
+
+		this.type = type;
+	}
+
 	public boolean isStdout() {
 		return STDOUT.equalsIgnoreCase(type);
 	}
@@ -43,7 +58,10 @@ public class DbgpStreamPacket extends DbgpPacket {
 		return STDERR.equalsIgnoreCase(type);
 	}
 
-	public String getTextContent() {
+	public synchronized String getTextContent() {
+		if (textContent == null) {
+			textContent = DbgpXmlParser.parseBase64Content(getContent());
+		}
 		return textContent;
 	}
 
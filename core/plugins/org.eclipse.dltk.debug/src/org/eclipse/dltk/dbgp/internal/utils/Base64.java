@@ -220,6 +220,55 @@ class Base64 {
 		return byteLength;
 	}
 
+	/**
+	 * Decodes the base 64 digits of the specified string directly into the
+	 * result buffer, skipping the whitespace the encoded data could be chunked
+	 * with. The buffer should be at least <code>data.length() * 3 / 4</code>
+	 * bytes long.
+	 * 
+	 * @param data
+	 *            the encoded string
+	 * @param result
+	 *            the buffer for the decoded bytes
+	 * @return the number of the result bytes
+	 */
+	public static int decode(String data, byte[] result) {
+		int resultIndex = 0;
+		int allBits = 0;
+		int digits = 0;
+		for (int i = 0, length = data.length(); i < length; ++i) {
+			final char c = data.charAt(i);
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+				continue;
+			}
+			if (c == equalSign) {
+				break;
+			}
+			allBits = (allBits << 6) | decodeDigit(c);
+			if (++digits == 4) {
+				result[resultIndex++] = (byte) (allBits >>> 16);
+				result[resultIndex++] = (byte) (allBits >>> 8);
+				result[resultIndex++] = (byte) allBits;
+				allBits = 0;
+				digits = 0;
+			}
+		}
+		// the extra bytes in case the original data was not multiple of 3
+		// bytes
+		switch (digits) {
+		case 3:
+			// 18 bits, of which only 16 are meaningful
+			result[resultIndex++] = (byte) (allBits >>> 10);
+			result[resultIndex++] = (byte) (allBits >>> 2);
+			break;
+		case 2:
+			// 12 bits, of which only 8 are meaningful
+			result[resultIndex++] = (byte) (allBits >>> 4);
+			break;
+		}
+		return resultIndex;
+	}
+
 	/**
 	 * This method converts a Base 64 digit to its numeric value.
 	 * 
@@ -228,7 +277,10 @@ class Base64 {
 	 * @return value for the digit
 	 */
 	static int decodeDigit(byte data) {
-		char charData = (char) data;
+		return decodeDigit((char) data);
+	}
+
+	private static int decodeDigit(char charData) {
 		if (charData <= 'Z' && charData >= 'A') {
 			return charData - 'A';
 		}
@@ -245,7 +297,7 @@ class Base64 {
 			return 63;
 		default:
 			throw new IllegalArgumentException(
-					"Invalid char to decode: " + data); //$NON-NLS-1$
+					"Invalid char to decode: " + (int) charData); //$NON-NLS-1$
 		}
 	}
 
@@ -48,12 +48,10 @@ public class Base64Helper {
 	public static String decodeString(String base64) {
 		if (base64 != null && base64.length() != 0) {
 			try {
-				final byte[] bytes = base64.getBytes(BYTE_ENCODING);
-				final int length = discardWhitespace(bytes);
+				final byte[] bytes = new byte[base64.length() * 3 / 4];
+				final int length = Base64.decode(base64, bytes);
 				if (length > 0) {
-					final int decodedLength = Base64.decodeInlplace(bytes,
-							length);
-					return new String(bytes, 0, decodedLength, DATA_ENCODING);
+					return new String(bytes, 0, length, DATA_ENCODING);
 				}
 			} catch (UnsupportedEncodingException e) {
 				DLTKDebugPlugin.log(e);
@@ -62,38 +60,6 @@ public class Base64Helper {
 		return EMPTY;
 	}
 
-	/**
-	 * Discards any whitespace from a base-64 encoded block. The base64 data in
-	 * responses could be chunked in the multiple lines, so we need to remove
-	 * extra whitespaces.
-	 * 
-	 * The bytes are copied in-place and the length of the actual data bytes is
-	 * returned.
-	 * 
-	 * @param bytes
-	 * @return
-	 */
-	private static int discardWhitespace(byte[] data) {
-		final int length = data.length;
-		int i = 0;
-		while (i < length) {
-			byte c = data[i++];
-			if (c == (byte) ' ' || c == (byte) '\n' || c == (byte) '\r'
-					|| c == (byte) '\t') {
-				int count = i - 1;
-				while (i < length) {
-					c = data[i++];
-					if (c != (byte) ' ' && c != (byte) '\n' && c != (byte) '\r'
-							&& c != (byte) '\t') {
-						data[count++] = c;
-					}
-				}
-				return count;
-			}
-		}
-		return length;
-	}
-
 	public static String encodeBytes(byte[] bytes) {
 		return new String(Base64.encode(bytes));
 	}
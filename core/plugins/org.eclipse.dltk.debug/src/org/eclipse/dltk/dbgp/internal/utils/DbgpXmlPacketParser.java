@@ -37,7 +37,6 @@ public class DbgpXmlPacketParser extends DbgpXmlParser {
 		final String ATTR_TYPE = "type"; //$NON-NLS-1$
 
 		String type = element.getAttribute(ATTR_TYPE);
-		String textContent = DbgpXmlParser.parseBase64Content(element);
-		return new DbgpStreamPacket(type, textContent, element);
+		return new DbgpStreamPacket(type, element);
 	}
 }
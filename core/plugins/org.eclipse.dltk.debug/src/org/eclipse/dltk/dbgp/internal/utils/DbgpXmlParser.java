@@ -52,12 +52,37 @@ public class DbgpXmlParser {
 		return Integer.parseInt(s) == 0 ? false : true;
 	}
 
+	private static final DocumentBuilderFactory factory = DocumentBuilderFactory
+			.newInstance();
+
+	/**
+	 * Document builders are reused for the packets parsed on the same thread,
+	 * since creating them for each packet is expensive.
+	 */
+	private static final ThreadLocal<DocumentBuilder> builders = new ThreadLocal<DocumentBuilder>();
+
+	private static DocumentBuilder getDocumentBuilder()
+			throws ParserConfigurationException {
+		DocumentBuilder builder = builders.get();
+		if (builder == null) {
+			synchronized (factory) {
+				builder = factory.newDocumentBuilder();
+			}
+			builders.set(builder);
+		} else {
+			builder.reset();
+		}
+		return builder;
+	}
+
 	public static Document parseXml(byte[] xml) throws DbgpProtocolException {
-		try {
-			DocumentBuilderFactory factory = DocumentBuilderFactory
-					.newInstance();
+		return parseXml(xml, xml.length);
+	}
 
-			DocumentBuilder builder = factory.newDocumentBuilder();
+	public static Document parseXml(byte[] xml, int length)
+			throws DbgpProtocolException {
+		try {
+			DocumentBuilder builder = getDocumentBuilder();
 
 			// builder.setErrorHandler(new ErrorHandler() {
 			// public void error(SAXParseException exception)
@@ -73,7 +98,8 @@ public class DbgpXmlParser {
 			// }
 			// });
 
-			InputSource source = new InputSource(new ByteArrayInputStream(xml));
+			InputSource source = new InputSource(new ByteArrayInputStream(xml,
+					0, length));
 			return builder.parse(source);
 		} catch (ParserConfigurationException e) {
 			throw new DbgpProtocolException(e);
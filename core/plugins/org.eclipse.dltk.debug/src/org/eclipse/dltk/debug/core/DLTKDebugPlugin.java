@@ -29,7 +29,9 @@ import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunchManager;
 import org.eclipse.debug.core.model.IDebugTarget;
 import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.dbgp.internal.DbgpMultiplexer;
 import org.eclipse.dltk.debug.core.model.ISourceOffsetLookup;
+import org.eclipse.dltk.internal.debug.core.model.DbgpMetricsService;
 import org.eclipse.dltk.internal.debug.core.model.DbgpService;
 import org.eclipse.dltk.internal.debug.core.model.HotCodeReplaceManager;
 import org.eclipse.dltk.internal.debug.core.model.ScriptDebugTarget;
@@ -67,6 +69,7 @@ public class DLTKDebugPlugin extends Plugin {
 		if (dbgpService != null) {
 			dbgpService.shutdown();
 		}
+		DbgpMultiplexer.shutdown();
 
 		ILaunchManager launchManager = DebugPlugin.getDefault()
 				.getLaunchManager();
@@ -83,13 +86,30 @@ public class DLTKDebugPlugin extends Plugin {
 
 	public synchronized IDbgpService getDbgpService() {
 		if (dbgpService == null) {
-			dbgpService = new DbgpService(getPreferencePort());
+			dbgpService = new DbgpService(getPreferencePort(),
+					getPluginPreferences().getBoolean(
+							DLTKDebugPreferenceConstants.PREF_DBGP_MULTIPLEXED));
 			getPluginPreferences().addPropertyChangeListener(
 					new DbgpServicePreferenceUpdater());
 		}
 		return dbgpService;
 	}
 
+	private DbgpMetricsService dbgpMetricsService;
+
+	/**
+	 * Returns the service providing the protocol statistics of the debugging
+	 * engine connections.
+	 * 
+	 * @since 5.1
+	 */
+	public synchronized IDbgpMetricsService getDbgpMetricsService() {
+		if (dbgpMetricsService == null) {
+			dbgpMetricsService = new DbgpMetricsService();
+		}
+		return dbgpMetricsService;
+	}
+
 	private class DbgpServicePreferenceUpdater implements
 			IPropertyChangeListener {
 
@@ -99,6 +119,13 @@ public class DLTKDebugPlugin extends Plugin {
 				if (dbgpService != null) {
 					dbgpService.restart(getPreferencePort());
 				}
+			} else if (DLTKDebugPreferenceConstants.PREF_DBGP_MULTIPLEXED
+					.equals(property)) {
+				if (dbgpService != null) {
+					dbgpService.setMultiplexed(getPluginPreferences()
+							.getBoolean(
+									DLTKDebugPreferenceConstants.PREF_DBGP_MULTIPLEXED));
+				}
 			}
 		}
 
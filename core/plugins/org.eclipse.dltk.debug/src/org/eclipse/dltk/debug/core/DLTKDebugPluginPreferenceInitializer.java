@@ -25,6 +25,13 @@ public class DLTKDebugPluginPreferenceInitializer extends
 
 		prefs.setDefault(DLTKDebugPreferenceConstants.PREF_DBGP_PORT, -1);
 
+		prefs.setDefault(DLTKDebugPreferenceConstants.PREF_DBGP_MULTIPLEXED,
+				false);
+
+		prefs.setDefault(
+				DLTKDebugPreferenceConstants.PREF_DBGP_STREAM_DROP_ON_OVERFLOW,
+				true);
+
 		prefs.setDefault(
 				DLTKDebugPreferenceConstants.PREF_DBGP_CONNECTION_TIMEOUT,
 				10000);
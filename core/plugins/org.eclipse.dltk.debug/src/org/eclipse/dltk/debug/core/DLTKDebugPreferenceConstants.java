@@ -22,6 +22,23 @@ public class DLTKDebugPreferenceConstants {
 	public static final String PREF_DBGP_BIND_ADDRESS = "dbgp_bind_address"; //$NON-NLS-1$
 	public static final String PREF_DBGP_PORT = "dbgp_port"; //$NON-NLS-1$
 
+	/**
+	 * Serve all the debugging engine connections with the single selector
+	 * thread instead of the threads per connection
+	 * 
+	 * @since 5.1
+	 */
+	public static final String PREF_DBGP_MULTIPLEXED = "dbgp_multiplexed"; //$NON-NLS-1$
+
+	/**
+	 * Drop the debugging engine output when too much of it is pending instead
+	 * of waiting until it is written to the console. Enabled by default, the
+	 * output is always dropped for the multiplexed connections.
+	 * 
+	 * @since 5.1
+	 */
+	public static final String PREF_DBGP_STREAM_DROP_ON_OVERFLOW = "dbgp_stream_drop_on_overflow"; //$NON-NLS-1$
+
 	public static final String PREF_DBGP_REMOTE_PORT = "remote_dbgp_port"; //$NON-NLS-1$
 
 	// Time to wait of connection debugging engine to the IDE
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ 
+ *******************************************************************************/
+package org.eclipse.dltk.debug.core;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.eclipse.dltk.dbgp.DbgpMetrics;
+
+/**
+ * Provides the protocol statistics of the recent debugging engine
+ * connections.
+ * 
+ * @see DLTKDebugPlugin#getDbgpMetricsService()
+ * @since 5.1
+ */
+public interface IDbgpMetricsService {
+	/**
+	 * Returns the statistics of the recent connections, the most recent first
+	 */
+	DbgpMetrics[] getMetrics();
+
+	/**
+	 * Forgets the statistics collected so far, including the ones of the
+	 * running sessions.
+	 */
+	void clear();
+
+	/**
+	 * Writes the statistics as the comma separated values, one line per
+	 * command of each connection.
+	 */
+	void export(Writer writer) throws IOException;
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ 
+ *******************************************************************************/
+package org.eclipse.dltk.internal.debug.core.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedList;
+
+import org.eclipse.dltk.dbgp.DbgpMetrics;
+import org.eclipse.dltk.dbgp.DbgpMetrics.CommandMetrics;
+import org.eclipse.dltk.debug.core.DLTKDebugPlugin;
+import org.eclipse.dltk.debug.core.IDbgpMetricsService;
+
+public class DbgpMetricsService implements IDbgpMetricsService {
+
+	/**
+	 * The number of the recent connections the statistics are kept for
+	 */
+	private static final int MAX_SESSIONS = 64;
+
+	private static final String SEPARATOR = ","; //$NON-NLS-1$
+	private static final String LINE_SEPARATOR = "\n"; //$NON-NLS-1$
+
+	private final LinkedList<DbgpMetrics> metrics = new LinkedList<DbgpMetrics>();
+
+	/**
+	 * Adds the statistics of the new connection to the service of the debug
+	 * plugin, if it is running.
+	 */
+	public static void register(DbgpMetrics value) {
+		final DLTKDebugPlugin plugin = DLTKDebugPlugin.getDefault();
+		if (plugin != null) {
+			((DbgpMetricsService) plugin.getDbgpMetricsService()).add(value);
+		}
+	}
+
+	public synchronized void add(DbgpMetrics value) {
+		metrics.addFirst(value);
+		while (metrics.size() > MAX_SESSIONS) {
+			metrics.removeLast();
+		}
+	}
+
+	public synchronized DbgpMetrics[] getMetrics() {
+		return metrics.toArray(new DbgpMetrics[metrics.size()]);
+	}
+
+	public synchronized void clear() {
+		metrics.clear();
+	}
+
+	public void export(Writer writer) throws IOException {
+		writer.write("session,command,count,totalNanos,maxNanos"); //$NON-NLS-1$
+		final long[] bounds = DbgpMetrics.getBucketBounds();
+		for (int i = 0; i < bounds.length; ++i) {
+			writer.write(SEPARATOR + "lt" + bounds[i] + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		writer.write(SEPARATOR + "ge" + bounds[bounds.length - 1] + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.write(LINE_SEPARATOR);
+		for (DbgpMetrics session : getMetrics()) {
+			final String name = quote(session.getName());
+			for (CommandMetrics command : session.getCommands()) {
+				writer.write(name);
+				writer.write(SEPARATOR + quote(command.getCommand()));
+				writer.write(SEPARATOR + command.getCount());
+				writer.write(SEPARATOR + command.getTotalTime());
+				writer.write(SEPARATOR + command.getMaxTime());
+				for (long value : command.getHistogram()) {
+					writer.write(SEPARATOR + value);
+				}
+				writer.write(LINE_SEPARATOR);
+			}
+			writeTotal(writer, name, "<bytesIn>", session.getPacketsIn(), //$NON-NLS-1$
+					session.getBytesIn());
+			writeTotal(writer, name, "<bytesOut>", session.getPacketsOut(), //$NON-NLS-1$
+					session.getBytesOut());
+			writeTotal(writer, name, "<parse>", session.getPacketsIn(), //$NON-NLS-1$
+					session.getParseTime());
+			writeTotal(writer, name, "<queueWait>", //$NON-NLS-1$
+					session.getQueueWaitCount(), session.getQueueWaitTime());
+		}
+		writer.flush();
+	}
+
+	private static void writeTotal(Writer writer, String session, String kind,
+			long count, long total) throws IOException {
+		writer.write(session + SEPARATOR + kind + SEPARATOR + count
+				+ SEPARATOR + total + LINE_SEPARATOR);
+	}
+
+	private static String quote(String value) {
+		return '"' + value.replace("\"", "\"\"") + '"'; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -45,6 +45,12 @@ public class DbgpService implements IDbgpService, IDbgpTerminationListener,
 
 	private int serverPort;
 
+	/**
+	 * If the sessions are served by the selector thread instead of the
+	 * thread per session
+	 */
+	private boolean multiplexed;
+
 	private void stopServer() {
 		if (server != null) {
 			try {
@@ -72,7 +78,7 @@ public class DbgpService implements IDbgpService, IDbgpTerminationListener,
 	}
 
 	protected DbgpServer createServer(int port) {
-		return new DbgpServer(port, CLIENT_SOCKET_TIMEOUT);
+		return new DbgpServer(port, CLIENT_SOCKET_TIMEOUT, multiplexed);
 	}
 
 	private void restartServer(int port) {
@@ -81,6 +87,14 @@ public class DbgpService implements IDbgpService, IDbgpTerminationListener,
 	}
 
 	public DbgpService(int port) {
+		this(port, false);
+	}
+
+	/**
+	 * @since 5.1
+	 */
+	public DbgpService(int port, boolean multiplexed) {
+		this.multiplexed = multiplexed;
 		if (port == DLTKDebugPreferenceConstants.DBGP_AVAILABLE_PORT) {
 			port = DbgpServer.findAvailablePort(FROM_PORT, TO_PORT);
 		}
@@ -131,6 +145,19 @@ public class DbgpService implements IDbgpService, IDbgpTerminationListener,
 		}
 	}
 
+	/**
+	 * Switches the mode of serving the new sessions, the already running
+	 * sessions are not affected.
+	 * 
+	 * @since 5.1
+	 */
+	public void setMultiplexed(boolean multiplexed) {
+		if (this.multiplexed != multiplexed) {
+			this.multiplexed = multiplexed;
+			restartServer(serverPort);
+		}
+	}
+
 	// IDbgpTerminationListener
 	public void objectTerminated(Object object, Exception e) {
 		if (e != null) {
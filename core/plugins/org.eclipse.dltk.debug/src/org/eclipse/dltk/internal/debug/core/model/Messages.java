@@ -11,8 +11,11 @@ public class Messages extends NLS {
 	public static String ScriptStackFrame_unableToLoadVariables;
 	public static String ScriptValue_detailFormatterRequiredToContainIdentifier;
 	public static String ScriptValue_unableToLoadChildrenOf;
+	public static String ScriptValue_pageNotLoaded;
 	public static String ScriptVariable_cantAssignVariable;
 	public static String DbgpService_ServerRestart;
+	public static String ScriptStreamBuffer_flush;
+	public static String ScriptStreamBuffer_dropped;
 
 	public static String AvailableChildrenExceedsVariableLength;
 
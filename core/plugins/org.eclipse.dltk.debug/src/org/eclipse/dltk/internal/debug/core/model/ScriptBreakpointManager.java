@@ -8,7 +8,9 @@
 package org.eclipse.dltk.internal.debug.core.model;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.resources.IMarker;
@@ -27,8 +29,9 @@ import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.dbgp.IDbgpSession;
 import org.eclipse.dltk.dbgp.IDbgpSpawnpoint;
 import org.eclipse.dltk.dbgp.breakpoints.DbgpBreakpointConfig;
+import org.eclipse.dltk.dbgp.commands.IDbgpBreakpointBatch;
+import org.eclipse.dltk.dbgp.commands.IDbgpBreakpointBatch.IBreakpointId;
 import org.eclipse.dltk.dbgp.commands.IDbgpBreakpointCommands;
-import org.eclipse.dltk.dbgp.commands.IDbgpCoreCommands;
 import org.eclipse.dltk.dbgp.commands.IDbgpSpawnpointCommands;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.debug.core.DLTKDebugPlugin;
@@ -102,10 +105,85 @@ public class ScriptBreakpointManager implements IBreakpointListener,
 	// Adding, removing, updating
 	protected void addBreakpoint(final IDbgpSession session,
 			IScriptBreakpoint breakpoint) throws CoreException, DbgpException {
-		final IDbgpCoreCommands commands = session.getCoreCommands();
+		sendBreakpoint(session.getCoreCommands().createBreakpointBatch(),
+				breakpoint).complete(session);
+	}
+
+	/**
+	 * The breakpoint being set, waiting for the identifiers assigned by the
+	 * engine.
+	 */
+	private static class PendingBreakpoint {
+		final IScriptBreakpoint breakpoint;
+		IBreakpointId id;
+		IBreakpointId entryId;
+		IBreakpointId exitId;
+
+		PendingBreakpoint(IScriptBreakpoint breakpoint) {
+			this.breakpoint = breakpoint;
+		}
+
+		void complete(IDbgpSession session) throws CoreException,
+				DbgpException {
+			try {
+				if (breakpoint instanceof IScriptMethodEntryBreakpoint) {
+					IScriptMethodEntryBreakpoint entryBreakpoint = (IScriptMethodEntryBreakpoint) breakpoint;
+					if (exitId != null) {
+						entryBreakpoint.setExitBreakpointId(exitId.get());
+					}
+					if (entryId != null) {
+						entryBreakpoint.setEntryBreakpointId(entryId.get());
+					}
+				}
+
+				// Identifier
+				breakpoint.setId(session, id != null ? id.get() : null);
+			} finally {
+				cancel();
+			}
+		}
+
+		/**
+		 * Drops the responses not retrieved yet
+		 */
+		void cancel() {
+			if (id != null) {
+				id.cancel();
+			}
+			if (entryId != null) {
+				entryId.cancel();
+			}
+			if (exitId != null) {
+				exitId.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Sends the commands to set the breakpoint without waiting for the
+	 * responses.
+	 */
+	private PendingBreakpoint sendBreakpoint(IDbgpBreakpointBatch batch,
+			IScriptBreakpoint breakpoint) throws CoreException, DbgpException {
 		DbgpBreakpointConfig config = createBreakpointConfig(breakpoint);
+		final PendingBreakpoint pending = new PendingBreakpoint(breakpoint);
+		boolean sent = false;
+		try {
+			sendBreakpoint(batch, breakpoint, config, pending);
+			sent = true;
+		} finally {
+			if (!sent) {
+				// drop the responses of the commands already sent
+				pending.cancel();
+			}
+		}
+		return pending;
+	}
+
+	private void sendBreakpoint(IDbgpBreakpointBatch batch,
+			IScriptBreakpoint breakpoint, DbgpBreakpointConfig config,
+			PendingBreakpoint pending) throws CoreException, DbgpException {
 
-		String id = null;
 		URI bpUri = null;
 
 		// map the outgoing uri if we're a line breakpoint
@@ -119,42 +197,35 @@ public class ScriptBreakpointManager implements IBreakpointListener,
 			IScriptWatchpoint watchpoint = (IScriptWatchpoint) breakpoint;
 			config.setExpression(makeWatchpointExpression(watchpoint));
 
-			id = commands.setWatchBreakpoint(bpUri, watchpoint.getLineNumber(),
-					config);
+			pending.id = batch.setWatchBreakpoint(bpUri,
+					watchpoint.getLineNumber(), config);
 		} else if (breakpoint instanceof IScriptMethodEntryBreakpoint) {
 			IScriptMethodEntryBreakpoint entryBreakpoint = (IScriptMethodEntryBreakpoint) breakpoint;
 
 			if (entryBreakpoint.breakOnExit()) {
-				final String exitId = commands.setReturnBreakpoint(bpUri,
+				pending.exitId = batch.setReturnBreakpoint(bpUri,
 						entryBreakpoint.getMethodName(), config);
-
-				entryBreakpoint.setExitBreakpointId(exitId);
 			}
 
 			if (entryBreakpoint.breakOnEntry()) {
-				final String entryId = commands.setCallBreakpoint(bpUri,
+				pending.entryId = batch.setCallBreakpoint(bpUri,
 						entryBreakpoint.getMethodName(), config);
-
-				entryBreakpoint.setEntryBreakpointId(entryId);
 			}
 		} else if (breakpoint instanceof IScriptLineBreakpoint) {
 			IScriptLineBreakpoint lineBreakpoint = (IScriptLineBreakpoint) breakpoint;
 
 			if (ScriptBreakpointUtils.isConditional(lineBreakpoint)) {
-				id = commands.setConditionalBreakpoint(bpUri,
+				pending.id = batch.setConditionalBreakpoint(bpUri,
 						lineBreakpoint.getLineNumber(), config);
 			} else {
-				id = commands.setLineBreakpoint(bpUri,
+				pending.id = batch.setLineBreakpoint(bpUri,
 						lineBreakpoint.getLineNumber(), config);
 			}
 		} else if (breakpoint instanceof IScriptExceptionBreakpoint) {
 			IScriptExceptionBreakpoint lineBreakpoint = (IScriptExceptionBreakpoint) breakpoint;
-			id = commands.setExceptionBreakpoint(lineBreakpoint.getTypeName(),
-					config);
+			pending.id = batch.setExceptionBreakpoint(
+					lineBreakpoint.getTypeName(), config);
 		}
-
-		// Identifier
-		breakpoint.setId(session, id);
 	}
 
 	private void addSpawnpoint(final IDbgpSession session,
@@ -449,29 +520,43 @@ public class ScriptBreakpointManager implements IBreakpointListener,
 		return false;
 	}
 
+	/**
+	 * Installs all the breakpoints into the new session. The
+	 * <code>breakpoint_set</code> commands are pipelined and the
+	 * acknowledgements are collected at the end.
+	 */
 	public void initializeSession(IDbgpSession session, IProgressMonitor monitor) {
 		if (!addSession(session)) {
 			return;
 		}
 		IBreakpoint[] breakpoints = getBreakpointManager().getBreakpoints(
 				target.getModelIdentifier());
-		monitor.beginTask(Util.EMPTY_STRING, breakpoints.length);
+		monitor.beginTask(Util.EMPTY_STRING, breakpoints.length * 2);
 
+		final IDbgpBreakpointBatch batch = session.getCoreCommands()
+				.createBreakpointBatch();
+		final List<PendingBreakpoint> pending = new ArrayList<PendingBreakpoint>(
+				breakpoints.length);
 		for (int i = 0; i < breakpoints.length; i++) {
 			try {
 				final IBreakpoint breakpoint = breakpoints[i];
 				if (breakpoint instanceof IScriptSpawnpoint) {
 					addSpawnpoint(session, (IScriptSpawnpoint) breakpoint);
 				} else {
-					addBreakpoint(session, (IScriptBreakpoint) breakpoint);
+					pending.add(sendBreakpoint(batch,
+							(IScriptBreakpoint) breakpoint));
 				}
 			} catch (Exception e) {
-				DLTKDebugPlugin.logWarning(
-						NLS.bind(Messages.ErrorSetupDeferredBreakpoints,
-								e.getMessage()), e);
-				if (DLTKCore.DEBUG) {
-					e.printStackTrace();
-				}
+				logSetupError(e);
+			}
+			monitor.worked(1);
+		}
+		monitor.worked(breakpoints.length - pending.size());
+		for (PendingBreakpoint breakpoint : pending) {
+			try {
+				breakpoint.complete(session);
+			} catch (Exception e) {
+				logSetupError(e);
 			}
 			monitor.worked(1);
 		}
@@ -479,6 +564,15 @@ public class ScriptBreakpointManager implements IBreakpointListener,
 		monitor.done();
 	}
 
+	private static void logSetupError(Exception e) {
+		DLTKDebugPlugin.logWarning(
+				NLS.bind(Messages.ErrorSetupDeferredBreakpoints, e.getMessage()),
+				e);
+		if (DLTKCore.DEBUG) {
+			e.printStackTrace();
+		}
+	}
+
 	private static class TemporaryBreakpoint implements IDebugEventSetListener {
 		final ScriptBreakpointManager manager;
 		final Map<IDbgpSession, String> ids = new IdentityHashMap<IDbgpSession, String>(
@@ -36,11 +36,15 @@ public class ScriptBreakpointPathMapper implements IScriptBreakpointPathMapperEx
 		this.cache = new HashMap();
 	}
 
-	public void clearCache() {
+	public synchronized void clearCache() {
 		cache.clear();
 	}
 
-	public URI map(URI uri) {
+	/*
+	 * Synchronized, since the sessions spawned by the same target initialize
+	 * their breakpoints concurrently.
+	 */
+	public synchronized URI map(URI uri) {
 		// no mapTo, return original uri
 		if (mapTo == null || "".equals(mapTo)) { //$NON-NLS-1$
 			return uri;
@@ -10,10 +10,12 @@
 package org.eclipse.dltk.internal.debug.core.model;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -57,24 +59,7 @@ public class ScriptStackFrame extends ScriptDebugElement implements
 		try {
 			IDbgpProperty[] properties = commands.getContextProperties(
 					parentFrame.getLevel(), contextId);
-
-			IScriptVariable[] variables = new IScriptVariable[properties.length];
-
-			// Workaround for bug 215215
-			// https://bugs.eclipse.org/bugs/show_bug.cgi?id=215215
-			// Remove this code when Tcl active state debugger fixed
-			Set duplicates = findDuplicateNames(properties);
-
-			for (int i = 0; i < properties.length; ++i) {
-				IDbgpProperty property = properties[i];
-				String name = property.getName();
-				if (duplicates.contains(name)) {
-					name = property.getEvalName();
-				}
-				variables[i] = new ScriptVariable(parentFrame, name, property);
-			}
-
-			return variables;
+			return createVariables(parentFrame, properties);
 		} catch (DbgpDebuggingEngineException e) {
 			if (DLTKCore.DEBUG) {
 				e.printStackTrace();
@@ -83,6 +68,27 @@ public class ScriptStackFrame extends ScriptDebugElement implements
 		}
 	}
 
+	private static IScriptVariable[] createVariables(
+			ScriptStackFrame parentFrame, IDbgpProperty[] properties) {
+		IScriptVariable[] variables = new IScriptVariable[properties.length];
+
+		// Workaround for bug 215215
+		// https://bugs.eclipse.org/bugs/show_bug.cgi?id=215215
+		// Remove this code when Tcl active state debugger fixed
+		Set duplicates = findDuplicateNames(properties);
+
+		for (int i = 0; i < properties.length; ++i) {
+			IDbgpProperty property = properties[i];
+			String name = property.getName();
+			if (duplicates.contains(name)) {
+				name = property.getEvalName();
+			}
+			variables[i] = new ScriptVariable(parentFrame, name, property);
+		}
+
+		return variables;
+	}
+
 	private static Set findDuplicateNames(IDbgpProperty[] properties) {
 		final Set duplicates = new HashSet();
 		final Set alreadyExsisting = new HashSet();
@@ -96,33 +102,49 @@ public class ScriptStackFrame extends ScriptDebugElement implements
 		return duplicates;
 	}
 
+	/**
+	 * Reads the variables of all the contexts at once: the context names and
+	 * the contexts are requested in one pipelined burst, so it takes a single
+	 * round trip if the engine supports that.
+	 */
 	protected ScriptVariableContainer readAllVariables() throws DbgpException {
-		final IDbgpContextCommands commands = thread.getDbgpSession()
-				.getCoreCommands();
-
-		final Map names = commands.getContextNames(getLevel());
 		final ScriptVariableContainer result = new ScriptVariableContainer();
-		if (thread.retrieveLocalVariables()
-				&& names.containsKey(new Integer(
-						IDbgpContextCommands.LOCAL_CONTEXT_ID))) {
-			result.locals = readVariables(this,
-					IDbgpContextCommands.LOCAL_CONTEXT_ID, commands);
+		final List<Integer> contextIds = new ArrayList<Integer>(3);
+		if (thread.retrieveLocalVariables()) {
+			contextIds.add(IDbgpContextCommands.LOCAL_CONTEXT_ID);
 		}
-		if (thread.retrieveGlobalVariables()
-				&& names.containsKey(new Integer(
-						IDbgpContextCommands.GLOBAL_CONTEXT_ID))) {
-			result.globals = readVariables(this,
-					IDbgpContextCommands.GLOBAL_CONTEXT_ID, commands);
+		if (thread.retrieveGlobalVariables()) {
+			contextIds.add(IDbgpContextCommands.GLOBAL_CONTEXT_ID);
 		}
-		if (thread.retrieveClassVariables()
-				&& names.containsKey(new Integer(
-						IDbgpContextCommands.CLASS_CONTEXT_ID))) {
-			result.classes = readVariables(this,
-					IDbgpContextCommands.CLASS_CONTEXT_ID, commands);
+		if (thread.retrieveClassVariables()) {
+			contextIds.add(IDbgpContextCommands.CLASS_CONTEXT_ID);
 		}
+		if (contextIds.isEmpty()) {
+			return result;
+		}
+		final int[] ids = new int[contextIds.size()];
+		for (int i = 0; i < ids.length; ++i) {
+			ids[i] = contextIds.get(i).intValue();
+		}
+		final IDbgpContextCommands commands = thread.getDbgpSession()
+				.getCoreCommands();
+		final Map<Integer, IDbgpProperty[]> contexts = commands
+				.getContextProperties(getLevel(), ids);
+		result.locals = createVariables(contexts,
+				IDbgpContextCommands.LOCAL_CONTEXT_ID);
+		result.globals = createVariables(contexts,
+				IDbgpContextCommands.GLOBAL_CONTEXT_ID);
+		result.classes = createVariables(contexts,
+				IDbgpContextCommands.CLASS_CONTEXT_ID);
 		return result;
 	}
 
+	private IScriptVariable[] createVariables(
+			Map<Integer, IDbgpProperty[]> contexts, int contextId) {
+		final IDbgpProperty[] properties = contexts.get(new Integer(contextId));
+		return properties != null ? createVariables(this, properties) : null;
+	}
+
 	private static class ScriptVariableContainer {
 		IVariable[] locals = null;
 		IVariable[] globals = null;
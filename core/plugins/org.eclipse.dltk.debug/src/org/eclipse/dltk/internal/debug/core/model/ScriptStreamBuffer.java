@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+
+ *******************************************************************************/
+package org.eclipse.dltk.internal.debug.core.model;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Collects the stdout/stderr data received from the debugging engine and
+ * writes it to the console in the larger chunks, either when some time passed
+ * since the first pending data arrived or when enough data is pending.
+ * Consecutive data of the same stream is coalesced, the order of the data of
+ * the different streams is preserved.
+ *
+ * <p>
+ * The amount of the pending data is bounded. When the buffer is full the new
+ * data is either dropped, which is reported at its place in the output, or
+ * the caller is blocked until the data is flushed, depending on the policy.
+ * Blocking holds the thread delivering the stream packets, so meanwhile they
+ * keep queueing in the packet receiver or, if the connection is multiplexed,
+ * the other packets of the session are delayed too. Therefore dropping is the
+ * default.
+ * </p>
+ */
+public class ScriptStreamBuffer {
+
+	public interface IStreamWriter {
+		void write(int stream, String data);
+	}
+
+	/**
+	 * The delay (in milliseconds) of writing the pending data
+	 */
+	private static final long FLUSH_DELAY = 100;
+
+	/**
+	 * The number of the pending characters to write them without waiting
+	 */
+	private static final int FLUSH_THRESHOLD = 16 * 1024;
+
+	/**
+	 * The maximum number of the pending characters
+	 */
+	private static final int CAPACITY = 1024 * 1024;
+
+	/**
+	 * The maximum number of the pending segments, the new segment is started
+	 * each time the stream changes
+	 */
+	private static final int SEGMENTS = 256;
+
+	private static final long BLOCK_TIMEOUT = 1000;
+
+	private final IStreamWriter writer;
+	private final boolean dropOnOverflow;
+
+	// the ring of segments
+	private final int[] streams = new int[SEGMENTS];
+	private final StringBuilder[] texts = new StringBuilder[SEGMENTS];
+	private int head = 0;
+	private int count = 0;
+	private int length = 0;
+
+	private int dropped = 0;
+	private int droppedStream;
+
+	private final Object flushLock = new Object();
+
+	private final Job flushJob = new Job(Messages.ScriptStreamBuffer_flush) {
+		protected IStatus run(IProgressMonitor monitor) {
+			flush();
+			return Status.OK_STATUS;
+		}
+	};
+
+	public ScriptStreamBuffer(IStreamWriter writer, boolean dropOnOverflow) {
+		this.writer = writer;
+		this.dropOnOverflow = dropOnOverflow;
+		flushJob.setSystem(true);
+	}
+
+	public void append(int stream, String data) {
+		if (data == null || data.length() == 0) {
+			return;
+		}
+		synchronized (this) {
+			while (!hasRoom(stream, data.length())) {
+				if (dropOnOverflow) {
+					if (dropped == 0) {
+						droppedStream = stream;
+					}
+					dropped += data.length();
+					return;
+				}
+				scheduleFlush(0);
+				try {
+					wait(BLOCK_TIMEOUT);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			final int pending = length;
+			if (dropped != 0) {
+				// the data received later is written after the marker
+				addSegment(droppedStream, getDroppedMessage(dropped));
+				dropped = 0;
+			}
+			addSegment(stream, data);
+			if (length >= FLUSH_THRESHOLD) {
+				scheduleFlush(0);
+			} else if (pending == 0) {
+				scheduleFlush(FLUSH_DELAY);
+			}
+		}
+	}
+
+	private void addSegment(int stream, String data) {
+		if (count != 0 && streams[index(count - 1)] == stream) {
+			texts[index(count - 1)].append(data);
+		} else {
+			final int i = index(count);
+			streams[i] = stream;
+			texts[i] = new StringBuilder(data);
+			++count;
+		}
+		length += data.length();
+	}
+
+	private boolean hasRoom(int stream, int size) {
+		if (length == 0) {
+			// large data is accepted if nothing is pending
+			return true;
+		}
+		if (length + size > CAPACITY) {
+			return false;
+		}
+		int segments = count;
+		int last = streams[index(count - 1)];
+		if (dropped != 0 && last != droppedStream) {
+			++segments;
+			last = droppedStream;
+		}
+		if (last != stream) {
+			++segments;
+		}
+		return segments <= SEGMENTS;
+	}
+
+	private int index(int i) {
+		return (head + i) % SEGMENTS;
+	}
+
+	private static String getDroppedMessage(int count) {
+		return NLS.bind(Messages.ScriptStreamBuffer_dropped, String
+				.valueOf(count));
+	}
+
+	/**
+	 * Requests the pending data to be written after the specified delay (in
+	 * milliseconds)
+	 */
+	protected void scheduleFlush(long delay) {
+		if (delay == 0) {
+			flushJob.schedule();
+			flushJob.wakeUp();
+		} else {
+			flushJob.schedule(delay);
+		}
+	}
+
+	/**
+	 * Writes all the pending data
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			for (;;) {
+				final int stream;
+				final String text;
+				synchronized (this) {
+					if (count == 0) {
+						if (dropped == 0) {
+							return;
+						}
+						// nothing was received since the data was dropped
+						stream = droppedStream;
+						text = getDroppedMessage(dropped);
+						dropped = 0;
+					} else {
+						stream = streams[head];
+						text = texts[head].toString();
+						texts[head] = null;
+						head = index(1);
+						--count;
+						length -= text.length();
+					}
+					notifyAll();
+				}
+				writer.write(stream, text);
+			}
+		}
+	}
+}
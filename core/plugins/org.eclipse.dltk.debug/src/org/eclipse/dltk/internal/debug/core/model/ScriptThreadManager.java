@@ -17,6 +17,7 @@ import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.Preferences;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugException;
@@ -32,6 +33,7 @@ import org.eclipse.dltk.dbgp.breakpoints.IDbgpLineBreakpoint;
 import org.eclipse.dltk.dbgp.commands.IDbgpFeatureCommands;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.debug.core.DLTKDebugPlugin;
+import org.eclipse.dltk.debug.core.DLTKDebugPreferenceConstants;
 import org.eclipse.dltk.debug.core.DebugOption;
 import org.eclipse.dltk.debug.core.IDebugOptions;
 import org.eclipse.dltk.debug.core.model.IScriptDebugThreadConfigurator;
@@ -143,26 +145,52 @@ public class ScriptThreadManager implements IScriptThreadManager,
 		return data;
 	}
 
-	public void stdoutReceived(String data) {
+	/**
+	 * The output is written to the console in the coalesced chunks. The
+	 * workers of the multiplexed connections are never blocked on it.
+	 */
+	private final ScriptStreamBuffer streamBuffer = new ScriptStreamBuffer(
+			new ScriptStreamBuffer.IStreamWriter() {
+				public void write(int stream, String data) {
+					writeStream(stream, data);
+				}
+			}, isDropOnOverflow());
+
+	private static boolean isDropOnOverflow() {
+		final Preferences prefs = DLTKDebugPlugin.getDefault()
+				.getPluginPreferences();
+		return prefs.getBoolean(
+				DLTKDebugPreferenceConstants.PREF_DBGP_STREAM_DROP_ON_OVERFLOW)
+				|| prefs.getBoolean(
+						DLTKDebugPreferenceConstants.PREF_DBGP_MULTIPLEXED);
+	}
+
+	private void writeStream(int stream, String data) {
 		final IScriptStreamProxy proxy = target.getStreamProxy();
 		if (proxy != null) {
-			data = filter(data, IDbgpStreamFilter.STDOUT);
+			data = filter(data, stream);
 			if (data != null) {
-				proxy.writeStdout(data);
+				if (stream == IDbgpStreamFilter.STDERR) {
+					proxy.writeStderr(data);
+				} else {
+					proxy.writeStdout(data);
+				}
 			}
 		}
+	}
+
+	public void stdoutReceived(String data) {
+		if (target.getStreamProxy() != null) {
+			streamBuffer.append(IDbgpStreamFilter.STDOUT, data);
+		}
 		if (DEBUG) {
 			System.out.println("Received (stdout): " + data); //$NON-NLS-1$
 		}
 	}
 
 	public void stderrReceived(String data) {
-		final IScriptStreamProxy proxy = target.getStreamProxy();
-		if (proxy != null) {
-			data = filter(data, IDbgpStreamFilter.STDERR);
-			if (data != null) {
-				proxy.writeStderr(data);
-			}
+		if (target.getStreamProxy() != null) {
+			streamBuffer.append(IDbgpStreamFilter.STDERR, data);
 		}
 		if (DEBUG) {
 			System.out.println("Received (stderr): " + data); //$NON-NLS-1$
@@ -352,6 +380,7 @@ public class ScriptThreadManager implements IScriptThreadManager,
 		session.getStreamManager().removeListener(this);
 		target.breakpointManager.removeSession(thread.getDbgpSession());
 		if (!hasThreads()) {
+			streamBuffer.flush();
 			fireAllThreadsTerminated();
 		}
 	}
@@ -9,7 +9,13 @@
  *******************************************************************************/
 package org.eclipse.dltk.internal.debug.core.model;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.debug.core.DebugException;
@@ -18,6 +24,7 @@ import org.eclipse.debug.core.model.IIndexedValue;
 import org.eclipse.debug.core.model.IVariable;
 import org.eclipse.dltk.dbgp.IDbgpProperty;
 import org.eclipse.dltk.dbgp.commands.IDbgpPropertyCommands;
+import org.eclipse.dltk.dbgp.commands.IDbgpPropertyPageCommands;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.debug.core.DLTKDebugPlugin;
 import org.eclipse.dltk.debug.core.ScriptDebugManager;
@@ -37,8 +44,40 @@ public class ScriptValue extends ScriptDebugElement implements IScriptValue,
 
 	static final IVariable[] NO_VARIABLES = new IVariable[0];
 
+	/**
+	 * The maximum number of the children pages kept loaded, the least recently
+	 * used pages are released and loaded again when needed.
+	 */
+	private static final int MAX_LOADED_PAGES = 32;
+
+	/**
+	 * The number of the neighbouring pages requested together with the
+	 * missing page on each side of it.
+	 */
+	private static final int READ_AHEAD_PAGES = 1;
+
 	private final IScriptType type;
-	final IVariable[] variables;
+
+	/**
+	 * The number of children
+	 */
+	private final int size;
+
+	/**
+	 * The loaded pages of children, the least recently used first
+	 */
+	private final Map<Integer, IVariable[]> pages = new LinkedHashMap<Integer, IVariable[]>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<Integer, IVariable[]> eldest) {
+			return size() > MAX_LOADED_PAGES;
+		}
+	};
+	/**
+	 * The pages being requested from the engine
+	 */
+	private final Set<Integer> loading = new HashSet<Integer>();
 	private IScriptStackFrame frame;
 	private int pageSize;
 	private String name;
@@ -87,62 +126,225 @@ public class ScriptValue extends ScriptDebugElement implements IScriptValue,
 
 		final int childrenCount = property.getChildrenCount();
 		if (childrenCount > 0) {
-			this.variables = new IVariable[childrenCount];
-			fillVariables(property.getPage(), property);
+			this.size = childrenCount;
+			if (pageSize <= 0) {
+				pageSize = frame.getScriptThread().getPropertyPageSize();
+			}
+			final int page = property.getPage();
+			final IDbgpProperty[] children = property.getAvailableChildren();
+			// otherwise the page is requested when needed
+			if (children.length >= getPageLength(page)) {
+				pages.put(new Integer(page), createPage(page, children));
+			}
 		} else {
-			this.variables = NO_VARIABLES;
+			this.size = 0;
 		}
 	}
 
-	private void loadPage(int page) throws DbgpException {
-		IDbgpPropertyCommands commands = frame.getScriptThread()
-				.getDbgpSession().getCoreCommands();
-		IDbgpProperty pageProperty = commands.getProperty(page, fullname, frame
-				.getLevel());
-		fillVariables(page, pageProperty);
-		final int endIndex = Math.min((page + 1) * pageSize, variables.length);
-		for (int i = page * pageSize; i < endIndex; ++i) {
-			if (variables[i] == null) {
-				variables[i] = new UnknownVariable(frame, this, i);
-			}
-		}
+	/**
+	 * Returns the number of children per page, all the children are on the
+	 * single page if the engine does not split them.
+	 */
+	private int getPageSize() {
+		return pageSize > 0 ? pageSize : size;
+	}
+
+	private int getPageCount() {
+		return (size + getPageSize() - 1) / getPageSize();
 	}
 
-	private void fillVariables(int page, IDbgpProperty pageProperty) {
-		int offset = getPageOffset(page);
-		IDbgpProperty[] properties = pageProperty.getAvailableChildren();
-		final int size = Math.min(properties.length, variables.length - offset);
-		if (size != properties.length) {
+	private int getPageLength(int page) {
+		return Math.max(0, Math.min(getPageSize(), size - page
+				* getPageSize()));
+	}
+
+	private IVariable[] createPage(int page, IDbgpProperty[] properties) {
+		final int offset = page * getPageSize();
+		final IVariable[] variables = new IVariable[getPageLength(page)];
+		final int count = Math.min(properties.length, variables.length);
+		if (count != properties.length) {
 			DLTKDebugPlugin.logWarning(NLS.bind(
 					Messages.AvailableChildrenExceedsVariableLength, name),
 					null);
 		}
-		if (size > 0) {
-			for (int i = 0; i < size; ++i) {
-				IDbgpProperty p = properties[i];
-				variables[offset + i] = new ScriptVariable(frame, p.getName(),
-						p);
+		for (int i = 0; i < count; ++i) {
+			IDbgpProperty p = properties[i];
+			variables[i] = new ScriptVariable(frame, p.getName(), p);
+		}
+		Arrays.sort(variables, 0, count, ScriptDebugManager.getInstance()
+				.getVariableNameComparatorByDebugModel(
+						getDebugTarget().getModelIdentifier()));
+		for (int i = count; i < variables.length; ++i) {
+			variables[i] = new UnknownVariable(frame, this, offset + i);
+		}
+		Assert.isLegal(pageSize > 0 || properties.length == size);
+		return variables;
+	}
+
+	/**
+	 * Returns the children on the specified page, loading it if it is not
+	 * loaded yet. The neighbouring pages are loaded together with it only if
+	 * the engine requests the pages at once, as otherwise each of them would
+	 * cost a separate round trip.
+	 */
+	private IVariable[] getPage(int page) throws DbgpException {
+		final Integer required = new Integer(page);
+		final List<Integer> missing = new ArrayList<Integer>();
+		final boolean readAhead = isPipelined();
+		synchronized (this) {
+			final IVariable[] variables = waitPage(page);
+			if (variables != null) {
+				return variables;
+			}
+			missing.add(required);
+			if (readAhead) {
+				final int first = Math.max(0, page - READ_AHEAD_PAGES);
+				final int last = Math.min(getPageCount() - 1, page
+						+ READ_AHEAD_PAGES);
+				for (int i = first; i <= last; ++i) {
+					final Integer key = new Integer(i);
+					if (i != page && !pages.containsKey(key)
+							&& !loading.contains(key)) {
+						missing.add(key);
+					}
+				}
 			}
-			Arrays.sort(this.variables, offset, offset + size,
-					ScriptDebugManager.getInstance()
-							.getVariableNameComparatorByDebugModel(
-									getDebugTarget().getModelIdentifier()));
+			loading.addAll(missing);
+		}
+		final IVariable[] variables = loadPages(missing).get(required);
+		if (variables == null) {
+			throw new DbgpException(NLS.bind(Messages.ScriptValue_pageNotLoaded,
+					String.valueOf(page), name));
 		}
-		Assert.isLegal(pageSize > 0 || properties.length == variables.length);
+		return variables;
 	}
 
-	private int getPageOffset(int page) {
-		if (pageSize <= 0)
-			pageSize = frame.getScriptThread().getPropertyPageSize();
+	private IDbgpPropertyCommands getPropertyCommands() {
+		return frame.getScriptThread().getDbgpSession().getCoreCommands();
+	}
 
-		if (pageSize <= 0)
-			return 0;
-		return page * pageSize;
+	/**
+	 * Answers if the engine requests several pages at once
+	 */
+	private boolean isPipelined() {
+		final IDbgpPropertyCommands commands = getPropertyCommands();
+		return commands instanceof IDbgpPropertyPageCommands
+				&& ((IDbgpPropertyPageCommands) commands).isPipelined();
 	}
 
-	private int getPageForOffset(int offset) {
-		Assert.isLegal(pageSize > 0);
-		return offset / pageSize;
+	/**
+	 * Waits while the page is being loaded by another thread and returns it
+	 * if it is loaded. Called with the lock held.
+	 */
+	private IVariable[] waitPage(int page) throws DbgpException {
+		final Integer key = new Integer(page);
+		while (loading.contains(key)) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DbgpException(e);
+			}
+		}
+		return pages.get(key);
+	}
+
+	/**
+	 * Requests the specified pages, which the caller marked as being loaded,
+	 * and returns them. The lock is not held while the engine is asked, the
+	 * first page is required, failures of the others are ignored.
+	 */
+	private Map<Integer, IVariable[]> loadPages(List<Integer> pageNumbers)
+			throws DbgpException {
+		final Map<Integer, IVariable[]> result = new LinkedHashMap<Integer, IVariable[]>();
+		try {
+			final int[] numbers = new int[pageNumbers.size()];
+			for (int i = 0; i < numbers.length; ++i) {
+				numbers[i] = pageNumbers.get(i).intValue();
+			}
+			final IDbgpProperty[] properties = fetchPages(numbers);
+			// put the required page last, so it is the most recently used one
+			for (int i = numbers.length - 1; i >= 0; --i) {
+				if (properties[i] != null) {
+					result.put(new Integer(numbers[i]), createPage(numbers[i],
+							properties[i].getAvailableChildren()));
+				}
+			}
+		} finally {
+			synchronized (this) {
+				pages.putAll(result);
+				loading.removeAll(pageNumbers);
+				notifyAll();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Requests the specified pages from the engine at once if it is supported
+	 * and only the first (required) page otherwise.
+	 */
+	private IDbgpProperty[] fetchPages(int[] numbers) throws DbgpException {
+		final IDbgpPropertyCommands commands = getPropertyCommands();
+		if (commands instanceof IDbgpPropertyPageCommands) {
+			return ((IDbgpPropertyPageCommands) commands).getPropertyPages(
+					numbers, fullname, frame.getLevel());
+		}
+		final IDbgpProperty[] properties = new IDbgpProperty[numbers.length];
+		properties[0] = commands.getProperty(numbers[0], fullname, frame
+				.getLevel());
+		return properties;
+	}
+
+	/**
+	 * Returns the loaded pages
+	 */
+	private synchronized Map<Integer, IVariable[]> getLoadedPages() {
+		return new LinkedHashMap<Integer, IVariable[]>(pages);
+	}
+
+	private synchronized IVariable[] getLoadedPage(int page)
+			throws DbgpException {
+		return waitPage(page);
+	}
+
+	/**
+	 * Loads the pages which were loaded by the previous value of the same
+	 * variable and refreshes their children with the previous ones, so their
+	 * state is preserved. The lock of the previous value is not held together
+	 * with this one.
+	 */
+	void refreshChildren(ScriptValue previous) throws DebugException {
+		if (size == 0) {
+			return;
+		}
+		final Map<Integer, IVariable[]> loaded = previous.getLoadedPages();
+		final List<Integer> missing = new ArrayList<Integer>();
+		synchronized (this) {
+			for (Integer page : loaded.keySet()) {
+				if (page.intValue() < getPageCount()
+						&& !pages.containsKey(page) && !loading.contains(page)) {
+					missing.add(page);
+				}
+			}
+			loading.addAll(missing);
+		}
+		try {
+			if (!missing.isEmpty()) {
+				loadPages(missing);
+			}
+			for (Map.Entry<Integer, IVariable[]> entry : loaded.entrySet()) {
+				final IVariable[] variables = getLoadedPage(entry.getKey()
+						.intValue());
+				if (variables != null) {
+					ScriptStackFrame.refreshVariables(variables, entry
+							.getValue());
+				}
+			}
+		} catch (DbgpException e) {
+			throw wrapDbgpException(NLS.bind(
+					Messages.ScriptValue_unableToLoadChildrenOf, name), e);
+		}
 	}
 
 	public String getReferenceTypeName() {
@@ -231,15 +433,16 @@ public class ScriptValue extends ScriptDebugElement implements IScriptValue,
 	}
 
 	public int getSize() {
-		return variables.length;
+		return size;
 	}
 
 	public IVariable getVariable(int offset) throws DebugException {
+		if (offset < 0 || offset >= size) {
+			throw new ArrayIndexOutOfBoundsException(offset);
+		}
+		final int page = offset / getPageSize();
 		try {
-			if (variables[offset] == null) {
-				loadPage(getPageForOffset(offset));
-			}
-			return variables[offset];
+			return getPage(page)[offset - page * getPageSize()];
 		} catch (DbgpException e) {
 			throw wrapDbgpException(NLS.bind(
 					Messages.ScriptValue_unableToLoadChildrenOf, name), e);
@@ -253,8 +456,22 @@ public class ScriptValue extends ScriptDebugElement implements IScriptValue,
 	public IVariable[] getVariables(int offset, int length)
 			throws DebugException {
 		IVariable[] variables = new IVariable[length];
-		for (int i = 0; i < length; i++) {
-			variables[i] = getVariable(offset + i);
+		int i = 0;
+		while (i < length) {
+			final int page = (offset + i) / getPageSize();
+			final int pageOffset = page * getPageSize();
+			final IVariable[] pageVariables;
+			try {
+				pageVariables = getPage(page);
+			} catch (DbgpException e) {
+				throw wrapDbgpException(NLS.bind(
+						Messages.ScriptValue_unableToLoadChildrenOf, name), e);
+			}
+			final int start = offset + i - pageOffset;
+			final int count = Math.min(pageVariables.length - start, length
+					- i);
+			System.arraycopy(pageVariables, start, variables, i, count);
+			i += count;
 		}
 		return variables;
 	}
@@ -282,12 +499,7 @@ public class ScriptValue extends ScriptDebugElement implements IScriptValue,
 	 * 
 	 * @return
 	 */
-	protected boolean hasChildrenValuesLoaded() {
-		for (int i = 0; i < variables.length; ++i) {
-			if (variables[i] != null) {
-				return true;
-			}
-		}
-		return false;
+	protected synchronized boolean hasChildrenValuesLoaded() {
+		return !pages.isEmpty();
 	}
 }
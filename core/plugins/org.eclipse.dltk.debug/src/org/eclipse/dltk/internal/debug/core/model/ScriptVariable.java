@@ -143,16 +143,21 @@ public class ScriptVariable extends ScriptDebugElement implements
 				if (value != null
 						&& ((ScriptValue) value).hasChildrenValuesLoaded()) {
 					/*
-					 * Refresh children if some of them are loaded. Since it
-					 * could be a hash - it is safer to get all of the new
-					 * children.
+					 * Refresh children if some of them are loaded. Only the
+					 * pages loaded before are requested, so the large
+					 * collections are not loaded completely.
 					 */
-					ScriptStackFrame.refreshVariables(v.getValue()
-							.getVariables(), ((ScriptValue) value).variables);
+					((ScriptValue) v.getValue())
+							.refreshChildren((ScriptValue) value);
 				}
 			}
 			isValueChanged = !equals(property, v.property);
-			value = v.value;
+			if (isValueChanged || property.hasChildren()
+					|| !StrUtils.equals(property.getEvalName(), v.property
+							.getEvalName())) {
+				value = v.value;
+			}
+			// otherwise the value of the unchanged simple variable is reused
 			property = v.property;
 			return this;
 		} else {
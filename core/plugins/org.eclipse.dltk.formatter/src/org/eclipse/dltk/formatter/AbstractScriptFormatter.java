@@ -13,11 +13,14 @@ package org.eclipse.dltk.formatter;
 
 import java.util.Map;
 
+import org.eclipse.dltk.formatter.internal.FormatterDiff;
 import org.eclipse.dltk.formatter.internal.FormatterIndentGenerator;
 import org.eclipse.dltk.formatter.internal.FormatterMixedIndentGenerator;
 import org.eclipse.dltk.ui.CodeFormatterConstants;
 import org.eclipse.dltk.ui.formatter.IScriptFormatter;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
 
 /**
  * Abstract base class for the {@link IScriptFormatter} implementations.
@@ -93,4 +96,31 @@ public abstract class AbstractScriptFormatter implements IScriptFormatter {
 		return 0;
 	}
 
+	/**
+	 * Creates the edit replacing the specified region of the source with the
+	 * formatted output. If only the whitespace differs the result contains the
+	 * minimal edits, so the unchanged parts of the document are not touched,
+	 * otherwise the whole region is replaced.
+	 * 
+	 * @param source
+	 *            full source module content
+	 * @param offset
+	 *            the offset of the formatted region
+	 * @param length
+	 *            the length of the formatted region
+	 * @param output
+	 *            the formatted text of the region, e.g.
+	 *            {@link FormatterWriter#getOutput()}
+	 * @since 5.1
+	 */
+	protected TextEdit createTextEdit(String source, int offset, int length,
+			String output) {
+		final TextEdit edit = FormatterDiff.diff(source, offset, length,
+				output);
+		if (edit != null) {
+			return edit;
+		}
+		return new ReplaceEdit(offset, length, output);
+	}
+
 }
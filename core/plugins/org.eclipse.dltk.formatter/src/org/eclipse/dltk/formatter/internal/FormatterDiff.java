@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.formatter.internal;
+
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+
+/**
+ * Computes the minimal edits transforming the original text into the formatted
+ * one, if they differ in the whitespace only. The texts are scanned once: the
+ * non-whitespace characters are aligned one by one and the whitespace between
+ * them is replaced only where it differs.
+ */
+public class FormatterDiff {
+
+	private FormatterDiff() {
+		// static methods only
+	}
+
+	/**
+	 * Returns the whitespace-only edits transforming the specified region of
+	 * the source into the output or <code>null</code> if the non-whitespace
+	 * characters are different.
+	 *
+	 * @param source
+	 *            the full source
+	 * @param offset
+	 *            the offset of the formatted region
+	 * @param length
+	 *            the length of the formatted region
+	 * @param output
+	 *            the formatted text of the region
+	 */
+	public static MultiTextEdit diff(String source, int offset, int length,
+			String output) {
+		final MultiTextEdit result = new MultiTextEdit();
+		final int end = offset + length;
+		int i = offset;
+		int j = 0;
+		for (;;) {
+			final int wsStart = i;
+			while (i < end && Character.isWhitespace(source.charAt(i))) {
+				++i;
+			}
+			final int outStart = j;
+			while (j < output.length()
+					&& Character.isWhitespace(output.charAt(j))) {
+				++j;
+			}
+			addEdit(result, source, wsStart, i, output, outStart, j);
+			if (i == end || j == output.length()) {
+				break;
+			}
+			if (source.charAt(i) != output.charAt(j)) {
+				return null;
+			}
+			++i;
+			++j;
+		}
+		if (i != end || j != output.length()) {
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the edit replacing the whitespace of the source with the whitespace
+	 * of the output, excluding their common prefix and suffix.
+	 */
+	private static void addEdit(MultiTextEdit result, String source,
+			int start, int end, String output, int outStart, int outEnd) {
+		while (start < end && outStart < outEnd
+				&& source.charAt(start) == output.charAt(outStart)) {
+			++start;
+			++outStart;
+		}
+		while (start < end && outStart < outEnd
+				&& source.charAt(end - 1) == output.charAt(outEnd - 1)) {
+			--end;
+			--outEnd;
+		}
+		if (start < end || outStart < outEnd) {
+			result.addChild(new ReplaceEdit(start, end - start, output
+					.substring(outStart, outEnd)));
+		}
+	}
+
+}
@@ -536,6 +536,42 @@ public abstract class AbstractInterpreterInstallType implements
 		return name;
 	}
 
+	/**
+	 * Answers if the file with the specified name could be accepted by
+	 * {@link #validatePossiblyName(IFileHandle)}. Used to skip the other files
+	 * cheaply while searching. The names are checked against
+	 * {@link #getPossibleInterpreterNames()} only if {@link #validatesNames()}
+	 * answers so, otherwise all the names are accepted.
+	 *
+	 * @since 5.1
+	 */
+	public boolean isPossibleName(String fileName) {
+		if (!validatesNames()) {
+			return true;
+		}
+		final String name = fileName.toLowerCase();
+		final String possibleNames[] = getPossibleInterpreterNames();
+		for (int i = 0; i < possibleNames.length; ++i) {
+			if (name.startsWith(possibleNames[i].toLowerCase())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Answers if {@link #validatePossiblyName(IFileHandle)} accepts only the
+	 * files starting with one of {@link #getPossibleInterpreterNames()}, so
+	 * the other files could be skipped by {@link #isPossibleName(String)}.
+	 * The subclasses overriding {@link #validatePossiblyName(IFileHandle)}
+	 * with the other check should return <code>false</code>.
+	 * 
+	 * @since 5.1
+	 */
+	protected boolean validatesNames() {
+		return true;
+	}
+
 	public IStatus validatePossiblyName(IFileHandle installLocation) {
 		String possibleNames[] = getPossibleInterpreterNames();
 
@@ -34,7 +34,7 @@ import org.w3c.dom.Element;
  * 
  */
 public abstract class AbstractRuntimeBuildpathEntry extends PlatformObject
-		implements IRuntimeBuildpathEntry2 {
+		implements IRuntimeBuildpathEntry2, Cloneable {
 
 	private int buildpathProperty = IRuntimeBuildpathEntry.USER_ENTRY;
 	/**
@@ -42,6 +42,21 @@ public abstract class AbstractRuntimeBuildpathEntry extends PlatformObject
 	 */
 	private IScriptProject fProject;
 
+	/**
+	 * Returns the copy of this entry, which can be changed independently. The
+	 * fields are copied shallowly, subclasses with the mutable state should
+	 * override.
+	 * 
+	 * @since 5.1
+	 */
+	public AbstractRuntimeBuildpathEntry copy() {
+		try {
+			return (AbstractRuntimeBuildpathEntry) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
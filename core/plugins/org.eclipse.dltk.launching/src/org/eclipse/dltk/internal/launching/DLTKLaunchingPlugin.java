@@ -302,6 +302,11 @@ public class DLTKLaunchingPlugin extends Plugin implements
 		// set default preference values
 		getPluginPreferences().setDefault(ScriptRuntime.PREF_CONNECT_TIMEOUT,
 				ScriptRuntime.DEF_CONNECT_TIMEOUT);
+		getPluginPreferences().setDefault(ScriptRuntime.PREF_PROCESS_POOL_SIZE,
+				0);
+		getPluginPreferences().setDefault(
+				ScriptRuntime.PREF_PROCESS_POOL_LIFETIME,
+				ScriptRuntime.DEF_PROCESS_POOL_LIFETIME);
 		getPluginPreferences().addPropertyChangeListener(this);
 
 		ScriptRuntime.addInterpreterInstallChangedListener(this);
@@ -312,6 +317,8 @@ public class DLTKLaunchingPlugin extends Plugin implements
 		// DebugPlugin.getDefault().addDebugEventListener(this);
 
 		DeploymentManager.getInstance().startup();
+		RuntimeBuildpathCache.getInstance().startup();
+		InterpreterProcessPool.getInstance().startup();
 	}
 
 	/**
@@ -322,6 +329,8 @@ public class DLTKLaunchingPlugin extends Plugin implements
 	public void stop(BundleContext context) throws Exception {
 		try {
 			DeploymentManager.getInstance().shutdown();
+			RuntimeBuildpathCache.getInstance().shutdown();
+			InterpreterProcessPool.getInstance().shutdown();
 			// DebugPlugin.getDefault().getLaunchManager().removeLaunchListener(
 			// this);
 			// DebugPlugin.getDefault().removeDebugEventListener(this);
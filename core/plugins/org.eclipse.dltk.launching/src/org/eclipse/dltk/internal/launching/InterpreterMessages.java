@@ -35,4 +35,6 @@ public class InterpreterMessages extends NLS {
 	public static String errDebuggingEnginePathInvalid;
 	public static String errDebuggingEngineWorkingDirectoryDoesntExist;
 	public static String errDebuggingEngineScriptFileDoesntExist;
+
+	public static String InterpreterProcessPool_maintenance;
 }
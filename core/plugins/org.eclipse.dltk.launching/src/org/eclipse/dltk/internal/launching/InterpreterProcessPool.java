@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.launching;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Preferences;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.dltk.core.environment.IExecutionEnvironment;
+import org.eclipse.dltk.launching.IInterpreterInstall;
+import org.eclipse.dltk.launching.IInterpreterInstallChangedListener;
+import org.eclipse.dltk.launching.IInterpreterInstallType;
+import org.eclipse.dltk.launching.IInterpreterServerBootstrap;
+import org.eclipse.dltk.launching.InterpreterConfig;
+import org.eclipse.dltk.launching.PropertyChangeEvent;
+import org.eclipse.dltk.launching.ScriptRuntime;
+
+/**
+ * Keeps the warm interpreters started in advance for the installs which
+ * {@link IInterpreterInstallType} implements
+ * {@link IInterpreterServerBootstrap}.
+ *
+ * <p>
+ * The pool of the install is filled after its first use and is refilled in
+ * background each time the interpreter is taken. The warm interpreters are
+ * destroyed after the configured lifetime and are not started again if the
+ * install was not used for that time. The pool is disabled unless the
+ * {@link ScriptRuntime#PREF_PROCESS_POOL_SIZE} preference is positive.
+ * </p>
+ */
+public class InterpreterProcessPool implements
+		IInterpreterInstallChangedListener {
+
+	private static InterpreterProcessPool instance = null;
+
+	public static synchronized InterpreterProcessPool getInstance() {
+		if (instance == null) {
+			instance = new InterpreterProcessPool();
+		}
+		return instance;
+	}
+
+	private static class WarmProcess {
+		final Process process;
+		final long startTime;
+
+		WarmProcess(Process process) {
+			this.process = process;
+			this.startTime = System.currentTimeMillis();
+		}
+
+		boolean isAlive() {
+			try {
+				process.exitValue();
+				return false;
+			} catch (IllegalThreadStateException e) {
+				return true;
+			}
+		}
+	}
+
+	private static class InstallPool {
+		final IInterpreterInstall install;
+		final IInterpreterServerBootstrap bootstrap;
+		final LinkedList<WarmProcess> idle = new LinkedList<WarmProcess>();
+		long lastUsed;
+
+		InstallPool(IInterpreterInstall install,
+				IInterpreterServerBootstrap bootstrap) {
+			this.install = install;
+			this.bootstrap = bootstrap;
+		}
+	}
+
+	private final Map<String, InstallPool> pools = new HashMap<String, InstallPool>();
+
+	private boolean started = false;
+
+	private final Preferences.IPropertyChangeListener preferenceListener = new Preferences.IPropertyChangeListener() {
+		public void propertyChange(Preferences.PropertyChangeEvent event) {
+			final String property = event.getProperty();
+			if (ScriptRuntime.PREF_PROCESS_POOL_SIZE.equals(property)
+					|| ScriptRuntime.PREF_PROCESS_POOL_LIFETIME
+							.equals(property)) {
+				// resize the pools or destroy them if disabled
+				maintenanceJob.schedule();
+			}
+		}
+	};
+
+	private final Job maintenanceJob = new Job(
+			InterpreterMessages.InterpreterProcessPool_maintenance) {
+		protected IStatus run(IProgressMonitor monitor) {
+			maintain(monitor);
+			return Status.OK_STATUS;
+		}
+	};
+
+	private InterpreterProcessPool() {
+		maintenanceJob.setSystem(true);
+	}
+
+	public synchronized void startup() {
+		if (!started) {
+			started = true;
+			ScriptRuntime.addInterpreterInstallChangedListener(this);
+			getPreferences().addPropertyChangeListener(preferenceListener);
+		}
+	}
+
+	public void shutdown() {
+		synchronized (this) {
+			if (!started) {
+				return;
+			}
+			started = false;
+		}
+		ScriptRuntime.removeInterpreterInstallChangedListener(this);
+		getPreferences().removePropertyChangeListener(preferenceListener);
+		maintenanceJob.cancel();
+		disposeAll();
+	}
+
+	private static Preferences getPreferences() {
+		return DLTKLaunchingPlugin.getDefault().getPluginPreferences();
+	}
+
+	private static int getPoolSize() {
+		return getPreferences().getInt(ScriptRuntime.PREF_PROCESS_POOL_SIZE);
+	}
+
+	private static long getLifetime() {
+		return getPreferences().getLong(
+				ScriptRuntime.PREF_PROCESS_POOL_LIFETIME);
+	}
+
+	private static IInterpreterServerBootstrap getBootstrap(
+			IInterpreterInstall install) {
+		final IInterpreterInstallType type = install.getInterpreterInstallType();
+		if (type instanceof IInterpreterServerBootstrap) {
+			return (IInterpreterServerBootstrap) type;
+		}
+		return null;
+	}
+
+	private static String getKey(IInterpreterInstall install) {
+		return install.getId() + "@" + install.getEnvironmentId(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the warm interpreter already running the specified configuration
+	 * or <code>null</code> if there is no one available, the new process
+	 * should be started then.
+	 */
+	public Process acquire(IInterpreterInstall install,
+			InterpreterConfig config, String[] environment) {
+		if (getPoolSize() <= 0) {
+			return null;
+		}
+		final IInterpreterServerBootstrap bootstrap = getBootstrap(install);
+		if (bootstrap == null || !bootstrap.canActivate(install, config)) {
+			return null;
+		}
+		final long lifetime = getLifetime();
+		final InstallPool pool;
+		synchronized (this) {
+			if (!started) {
+				return null;
+			}
+			final String key = getKey(install);
+			InstallPool p = pools.get(key);
+			if (p == null) {
+				p = new InstallPool(install, bootstrap);
+				pools.put(key, p);
+			}
+			p.lastUsed = System.currentTimeMillis();
+			pool = p;
+		}
+		Process result = null;
+		while (result == null) {
+			final WarmProcess warm;
+			synchronized (this) {
+				if (pool.idle.isEmpty()) {
+					break;
+				}
+				warm = pool.idle.removeFirst();
+			}
+			if (!warm.isAlive()
+					|| System.currentTimeMillis() - warm.startTime > lifetime) {
+				warm.process.destroy();
+				continue;
+			}
+			try {
+				bootstrap.activate(warm.process, config, environment);
+				result = warm.process;
+			} catch (IOException e) {
+				warm.process.destroy();
+				DLTKLaunchingPlugin.logWarning(e);
+			}
+		}
+		maintenanceJob.schedule();
+		return result;
+	}
+
+	/**
+	 * Removes the expired and extra interpreters and starts the missing ones
+	 * for the installs used recently.
+	 */
+	private void maintain(IProgressMonitor monitor) {
+		final int size = getPoolSize();
+		final long lifetime = getLifetime();
+		final List<InstallPool> toFill = new ArrayList<InstallPool>();
+		final List<WarmProcess> toDestroy = new ArrayList<WarmProcess>();
+		boolean active = false;
+		synchronized (this) {
+			final long now = System.currentTimeMillis();
+			for (Iterator<InstallPool> i = pools.values().iterator(); i
+					.hasNext();) {
+				final InstallPool pool = i.next();
+				for (Iterator<WarmProcess> j = pool.idle.iterator(); j
+						.hasNext();) {
+					final WarmProcess warm = j.next();
+					if (!warm.isAlive() || now - warm.startTime > lifetime) {
+						toDestroy.add(warm);
+						j.remove();
+					}
+				}
+				while (pool.idle.size() > Math.max(0, size)) {
+					toDestroy.add(pool.idle.removeLast());
+				}
+				if (size > 0 && now - pool.lastUsed <= lifetime) {
+					if (pool.idle.size() < size) {
+						toFill.add(pool);
+					}
+					active = true;
+				} else if (pool.idle.isEmpty()) {
+					i.remove();
+				} else {
+					active = true;
+				}
+			}
+		}
+		// the processes are started and destroyed outside of the lock, it
+		// could be slow
+		for (WarmProcess warm : toDestroy) {
+			warm.process.destroy();
+		}
+		for (InstallPool pool : toFill) {
+			if (monitor.isCanceled()) {
+				return;
+			}
+			fill(pool, size);
+		}
+		if (active && !monitor.isCanceled()) {
+			// check the lifetimes again later
+			maintenanceJob.schedule(Math.max(1000, lifetime / 4));
+		}
+	}
+
+	private void fill(InstallPool pool, int size) {
+		final String[] cmdLine = pool.bootstrap
+				.getServerCommandLine(pool.install);
+		if (cmdLine == null) {
+			return;
+		}
+		final IExecutionEnvironment exeEnv = pool.install.getExecEnvironment();
+		for (;;) {
+			synchronized (this) {
+				if (!started || pool.idle.size() >= size
+						|| pools.get(getKey(pool.install)) != pool) {
+					return;
+				}
+			}
+			final Process process;
+			try {
+				process = exeEnv.exec(cmdLine, null, null);
+			} catch (CoreException e) {
+				DLTKLaunchingPlugin.logWarning(e);
+				return;
+			}
+			if (process == null) {
+				return;
+			}
+			synchronized (this) {
+				if (!started || pools.get(getKey(pool.install)) != pool) {
+					process.destroy();
+					return;
+				}
+				pool.idle.add(new WarmProcess(process));
+			}
+		}
+	}
+
+	/**
+	 * Destroys the warm interpreters of the install
+	 */
+	public void dispose(IInterpreterInstall install) {
+		final InstallPool pool;
+		synchronized (this) {
+			pool = pools.remove(getKey(install));
+		}
+		if (pool != null) {
+			destroy(pool);
+		}
+	}
+
+	private void disposeAll() {
+		final List<InstallPool> all;
+		synchronized (this) {
+			all = new ArrayList<InstallPool>(pools.values());
+			pools.clear();
+		}
+		for (InstallPool pool : all) {
+			destroy(pool);
+		}
+	}
+
+	private void destroy(InstallPool pool) {
+		final List<WarmProcess> processes;
+		synchronized (this) {
+			processes = new ArrayList<WarmProcess>(pool.idle);
+			pool.idle.clear();
+		}
+		for (WarmProcess warm : processes) {
+			warm.process.destroy();
+		}
+	}
+
+	public void defaultInterpreterInstallChanged(IInterpreterInstall previous,
+			IInterpreterInstall current) {
+		// the warm interpreters are per install, nothing changes
+	}
+
+	public void interpreterChanged(PropertyChangeEvent event) {
+		// the command line of the warm interpreters may change
+		final Object source = event.getSource();
+		if (source instanceof IInterpreterInstall) {
+			dispose((IInterpreterInstall) source);
+		}
+	}
+
+	public void interpreterAdded(IInterpreterInstall interpreter) {
+	}
+
+	public void interpreterRemoved(IInterpreterInstall interpreter) {
+		dispose(interpreter);
+	}
+}
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.launching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.ElementChangedEvent;
+import org.eclipse.dltk.core.IElementChangedListener;
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.core.IModelElementDelta;
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.launching.IInterpreterInstall;
+import org.eclipse.dltk.launching.IInterpreterInstallChangedListener;
+import org.eclipse.dltk.launching.IRuntimeBuildpathEntry;
+import org.eclipse.dltk.launching.PropertyChangeEvent;
+import org.eclipse.dltk.launching.ScriptRuntime;
+
+/**
+ * Caches the runtime buildpaths computed by {@link ScriptRuntime} for the
+ * projects and launch configurations, so the repeated launches do not walk the
+ * buildpaths, containers and resolvers again.
+ *
+ * <p>
+ * Everything is flushed when the buildpath of any project changes (the
+ * projects may depend on each other) and when the interpreters change. The
+ * launch configurations are cached together with their attributes, so the
+ * edited configuration is computed again.
+ * </p>
+ * 
+ * <p>
+ * The buildpath entries are copied when they are cached and when they are
+ * returned, so the callers may change them. The cached library paths are
+ * returned as unmodifiable lists.
+ * </p>
+ */
+public class RuntimeBuildpathCache implements IElementChangedListener,
+		IInterpreterInstallChangedListener {
+
+	private static final int MAX_CONFIGURATIONS = 64;
+
+	private static final int BUILDPATH_FLAGS = IModelElementDelta.F_BUILDPATH_CHANGED
+			| IModelElementDelta.F_RESOLVED_BUILDPATH_CHANGED
+			| IModelElementDelta.F_OPENED
+			| IModelElementDelta.F_CLOSED
+			| IModelElementDelta.F_ADDED_TO_BUILDPATH
+			| IModelElementDelta.F_REMOVED_FROM_BUILDPATH;
+
+	private static RuntimeBuildpathCache instance = null;
+
+	public static synchronized RuntimeBuildpathCache getInstance() {
+		if (instance == null) {
+			instance = new RuntimeBuildpathCache();
+		}
+		return instance;
+	}
+
+	/**
+	 * The launch configuration together with its attributes at the time the
+	 * buildpath was computed
+	 */
+	private static class ConfigurationKey {
+		private final ILaunchConfiguration configuration;
+		private final Map<?, ?> attributes;
+
+		ConfigurationKey(ILaunchConfiguration configuration)
+				throws CoreException {
+			this.configuration = configuration;
+			this.attributes = configuration.getAttributes();
+		}
+
+		public boolean equals(Object obj) {
+			if (obj instanceof ConfigurationKey) {
+				final ConfigurationKey other = (ConfigurationKey) obj;
+				return configuration.equals(other.configuration)
+						&& attributes.equals(other.attributes);
+			}
+			return false;
+		}
+
+		public int hashCode() {
+			return configuration.hashCode() ^ attributes.hashCode();
+		}
+	}
+
+	private final Map<IScriptProject, IRuntimeBuildpathEntry[]> projectBuildpaths = new HashMap<IScriptProject, IRuntimeBuildpathEntry[]>();
+
+	private final Map<ConfigurationKey, IRuntimeBuildpathEntry[]> configurationBuildpaths = new LinkedHashMap<ConfigurationKey, IRuntimeBuildpathEntry[]>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(
+				Map.Entry<ConfigurationKey, IRuntimeBuildpathEntry[]> eldest) {
+			return size() > MAX_CONFIGURATIONS;
+		}
+	};
+
+	private final Map<String, List<String>> libraryPaths = new HashMap<String, List<String>>();
+
+	/**
+	 * Incremented on each flush, so the values computed concurrently with the
+	 * flush are not cached.
+	 */
+	private int generation = 0;
+
+	private boolean started = false;
+
+	public synchronized void startup() {
+		if (!started) {
+			started = true;
+			DLTKCore.addElementChangedListener(this,
+					ElementChangedEvent.POST_CHANGE);
+			ScriptRuntime.addInterpreterInstallChangedListener(this);
+		}
+	}
+
+	public synchronized void shutdown() {
+		if (started) {
+			started = false;
+			DLTKCore.removeElementChangedListener(this);
+			ScriptRuntime.removeInterpreterInstallChangedListener(this);
+			flush();
+		}
+	}
+
+	public synchronized int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Removes all the cached buildpaths
+	 */
+	public synchronized void flush() {
+		++generation;
+		projectBuildpaths.clear();
+		configurationBuildpaths.clear();
+		libraryPaths.clear();
+	}
+
+	public synchronized IRuntimeBuildpathEntry[] getProjectBuildpath(
+			IScriptProject project) {
+		return copy(projectBuildpaths.get(project));
+	}
+
+	public synchronized void putProjectBuildpath(IScriptProject project,
+			IRuntimeBuildpathEntry[] entries, int computedGeneration) {
+		if (started && computedGeneration == generation) {
+			final IRuntimeBuildpathEntry[] copy = copy(entries);
+			if (copy != null) {
+				projectBuildpaths.put(project, copy);
+			}
+		}
+	}
+
+	public synchronized IRuntimeBuildpathEntry[] getConfigurationBuildpath(
+			ILaunchConfiguration configuration) throws CoreException {
+		return copy(configurationBuildpaths.get(new ConfigurationKey(
+				configuration)));
+	}
+
+	public synchronized void putConfigurationBuildpath(
+			ILaunchConfiguration configuration,
+			IRuntimeBuildpathEntry[] entries, int computedGeneration)
+			throws CoreException {
+		if (started && computedGeneration == generation) {
+			final IRuntimeBuildpathEntry[] copy = copy(entries);
+			if (copy != null) {
+				configurationBuildpaths.put(
+						new ConfigurationKey(configuration), copy);
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached library path entries as the unmodifiable list or
+	 * <code>null</code> if they are not cached.
+	 */
+	public synchronized List<String> getLibraryPathEntries(
+			IScriptProject project, boolean requiredProjects) {
+		return libraryPaths.get(libraryPathKey(project, requiredProjects));
+	}
+
+	public synchronized void putLibraryPathEntries(IScriptProject project,
+			boolean requiredProjects, List<String> entries,
+			int computedGeneration) {
+		if (started && computedGeneration == generation) {
+			libraryPaths.put(libraryPathKey(project, requiredProjects),
+					Collections.unmodifiableList(new ArrayList<String>(entries)));
+		}
+	}
+
+	private static String libraryPathKey(IScriptProject project,
+			boolean requiredProjects) {
+		return project.getElementName() + (requiredProjects ? "/*" : ""); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Copies the array and the entries, as the callers may change both of
+	 * them. Returns <code>null</code> if some entry could not be copied, so the
+	 * buildpath is not cached or is computed again.
+	 */
+	private static IRuntimeBuildpathEntry[] copy(
+			IRuntimeBuildpathEntry[] entries) {
+		if (entries == null) {
+			return null;
+		}
+		final IRuntimeBuildpathEntry[] result = new IRuntimeBuildpathEntry[entries.length];
+		for (int i = 0; i < entries.length; ++i) {
+			final IRuntimeBuildpathEntry entry = entries[i];
+			if (entry instanceof RuntimeBuildpathEntry) {
+				result[i] = ((RuntimeBuildpathEntry) entry).copy();
+			} else if (entry instanceof AbstractRuntimeBuildpathEntry) {
+				result[i] = ((AbstractRuntimeBuildpathEntry) entry).copy();
+			} else {
+				try {
+					result[i] = ScriptRuntime.newRuntimeBuildpathEntry(entry
+							.getMemento());
+				} catch (CoreException e) {
+					if (DLTKCore.DEBUG) {
+						e.printStackTrace();
+					}
+					return null;
+				}
+			}
+		}
+		return result;
+	}
+
+	public void elementChanged(ElementChangedEvent event) {
+		if (affectsBuildpath(event.getDelta())) {
+			flush();
+		}
+	}
+
+	/**
+	 * Checks the model, projects and project fragments deltas
+	 */
+	private static boolean affectsBuildpath(IModelElementDelta delta) {
+		final int type = delta.getElement().getElementType();
+		if (type == IModelElement.SCRIPT_PROJECT
+				&& delta.getKind() != IModelElementDelta.CHANGED) {
+			return true;
+		}
+		if ((delta.getFlags() & BUILDPATH_FLAGS) != 0) {
+			return true;
+		}
+		if (type == IModelElement.SCRIPT_MODEL
+				|| type == IModelElement.SCRIPT_PROJECT) {
+			final IModelElementDelta[] children = delta.getAffectedChildren();
+			for (int i = 0; i < children.length; ++i) {
+				if (affectsBuildpath(children[i])) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public void defaultInterpreterInstallChanged(IInterpreterInstall previous,
+			IInterpreterInstall current) {
+		flush();
+	}
+
+	public void interpreterChanged(PropertyChangeEvent event) {
+		flush();
+	}
+
+	public void interpreterAdded(IInterpreterInstall interpreter) {
+		flush();
+	}
+
+	public void interpreterRemoved(IInterpreterInstall interpreter) {
+		flush();
+	}
+}
@@ -44,7 +44,8 @@ import org.w3c.dom.Element;
  * An entry on the runtime buildpath that the user can manipulate and share in a
  * launch configuration.
  */
-public class RuntimeBuildpathEntry implements IRuntimeBuildpathEntry {
+public class RuntimeBuildpathEntry implements IRuntimeBuildpathEntry,
+		Cloneable {
 
 	/**
 	 * This entry's type - must be set on creation.
@@ -382,6 +383,19 @@ public class RuntimeBuildpathEntry implements IRuntimeBuildpathEntry {
 		}
 	}
 
+	/**
+	 * Returns the copy of this entry, which can be changed independently.
+	 * 
+	 * @since 5.1
+	 */
+	public RuntimeBuildpathEntry copy() {
+		try {
+			return (RuntimeBuildpathEntry) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
 	/**
 	 * @see IRuntimeBuildpathEntry#setBuildpathProperty(int)
 	 */
@@ -0,0 +1,388 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.launching.execution;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.osgi.util.NLS;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+
+/**
+ * Persistent cache of the bundle entries deployed to the environment, so the
+ * debugging engines and helper scripts are not uploaded again on every launch.
+ *
+ * <p>
+ * Entries are kept in the directory per bundle id and version. The directory
+ * contains the manifest listing the content hash of each deployed file, so the
+ * existing copies are verified by reading the single file and only the missing
+ * or changed files are uploaded. Directories of the other versions of the
+ * bundle not used or modified for {@link #STALE_AGE} are removed.
+ * </p>
+ *
+ * <p>
+ * The manifest is trusted, so the cache should be located in the directory
+ * writable by the current user only.
+ * </p>
+ */
+public class DeploymentCache {
+
+	private static final String MANIFEST = ".dltk-manifest"; //$NON-NLS-1$
+
+	private static final String MANIFEST_HEADER = "# DLTK deployment manifest 1"; //$NON-NLS-1$
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	/**
+	 * The age (in milliseconds) of the unused version directory to remove it
+	 */
+	private static final long STALE_AGE = 7L * 24 * 60 * 60 * 1000;
+
+	/**
+	 * The interval (in milliseconds) of updating the time the version
+	 * directory was used
+	 */
+	private static final long TOUCH_INTERVAL = 24L * 60 * 60 * 1000;
+
+	private static final Map<URI, DeploymentCache> instances = new HashMap<URI, DeploymentCache>();
+
+	/**
+	 * Local manifests by the bundle entry, recalculated when the bundle changes
+	 */
+	private static final Map<String, LocalManifest> localManifests = new HashMap<String, LocalManifest>();
+
+	private static class LocalManifest {
+		final long bundleModified;
+		final Map<String, String> hashes;
+
+		LocalManifest(long bundleModified, Map<String, String> hashes) {
+			this.bundleModified = bundleModified;
+			this.hashes = hashes;
+		}
+	}
+
+	/**
+	 * Returns the cache located in the specified directory of the environment
+	 */
+	public static synchronized DeploymentCache getInstance(URI rootURI)
+			throws CoreException {
+		DeploymentCache cache = instances.get(rootURI);
+		if (cache == null) {
+			cache = new DeploymentCache(EFS.getStore(rootURI));
+			instances.put(rootURI, cache);
+		}
+		return cache;
+	}
+
+	private final IFileStore root;
+
+	/**
+	 * Names of the version directories checked for the stale siblings during
+	 * this session
+	 */
+	private final Set<String> collected = new HashSet<String>();
+
+	private DeploymentCache(IFileStore root) {
+		this.root = root;
+	}
+
+	/**
+	 * Makes the current copy of the bundle entry (file or directory) available
+	 * in the cache and returns its location.
+	 */
+	public synchronized IFileStore deploy(Bundle bundle, String bundlePath)
+			throws IOException, CoreException {
+		final Map<String, String> local = getLocalManifest(bundle, bundlePath);
+		final String versionName = getVersionName(bundle);
+		final IFileStore versionDir = root.getChild(versionName);
+		final IFileStore manifestFile = versionDir.getChild(MANIFEST);
+		final IFileInfo manifestInfo = manifestFile.fetchInfo();
+		final Map<String, String> remote = manifestInfo.exists() ? readManifest(manifestFile)
+				: new TreeMap<String, String>();
+		final List<String> changed = new ArrayList<String>();
+		for (Map.Entry<String, String> entry : local.entrySet()) {
+			if (!entry.getValue().equals(remote.get(entry.getKey()))) {
+				changed.add(entry.getKey());
+			}
+		}
+		// the files of this entry removed from the bundle
+		final List<String> removed = new ArrayList<String>();
+		for (String path : remote.keySet()) {
+			if (!local.containsKey(path) && isEntryPath(path, bundlePath)) {
+				removed.add(path);
+			}
+		}
+		if (changed.isEmpty() && removed.isEmpty()) {
+			touch(manifestFile, manifestInfo);
+		} else {
+			versionDir.mkdir(EFS.NONE, null);
+			for (String path : removed) {
+				remote.remove(path);
+				versionDir.getChild(new Path(path)).delete(EFS.NONE, null);
+			}
+			for (String path : changed) {
+				final URL url = bundle.getEntry(path);
+				if (url == null) {
+					throw new IOException(NLS.bind(
+							Messages.EFSDeployment_failedToLocateEntryForPath,
+							path));
+				}
+				final IFileStore dest = versionDir.getChild(new Path(path));
+				final IFileStore parent = dest.getParent();
+				if (parent != null) {
+					parent.mkdir(EFS.NONE, null);
+				}
+				EFSDeployment.copy(url, dest);
+			}
+			// written last, so interrupted uploads are detected next time
+			remote.putAll(local);
+			writeManifest(manifestFile, remote);
+		}
+		collectGarbage(bundle.getSymbolicName(), versionName);
+		return versionDir.getChild(new Path(bundlePath));
+	}
+
+	/**
+	 * Answers if the file belongs to the bundle entry (file or directory),
+	 * the manifest lists the files of all the entries of the bundle deployed.
+	 */
+	private static boolean isEntryPath(String path, String bundlePath) {
+		final String entry = trimSlashes(bundlePath);
+		path = trimSlashes(path);
+		return entry.length() == 0 || path.equals(entry)
+				|| path.startsWith(entry + "/"); //$NON-NLS-1$
+	}
+
+	private static String trimSlashes(String path) {
+		int begin = 0;
+		int end = path.length();
+		while (begin < end && path.charAt(begin) == '/') {
+			++begin;
+		}
+		while (end > begin && path.charAt(end - 1) == '/') {
+			--end;
+		}
+		return path.substring(begin, end);
+	}
+
+	private static String getVersionName(Bundle bundle) {
+		final Object version = bundle.getHeaders().get(
+				Constants.BUNDLE_VERSION);
+		return bundle.getSymbolicName() + "_" //$NON-NLS-1$
+				+ (version != null ? version.toString() : "0.0.0"); //$NON-NLS-1$
+	}
+
+	private static void touch(IFileStore manifestFile, IFileInfo info) {
+		final long now = System.currentTimeMillis();
+		if (now - info.getLastModified() < TOUCH_INTERVAL) {
+			return;
+		}
+		info.setLastModified(now);
+		try {
+			manifestFile.putInfo(info, EFS.SET_LAST_MODIFIED, null);
+		} catch (CoreException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Removes the directories of the other versions of the bundle, which were
+	 * not used for a long time. The cache could be shared by the several IDE
+	 * instances, so the directory is kept while either its manifest or the
+	 * directory itself (changed while the files are uploaded, before the
+	 * manifest is written) is recent.
+	 */
+	private void collectGarbage(String bundleName, String versionName) {
+		if (!collected.add(versionName)) {
+			return;
+		}
+		final String prefix = bundleName + "_"; //$NON-NLS-1$
+		try {
+			final IFileStore[] children = root.childStores(EFS.NONE, null);
+			final long now = System.currentTimeMillis();
+			for (int i = 0; i < children.length; ++i) {
+				final String name = children[i].getName();
+				if (!isVersionOf(name, prefix) || name.equals(versionName)) {
+					continue;
+				}
+				if (isStale(children[i].fetchInfo(), now)
+						&& isStale(children[i].getChild(MANIFEST).fetchInfo(),
+								now)) {
+					children[i].delete(EFS.NONE, null);
+				}
+			}
+		} catch (CoreException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Answers if the name is the version directory of the bundle, so the
+	 * directories of the bundles with the longer names are not matched.
+	 */
+	private static boolean isVersionOf(String name, String prefix) {
+		return name.length() > prefix.length() && name.startsWith(prefix)
+				&& Character.isDigit(name.charAt(prefix.length()));
+	}
+
+	private static boolean isStale(IFileInfo info, long now) {
+		return !info.exists() || now - info.getLastModified() > STALE_AGE;
+	}
+
+	private static Map<String, String> readManifest(IFileStore file)
+			throws CoreException, IOException {
+		final Map<String, String> result = new TreeMap<String, String>();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(
+				file.openInputStream(EFS.NONE, null), ENCODING));
+		try {
+			String line = reader.readLine();
+			if (!MANIFEST_HEADER.equals(line)) {
+				// unknown format, everything is uploaded again
+				return result;
+			}
+			while ((line = reader.readLine()) != null) {
+				final int pos = line.indexOf(' ');
+				if (pos > 0) {
+					result.put(line.substring(pos + 1), line.substring(0, pos));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return result;
+	}
+
+	private static void writeManifest(IFileStore file,
+			Map<String, String> hashes) throws CoreException, IOException {
+		final OutputStream output = file.openOutputStream(EFS.NONE, null);
+		final Writer writer = new OutputStreamWriter(output, ENCODING);
+		try {
+			writer.write(MANIFEST_HEADER);
+			writer.write('\n');
+			for (Map.Entry<String, String> entry : hashes.entrySet()) {
+				writer.write(entry.getValue());
+				writer.write(' ');
+				writer.write(entry.getKey());
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static Map<String, String> getLocalManifest(Bundle bundle,
+			String bundlePath) throws IOException {
+		final String key = bundle.getBundleId() + ":" + bundlePath; //$NON-NLS-1$
+		synchronized (localManifests) {
+			final LocalManifest manifest = localManifests.get(key);
+			if (manifest != null
+					&& manifest.bundleModified == bundle.getLastModified()) {
+				return manifest.hashes;
+			}
+		}
+		final Map<String, String> hashes = new TreeMap<String, String>();
+		final MessageDigest digest = createDigest();
+		collectHashes(bundle, bundlePath, digest, hashes);
+		synchronized (localManifests) {
+			localManifests.put(key, new LocalManifest(bundle.getLastModified(),
+					hashes));
+		}
+		return hashes;
+	}
+
+	private static void collectHashes(Bundle bundle, String bundlePath,
+			MessageDigest digest, Map<String, String> hashes)
+			throws IOException {
+		final Enumeration paths = bundle.getEntryPaths(bundlePath);
+		if (paths != null) {
+			while (paths.hasMoreElements()) {
+				final String path = (String) paths.nextElement();
+				if (path.endsWith("/")) { //$NON-NLS-1$
+					if (!path.endsWith("/CVS/") && !path.endsWith("/.svn/")) { //$NON-NLS-1$ //$NON-NLS-2$
+						collectHashes(bundle, path, digest, hashes);
+					}
+				} else {
+					hashes.put(path, hash(bundle.getEntry(path), digest));
+				}
+			}
+		} else {
+			final URL url = bundle.getEntry(bundlePath);
+			if (url == null) {
+				throw new IOException(NLS.bind(
+						Messages.EFSDeployment_failedToLocateEntryForPath,
+						bundlePath));
+			}
+			hashes.put(bundlePath, hash(url, digest));
+		}
+	}
+
+	private static MessageDigest createDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	private static String hash(URL url, MessageDigest digest)
+			throws IOException {
+		digest.reset();
+		final InputStream input = url.openStream();
+		try {
+			final byte[] buffer = new byte[8192];
+			int len;
+			while ((len = input.read(buffer)) != -1) {
+				digest.update(buffer, 0, len);
+			}
+		} finally {
+			input.close();
+		}
+		final byte[] bytes = digest.digest();
+		final StringBuffer sb = new StringBuffer(bytes.length * 2);
+		for (int i = 0; i < bytes.length; ++i) {
+			final int b = bytes[i] & 0xFF;
+			if (b < 0x10) {
+				sb.append('0');
+			}
+			sb.append(Integer.toHexString(b));
+		}
+		return sb.toString();
+	}
+}
@@ -7,6 +7,9 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
 import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
@@ -21,18 +24,70 @@ import org.eclipse.dltk.core.internal.environment.EFSFileHandle;
 import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.Bundle;
 
+/**
+ * The deployment into the temporary directory of the file system.
+ * 
+ * <p>
+ * The bundle entries could be deployed through the persistent
+ * {@link DeploymentCache} instead of being copied each time. The cached
+ * entries stay in the cache, so they are resolved with
+ * {@link #getFile(IPath)} only, but not against {@link #getAbsolutePath()},
+ * neither {@link #mkdirs(IPath)} nor {@link #add(InputStream, String)} could
+ * add files next to them. So the cache is used only if it is requested
+ * explicitly.
+ * </p>
+ */
 public class EFSDeployment implements IDeployment {
 	private IFileStore root;
 	private IEnvironment environment;
+	private final DeploymentCache cache;
+
+	/**
+	 * The locations of the bundle entries deployed through the cache, by the
+	 * deployment path
+	 */
+	private final Map<IPath, IFileStore> cachedEntries = new LinkedHashMap<IPath, IFileStore>();
 
 	public EFSDeployment(IEnvironment env, URI rootURI) throws CoreException {
+		this(env, rootURI, null);
+	}
+
+	/**
+	 * @param cacheURI
+	 *            the location of the persistent {@link DeploymentCache} for
+	 *            the bundle entries or <code>null</code> to copy them into
+	 *            this deployment each time. The cached entries are resolved
+	 *            with {@link #getFile(IPath)} only.
+	 */
+	public EFSDeployment(IEnvironment env, URI rootURI, URI cacheURI)
+			throws CoreException {
 		this.environment = env;
 		this.root = EFS.getStore(rootURI);
 		this.root.mkdir(EFS.NONE, null);
+		this.cache = cacheURI != null ? DeploymentCache.getInstance(cacheURI)
+				: null;
 		DeploymentManager.getInstance().addDeployment(this);
 	}
 
 	public IPath add(Bundle bundle, String bundlePath) throws IOException {
+		if (cache != null) {
+			try {
+				final IFileStore entry = cache.deploy(bundle, bundlePath);
+				synchronized (cachedEntries) {
+					cachedEntries.put(new Path(bundlePath), entry);
+				}
+				return new Path(bundlePath);
+			} catch (CoreException e) {
+				// fall back to the copy into this deployment
+				if (DLTKCore.DEBUG) {
+					e.printStackTrace();
+				}
+			} catch (IOException e) {
+				if (DLTKCore.DEBUG) {
+					e.printStackTrace();
+				}
+			}
+		}
 		try {
 			final IFileStore dest = root.getChild(new Path(bundlePath));
 			final Enumeration paths = bundle.getEntryPaths(bundlePath);
@@ -70,9 +125,10 @@ public class EFSDeployment implements IDeployment {
 
 	private static void copy(InputStream input, OutputStream output)
 			throws IOException {
-		int ch = -1;
-		while ((ch = input.read()) != -1) {
-			output.write(ch);
+		final byte[] buffer = new byte[8192];
+		int len;
+		while ((len = input.read(buffer)) != -1) {
+			output.write(buffer, 0, len);
 		}
 	}
 
@@ -92,7 +148,7 @@ public class EFSDeployment implements IDeployment {
 		}
 	}
 
-	private static void copy(URL url, IFileStore file) throws IOException,
+	static void copy(URL url, IFileStore file) throws IOException,
 			CoreException {
 		InputStream input = null;
 		try {
@@ -125,6 +181,18 @@ public class EFSDeployment implements IDeployment {
 	}
 
 	public IFileHandle getFile(IPath deploymentPath) {
+		synchronized (cachedEntries) {
+			for (Iterator<Map.Entry<IPath, IFileStore>> i = cachedEntries
+					.entrySet().iterator(); i.hasNext();) {
+				final Map.Entry<IPath, IFileStore> entry = i.next();
+				if (entry.getKey().isPrefixOf(deploymentPath)) {
+					return new EFSFileHandle(environment, entry.getValue()
+							.getChild(
+									deploymentPath.removeFirstSegments(entry
+											.getKey().segmentCount())));
+				}
+			}
+		}
 		return new EFSFileHandle(environment, root.getChild(deploymentPath));
 	}
 
@@ -35,6 +35,7 @@ import org.eclipse.dltk.core.environment.IExecutionLogger;
 import org.eclipse.dltk.core.environment.IFileHandle;
 import org.eclipse.dltk.internal.launching.DLTKLaunchingPlugin;
 import org.eclipse.dltk.internal.launching.InterpreterMessages;
+import org.eclipse.dltk.internal.launching.InterpreterProcessPool;
 import org.eclipse.osgi.util.NLS;
 
 import com.ibm.icu.text.DateFormat;
@@ -217,7 +218,17 @@ public abstract class AbstractInterpreterRunner implements IInterpreterRunner {
 		IExecutionEnvironment exeEnv = interpreterInstall.getExecEnvironment();
 		IExecutionLogger logger = DLTKLaunchingPlugin.LOGGING_CATCH_OUTPUT
 				.isEnabled() ? new LaunchLogger() : null;
-		Process p = exeEnv.exec(cmdLine, workingDirectory, environment, logger);
+		Process p = null;
+		if (isPoolable(config)) {
+			p = InterpreterProcessPool.getInstance().acquire(
+					interpreterInstall, config, environment);
+			if (p != null && logger != null) {
+				logger.logLine("pooled:" + cmdLineLabel); //$NON-NLS-1$
+			}
+		}
+		if (p == null) {
+			p = exeEnv.exec(cmdLine, workingDirectory, environment, logger);
+		}
 		if (p == null) {
 			abort(
 					LaunchingMessages.AbstractInterpreterRunner_executionWasCancelled,
@@ -252,6 +263,19 @@ public abstract class AbstractInterpreterRunner implements IInterpreterRunner {
 		return process[0];
 	}
 
+	/**
+	 * Answers if the configuration could be run by the interpreter started in
+	 * advance. The warm interpreter does not use {@link #renderCommandLine},
+	 * so the runners overriding it must not return <code>true</code> unless
+	 * the warm interpreter reproduces that command line. Returns
+	 * <code>false</code> by default, the runners have to opt in.
+	 * 
+	 * @since 5.1
+	 */
+	protected boolean isPoolable(InterpreterConfig config) {
+		return false;
+	}
+
 	private void updateProcessLabel(final ILaunch launch,
 			final String cmdLineLabel, final IProcess process) {
 		StringBuffer buffer = new StringBuffer();
@@ -215,8 +215,7 @@ public abstract class AbstractScriptLaunchConfigurationDelegate extends
 
 		// Get entries
 		IRuntimeBuildpathEntry[] entries = ScriptRuntime
-				.computeUnresolvedRuntimeBuildpath(configuration);
-		entries = ScriptRuntime.resolveRuntimeBuildpath(entries, configuration);
+				.computeResolvedRuntimeBuildpath(configuration);
 
 		// Get USER_ENTRY
 		List<String> userEntries = new ArrayList<String>();
@@ -272,8 +271,7 @@ public abstract class AbstractScriptLaunchConfigurationDelegate extends
 			return null;
 		}
 		IRuntimeBuildpathEntry[] entries = ScriptRuntime
-				.computeUnresolvedRuntimeBuildpath(configuration);
-		entries = ScriptRuntime.resolveRuntimeBuildpath(entries, configuration);
+				.computeResolvedRuntimeBuildpath(configuration);
 		List<String> bootEntries = new ArrayList<String>(entries.length);
 		boolean empty = true;
 		boolean allStandard = true;
@@ -175,6 +175,16 @@ public abstract class DebuggingEngineRunner extends AbstractInterpreterRunner {
 		return process;
 	}
 
+	/**
+	 * The debugging engine is started with its own command line
+	 * 
+	 * @since 5.1
+	 */
+	@Override
+	protected boolean isPoolable(InterpreterConfig config) {
+		return false;
+	}
+
 	@Override
 	protected String[] renderCommandLine(InterpreterConfig config) {
 		String exe = (String) config.getProperty(OVERRIDE_EXE);
@@ -137,7 +137,8 @@ public interface IInterpreterInstallType {
 	String generateDetectedInterpreterName(IFileHandle install);
 
 	/**
-	 * Used to search interpreters.
+	 * Used to search interpreters. The search checks the files concurrently,
+	 * so this method could be called from the several threads at once.
 	 * 
 	 * @param installLocation
 	 * @return
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.launching;
+
+import java.io.IOException;
+
+/**
+ * Optional interface to be implemented by {@link IInterpreterInstallType} if
+ * its interpreters could be started in advance and run the script later. Such
+ * interpreters are kept warm in the pool (if enabled by the
+ * {@link ScriptRuntime#PREF_PROCESS_POOL_SIZE} preference) and handed out to
+ * the launches instead of starting the new process.
+ *
+ * <p>
+ * The warm interpreter loads everything it could in advance and waits for the
+ * launch request on its standard input. After the request it should behave
+ * exactly like the interpreter started with the command line of the launch:
+ * the working directory, environment and arguments are changed as requested
+ * and the output of the script is written to the standard streams.
+ * </p>
+ *
+ * @since 5.1
+ */
+public interface IInterpreterServerBootstrap {
+
+	/**
+	 * Returns the command line starting the warm interpreter or
+	 * <code>null</code> if the install does not support it.
+	 */
+	String[] getServerCommandLine(IInterpreterInstall install);
+
+	/**
+	 * Answers if the warm interpreter is able to run the specified
+	 * configuration, e.g. all the interpreter arguments are supported.
+	 */
+	boolean canActivate(IInterpreterInstall install, InterpreterConfig config);
+
+	/**
+	 * Sends the launch request to the warm interpreter. After this call the
+	 * process belongs to the launch.
+	 *
+	 * @param process
+	 *            the warm interpreter
+	 * @param config
+	 *            the configuration to run
+	 * @param environment
+	 *            the environment variables of the launch in the
+	 *            <code>name=value</code> form
+	 * @throws IOException
+	 *             if the request could not be sent, the process is destroyed
+	 *             then
+	 */
+	void activate(Process process, InterpreterConfig config,
+			String[] environment) throws IOException;
+
+}
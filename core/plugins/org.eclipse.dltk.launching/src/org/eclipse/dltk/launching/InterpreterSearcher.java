@@ -2,22 +2,94 @@ package org.eclipse.dltk.launching;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.environment.IEnvironment;
 import org.eclipse.dltk.core.environment.IExecutionEnvironment;
 import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.core.environment.IFileStoreProvider;
+import org.eclipse.dltk.internal.launching.AbstractInterpreterInstallType;
+import org.eclipse.dltk.internal.launching.DLTKLaunchingPlugin;
 import org.eclipse.osgi.util.NLS;
 
 public class InterpreterSearcher {
+
+	/**
+	 * Receives the interpreters as soon as they are found, called from the
+	 * searching threads.
+	 *
+	 * @since 5.1
+	 */
+	public interface IInterpreterSearchListener {
+		void interpreterFound(IFileHandle file,
+				IInterpreterInstallType installType);
+	}
+
+	/**
+	 * The entry of the directory with the attributes fetched together with the
+	 * listing
+	 */
+	private static class Entry {
+		final IFileHandle file;
+		final boolean directory;
+		final boolean symlink;
+
+		Entry(IFileHandle file, boolean directory, boolean symlink) {
+			this.file = file;
+			this.directory = directory;
+			this.symlink = symlink;
+		}
+	}
+
+	/**
+	 * The interpreter found by the parallel search, ordered by the location of
+	 * its directory in the search tree
+	 */
+	private static class Result {
+		final int[] order;
+		final IFileHandle file;
+		final IInterpreterInstallType installType;
+
+		Result(int[] order, IFileHandle file,
+				IInterpreterInstallType installType) {
+			this.order = order;
+			this.file = file;
+			this.installType = installType;
+		}
+	}
+
+	private static final Comparator<Result> RESULT_ORDER = new Comparator<Result>() {
+		public int compare(Result r1, Result r2) {
+			final int len = Math.min(r1.order.length, r2.order.length);
+			for (int i = 0; i < len; ++i) {
+				if (r1.order[i] != r2.order[i]) {
+					return r1.order[i] < r2.order[i] ? -1 : 1;
+				}
+			}
+			return r1.order.length - r2.order.length;
+		}
+	};
+
+	private static final long PROGRESS_INTERVAL = 100;
+
 	private Set<IFileHandle> searchedDirs;
 	private List<IFileHandle> found;
 	private List<IInterpreterInstallType> types;
@@ -26,6 +98,23 @@ public class InterpreterSearcher {
 	private IInterpreterInstallType[] installTypes;
 	private Set<IFileHandle> ignore;
 
+	private int threadCount = 1;
+	private IInterpreterSearchListener listener;
+
+	// state of the parallel search
+	private ExecutorService executor;
+	private final List<Result> results = new ArrayList<Result>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final Object pendingLock = new Object();
+	private volatile boolean canceled;
+	private volatile String currentDirectory;
+	private volatile IProgressMonitor parallelMonitor;
+	/**
+	 * Guards the notifications of the listener by the searching threads, so
+	 * it is not notified after the search is canceled
+	 */
+	private final Object listenerLock = new Object();
+
 	protected void searchFast(IProgressMonitor monitor,
 			IEnvironment environment, int depth) {
 		if (monitor.isCanceled()) {
@@ -64,6 +153,11 @@ public class InterpreterSearcher {
 			folders.add(Path.fromOSString(res[i]));
 		}
 
+		if (threadCount > 1) {
+			searchParallel(environment, folders, monitor, depth);
+			return;
+		}
+
 		monitor.beginTask(Messages.InterpreterSearcher_1, folders.size());
 		for (final IPath folder : folders) {
 			IFileHandle f = environment.getFile(folder);
@@ -79,7 +173,7 @@ public class InterpreterSearcher {
 	 * Searches the specified directory recursively for installed Interpreters,
 	 * adding each detected Interpreter to the <code>found</code> list. Any
 	 * directories specified in the <code>ignore</code> are not traversed.
-	 * 
+	 *
 	 * @param directory
 	 * @param found
 	 * @param types
@@ -101,70 +195,295 @@ public class InterpreterSearcher {
 			return;
 		}
 
-		IFileHandle[] files = directory.getChildren();
-		if (files == null) {
+		Entry[] entries = listChildren(directory);
+		if (entries == null) {
 			return;
 		}
 
 		List<IFileHandle> subDirs = new ArrayList<IFileHandle>();
-		for (int i = 0; i < files.length; i++) {
+		for (int i = 0; i < entries.length; i++) {
 			if (monitor.isCanceled()) {
 				return;
 			}
 
-			final IFileHandle file = files[i];
+			final Entry entry = entries[i];
 
 			monitor.subTask(NLS.bind(
 					Messages.InterpreterSearcher_foundSearching, Integer
-							.valueOf(found.size()), file.getCanonicalPath()));
+							.valueOf(found.size()), entry.file.toOSString()));
 
 			// Check if file is a symlink
-			if (file.isDirectory() && file.isSymlink()) {
+			if (entry.directory && entry.symlink) {
 				continue;
 			}
 
-			if (!ignore.contains(file)) {
-				boolean validLocation = false;
-				// Take the first Interpreter install type that claims the
-				// location as a
-				// valid Interpreter install. Interpreter install types should
-				// be smart enough to not
-				// claim another type's Interpreter, but just in case...
-				for (int j = 0; j < installTypes.length; j++) {
-					if (monitor.isCanceled()) {
-						return;
+			if (!ignore.contains(entry.file)) {
+				final IInterpreterInstallType installType = validate(entry.file);
+				if (installType != null) {
+					found.add(entry.file);
+					types.add(installType);
+					if (listener != null && !monitor.isCanceled()) {
+						listener.interpreterFound(entry.file, installType);
 					}
+				} else if (entry.directory) {
+					subDirs.add(entry.file);
+				}
+			}
+		}
 
-					final IInterpreterInstallType installType = installTypes[j];
-					IStatus status = installType.validatePossiblyName(file);
+		if (!subDirs.isEmpty()) {
+			for (IFileHandle subDir : subDirs) {
+				search(subDir, monitor, depth - 1);
+			}
+		}
+	}
 
-					if (status.isOK()) {
-						found.add(file);
-						types.add(installType);
-						validLocation = true;
+	/**
+	 * Returns the first Interpreter install type that claims the location as a
+	 * valid Interpreter install or <code>null</code>. Interpreter install types
+	 * should be smart enough to not claim another type's Interpreter, but just
+	 * in case...
+	 */
+	private IInterpreterInstallType validate(IFileHandle file) {
+		final String name = file.getName();
+		for (int j = 0; j < installTypes.length; j++) {
+			final IInterpreterInstallType installType = installTypes[j];
+			if (installType instanceof AbstractInterpreterInstallType
+					&& !((AbstractInterpreterInstallType) installType)
+							.isPossibleName(name)) {
+				continue;
+			}
+			IStatus status = installType.validatePossiblyName(file);
+			if (status.isOK()) {
+				return installType;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Lists the directory. The attributes of the children are requested
+	 * together with the listing if the directory is backed by the file store,
+	 * otherwise each child is asked separately.
+	 */
+	private static Entry[] listChildren(IFileHandle directory) {
+		if (directory instanceof IFileStoreProvider) {
+			try {
+				final IFileInfo[] infos = ((IFileStoreProvider) directory)
+						.getFileStore().childInfos(EFS.NONE, null);
+				final Entry[] entries = new Entry[infos.length];
+				for (int i = 0; i < infos.length; ++i) {
+					final IFileInfo info = infos[i];
+					entries[i] = new Entry(directory.getChild(info.getName()),
+							info.isDirectory(), info
+									.getAttribute(EFS.ATTRIBUTE_SYMLINK));
+				}
+				return entries;
+			} catch (CoreException e) {
+				if (DLTKCore.DEBUG) {
+					e.printStackTrace();
+				}
+				return null;
+			}
+		}
+		final IFileHandle[] files = directory.getChildren();
+		if (files == null) {
+			return null;
+		}
+		final Entry[] entries = new Entry[files.length];
+		for (int i = 0; i < files.length; ++i) {
+			final boolean isDirectory = files[i].isDirectory();
+			entries[i] = new Entry(files[i], isDirectory, isDirectory
+					&& files[i].isSymlink());
+		}
+		return entries;
+	}
+
+	/**
+	 * Searches the folders concurrently, walking each directory in the
+	 * separate task. The results are reported to the listener as soon as they
+	 * are found and are sorted in the order of the sequential search at the
+	 * end.
+	 */
+	private void searchParallel(IEnvironment environment, List<IPath> folders,
+			IProgressMonitor monitor, int depth) {
+		monitor.beginTask(Messages.InterpreterSearcher_1,
+				IProgressMonitor.UNKNOWN);
+		canceled = false;
+		parallelMonitor = monitor;
+		currentDirectory = null;
+		results.clear();
+		executor = Executors.newFixedThreadPool(Math.max(1, Math.min(
+				threadCount, folders.size())), new ThreadFactory() {
+			private int index = 0;
+
+			public synchronized Thread newThread(Runnable r) {
+				final Thread thread = new Thread(r,
+						"Interpreter Searcher " + (++index)); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			for (int i = 0; i < folders.size(); ++i) {
+				schedule(environment.getFile(folders.get(i)), depth,
+						new int[] { i });
+			}
+			synchronized (pendingLock) {
+				while (pending.get() > 0) {
+					if (monitor.isCanceled()) {
+						cancel();
+						break;
+					}
+					final String current = currentDirectory;
+					if (current != null) {
+						monitor.subTask(NLS.bind(
+								Messages.InterpreterSearcher_foundSearching,
+								Integer.valueOf(results.size()), current));
+					}
+					try {
+						pendingLock.wait(PROGRESS_INTERVAL);
+					} catch (InterruptedException e) {
+						cancel();
+						Thread.currentThread().interrupt();
 						break;
 					}
 				}
+			}
+		} finally {
+			executor.shutdownNow();
+			executor = null;
+			parallelMonitor = null;
+		}
+		synchronized (results) {
+			Collections.sort(results, RESULT_ORDER);
+			for (Result result : results) {
+				found.add(result.file);
+				types.add(result.installType);
+			}
+		}
+		monitor.done();
+	}
 
-				if (file.isDirectory() && !validLocation) {
-					subDirs.add(file);
+	private void schedule(final IFileHandle directory, final int depth,
+			final int[] order) {
+		if (depth == 0 || canceled) {
+			return;
+		}
+		pending.incrementAndGet();
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						if (!canceled) {
+							searchDirectory(directory, depth, order);
+						}
+					} catch (RuntimeException e) {
+						DLTKLaunchingPlugin.log(e);
+					} finally {
+						taskDone();
+					}
 				}
+			});
+		} catch (RejectedExecutionException e) {
+			// the search is being canceled
+			taskDone();
+		}
+	}
+
+	/**
+	 * Stops the parallel search, the listener is not notified since this
+	 * method returns.
+	 */
+	private void cancel() {
+		synchronized (listenerLock) {
+			canceled = true;
+		}
+	}
+
+	private void notifyFound(IFileHandle file,
+			IInterpreterInstallType installType) {
+		final IProgressMonitor monitor = parallelMonitor;
+		synchronized (listenerLock) {
+			if (!canceled && (monitor == null || !monitor.isCanceled())) {
+				listener.interpreterFound(file, installType);
 			}
 		}
+	}
 
-		if (!subDirs.isEmpty()) {
-			for (IFileHandle subDir : subDirs) {
-				search(subDir, monitor, depth - 1);
+	private void taskDone() {
+		if (pending.decrementAndGet() == 0) {
+			synchronized (pendingLock) {
+				pendingLock.notifyAll();
+			}
+		}
+	}
+
+	private void searchDirectory(IFileHandle directory, int depth, int[] order) {
+		if (!searchedDirs.add(directory)) {
+			return;
+		}
+		currentDirectory = directory.toOSString();
+		final Entry[] entries = listChildren(directory);
+		if (entries == null) {
+			return;
+		}
+		for (int i = 0; i < entries.length; i++) {
+			if (canceled) {
+				return;
+			}
+			final Entry entry = entries[i];
+			if ((entry.directory && entry.symlink)
+					|| ignore.contains(entry.file)) {
+				continue;
+			}
+			final int[] childOrder = new int[order.length + 1];
+			System.arraycopy(order, 0, childOrder, 0, order.length);
+			childOrder[order.length] = i;
+			final IInterpreterInstallType installType = validate(entry.file);
+			if (installType != null) {
+				synchronized (results) {
+					results.add(new Result(childOrder, entry.file,
+							installType));
+				}
+				if (listener != null) {
+					notifyFound(entry.file, installType);
+				}
+			} else if (entry.directory) {
+				schedule(entry.file, depth - 1, childOrder);
 			}
 		}
 	}
 
 	public InterpreterSearcher() {
-		this.searchedDirs = new HashSet<IFileHandle>();
+		this.searchedDirs = Collections
+				.synchronizedSet(new HashSet<IFileHandle>());
 		this.found = new ArrayList<IFileHandle>();
 		this.types = new ArrayList<IInterpreterInstallType>();
 	}
 
+	/**
+	 * Sets the number of the threads walking the directories. With more than
+	 * one thread the directories are listed concurrently, which is
+	 * significantly faster for the remote environments. The default is 1, i.e.
+	 * the search is performed in the calling thread.
+	 *
+	 * @since 5.1
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Sets the listener to be notified about each interpreter found during the
+	 * search.
+	 *
+	 * @since 5.1
+	 */
+	public void setListener(IInterpreterSearchListener listener) {
+		this.listener = listener;
+	}
+
 	public void search(IEnvironment environment, String natureId,
 			Set<IFileHandle> ignore, int depth, IProgressMonitor monitor) {
 		if (natureId == null) {
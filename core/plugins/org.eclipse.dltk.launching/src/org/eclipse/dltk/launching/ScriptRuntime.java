@@ -69,6 +69,7 @@ import org.eclipse.dltk.internal.launching.DefaultProjectBuildpathEntry;
 import org.eclipse.dltk.internal.launching.InterpreterContainerInitializer;
 import org.eclipse.dltk.internal.launching.InterpreterDefinitionsContainer;
 import org.eclipse.dltk.internal.launching.InterpreterListener;
+import org.eclipse.dltk.internal.launching.RuntimeBuildpathCache;
 import org.eclipse.dltk.internal.launching.RuntimeBuildpathEntry;
 import org.eclipse.dltk.internal.launching.RuntimeBuildpathEntryResolver;
 import org.eclipse.dltk.internal.launching.RuntimeBuildpathProvider;
@@ -180,6 +181,32 @@ public final class ScriptRuntime {
 	 */
 	public static final int DEF_CONNECT_TIMEOUT = 20000;
 
+	/**
+	 * Preference key for the number of the interpreters started in advance for
+	 * each install supporting it (see {@link IInterpreterServerBootstrap}). The
+	 * value is an int, 0 disables the pool.
+	 * 
+	 * @since 5.1
+	 */
+	public static final String PREF_PROCESS_POOL_SIZE = DLTKLaunchingPlugin
+			.getUniqueIdentifier() + ".PREF_PROCESS_POOL_SIZE"; //$NON-NLS-1$
+
+	/**
+	 * Preference key for the lifetime of the interpreters started in advance.
+	 * The value is a long, indicating a number of milliseconds.
+	 * 
+	 * @since 5.1
+	 */
+	public static final String PREF_PROCESS_POOL_LIFETIME = DLTKLaunchingPlugin
+			.getUniqueIdentifier() + ".PREF_PROCESS_POOL_LIFETIME"; //$NON-NLS-1$
+
+	/**
+	 * Default lifetime of the interpreters started in advance (ms).
+	 * 
+	 * @since 5.1
+	 */
+	public static final long DEF_PROCESS_POOL_LIFETIME = 5 * 60 * 1000;
+
 	/**
 	 * Attribute key for a buildpath attribute referencing a list of shared
 	 * libraries that should appear on the
@@ -1499,10 +1526,19 @@ public final class ScriptRuntime {
 	 */
 	public static String[] computeScriptLibraryPath(IScriptProject project,
 			boolean requiredProjects) throws CoreException {
-		Set<IScriptProject> visited = new HashSet<IScriptProject>();
-		List<String> entries = new ArrayList<String>();
-		gatherScriptLibraryPathEntries(project, requiredProjects, visited,
-				entries);
+		final RuntimeBuildpathCache cache = RuntimeBuildpathCache.getInstance();
+		List<String> entries = cache.getLibraryPathEntries(project,
+				requiredProjects);
+		if (entries == null) {
+			final int generation = cache.getGeneration();
+			Set<IScriptProject> visited = new HashSet<IScriptProject>();
+			entries = new ArrayList<String>();
+			gatherScriptLibraryPathEntries(project, requiredProjects, visited,
+					entries);
+			cache.putLibraryPathEntries(project, requiredProjects, entries,
+					generation);
+		}
+		// variables are substituted each time, their values are not tracked
 		List<String> resolved = new ArrayList<String>(entries.size());
 		IStringVariableManager manager = VariablesPlugin.getDefault()
 				.getStringVariableManager();
@@ -2233,6 +2269,12 @@ public final class ScriptRuntime {
 	 */
 	public static IRuntimeBuildpathEntry[] computeUnresolvedRuntimeBuildpath(
 			IScriptProject project) throws CoreException {
+		final RuntimeBuildpathCache cache = RuntimeBuildpathCache.getInstance();
+		IRuntimeBuildpathEntry[] cached = cache.getProjectBuildpath(project);
+		if (cached != null) {
+			return cached;
+		}
+		final int generation = cache.getGeneration();
 		IBuildpathEntry[] entries = project.getRawBuildpath();
 		List<IRuntimeBuildpathEntry> buildpathEntries = new ArrayList<IRuntimeBuildpathEntry>(
 				3);
@@ -2263,8 +2305,10 @@ public final class ScriptRuntime {
 			}
 		}
 		buildpathEntries.add(newDefaultProjectBuildpathEntry(project));
-		return buildpathEntries
+		final IRuntimeBuildpathEntry[] result = buildpathEntries
 				.toArray(new IRuntimeBuildpathEntry[buildpathEntries.size()]);
+		cache.putProjectBuildpath(project, result, generation);
+		return result;
 	}
 
 	/**
@@ -2573,6 +2617,33 @@ public final class ScriptRuntime {
 				configuration);
 	}
 
+	/**
+	 * Computes and returns the resolved build path for the given launch
+	 * configuration. The result is cached until the buildpath of any project,
+	 * the interpreters or the attributes of the configuration change.
+	 * 
+	 * @param configuration
+	 *            launch configuration
+	 * @return resolved runtime buildpath entries
+	 * @exception CoreException
+	 *                if unable to compute the buildpath
+	 * @since 5.1
+	 */
+	public static IRuntimeBuildpathEntry[] computeResolvedRuntimeBuildpath(
+			ILaunchConfiguration configuration) throws CoreException {
+		final RuntimeBuildpathCache cache = RuntimeBuildpathCache.getInstance();
+		IRuntimeBuildpathEntry[] entries = cache
+				.getConfigurationBuildpath(configuration);
+		if (entries == null) {
+			final int generation = cache.getGeneration();
+			entries = resolveRuntimeBuildpath(
+					computeUnresolvedRuntimeBuildpath(configuration),
+					configuration);
+			cache.putConfigurationBuildpath(configuration, entries, generation);
+		}
+		return entries;
+	}
+
 	/**
 	 * Returns all registered runtime buildpath entry resolvers.
 	 */
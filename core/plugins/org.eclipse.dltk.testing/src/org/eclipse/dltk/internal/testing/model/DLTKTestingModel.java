@@ -16,9 +16,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -154,18 +156,50 @@ public final class DLTKTestingModel implements ITestingModel {
 
 		private void connectTestRunner(ILaunch launch,
 				IScriptProject javaProject) {
-			showTestRunnerViewPartInActivePage();
-			limitSessionHistory();
-			addTestRunSession(new TestRunSession(launch, javaProject,
-					new RemoteTestRunnerClient()));
+			connectTestRunner(launch, javaProject,
+					new RemoteTestRunnerClient());
 		}
 
 		private void connectTestRunner(ILaunch launch,
 				IScriptProject javaProject, int port) {
+			connectTestRunner(launch, javaProject,
+					new SocketTestRunnerClient(port));
+		}
+
+		private void connectTestRunner(ILaunch launch,
+				IScriptProject javaProject, ITestRunnerClient client) {
+			final String shardGroup = getShardGroup(launch);
+			if (shardGroup != null) {
+				final TestRunSession session = getShardedSession(shardGroup);
+				if (session != null) {
+					session.addShard(launch, client);
+					if (session.getConnectedShardCount() >= session
+							.getLaunchedShardCount()) {
+						removeShardGroup(shardGroup);
+					}
+					return;
+				}
+			}
 			showTestRunnerViewPartInActivePage();
 			limitSessionHistory();
-			addTestRunSession(new TestRunSession(launch, javaProject,
-					new SocketTestRunnerClient(port)));
+			final TestRunSession session = new TestRunSession(launch,
+					javaProject, client);
+			if (shardGroup != null && session.getShardCount() > 1) {
+				session.setShardedConfiguration(setShardedSession(shardGroup,
+						session));
+			}
+			addTestRunSession(session);
+		}
+
+		private String getShardGroup(ILaunch launch) {
+			final ILaunchConfiguration config = launch.getLaunchConfiguration();
+			try {
+				return config.getAttribute(
+						DLTKTestingConstants.ATTR_SHARD_GROUP, (String) null);
+			} catch (CoreException e) {
+				DLTKTestingPlugin.log(e);
+				return null;
+			}
 		}
 
 		private void limitSessionHistory() {
@@ -248,6 +282,97 @@ public final class DLTKTestingModel implements ITestingModel {
 		return null;
 	}
 
+	private static class ShardGroup {
+		final ILaunchConfiguration fConfiguration;
+		TestRunSession fSession;
+		/**
+		 * The number of the shards launched if launching the others failed,
+		 * -1 otherwise
+		 */
+		int fLaunchedCount = -1;
+
+		ShardGroup(ILaunchConfiguration configuration) {
+			fConfiguration = configuration;
+		}
+	}
+
+	/**
+	 * The sharded test runs waiting for the shards to connect, by the shard
+	 * group. Accessed from the launching threads and the UI thread, so
+	 * guarded by itself.
+	 */
+	private final Map<String, ShardGroup> fShardGroups = new HashMap<String, ShardGroup>();
+
+	/**
+	 * Registers the group of the shards launched from the specified
+	 * configuration. The shards of the group are reported as the single test
+	 * run, which is rerun from that configuration.
+	 */
+	public void addShardGroup(String group, ILaunchConfiguration configuration) {
+		synchronized (fShardGroups) {
+			fShardGroups.put(group, new ShardGroup(configuration));
+		}
+	}
+
+	private TestRunSession getShardedSession(String group) {
+		synchronized (fShardGroups) {
+			final ShardGroup shardGroup = fShardGroups.get(group);
+			return shardGroup != null ? shardGroup.fSession : null;
+		}
+	}
+
+	/**
+	 * Sets the session the shards of the group report into and returns the
+	 * configuration the shards were launched from or <code>null</code> if it
+	 * is not known.
+	 */
+	private ILaunchConfiguration setShardedSession(String group,
+			TestRunSession session) {
+		synchronized (fShardGroups) {
+			ShardGroup shardGroup = fShardGroups.get(group);
+			if (shardGroup == null) {
+				shardGroup = new ShardGroup(null);
+				fShardGroups.put(group, shardGroup);
+			}
+			shardGroup.fSession = session;
+			if (shardGroup.fLaunchedCount >= 0) {
+				session.setLaunchedShardCount(shardGroup.fLaunchedCount);
+			}
+			return shardGroup.fConfiguration;
+		}
+	}
+
+	/**
+	 * Lowers the number of the shards of the group to the number of the
+	 * shards actually launched, when launching the others failed. The test
+	 * run does not wait for the shards which were not launched.
+	 */
+	public void abortShardGroup(String group, int launchedCount) {
+		synchronized (fShardGroups) {
+			final ShardGroup shardGroup = fShardGroups.get(group);
+			if (shardGroup == null) {
+				return;
+			}
+			final TestRunSession session = shardGroup.fSession;
+			if (launchedCount == 0
+					|| session != null
+					&& session.getConnectedShardCount() >= launchedCount) {
+				fShardGroups.remove(group);
+			} else {
+				shardGroup.fLaunchedCount = launchedCount;
+			}
+			if (session != null) {
+				session.setLaunchedShardCount(launchedCount);
+			}
+		}
+	}
+
+	private void removeShardGroup(String group) {
+		synchronized (fShardGroups) {
+			fShardGroups.remove(group);
+		}
+	}
+
 	private final ListenerList fTestRunSessionListeners = new ListenerList();
 	/**
 	 * Active test run sessions, youngest first.
@@ -352,7 +477,7 @@ public final class DLTKTestingModel implements ITestingModel {
 		Assert.isNotNull(launch);
 		synchronized (fTestRunSessions) {
 			for (final TestRunSession session : fTestRunSessions) {
-				if (launch.equals(session.getLaunch())) {
+				if (session.containsLaunch(launch)) {
 					return session;
 				}
 			}
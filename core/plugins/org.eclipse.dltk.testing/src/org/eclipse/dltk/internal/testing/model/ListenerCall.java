@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.dltk.testing.DLTKTestingPlugin;
+
+/**
+ * The notification of the {@link ITestRunListener2}s about the parsed event,
+ * posted by the test runner clients to their {@link TestRunEventQueue}.
+ */
+abstract class ListenerCall {
+
+	/**
+	 * Notifies the single listener
+	 */
+	abstract void call(ITestRunListener2 listener);
+
+	/**
+	 * Notifies each of the listeners, the failure of the listener is logged
+	 * and does not prevent notifying the others.
+	 */
+	void callAll(ITestRunListener2[] listeners) {
+		for (int i = 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener = listeners[i];
+			SafeRunner.run(new ISafeRunnable() {
+				public void run() {
+					call(listener);
+				}
+
+				public void handleException(Throwable exception) {
+					DLTKTestingPlugin.log(exception);
+				}
+			});
+		}
+	}
+
+}
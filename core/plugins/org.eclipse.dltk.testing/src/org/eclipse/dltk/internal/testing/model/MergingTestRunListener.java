@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+/**
+ * Forwards the events of one shard of the sharded test run to the queue
+ * shared by all the shards, so the events of the different shards are
+ * delivered to the session one at a time while the events of each shard keep
+ * their order.
+ */
+class MergingTestRunListener implements ITestRunListener2 {
+
+	private final ITestRunListener2 target;
+	private final TestRunEventQueue queue;
+
+	MergingTestRunListener(ITestRunListener2 target, TestRunEventQueue queue) {
+		this.target = target;
+		this.queue = queue;
+	}
+
+	public void testRunStarted(final int testCount) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testRunStarted(testCount);
+			}
+		});
+	}
+
+	public void testRunEnded(final long elapsedTime) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testRunEnded(elapsedTime);
+			}
+		});
+	}
+
+	public void testRunStopped(final long elapsedTime) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testRunStopped(elapsedTime);
+			}
+		});
+	}
+
+	public void testStarted(final String testId, final String testName) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testStarted(testId, testName);
+			}
+		});
+	}
+
+	public void testEnded(final String testId, final String testName) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testEnded(testId, testName);
+			}
+		});
+	}
+
+	public void testRunTerminated() {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testRunTerminated();
+			}
+		});
+	}
+
+	public void testTreeEntry(final String description) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testTreeEntry(description);
+			}
+		});
+	}
+
+	public void testTreeEntry(final String testId, final String testName,
+			final boolean isSuite, final int testCount) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testTreeEntry(testId, testName, isSuite, testCount);
+			}
+		});
+	}
+
+	public void testFailed(final int status, final String testId,
+			final String testName, final String trace, final String expected,
+			final String actual, final int failedCode) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testFailed(status, testId, testName, trace, expected,
+						actual, failedCode);
+			}
+		});
+	}
+
+	public void testReran(final String testId, final String testClass,
+			final String testName, final int status, final String trace,
+			final String expected, final String actual) {
+		queue.post(new Runnable() {
+			public void run() {
+				target.testReran(testId, testClass, testName, status, trace,
+						expected, actual);
+			}
+		});
+	}
+}
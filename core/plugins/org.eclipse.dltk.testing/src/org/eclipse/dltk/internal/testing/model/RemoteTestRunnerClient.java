@@ -15,11 +15,7 @@ package org.eclipse.dltk.internal.testing.model;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
 
-import org.eclipse.core.runtime.ISafeRunnable;
-import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.dltk.testing.DLTKTestingPlugin;
 import org.eclipse.dltk.testing.ITestingClient;
 import org.eclipse.dltk.testing.MessageIds;
@@ -30,13 +26,6 @@ import org.eclipse.dltk.testing.MessageIds;
  */
 public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient {
 	public RemoteTestRunnerClient() {
-		operationsThread= new Thread(runner);
-		operationsThread.start();
-	}
-	public abstract class ListenerSafeRunnable implements ISafeRunnable {
-		public void handleException(Throwable exception) {
-			DLTKTestingPlugin.log(exception);
-		}
 	}
 	/**
 	 * A simple state machine to process requests from the RemoteTestRunner
@@ -235,6 +224,12 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 
 	private boolean fDebug= false;
 
+	/**
+	 * The parsed events waiting to be delivered to the listeners, so the
+	 * testing engine is never blocked by the listeners.
+	 */
+	private final TestRunEventQueue fEventQueue= new TestRunEventQueue("DLTK Testing Client Events"); //$NON-NLS-1$
+
 	/**
 	 * Reads the message stream from the RemoteTestRunner
 	 */
@@ -261,6 +256,20 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 //			fWriter.println(MessageIds.TEST_STOP);
 //			fWriter.flush();
 //		}
+		terminate();
+	}
+
+	/**
+	 * Notifies the listeners the run was terminated, unless it has ended
+	 * already, and closes the queue, so its thread exits after delivering
+	 * the pending events. The later events are ignored.
+	 */
+	private synchronized void terminate() {
+		if (!isTerminated) {
+			isTerminated= true;
+			notifyTestRunTerminated();
+		}
+		fEventQueue.close();
 	}
 
 
@@ -349,25 +358,37 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 		return fVersion.equals("v2"); //$NON-NLS-1$
 	}
 
-	private void notifyTestReran(final String testId, final String className, final String testName, final int statusCode, final String trace) {
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testReran(testId, className, testName, statusCode, trace, fExpectedResult.toString(), fActualResult.toString());
-				}
-			});
-		}
+	/**
+	 * Queues the notification of the listeners, they are notified on the
+	 * thread of the queue.
+	 */
+	private void post(final ListenerCall call) {
+		fEventQueue.post(new Runnable() {
+			public void run() {
+				call.callAll(fListeners);
+			}
+		});
 	}
 
-	private void notifyTestTreeEntry(final String treeEntry) {
-		for (int i= 0; i < fListeners.length; i++) {
-			ITestRunListener2 listener= fListeners[i];
-			if (!hasTestId())
-				listener.testTreeEntry(fakeTestId(treeEntry));
-			else
-				listener.testTreeEntry(treeEntry);
-		}
+	private void notifyTestReran(final String testId, final String className,
+			final String testName, final int statusCode, final String trace) {
+		final String expected= fExpectedResult.toString();
+		final String actual= fActualResult.toString();
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testReran(testId, className, testName,
+						statusCode, trace, expected, actual);
+			}
+		});
+	}
+
+	private void notifyTestTreeEntry(String treeEntry) {
+		final String entry= hasTestId() ? treeEntry : fakeTestId(treeEntry);
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testTreeEntry(entry);
+			}
+		});
 	}
 
 	private String fakeTestId(String treeEntry) {
@@ -380,97 +401,94 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	private void notifyTestRunStopped(final long elapsedTime) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testRunStopped(elapsedTime);
-				}
-			});
-		}
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testRunStopped(elapsedTime);
+			}
+		});
 	}
 
 	private void testRunEnded(final long elapsedTime) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testRunEnded(elapsedTime);
-				}
-			});
-		}
-		isTerminated = true;
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testRunEnded(elapsedTime);
+			}
+		});
+		isTerminated= true;
+		fEventQueue.close();
 	}
 
-	private void notifyTestEnded(final String test) {
+	private void notifyTestEnded(String test) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					String s[]= extractTestId(test);
-					listener.testEnded(s[0], s[1]);
-				}
-			});
-		}
+		final String s[]= extractTestId(test);
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testEnded(s[0], s[1]);
+			}
+		});
 	}
 
-	private void notifyTestStarted(final String test) {
+	private void notifyTestStarted(String test) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					String s[]= extractTestId(test);
-					listener.testStarted(s[0], s[1]);
-				}
-			});
-		}
+		final String s[]= extractTestId(test);
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testStarted(s[0], s[1]);
+			}
+		});
 	}
 
 	private void notifyTestRunStarted(final int count) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
-
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testRunStarted(count);
-				}
-			});
-		}
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testRunStarted(count);
+			}
+		});
 	}
 
 	private void notifyTestFailed() {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testFailed(fFailureKind, fFailedTestId, fFailedTest, fFailedTrace.toString(), fExpectedResult.toString(), fActualResult.toString(), fFailedCode);
-				}
-			});
-		}
+		// the buffers are reused for the next failure
+		final int failureKind= fFailureKind;
+		final int failedCode= fFailedCode;
+		final String failedTestId= fFailedTestId;
+		final String failedTest= fFailedTest;
+		final String trace= fFailedTrace.toString();
+		final String expected= fExpectedResult.toString();
+		final String actual= fActualResult.toString();
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testFailed(failureKind, failedTestId,
+						failedTest, trace, expected, actual,
+						failedCode);
+			}
+		});
 	}
 
 	private void notifyTestRunTerminated() {
-		// fix for 77771 RemoteTestRunnerClient doing work after junit shutdown [JUnit]
+		// fix for 77771 RemoteTestRunnerClient doing work after junit shutdown
+		// [JUnit]
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testRunTerminated();
-				}
-			});
-		}
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testRunTerminated();
+			}
+		});
+	}
+
+	/**
+	 * Returns the queue the events are delivered to the listeners through
+	 */
+	public TestRunEventQueue getEventQueue() {
+		return fEventQueue;
 	}
 
 	public void rerunTest(String testId, String className, String testName) {
@@ -483,8 +501,7 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	}
 
 	public void stopWaiting() {
-		// TODO Auto-generated method stub
-
+		terminate();
 	}
 
 	public boolean isRunning() {
@@ -496,12 +513,10 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	 */
 	public void testRunStart(final int count) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					fCurrentState= fDefaultState;
-					notifyTestRunStarted(count);
-				}
-			});
+			synchronized (this) {
+				fCurrentState= fDefaultState;
+				notifyTestRunStarted(count);
+			}
 		}
 	}
 
@@ -510,12 +525,10 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	 */
 	public void testTree(final int testId, final String testName, final boolean issuite, final int testCound) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					fCurrentState= fDefaultState;
-					notifyTestTreeEntry(Integer.toString(testId) + "," + testName + "," + Boolean.toString(issuite) + "," + Integer.toString(testCound)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-				}
-			});
+			synchronized (this) {
+				fCurrentState= fDefaultState;
+				notifyTestTreeEntry(Integer.toString(testId) + "," + testName + "," + Boolean.toString(issuite) + "," + Integer.toString(testCound)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
 		}
 	}
 
@@ -524,12 +537,10 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	 */
 	public void testTerminated(final int elapse) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					fCurrentState= fDefaultState;
-					testRunEnded(elapse);
-				}
-			});
+			synchronized (this) {
+				fCurrentState= fDefaultState;
+				testRunEnded(elapse);
+			}
 		}
 	}
 
@@ -538,12 +549,10 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	 */
 	public void testStarted(final int id, final String name) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					fCurrentState= fDefaultState;
-					notifyTestStarted(Integer.toString(id) + "," + name); //$NON-NLS-1$
-				}
-			});
+			synchronized (this) {
+				fCurrentState= fDefaultState;
+				notifyTestStarted(Integer.toString(id) + "," + name); //$NON-NLS-1$
+			}
 		}
 	}
 
@@ -552,35 +561,29 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	 */
 	public void testEnded(final int id, final String name) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					fCurrentState= fDefaultState;
-					notifyTestEnded(Integer.toString(id) + "," + name); //$NON-NLS-1$
-				}
-			});
+			synchronized (this) {
+				fCurrentState= fDefaultState;
+				notifyTestEnded(Integer.toString(id) + "," + name); //$NON-NLS-1$
+			}
 		}
 	}
 
 	public void testFailed(final int id, final String name) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					fCurrentState= fDefaultState;
+			synchronized (this) {
+				fCurrentState= fDefaultState;
 //					notifyTestFailed();(Integer.toString(id) + "," + name);
-					extractFailure(Integer.toString(id) + "," + name, ITestRunListener2.STATUS_FAILURE, -1); //$NON-NLS-1$
-				}
-			});
+				extractFailure(Integer.toString(id) + "," + name, ITestRunListener2.STATUS_FAILURE, -1); //$NON-NLS-1$
+			}
 		}
 	}
 	public void testFailed(final int code,final int id, final String name) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					fCurrentState= fDefaultState;
+			synchronized (this) {
+				fCurrentState= fDefaultState;
 //					notifyTestFailed();(Integer.toString(id) + "," + name);
-					extractFailure(Integer.toString(id) + "," + name, code, ITestRunListener2.STATUS_FAILURE); //$NON-NLS-1$
-				}
-			});
+				extractFailure(Integer.toString(id) + "," + name, code, ITestRunListener2.STATUS_FAILURE); //$NON-NLS-1$
+			}
 		}
 	}
 
@@ -589,15 +592,13 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	 */
 	public void traceMessage(final String message) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
+			synchronized (this) {
 //					fCurrentState= fDefaultState;
 //					notifyTestFailed();(Integer.toString(id) + "," + name);
 //					receiveMessage(MessageIds.TRACE_START);
-					receiveMessage(message);
+				receiveMessage(message);
 //					receiveMessage(MessageIds.TRACE_END);
-				}
-			});
+			}
 		}
 	}
 
@@ -606,98 +607,51 @@ public class RemoteTestRunnerClient implements ITestingClient, ITestRunnerClient
 	 */
 	public void testError(final int id, final String name) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					fCurrentState= fDefaultState;
+			synchronized (this) {
+				fCurrentState= fDefaultState;
 //					notifyTestFailed();(Integer.toString(id) + "," + name);
-					extractFailure(Integer.toString(id) + "," + name, ITestRunListener2.STATUS_ERROR); //$NON-NLS-1$
-				}
-			});
+				extractFailure(Integer.toString(id) + "," + name, ITestRunListener2.STATUS_ERROR); //$NON-NLS-1$
+			}
 		}
 	}
 	
 	public void testActual(final String actual) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
+			synchronized (this) {
 //					fCurrentState= fDefaultState;
 //					notifyTestFailed();(Integer.toString(id) + "," + name);
-					receiveMessage(MessageIds.ACTUAL_START);
-					receiveMessage(actual);
-					receiveMessage(MessageIds.ACTUAL_END);
-				}
-			});
+				receiveMessage(MessageIds.ACTUAL_START);
+				receiveMessage(actual);
+				receiveMessage(MessageIds.ACTUAL_END);
+			}
 		}
 	}
 	public void testExpected(final String expected) {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
+			synchronized (this) {
 //					fCurrentState= fDefaultState;
 //					notifyTestFailed();(Integer.toString(id) + "," + name);
-					receiveMessage(MessageIds.EXPECTED_START);
-					receiveMessage(expected);
-					receiveMessage(MessageIds.EXPECTED_END);
-				}
-			});
+				receiveMessage(MessageIds.EXPECTED_START);
+				receiveMessage(expected);
+				receiveMessage(MessageIds.EXPECTED_END);
+			}
 		}
 	}
 	public void traceStart() {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					receiveMessage(MessageIds.TRACE_START);
-				}
-			});
+			synchronized (this) {
+				receiveMessage(MessageIds.TRACE_START);
+			}
 		}
 	}
 	public void traceEnd() {
 		if (!isTerminated) {
-			addOperation(new Runnable() {
-				public void run() {
-					receiveMessage(MessageIds.TRACE_END);
-				}
-			});
-		}
-	}
-
-	private void addOperation(Runnable runnable) {
-		synchronized (operations) {
-			operations.add(runnable);
-			operations.notify();
+			synchronized (this) {
+				receiveMessage(MessageIds.TRACE_END);
+			}
 		}
 	}
 
-	private List operations= new ArrayList();
-	private Thread operationsThread;
-	private boolean isTerminated = false;
-	private Runnable runner= new Runnable() {
-		public void run() {
-			while (!isTerminated || operations.size() > 0) {
-				Runnable operation= null;
-				synchronized (operations) {
-					if (operations.size() > 0) {
-						operation= (Runnable) operations.get(0);
-						operations.remove(0);
-					} else {
-						try {
-							operations.wait();
-						} catch (InterruptedException e) {
-							e.printStackTrace();
-						}
-					}
-				}
-				if (operation != null) {
-					try {
-//						System.out.println("Exec operation");
-//						System.out.flush();
-						operation.run();
-					} catch (Throwable t) {
-						t.printStackTrace();
-					}
-				}
-			}
-		}
-	};
+	private volatile boolean isTerminated = false;
 
 }
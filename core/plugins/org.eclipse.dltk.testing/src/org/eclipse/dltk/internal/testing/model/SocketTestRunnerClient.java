@@ -22,8 +22,6 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 
-import org.eclipse.core.runtime.ISafeRunnable;
-import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.dltk.testing.DLTKTestingPlugin;
 import org.eclipse.dltk.testing.ITestingClient;
 import org.eclipse.dltk.testing.MessageIds;
@@ -36,12 +34,6 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 
 	private static boolean DEBUG = false;
 
-	public abstract class ListenerSafeRunnable implements ISafeRunnable {
-		public void handleException(Throwable exception) {
-			DLTKTestingPlugin.log(exception);
-		}
-	}
-
 	/**
 	 * A simple state machine to process requests from the RemoteTestRunner
 	 */
@@ -239,6 +231,13 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 
 	private boolean fDebug = false;
 
+	/**
+	 * The parsed events waiting to be delivered to the listeners, the reader
+	 * thread is never blocked by the listeners.
+	 */
+	private final TestRunEventQueue fEventQueue = new TestRunEventQueue(
+			"DLTK Testing Client Events"); //$NON-NLS-1$
+
 	/**
 	 * Reads the message stream from the RemoteTestRunner
 	 */
@@ -280,6 +279,9 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 				DLTKTestingPlugin.log(e);
 				// fall through
 			}
+			fEventQueue.close();
+			if (fDebug)
+				System.out.println(fEventQueue);
 			shutDown();
 		}
 	}
@@ -448,28 +450,37 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 		return fVersion.equals("v2"); //$NON-NLS-1$
 	}
 
+	/**
+	 * Queues the notification of the listeners, they are notified on the
+	 * thread of the queue.
+	 */
+	private void post(final ListenerCall call) {
+		fEventQueue.post(new Runnable() {
+			public void run() {
+				call.callAll(fListeners);
+			}
+		});
+	}
+
 	private void notifyTestReran(final String testId, final String className,
 			final String testName, final int statusCode, final String trace) {
-		for (int i = 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener = fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testReran(testId, className, testName, statusCode,
-							trace, fExpectedResult.toString(), fActualResult
-									.toString());
-				}
-			});
-		}
+		final String expected = fExpectedResult.toString();
+		final String actual = fActualResult.toString();
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testReran(testId, className, testName,
+						statusCode, trace, expected, actual);
+			}
+		});
 	}
 
-	private void notifyTestTreeEntry(final String treeEntry) {
-		for (int i = 0; i < fListeners.length; i++) {
-			ITestRunListener2 listener = fListeners[i];
-			if (!hasTestId())
-				listener.testTreeEntry(fakeTestId(treeEntry));
-			else
-				listener.testTreeEntry(treeEntry);
-		}
+	private void notifyTestTreeEntry(String treeEntry) {
+		final String entry = hasTestId() ? treeEntry : fakeTestId(treeEntry);
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testTreeEntry(entry);
+			}
+		});
 	}
 
 	private String fakeTestId(String treeEntry) {
@@ -482,84 +493,72 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 	private void notifyTestRunStopped(final long elapsedTime) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i = 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener = fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testRunStopped(elapsedTime);
-				}
-			});
-		}
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testRunStopped(elapsedTime);
+			}
+		});
 	}
 
 	private void testRunEnded(final long elapsedTime) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i = 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener = fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testRunEnded(elapsedTime);
-				}
-			});
-		}
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testRunEnded(elapsedTime);
+			}
+		});
 	}
 
-	private void notifyTestEnded(final String test) {
+	private void notifyTestEnded(String test) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i = 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener = fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					String s[] = extractTestId(test);
-					listener.testEnded(s[0], s[1]);
-				}
-			});
-		}
+		final String s[] = extractTestId(test);
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testEnded(s[0], s[1]);
+			}
+		});
 	}
 
-	private void notifyTestStarted(final String test) {
+	private void notifyTestStarted(String test) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i = 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener = fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					String s[] = extractTestId(test);
-					listener.testStarted(s[0], s[1]);
-				}
-			});
-		}
+		final String s[] = extractTestId(test);
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testStarted(s[0], s[1]);
+			}
+		});
 	}
 
 	private void notifyTestRunStarted(final int count) {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i = 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener = fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testRunStarted(count);
-				}
-			});
-		}
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testRunStarted(count);
+			}
+		});
 	}
 
 	private void notifyTestFailed() {
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i = 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener = fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testFailed(fFailureKind, fFailedTestId,
-							fFailedTest, fFailedTrace.toString(),
-							fExpectedResult.toString(), fActualResult
-									.toString(), ITestingClient.ERRORED);
-				}
-			});
-		}
+		// the buffers are reused for the next failure
+		final int failureKind = fFailureKind;
+		final String failedTestId = fFailedTestId;
+		final String failedTest = fFailedTest;
+		final String trace = fFailedTrace.toString();
+		final String expected = fExpectedResult.toString();
+		final String actual = fActualResult.toString();
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testFailed(failureKind, failedTestId,
+						failedTest, trace, expected, actual,
+						ITestingClient.ERRORED);
+			}
+		});
 	}
 
 	private void notifyTestRunTerminated() {
@@ -567,14 +566,18 @@ public class SocketTestRunnerClient implements ITestRunnerClient {
 		// [JUnit]
 		if (DLTKTestingPlugin.isStopped())
 			return;
-		for (int i = 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener = fListeners[i];
-			SafeRunner.run(new ListenerSafeRunnable() {
-				public void run() {
-					listener.testRunTerminated();
-				}
-			});
-		}
+		post(new ListenerCall() {
+			void call(ITestRunListener2 listener) {
+				listener.testRunTerminated();
+			}
+		});
+	}
+
+	/**
+	 * Returns the queue the events are delivered to the listeners through
+	 */
+	public TestRunEventQueue getEventQueue() {
+		return fEventQueue;
 	}
 
 	public void rerunTest(String testId, String className, String testName) {
@@ -22,6 +22,14 @@ public abstract class TestContainerElement extends TestElement implements
 	private List<TestElement> fChildren;
 	private Status fChildrenStatus;
 
+	/**
+	 * The swap file the children are not yet loaded from, or
+	 * <code>null</code>
+	 */
+	private volatile TestRunSwapFile fChildrenSource;
+	private long fChildrenOffset;
+	private int fPendingChildCount;
+
 	public TestContainerElement(TestContainerElement parent, String id,
 			String testName) {
 		this(parent, id, testName, 8);
@@ -55,11 +63,58 @@ public abstract class TestContainerElement extends TestElement implements
 	 * @see org.eclipse.jdt.junit.model.ITestSuiteElement#getChildren()
 	 */
 	public ITestElement[] getChildren() {
-		return fChildren.toArray(new ITestElement[fChildren.size()]);
+		final List<TestElement> children = children();
+		return children.toArray(new ITestElement[children.size()]);
+	}
+
+	/**
+	 * Answers if this container has children without loading them
+	 */
+	public boolean hasChildren() {
+		if (fChildrenSource != null) {
+			return fPendingChildCount != 0;
+		}
+		return !fChildren.isEmpty();
 	}
 
 	public void addChild(TestElement child) {
-		fChildren.add(child);
+		children().add(child);
+	}
+
+	void setChildrenSource(TestRunSwapFile source, long offset, int count) {
+		fChildrenOffset = offset;
+		fPendingChildCount = count;
+		// published last, the readers check it first
+		fChildrenSource = source;
+	}
+
+	private List<TestElement> children() {
+		if (fChildrenSource != null) {
+			synchronized (this) {
+				final TestRunSwapFile source = fChildrenSource;
+				if (source != null) {
+					// cleared before loading, since the children add themselves
+					fChildrenSource = null;
+					source.loadChildren(this, fChildrenOffset);
+				}
+			}
+		}
+		return fChildren;
+	}
+
+	/**
+	 * Returns the status cumulated from the children or <code>null</code>
+	 */
+	Status getChildrenStatus() {
+		return fChildrenStatus;
+	}
+
+	/**
+	 * Sets the children status restored from the swap file, the parent is not
+	 * notified.
+	 */
+	void restoreChildrenStatus(Status status) {
+		fChildrenStatus = status;
 	}
 
 	public Status getStatus() {
@@ -74,8 +129,8 @@ public abstract class TestContainerElement extends TestElement implements
 	}
 
 	private Status getCumulatedStatus() {
-		TestElement[] children = fChildren.toArray(new TestElement[fChildren
-				.size()]);
+		final List<TestElement> list = children();
+		TestElement[] children = list.toArray(new TestElement[list.size()]);
 		// copy list to avoid concurreny problems
 		if (children.length == 0)
 			return getSuiteStatus();
@@ -98,13 +153,14 @@ public abstract class TestContainerElement extends TestElement implements
 	}
 
 	public void childChangedStatus(TestElement child, Status childStatus) {
-		int childCount = fChildren.size();
-		if (child == fChildren.get(0) && childStatus.isRunning()) {
+		final List<TestElement> children = children();
+		int childCount = children.size();
+		if (child == children.get(0) && childStatus.isRunning()) {
 			// is first child, and is running -> copy status
 			internalSetChildrenStatus(childStatus);
 			return;
 		}
-		TestElement lastChild = fChildren.get(childCount - 1);
+		TestElement lastChild = children.get(childCount - 1);
 		if (child == lastChild) {
 			if (childStatus.isDone()) {
 				// all children done, collect cumulative status
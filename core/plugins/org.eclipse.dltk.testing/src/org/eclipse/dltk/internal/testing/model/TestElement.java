@@ -218,6 +218,13 @@ public abstract class TestElement implements ITestElement {
 	private String fTrace;
 	private String fExpected;
 	private String fActual;
+
+	/**
+	 * The swap file the failure trace is not yet loaded from, or
+	 * <code>null</code>
+	 */
+	private volatile TestRunSwapFile fTraceSource;
+	private long fTraceOffset;
 	
 	/**
 	 * Running time in seconds. Contents depend on the current {@link #getProgressState()}:
@@ -296,6 +303,7 @@ public abstract class TestElement implements ITestElement {
 	public FailureTrace getFailureTrace() {
 		Result testResult = getTestResult(false);
 		if (testResult == Result.ERROR || testResult == Result.FAILURE) {
+			loadTrace();
 			return new FailureTrace(fTrace, fExpected, fActual);
 		}
 		return null;
@@ -339,11 +347,44 @@ public abstract class TestElement implements ITestElement {
 		// TODO: notify about change?
 		// TODO: multiple errors/failures per test
 		// https://bugs.eclipse.org/bugs/show_bug.cgi?id=125296
+		fTraceSource = null;
 		fTrace = trace;
 		fExpected = expected;
 		fActual = actual;
 		setStatus(status);
 	}
+
+	/**
+	 * Sets the status and time restored from the swap file, the parent is not
+	 * notified.
+	 */
+	void restore(Status status, double time) {
+		fStatus = status;
+		fTime = time;
+	}
+
+	void setTraceSource(TestRunSwapFile source, long offset) {
+		fTraceOffset = offset;
+		fTraceSource = source;
+	}
+
+	void restoreTrace(String trace, String expected, String actual) {
+		fTrace = trace;
+		fExpected = expected;
+		fActual = actual;
+	}
+
+	private void loadTrace() {
+		if (fTraceSource != null) {
+			synchronized (this) {
+				final TestRunSwapFile source = fTraceSource;
+				if (source != null) {
+					fTraceSource = null;
+					source.loadTrace(this, fTraceOffset);
+				}
+			}
+		}
+	}
 	
 	public void setElapsedTimeInSeconds(double time) {
 		fTime= time;
@@ -362,18 +403,22 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public String getTrace() {
+		loadTrace();
 		return fTrace;
 	}
 
 	public String getExpected() {
+		loadTrace();
 		return fExpected;
 	}
 
 	public String getActual() {
+		loadTrace();
 		return fActual;
 	}
 
 	public boolean isComparisonFailure() {
+		loadTrace();
 		return fExpected != null && fActual != null;
 	}
 
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.dltk.testing.DLTKTestingPlugin;
+
+/**
+ * Decouples parsing of the test runner protocol from notifying the
+ * {@link ITestRunListener2}s. It is a plain asynchronous queue: the thread
+ * reading the protocol posts the already parsed events without blocking and
+ * the consumer thread delivers them one by one, so slow listeners do not
+ * throttle the test runner. The events are not merged.
+ *
+ * <p>
+ * The queue is bounded by the generous capacity, so the stalled listener can
+ * not make it grow without limit: the posting thread waits while the queue is
+ * full, unless it is the consumer thread itself.
+ * </p>
+ *
+ * <p>
+ * The events are delivered in the order they were posted. The counters are
+ * kept for diagnosing the slow runs and could be read from any thread.
+ * </p>
+ */
+public class TestRunEventQueue {
+
+	/**
+	 * The maximum number of events delivered in one pass without checking
+	 * the queue state
+	 */
+	private static final int MAX_BATCH = 512;
+
+	private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * The default maximum number of the events waiting for delivery
+	 */
+	private static final int DEFAULT_CAPACITY = 65536;
+
+	private final ConcurrentLinkedQueue<Runnable> events = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicInteger depth = new AtomicInteger();
+	private final AtomicInteger maxDepth = new AtomicInteger();
+	private final AtomicLong postedCount = new AtomicLong();
+	private final AtomicLong deliveredCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+	private final long startTime = System.currentTimeMillis();
+
+	private final int capacity;
+	/**
+	 * The lock the posting threads wait on while the queue is full
+	 */
+	private final Object room = new Object();
+	private final AtomicInteger waiting = new AtomicInteger();
+
+	private final Thread consumer;
+	private volatile boolean started = false;
+	private volatile boolean closed = false;
+
+	public TestRunEventQueue(String name) {
+		this(name, DEFAULT_CAPACITY);
+	}
+
+	public TestRunEventQueue(String name, int capacity) {
+		this.capacity = capacity;
+		consumer = new Thread(name) {
+			public void run() {
+				deliver();
+			}
+		};
+		consumer.setDaemon(true);
+	}
+
+	/**
+	 * Queues the event for delivery, starting the consumer thread if needed.
+	 * Waits while the queue is full.
+	 */
+	public void post(Runnable event) {
+		if (closed) {
+			return;
+		}
+		if (!started) {
+			start();
+		}
+		if (depth.get() >= capacity && Thread.currentThread() != consumer) {
+			awaitRoom();
+			if (closed) {
+				return;
+			}
+		}
+		events.add(event);
+		postedCount.incrementAndGet();
+		final int current = depth.incrementAndGet();
+		int max;
+		while (current > (max = maxDepth.get())) {
+			if (maxDepth.compareAndSet(max, current)) {
+				break;
+			}
+		}
+		if (current == 1) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	private void awaitRoom() {
+		waiting.incrementAndGet();
+		try {
+			synchronized (room) {
+				while (depth.get() >= capacity && !closed) {
+					try {
+						room.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		} finally {
+			waiting.decrementAndGet();
+		}
+	}
+
+	private void notifyRoom() {
+		if (waiting.get() != 0) {
+			synchronized (room) {
+				room.notifyAll();
+			}
+		}
+	}
+
+	private synchronized void start() {
+		if (!started) {
+			started = true;
+			consumer.start();
+		}
+	}
+
+	/**
+	 * Stops accepting the events, the already posted events are delivered
+	 * before the consumer thread exits.
+	 */
+	public void close() {
+		closed = true;
+		LockSupport.unpark(consumer);
+		notifyRoom();
+	}
+
+	private void deliver() {
+		for (;;) {
+			int count = 0;
+			Runnable event;
+			while (count < MAX_BATCH && (event = events.poll()) != null) {
+				depth.decrementAndGet();
+				++count;
+				try {
+					event.run();
+				} catch (Throwable t) {
+					DLTKTestingPlugin.log(t);
+				}
+			}
+			if (count != 0) {
+				deliveredCount.addAndGet(count);
+				batchCount.incrementAndGet();
+				notifyRoom();
+			} else if (closed) {
+				if (events.isEmpty()) {
+					return;
+				}
+			} else {
+				LockSupport.parkNanos(this, IDLE_WAIT);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of the events waiting for delivery
+	 */
+	public int getDepth() {
+		// may be negative for a moment while the event is being posted
+		return Math.max(0, depth.get());
+	}
+
+	/**
+	 * Returns the maximum number of the events waiting for delivery at once
+	 */
+	public int getMaxDepth() {
+		return maxDepth.get();
+	}
+
+	public long getPostedCount() {
+		return postedCount.get();
+	}
+
+	public long getDeliveredCount() {
+		return deliveredCount.get();
+	}
+
+	/**
+	 * Returns the number of the passes the consumer thread delivered the
+	 * events in
+	 */
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	/**
+	 * Returns the average number of the events posted per second
+	 */
+	public double getPostRate() {
+		return rate(getPostedCount());
+	}
+
+	/**
+	 * Returns the average number of the events delivered per second
+	 */
+	public double getDeliveryRate() {
+		return rate(getDeliveredCount());
+	}
+
+	private double rate(long count) {
+		final long elapsed = System.currentTimeMillis() - startTime;
+		return elapsed > 0 ? count * 1000.0 / elapsed : 0;
+	}
+
+	public String toString() {
+		return consumer.getName() + ": depth=" + getDepth() //$NON-NLS-1$
+				+ ", maxDepth=" + getMaxDepth() //$NON-NLS-1$
+				+ ", posted=" + getPostedCount() //$NON-NLS-1$
+				+ ", delivered=" + getDeliveredCount() //$NON-NLS-1$
+				+ ", batches=" + getBatchCount() //$NON-NLS-1$
+				+ ", postRate=" + (long) getPostRate() + "/s" //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", deliveryRate=" + (long) getDeliveryRate() + "/s"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -12,6 +12,7 @@
 package org.eclipse.dltk.internal.testing.model;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -28,6 +29,7 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
 import org.eclipse.debug.core.ILaunchManager;
 import org.eclipse.debug.core.ILaunchesListener2;
 import org.eclipse.dltk.annotations.Internal;
@@ -39,6 +41,7 @@ import org.eclipse.dltk.internal.testing.model.TestElement.Status;
 import org.eclipse.dltk.testing.DLTKTestingConstants;
 import org.eclipse.dltk.testing.DLTKTestingMessages;
 import org.eclipse.dltk.testing.DLTKTestingPlugin;
+import org.eclipse.dltk.testing.IShardableTestingEngine;
 import org.eclipse.dltk.testing.ITestCategoryEngine;
 import org.eclipse.dltk.testing.ITestRunnerUI;
 import org.eclipse.dltk.testing.ITestRunnerUIExtension;
@@ -102,14 +105,57 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	private Map<String, TestCategoryElement> fCategoryMap;
 
 	/**
-	 * The TestSuites for which additional children are expected. 
+	 * The launches reporting into this session, the single one unless the
+	 * tests are run in several shards.
 	 */
-	private List<IncompleteTestSuite> fIncompleteTestSuites;
+	private final List<Shard> fShards= new ArrayList<Shard>();
+
+	/**
+	 * The number of shards of this test run, 1 if the tests are not sharded.
+	 */
+	private int fShardCount= 1;
+
+	/**
+	 * The number of shards the test run waits for, less than the number of
+	 * shards if launching some of them failed.
+	 */
+	private volatile int fLaunchedShards= 1;
+
+	/**
+	 * The number of shards started/finished, used to report the sharded run
+	 * as the single one.
+	 */
+	private int fStartedShards;
+	private int fFinishedShards;
+
+	/**
+	 * Delivers the events of all the shards one at a time, or
+	 * <code>null</code> if the tests are not sharded.
+	 */
+	private TestRunEventQueue fShardEventQueue;
+
+	/**
+	 * The configuration the shards were launched from, or <code>null</code>
+	 * if the tests are not sharded or the configuration is not known.
+	 */
+	private ILaunchConfiguration fShardedConfiguration;
 	
 	/**
 	 * Suite for unrooted test case elements, or <code>null</code>.
 	 */
 	private TestSuiteElement fUnrootedSuite;
+
+	/**
+	 * The swap file the not yet loaded elements are read from, or
+	 * <code>null</code>.
+	 */
+	private TestRunSwapFile fSwapFile;
+
+	/**
+	 * Whether the session was changed since it was restored from the swap
+	 * file, so the file should be written again.
+	 */
+	private boolean fChangedSinceSwapIn = true;
 	
  	/**
  	 * Number of tests started during this test run.
@@ -197,23 +243,151 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		fCategoryMap = new HashMap<String, TestCategoryElement>();
 		
 		fTestRunnerClient= runnerClient;
-		fTestRunnerClient.startListening(new TestSessionNotifier());
-		
+		if (launchConfiguration != null) {
+			try {
+				fShardCount= Math.max(1, launchConfiguration.getAttribute(
+						DLTKTestingConstants.ATTR_SHARD_COUNT, 1));
+			} catch (CoreException e) {
+				DLTKTestingPlugin.log(e);
+			}
+		}
+		fLaunchedShards= fShardCount;
+		if (fShardCount > 1) {
+			fShardEventQueue= new TestRunEventQueue("DLTK Testing Shard Events"); //$NON-NLS-1$
+		}
+		addShard(launch, runnerClient);
+
+		fSessionListeners= new ListenerList();
+		addTestSessionListener(new TestRunListenerAdapter(this));
+	}
+	
+	/**
+	 * Connects the launch running the next shard of this test run. Could be
+	 * called from any thread, the events of all the shards are delivered by
+	 * the same thread.
+	 */
+	public void addShard(ILaunch launch, ITestRunnerClient runnerClient) {
+		int index= 0;
+		if (fShardCount > 1) {
+			ILaunchConfiguration configuration= launch.getLaunchConfiguration();
+			try {
+				index= configuration.getAttribute(DLTKTestingConstants.ATTR_SHARD_INDEX, 0);
+			} catch (CoreException e) {
+				DLTKTestingPlugin.log(e);
+			}
+		}
+		Shard shard= new Shard(launch, runnerClient, fShardCount > 1 ? index + ":" : ""); //$NON-NLS-1$ //$NON-NLS-2$
+		synchronized (fShards) {
+			fShards.add(shard);
+		}
+		runnerClient.startListening(shard.fListener);
+		listenToLaunch(shard);
+	}
+
+	void setShardedConfiguration(ILaunchConfiguration configuration) {
+		fShardedConfiguration= configuration;
+	}
+
+	/**
+	 * Returns the configuration to rerun all the tests of this session with.
+	 * It is the configuration the shards were launched from if the tests were
+	 * sharded, so the rerun should be sharded as well.
+	 * 
+	 * @return the launch configuration or <code>null</code>
+	 */
+	public ILaunchConfiguration getRerunConfiguration() throws CoreException {
+		if (fShardedConfiguration != null)
+			return fShardedConfiguration;
+		if (fLaunch == null)
+			return null;
+		ILaunchConfiguration configuration= fLaunch.getLaunchConfiguration();
+		if (configuration != null && fShardCount > 1) {
+			// the original configuration is not known, run the tests of the shard only
+			ILaunchConfigurationWorkingCopy copy= configuration.copy(configuration.getName());
+			copy.setAttribute(DLTKTestingConstants.ATTR_SHARD_GROUP, (String) null);
+			copy.setAttribute(DLTKTestingConstants.ATTR_SHARD_INDEX, (String) null);
+			copy.setAttribute(DLTKTestingConstants.ATTR_SHARD_COUNT, (String) null);
+			return copy;
+		}
+		return configuration;
+	}
+
+	/**
+	 * @return the number of shards this test run consists of
+	 */
+	public int getShardCount() {
+		return fShardCount;
+	}
+
+	/**
+	 * @return the number of shards this test run waits for
+	 */
+	public int getLaunchedShardCount() {
+		return fLaunchedShards;
+	}
+
+	/**
+	 * Lowers the number of shards the test run waits for to the number of
+	 * shards actually launched, when launching the rest of them failed. The
+	 * run is terminated if the launched shards have finished already.
+	 */
+	void setLaunchedShardCount(int count) {
+		if (fShardEventQueue == null || count >= fLaunchedShards)
+			return;
+		fLaunchedShards= count;
+		fShardEventQueue.post(new Runnable() {
+			public void run() {
+				// on the thread the shards are finished on
+				if (fFinishedShards >= fLaunchedShards) {
+					fShardEventQueue.close();
+					testRunTerminated();
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the number of shards connected to this session
+	 */
+	public int getConnectedShardCount() {
+		synchronized (fShards) {
+			return fShards.size();
+		}
+	}
+
+	/**
+	 * Answers if the launch reports into this session
+	 */
+	public boolean containsLaunch(ILaunch launch) {
+		return getShard(launch) != null;
+	}
+
+	private Shard getShard(ILaunch launch) {
+		synchronized (fShards) {
+			for (Shard shard : fShards) {
+				if (shard.fLaunch.equals(launch))
+					return shard;
+			}
+		}
+		return null;
+	}
+
+	private void listenToLaunch(final Shard shard) {
 		final ILaunchManager launchManager= DebugPlugin.getDefault().getLaunchManager();
 		launchManager.addLaunchListener(new ILaunchesListener2() {
 			public void launchesTerminated(ILaunch[] launches) {
-				if (Arrays.asList(launches).contains(fLaunch)) {
+				if (Arrays.asList(launches).contains(shard.fLaunch)) {
 					if (fTestRunnerClient != null) {
-						fTestRunnerClient.stopWaiting();
+						shard.fClient.stopWaiting();
 					}
 					launchManager.removeLaunchListener(this);
 					scheduleTestRunTerminated();
 				}
 			}
 			public void launchesRemoved(ILaunch[] launches) {
-				if (Arrays.asList(launches).contains(fLaunch)) {
+				if (Arrays.asList(launches).contains(shard.fLaunch)) {
 					if (fTestRunnerClient != null) {
-						fTestRunnerClient.stopWaiting();
+						shard.fClient.stopWaiting();
 					}
 					launchManager.removeLaunchListener(this);
 					scheduleTestRunTerminated();
@@ -231,7 +405,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 						"TestRunSession - notify launch terminated") { //$NON-NLS-1$
 					@Override
 					protected IStatus run(IProgressMonitor monitor) {
-						testRunTerminated();
+						shard.fListener.testRunTerminated();
 						return org.eclipse.core.runtime.Status.OK_STATUS;
 					}
 				};
@@ -241,11 +415,8 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 				job.schedule(750);
 			}
 		});
-
-		fSessionListeners= new ListenerList();
-		addTestSessionListener(new TestRunListenerAdapter(this));
 	}
-	
+
 	void reset() {
 		fStartedCount= 0; 
 		fFailureCount= 0; 
@@ -258,6 +429,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		fTestResult= null;
 		fIdToTest = new HashMap<String, TestElement>();
 		fCategoryMap = new HashMap<String, TestCategoryElement>();
+		fChangedSinceSwapIn= true;
 	}
 
 	/*
@@ -437,18 +609,26 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		try {
 			File swapFile= getSwapFile();
 			
-			DLTKTestingModel.exportTestRunSession(this, swapFile);
+			if (fChangedSinceSwapIn || fSwapFile == null || !swapFile.exists()) {
+				// not loaded elements are read from the old file while writing
+				File tempFile= new File(swapFile.getPath() + ".tmp"); //$NON-NLS-1$
+				TestRunSwapFile.write(this, tempFile);
+				disposeSwapFile();
+				swapFile.delete();
+				if (!tempFile.renameTo(swapFile))
+					throw new IOException("Could not rename " + tempFile); //$NON-NLS-1$
+			}
+			disposeSwapFile();
 			fTestResult= fTestRoot.getTestResult(true);
 			fTestRoot= null;
 			fTestRunnerClient= null;
 			fIdToTest = new HashMap<String, TestElement>();
 			fCategoryMap = new HashMap<String, TestCategoryElement>();
-			fIncompleteTestSuites= null;
 			fUnrootedSuite= null;
 			
 		} catch (IllegalStateException e) {
 			DLTKTestingPlugin.log(e);
-		} catch (CoreException e) {
+		} catch (IOException e) {
 			DLTKTestingPlugin.log(e);
 		}
 	}
@@ -462,6 +642,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 
 
 	public void removeSwapFile() {
+		disposeSwapFile();
 		File swapFile= getSwapFile();
 		if (swapFile.exists())
 			swapFile.delete();
@@ -470,33 +651,57 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	private File getSwapFile() throws IllegalStateException {
 		File historyDir= DLTKTestingPlugin.getHistoryDirectory();
 		String isoTime= new SimpleDateFormat("yyyyMMdd-HHmmss.SSS").format(new Date(getStartTime())); //$NON-NLS-1$
-		String swapFileName= isoTime + ".xml"; //$NON-NLS-1$
+		String swapFileName= isoTime + ".testrun"; //$NON-NLS-1$
 		return new File(historyDir, swapFileName);
 	}
 
 
+	boolean isSwappedOut() {
+		return fTestRoot == null;
+	}
+
 	public void swapIn() {
 		if (fTestRoot != null)
 			return;
 
 		try {
-			DLTKTestingModel.importIntoTestRunSession(getSwapFile(), this);
+			// only the counters and top-level elements are read here
+			reset();
+			fSwapFile= new TestRunSwapFile(getSwapFile());
+			fSwapFile.load(this);
+			fChangedSinceSwapIn= false;
 		} catch (IllegalStateException e) {
 			DLTKTestingPlugin.log(e);
+			disposeSwapFile();
 			fTestRoot= new TestRoot(this);
 			fTestResult= null;
-		} catch (CoreException e) {
+		} catch (IOException e) {
 			DLTKTestingPlugin.log(e);
+			disposeSwapFile();
 			fTestRoot= new TestRoot(this);
 			fTestResult= null;
 		}
 	}
 
+	private void disposeSwapFile() {
+		if (fSwapFile != null) {
+			fSwapFile.dispose();
+			fSwapFile= null;
+		}
+	}
+
 	public void stopTestRun() {
 		if (isRunning() || ! isKeptAlive())
 			fIsStopped= true;
-		if (fTestRunnerClient != null)
-			fTestRunnerClient.stopTest();
+		if (fTestRunnerClient == null)
+			return;
+		Shard[] shards;
+		synchronized (fShards) {
+			shards= fShards.toArray(new Shard[fShards.size()]);
+		}
+		for (int i= 0; i < shards.length; ++i) {
+			shards[i].fClient.stopTest();
+		}
 	}
 
 	/**
@@ -504,6 +709,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	 */
 	public boolean isKeptAlive() {
 		if (fTestRunnerClient != null
+				&& fShardCount == 1
 				&& fLaunch != null
 				&& fTestRunnerClient.isRunning()
 				&& ILaunchManager.DEBUG_MODE.equals(fLaunch.getLaunchMode())) {
@@ -544,6 +750,8 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 			/* TODO fTestRunnerClient.rerunTest(testId, className, testName); */
 			return true;
 			
+		} else if (fShardCount > 1) {
+			return rerunShardedTest(testElement, launchMode);
 		} else if (fLaunch != null) {
 			if (testRunnerUI instanceof ITestRunnerUIExtension) {
 				return ((ITestRunnerUIExtension) testRunnerUI).rerunTest(
@@ -575,6 +783,30 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		return false;
 	}
 	
+	/**
+	 * Reruns the unit of distribution containing the element of the sharded
+	 * test run. The launches of the shards are restricted to their subsets of
+	 * the tests and the ids of the elements are prefixed with the shard index,
+	 * so the unit is launched from the original configuration instead.
+	 */
+	private boolean rerunShardedTest(ITestElement testElement, String launchMode) throws CoreException {
+		if (fShardedConfiguration == null)
+			return false;
+		IShardableTestingEngine engine= TestShardPlanner.getShardableEngine(fShardedConfiguration);
+		if (engine == null)
+			return false;
+		for (ITestElement element= testElement; element != null && element != fTestRoot; element= element.getParentContainer()) {
+			String test= engine.getShardableTest(element);
+			if (test != null) {
+				ILaunchConfigurationWorkingCopy copy= fShardedConfiguration.copy(fShardedConfiguration.getName());
+				engine.configureShard(copy, new String[] { test });
+				copy.launch(launchMode, null);
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public TestElement getTestElement(String id) {
 		return fIdToTest.get(id);
 	}
@@ -600,7 +832,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		return null;
 	}
 
-	private TestElement addTreeEntry(String treeEntry) {
+	private TestElement addTreeEntry(String treeEntry, List<IncompleteTestSuite> incompleteTestSuites) {
 		// format: testId","testName","isSuite","testcount
 		int index0= treeEntry.indexOf(',');
 		String id= treeEntry.substring(0, index0);
@@ -614,43 +846,59 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		
 		int testCount= Integer.parseInt(treeEntry.substring(index2 + 1));
 		
-		return addTreeEntry(id, testName, isSuite, testCount);
+		return addTreeEntry(id, testName, isSuite, testCount, incompleteTestSuites);
 	}
 
 	private TestElement addTreeEntry(String id, String testName,
-			boolean isSuite, int testCount) {
-		if (fIncompleteTestSuites.isEmpty()) {
+			boolean isSuite, int testCount, List<IncompleteTestSuite> incompleteTestSuites) {
+		if (incompleteTestSuites.isEmpty()) {
 			TestContainerElement category = selectCategory(id, testName,
 					isSuite);
 			if (category == null) {
 				category = fTestRoot;
 			}
-			return createTestElement(category, id, testName, isSuite, testCount);
+			return createTestElement(category, id, testName, isSuite, testCount, incompleteTestSuites);
 		} else {
-			int suiteIndex= fIncompleteTestSuites.size() - 1;
-			IncompleteTestSuite openSuite= fIncompleteTestSuites.get(suiteIndex);
+			int suiteIndex= incompleteTestSuites.size() - 1;
+			IncompleteTestSuite openSuite= incompleteTestSuites.get(suiteIndex);
 			openSuite.fOutstandingChildren--;
 			if (openSuite.fOutstandingChildren <= 0)
-				fIncompleteTestSuites.remove(suiteIndex);
-			return createTestElement(openSuite.fTestSuiteElement, id, testName, isSuite, testCount);
+				incompleteTestSuites.remove(suiteIndex);
+			return createTestElement(openSuite.fTestSuiteElement, id, testName, isSuite, testCount, incompleteTestSuites);
 		}
 	}
 
 	public TestElement createTestElement(TestContainerElement parent, String id, String testName, boolean isSuite, int testCount) {
+		return createTestElement(parent, id, testName, isSuite, testCount, null);
+	}
+
+	private TestElement createTestElement(TestContainerElement parent, String id, String testName, boolean isSuite, int testCount, List<IncompleteTestSuite> incompleteTestSuites) {
 		TestElement testElement;
 		if (isSuite) {
 			TestSuiteElement testSuiteElement= new TestSuiteElement(parent, id, testName, testCount);
 			testElement= testSuiteElement;
-			if (testCount > 0)
-				fIncompleteTestSuites.add(new IncompleteTestSuite(testSuiteElement, testCount));
+			if (testCount > 0 && incompleteTestSuites != null)
+				incompleteTestSuites.add(new IncompleteTestSuite(testSuiteElement, testCount));
 		} else {
 			testElement= new TestCaseElement(parent, id, testName);
 			++fCreatedTestCaseCount;
 			adjustTotalCount(fCreatedTestCaseCount);
 		}
 		fIdToTest.put(id, testElement);
+		fChangedSinceSwapIn= true;
 		return testElement;
 	}
+
+	/**
+	 * Registers the element loaded from the swap file
+	 */
+	void registerTestElement(TestElement testElement) {
+		fIdToTest.put(testElement.getId(), testElement);
+		if (testElement instanceof TestCategoryElement) {
+			fCategoryMap.put(testElement.getId(),
+					(TestCategoryElement) testElement);
+		}
+	}
 	
 	/**
 	 * Append the test name from <code>s</code> to <code>testName</code>.
@@ -687,9 +935,29 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	 * events (broadcasted to {@link ITestSessionListener}s).
 	 */
 	private class TestSessionNotifier implements ITestRunListener2 {
+
+		private final Shard fShard;
+
+		/**
+		 * The TestSuites for which additional children are expected. 
+		 */
+		private List<IncompleteTestSuite> fIncompleteTestSuites= new ArrayList<IncompleteTestSuite>();
+
+		TestSessionNotifier(Shard shard) {
+			fShard= shard;
+		}
+
+		private String toSessionId(String testId) {
+			return fShard.fIdPrefix.length() == 0 ? testId : fShard.fIdPrefix + testId;
+		}
 		
 		public void testRunStarted(int testCount) {
 			fIncompleteTestSuites= new ArrayList<IncompleteTestSuite>();
+			if (fStartedShards++ != 0) {
+				// the run has been started by the other shard
+				fTotalCount+= testCount;
+				return;
+			}
 			
 			fStartedCount= 0;
 			fIgnoredCount= 0;
@@ -708,7 +976,11 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		}
 	
 		public void testRunEnded(long elapsedTime) {
+			if (!finishShard())
+				return;
 			fIsRunning= false;
+			if (fShardCount > 1)
+				elapsedTime= System.currentTimeMillis() - fStartTime;
 			
 			Object[] listeners= fSessionListeners.getListeners();
 			for (int i= 0; i < listeners.length; ++i) {
@@ -717,7 +989,11 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		}
 	
 		public void testRunStopped(long elapsedTime) {
+			if (!finishShard())
+				return;
 			fIsRunning= false;
+			if (fShardCount > 1)
+				elapsedTime= System.currentTimeMillis() - fStartTime;
 			fIsStopped= true;
 			
 			Object[] listeners= fSessionListeners.getListeners();
@@ -727,14 +1003,29 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		}
 	
 		public void testRunTerminated() {
-			TestRunSession.this.testRunTerminated();
+			if (finishShard())
+				TestRunSession.this.testRunTerminated();
+		}
+
+		/**
+		 * Marks the shard finished and answers if it was the last one running.
+		 */
+		private boolean finishShard() {
+			if (fShard.fFinished)
+				return false;
+			fShard.fFinished= true;
+			if (++fFinishedShards < fLaunchedShards)
+				return false;
+			if (fShardEventQueue != null)
+				fShardEventQueue.close();
+			return true;
 		}
 	
 		/* (non-Javadoc)
 		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testTreeEntry(java.lang.String)
 		 */
 		public void testTreeEntry(String description) {
-			TestElement testElement= addTreeEntry(description);
+			TestElement testElement= addTreeEntry(toSessionId(description), fIncompleteTestSuites);
 			
 			Object[] listeners= fSessionListeners.getListeners();
 			for (int i= 0; i < listeners.length; ++i) {
@@ -744,8 +1035,8 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 
 		public void testTreeEntry(String testId, String testName,
 				boolean isSuite, int testCount) {
-			TestElement testElement = addTreeEntry(testId, testName, isSuite,
-					testCount);
+			TestElement testElement = addTreeEntry(toSessionId(testId), testName, isSuite,
+					testCount, fIncompleteTestSuites);
 
 			Object[] listeners = fSessionListeners.getListeners();
 			for (int i = 0; i < listeners.length; ++i) {
@@ -773,6 +1064,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		}
 
 		public void testStarted(String testId, String testName) {
+			testId= toSessionId(testId);
 			if (fStartedCount == 0) {
 				Object[] listeners= fSessionListeners.getListeners();
 				for (int i= 0; i < listeners.length; ++i) {
@@ -798,6 +1090,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		}
 	
 		public void testEnded(String testId, String testName) {
+			testId= toSessionId(testId);
 			TestElement testElement= getTestElement(testId);
 			if (testElement == null) {
 				testElement= createUnrootedTestElement(testId, testName);
@@ -832,6 +1125,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testFailed(int, java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
 		 */
 		public void testFailed(int statusCode, String testId, String testName, String trace, String expected, String actual, int code) {
+			testId= toSessionId(testId);
 			TestElement testElement= getTestElement(testId);
 			if (testElement == null) {
 				testElement= createUnrootedTestElement(testId, testName);
@@ -866,6 +1160,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testReran(java.lang.String, java.lang.String, java.lang.String, int, java.lang.String, java.lang.String, java.lang.String)
 		 */
 		public void testReran(String testId, String className, String testName, int statusCode, String trace, String expectedResult, String actualResult) {
+			testId= toSessionId(testId);
 			TestElement testElement= getTestElement(testId);
 			if (testElement == null) {
 				testElement= createUnrootedTestElement(testId, testName);
@@ -902,6 +1197,29 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 		}
 	}
 
+	/**
+	 * The launch running the part of the tests of this session.
+	 */
+	private class Shard {
+		final ILaunch fLaunch;
+		final ITestRunnerClient fClient;
+		/**
+		 * Makes the ids of the different shards unique, empty if the tests are
+		 * not sharded.
+		 */
+		final String fIdPrefix;
+		final ITestRunListener2 fListener;
+		boolean fFinished;
+
+		Shard(ILaunch launch, ITestRunnerClient client, String idPrefix) {
+			fLaunch= launch;
+			fClient= client;
+			fIdPrefix= idPrefix;
+			final TestSessionNotifier notifier= new TestSessionNotifier(this);
+			fListener= fShardEventQueue != null ? new MergingTestRunListener(notifier, fShardEventQueue) : notifier;
+		}
+	}
+
 	private static class IncompleteTestSuite {
 		public TestSuiteElement fTestSuiteElement;
 		public int fOutstandingChildren;
@@ -914,6 +1232,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	
 	public void registerTestFailureStatus(TestElement testElement, Status status, String trace, String expected, String actual) {
 		testElement.setStatus(status, trace, expected, actual);
+		fChangedSinceSwapIn= true;
 		if (status.isError()) {
 			fErrorCount++;
 		} else if (status.isFailure()) {
@@ -922,6 +1241,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	}
 
 	public void registerTestEnded(TestElement testElement, boolean completed) {
+		fChangedSinceSwapIn= true;
 		if (testElement instanceof TestCaseElement) {
 			if (! completed) {
 				return;
@@ -937,6 +1257,7 @@ public class TestRunSession implements ITestRunSession, ITestSession {
 	
 	private void setStatus(TestElement testElement, Status status) {
 		testElement.setStatus(status);
+		fChangedSinceSwapIn= true;
 	}
 	
 	public ITestElement[] getFailedTestElements(ITestElementPredicate predicate) {
@@ -0,0 +1,438 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.dltk.internal.testing.model.TestElement.Status;
+import org.eclipse.dltk.testing.DLTKTestingPlugin;
+import org.eclipse.dltk.testing.model.ITestElement;
+
+/**
+ * The compact binary file the history test run sessions are swapped to.
+ *
+ * <p>
+ * The children of each container are written as the separate section, the
+ * record of the container refers to it by the offset, so the session is
+ * restored with the top-level elements only and the other containers load
+ * their children when they are asked for them. Failure traces are loaded on
+ * demand too. Names and ids are written once to the string table at the end
+ * of the file.
+ * </p>
+ *
+ * <pre>
+ * file    := MAGIC VERSION counters section* stringTable rootRecord trailer
+ * section := byteCount childCount record*
+ * record  := kind id name status childrenStatus time flags traceOffset
+ *            [childCount childrenOffset]
+ * trailer := stringTableOffset rootOffset
+ * </pre>
+ *
+ * The XML format remains the interchange format of the test runs, see
+ * {@link DLTKTestingModel#exportTestRunSession(TestRunSession, File)}.
+ */
+public class TestRunSwapFile {
+
+	private static final int MAGIC = 0x444C5452; // "DLTR"
+	private static final int VERSION = 2;
+
+	private static final byte KIND_CASE = 0;
+	private static final byte KIND_SUITE = 1;
+	private static final byte KIND_CATEGORY = 2;
+
+	private static final byte FLAG_IGNORED = 1;
+
+	private static final int NO_STATUS = -1;
+	private static final long NO_OFFSET = -1;
+
+	private static final int TRAILER_SIZE = 16;
+
+	private static final Status[] STATUSES = { Status.NOT_RUN, Status.RUNNING,
+			Status.RUNNING_ERROR, Status.RUNNING_FAILURE, Status.OK,
+			Status.ERROR, Status.FAILURE, Status.FAILURE_BLOCKED,
+			Status.FAILURE_SKIPPED, Status.FAILURE_UNKNOWN,
+			Status.FAILURE_ABORTED };
+
+	private static int encodeStatus(Status status) {
+		if (status != null) {
+			for (int i = 0; i < STATUSES.length; ++i) {
+				if (STATUSES[i] == status) {
+					return i;
+				}
+			}
+		}
+		return NO_STATUS;
+	}
+
+	private static Status decodeStatus(int code) throws IOException {
+		if (code == NO_STATUS) {
+			return null;
+		}
+		if (code < 0 || code >= STATUSES.length) {
+			throw new IOException("Invalid status " + code); //$NON-NLS-1$
+		}
+		return STATUSES[code];
+	}
+
+	/**
+	 * Writes the session to the specified file, the not yet loaded parts of
+	 * the session are loaded while writing.
+	 */
+	public static void write(TestRunSession session, File file)
+			throws IOException {
+		final Writer writer = new Writer(new FileOutputStream(file));
+		try {
+			writer.write(session);
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		long position = 0;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		public void write(int b) throws IOException {
+			out.write(b);
+			++position;
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			position += len;
+		}
+	}
+
+	private static class Writer {
+		private final CountingOutputStream counter;
+		private final DataOutputStream out;
+		private final Map<String, Integer> strings = new HashMap<String, Integer>();
+		private final List<String> stringList = new ArrayList<String>();
+
+		Writer(OutputStream stream) {
+			counter = new CountingOutputStream(new BufferedOutputStream(
+					stream, 64 * 1024));
+			out = new DataOutputStream(counter);
+		}
+
+		void write(TestRunSession session) throws IOException {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(session.getTotalCount());
+			out.writeInt(session.getStartedCount());
+			out.writeInt(session.getFailureCount());
+			out.writeInt(session.getErrorCount());
+			out.writeInt(session.getIgnoredCount());
+			final TestRoot root = session.getTestRoot();
+			final long childrenOffset = writeChildren(root);
+			// string table
+			final long stringTableOffset = counter.position;
+			out.writeInt(stringList.size());
+			for (String s : stringList) {
+				writeLongString(out, s);
+			}
+			// root
+			final long rootOffset = counter.position;
+			out.writeByte(encodeStatus(root.getSuiteStatus()));
+			out.writeByte(encodeStatus(root.getChildrenStatus()));
+			out.writeDouble(root.fTime);
+			out.writeInt(root.getChildren().length);
+			out.writeLong(childrenOffset);
+			// trailer
+			out.writeLong(stringTableOffset);
+			out.writeLong(rootOffset);
+		}
+
+		/**
+		 * Writes the children (and all the descendants) of the container,
+		 * returning the offset of its children section.
+		 */
+		private long writeChildren(TestContainerElement container)
+				throws IOException {
+			final ITestElement[] children = container.getChildren();
+			final long[] childrenOffsets = new long[children.length];
+			final long[] traceOffsets = new long[children.length];
+			for (int i = 0; i < children.length; ++i) {
+				final TestElement child = (TestElement) children[i];
+				if (child instanceof TestContainerElement) {
+					childrenOffsets[i] = writeChildren((TestContainerElement) child);
+				}
+				traceOffsets[i] = writeTrace(child);
+			}
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			final DataOutputStream section = new DataOutputStream(buffer);
+			section.writeInt(children.length);
+			for (int i = 0; i < children.length; ++i) {
+				final TestElement child = (TestElement) children[i];
+				byte flags = 0;
+				if (child instanceof TestCategoryElement) {
+					section.writeByte(KIND_CATEGORY);
+				} else if (child instanceof TestSuiteElement) {
+					section.writeByte(KIND_SUITE);
+				} else if (child instanceof TestCaseElement) {
+					section.writeByte(KIND_CASE);
+					if (((TestCaseElement) child).isIgnored()) {
+						flags |= FLAG_IGNORED;
+					}
+				} else {
+					throw new IllegalStateException(String.valueOf(child));
+				}
+				section.writeInt(stringIndex(child.getId()));
+				section.writeInt(stringIndex(child.getTestName()));
+				if (child instanceof TestContainerElement) {
+					final TestContainerElement c = (TestContainerElement) child;
+					section.writeByte(encodeStatus(c.getSuiteStatus()));
+					section.writeByte(encodeStatus(c.getChildrenStatus()));
+				} else {
+					section.writeByte(encodeStatus(child.getStatus()));
+					section.writeByte(NO_STATUS);
+				}
+				section.writeDouble(child.fTime);
+				section.writeByte(flags);
+				section.writeLong(traceOffsets[i]);
+				if (child instanceof TestContainerElement) {
+					section.writeInt(((TestContainerElement) child)
+							.getChildren().length);
+					section.writeLong(childrenOffsets[i]);
+				}
+			}
+			section.close();
+			final long offset = counter.position;
+			out.writeInt(buffer.size());
+			buffer.writeTo(out);
+			return offset;
+		}
+
+		private long writeTrace(TestElement element) throws IOException {
+			final String trace = element.getTrace();
+			if (trace == null) {
+				return NO_OFFSET;
+			}
+			final long offset = counter.position;
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			final DataOutputStream data = new DataOutputStream(buffer);
+			writeLongString(data, trace);
+			writeLongString(data, element.getExpected());
+			writeLongString(data, element.getActual());
+			data.close();
+			out.writeInt(buffer.size());
+			buffer.writeTo(out);
+			return offset;
+		}
+
+		private int stringIndex(String value) {
+			Integer index = strings.get(value);
+			if (index == null) {
+				index = Integer.valueOf(stringList.size());
+				strings.put(value, index);
+				stringList.add(value);
+			}
+			return index.intValue();
+		}
+
+		void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/**
+	 * Traces and names may be longer than the
+	 * {@link DataOutputStream#writeUTF(String)} limit
+	 */
+	private static void writeLongString(DataOutputStream out, String value)
+			throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			final byte[] bytes = value.getBytes("UTF-8"); //$NON-NLS-1$
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readLongString(DataInputStream in)
+			throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	private final File file;
+	private RandomAccessFile access;
+	private String[] strings;
+	private boolean disposed = false;
+
+	public TestRunSwapFile(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Restores the counters and the top-level elements of the session. The
+	 * session should be {@link TestRunSession#reset() reset} before.
+	 */
+	public synchronized void load(TestRunSession session) throws IOException {
+		final RandomAccessFile f = open();
+		f.seek(0);
+		if (f.readInt() != MAGIC || f.readInt() != VERSION) {
+			throw new IOException("Unsupported format"); //$NON-NLS-1$
+		}
+		session.fTotalCount = f.readInt();
+		session.fStartedCount = f.readInt();
+		session.fFailureCount = f.readInt();
+		session.fErrorCount = f.readInt();
+		session.fIgnoredCount = f.readInt();
+		f.seek(f.length() - TRAILER_SIZE);
+		final long stringTableOffset = f.readLong();
+		final long rootOffset = f.readLong();
+		final DataInputStream table = readBlock(stringTableOffset,
+				(int) (rootOffset - stringTableOffset));
+		strings = new String[table.readInt()];
+		for (int i = 0; i < strings.length; ++i) {
+			strings[i] = readLongString(table);
+		}
+		f.seek(rootOffset);
+		final TestRoot root = session.getTestRoot();
+		final Status status = decodeStatus(f.readByte());
+		final Status childrenStatus = decodeStatus(f.readByte());
+		root.restore(status, f.readDouble());
+		root.restoreChildrenStatus(childrenStatus);
+		final int childCount = f.readInt();
+		final long childrenOffset = f.readLong();
+		root.setChildrenSource(this, childrenOffset, childCount);
+	}
+
+	/**
+	 * Creates the children of the container from the specified section
+	 */
+	synchronized void loadChildren(TestContainerElement container, long offset) {
+		if (disposed) {
+			return;
+		}
+		try {
+			final RandomAccessFile f = open();
+			f.seek(offset);
+			final DataInputStream in = readBlock(offset + 4, f.readInt());
+			final int count = in.readInt();
+			final TestRunSession session = (TestRunSession) container
+					.getRoot().getTestRunSession();
+			for (int i = 0; i < count; ++i) {
+				final byte kind = in.readByte();
+				final String id = strings[in.readInt()];
+				final String name = strings[in.readInt()];
+				final Status status = decodeStatus(in.readByte());
+				final Status childrenStatus = decodeStatus(in.readByte());
+				final double time = in.readDouble();
+				final byte flags = in.readByte();
+				final long traceOffset = in.readLong();
+				final TestElement element;
+				if (kind == KIND_CASE) {
+					final TestCaseElement testCase = new TestCaseElement(
+							container, id, name);
+					testCase.setIgnored((flags & FLAG_IGNORED) != 0);
+					element = testCase;
+				} else {
+					final TestContainerElement child;
+					final int childCount = in.readInt();
+					if (kind == KIND_CATEGORY) {
+						child = new TestCategoryElement(container, id, name);
+					} else {
+						child = new TestSuiteElement(container, id, name,
+								childCount);
+					}
+					child.restoreChildrenStatus(childrenStatus);
+					child.setChildrenSource(this, in.readLong(), childCount);
+					element = child;
+				}
+				element.restore(status, time);
+				if (traceOffset != NO_OFFSET) {
+					element.setTraceSource(this, traceOffset);
+				}
+				session.registerTestElement(element);
+			}
+		} catch (IOException e) {
+			DLTKTestingPlugin.log(e);
+		}
+	}
+
+	/**
+	 * Reads the failure trace of the element from the specified position
+	 */
+	synchronized void loadTrace(TestElement element, long offset) {
+		if (disposed) {
+			return;
+		}
+		try {
+			final RandomAccessFile f = open();
+			f.seek(offset);
+			final DataInputStream in = readBlock(offset + 4, f.readInt());
+			final String trace = readLongString(in);
+			final String expected = readLongString(in);
+			final String actual = readLongString(in);
+			element.restoreTrace(trace, expected, actual);
+		} catch (IOException e) {
+			DLTKTestingPlugin.log(e);
+		}
+	}
+
+	private DataInputStream readBlock(long offset, int length)
+			throws IOException {
+		final byte[] bytes = new byte[length];
+		final RandomAccessFile f = open();
+		f.seek(offset);
+		f.readFully(bytes);
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+
+	private RandomAccessFile open() throws IOException {
+		if (access == null) {
+			access = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		}
+		return access;
+	}
+
+	/**
+	 * Closes the file. The elements restored from this file could not load
+	 * their children or traces anymore.
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		if (access != null) {
+			try {
+				access.close();
+			} catch (IOException e) {
+				DLTKTestingPlugin.log(e);
+			}
+			access = null;
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.testing.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.dltk.testing.DLTKTestingConstants;
+import org.eclipse.dltk.testing.DLTKTestingPlugin;
+import org.eclipse.dltk.testing.IShardableTestingEngine;
+import org.eclipse.dltk.testing.ITestingEngine;
+import org.eclipse.dltk.testing.model.ITestElement;
+import org.eclipse.dltk.testing.model.ITestElementContainer;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Splits the tests between the shards so the shards take approximately the
+ * same time, using the durations of the previous run of the same launch
+ * configuration when available.
+ */
+public class TestShardPlanner {
+
+	private TestShardPlanner() {
+		// static methods only
+	}
+
+	/**
+	 * Returns the testing engine of the configuration if it could split the
+	 * tests between the shards or <code>null</code> otherwise.
+	 */
+	public static IShardableTestingEngine getShardableEngine(
+			ILaunchConfiguration configuration) {
+		final ITestingEngine engine = DLTKTestingConstants
+				.getTestingEngine(configuration);
+		if (engine instanceof IShardableTestingEngine) {
+			return (IShardableTestingEngine) engine;
+		}
+		if (engine instanceof IAdaptable) {
+			return (IShardableTestingEngine) ((IAdaptable) engine)
+					.getAdapter(IShardableTestingEngine.class);
+		}
+		return null;
+	}
+
+	/**
+	 * Distributes the tests between at most <code>shardCount</code> shards.
+	 * The longest tests are assigned first, each one to the shard with the
+	 * least total duration so far. The tests of each shard keep their original
+	 * order, the empty shards are omitted.
+	 *
+	 * @param durations
+	 *            the durations (in seconds) of the tests by name, the tests
+	 *            without the known duration are assumed to take the average
+	 *            time
+	 */
+	public static String[][] plan(String[] tests, int shardCount,
+			Map<String, Double> durations) {
+		shardCount = Math.max(1, Math.min(shardCount, tests.length));
+		final double[] weights = new double[tests.length];
+		final double defaultWeight = averageDuration(durations);
+		for (int i = 0; i < tests.length; ++i) {
+			final Double duration = durations.get(tests[i]);
+			weights[i] = duration != null ? duration.doubleValue()
+					: defaultWeight;
+		}
+		final Integer[] order = new Integer[tests.length];
+		for (int i = 0; i < order.length; ++i) {
+			order[i] = Integer.valueOf(i);
+		}
+		// stable, so the tests of the same weight keep their order
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(weights[o2.intValue()], weights[o1
+						.intValue()]);
+			}
+		});
+		final double[] loads = new double[shardCount];
+		final int[] assignment = new int[tests.length];
+		for (int i = 0; i < order.length; ++i) {
+			int lightest = 0;
+			for (int j = 1; j < shardCount; ++j) {
+				if (loads[j] < loads[lightest]) {
+					lightest = j;
+				}
+			}
+			final int test = order[i].intValue();
+			assignment[test] = lightest;
+			loads[lightest] += weights[test];
+		}
+		final List<String[]> result = new ArrayList<String[]>(shardCount);
+		for (int shard = 0; shard < shardCount; ++shard) {
+			final List<String> shardTests = new ArrayList<String>();
+			for (int i = 0; i < tests.length; ++i) {
+				if (assignment[i] == shard) {
+					shardTests.add(tests[i]);
+				}
+			}
+			if (!shardTests.isEmpty()) {
+				result.add(shardTests.toArray(new String[shardTests.size()]));
+			}
+		}
+		return result.toArray(new String[result.size()][]);
+	}
+
+	private static double averageDuration(Map<String, Double> durations) {
+		if (durations.isEmpty()) {
+			return 1;
+		}
+		double total = 0;
+		for (Double duration : durations.values()) {
+			total += duration.doubleValue();
+		}
+		return total > 0 ? total / durations.size() : 1;
+	}
+
+	/**
+	 * Collects the durations of the tests from the latest completed run of the
+	 * launch configuration with the specified name. The run could be swapped
+	 * in for that, so it is done on the UI thread, where the runs are swapped
+	 * in and out by the view.
+	 */
+	public static Map<String, Double> collectDurations(
+			final String testRunName, final IShardableTestingEngine engine) {
+		final Map<String, Double> durations = new HashMap<String, Double>();
+		final Runnable collector = new Runnable() {
+			public void run() {
+				collectDurations(testRunName, engine, durations);
+			}
+		};
+		if (Display.getCurrent() != null) {
+			collector.run();
+		} else {
+			Display.getDefault().syncExec(collector);
+		}
+		return durations;
+	}
+
+	private static void collectDurations(String testRunName,
+			IShardableTestingEngine engine, Map<String, Double> durations) {
+		final TestRunSession session = findPreviousRun(testRunName);
+		if (session == null) {
+			return;
+		}
+		final boolean swappedOut = session.isSwappedOut();
+		try {
+			collectDurations(session.getTestRoot(), engine, durations);
+		} catch (RuntimeException e) {
+			DLTKTestingPlugin.log(e);
+		} finally {
+			if (swappedOut) {
+				session.swapOut();
+			}
+		}
+	}
+
+	private static TestRunSession findPreviousRun(String testRunName) {
+		// the sessions are ordered from the most recent one
+		for (TestRunSession session : DLTKTestingPlugin.getModel()
+				.getTestRunSessions()) {
+			if (testRunName.equals(session.getTestRunName())
+					&& !session.isRunning() && !session.isStopped()
+					&& session.getStartTime() != 0) {
+				return session;
+			}
+		}
+		return null;
+	}
+
+	private static void collectDurations(ITestElementContainer container,
+			IShardableTestingEngine engine, Map<String, Double> durations) {
+		final ITestElement[] children = container.getChildren();
+		for (int i = 0; i < children.length; ++i) {
+			final ITestElement child = children[i];
+			final String test = engine.getShardableTest(child);
+			if (test != null) {
+				final double elapsed = child.getElapsedTimeInSeconds();
+				if (!Double.isNaN(elapsed)) {
+					final Double previous = durations.get(test);
+					durations.put(test, Double.valueOf(previous != null ? previous
+							.doubleValue()
+							+ elapsed : elapsed));
+				}
+			} else if (child instanceof ITestElementContainer) {
+				collectDurations((ITestElementContainer) child, engine,
+						durations);
+			}
+		}
+	}
+}
@@ -47,6 +47,7 @@ import org.eclipse.dltk.internal.testing.model.TestCaseElement;
 import org.eclipse.dltk.internal.testing.model.TestElement;
 import org.eclipse.dltk.internal.testing.model.TestRunSession;
 import org.eclipse.dltk.testing.DLTKTestingConstants;
+import org.eclipse.dltk.testing.DLTKTestingCore;
 import org.eclipse.dltk.testing.DLTKTestingMessages;
 import org.eclipse.dltk.testing.DLTKTestingPlugin;
 import org.eclipse.dltk.testing.ITestRunnerUI;
@@ -126,6 +127,12 @@ public class TestRunnerViewPart extends ViewPart {
 
 	static final int REFRESH_INTERVAL = 200;
 
+	/**
+	 * The maximum interval of updating the view while tests are running, used
+	 * when updating the viewers takes long.
+	 */
+	static final int MAX_REFRESH_INTERVAL = 2000;
+
 	static final int LAYOUT_FLAT = 0;
 	static final int LAYOUT_HIERARCHICAL = 1;
 
@@ -721,10 +728,16 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 
 		public IStatus runInUIThread(IProgressMonitor monitor) {
+			long delay = REFRESH_INTERVAL;
 			if (!isDisposed()) {
+				final long start = System.currentTimeMillis();
 				processChangesInUI();
+				// keep the UI thread busy with updates 20% of time at most
+				final long elapsed = System.currentTimeMillis() - start;
+				delay = Math.min(MAX_REFRESH_INTERVAL, Math.max(
+						REFRESH_INTERVAL, elapsed * 4));
 			}
-			schedule(REFRESH_INTERVAL);
+			schedule(delay);
 			return Status.OK_STATUS;
 		}
 
@@ -1214,8 +1227,14 @@ public class TestRunnerViewPart extends ViewPart {
 		ILaunch launch = fTestRunSession.getLaunch();
 		if (launch == null)
 			return;
-		ILaunchConfiguration launchConfiguration = launch
-				.getLaunchConfiguration();
+		ILaunchConfiguration launchConfiguration;
+		try {
+			// the original configuration of the sharded test run
+			launchConfiguration = fTestRunSession.getRerunConfiguration();
+		} catch (CoreException e) {
+			DLTKTestingPlugin.log(e);
+			return;
+		}
 		if (launchConfiguration == null)
 			return;
 		try {
@@ -1267,6 +1286,9 @@ public class TestRunnerViewPart extends ViewPart {
 					.getLaunchConfiguration();
 			if (launchConfiguration != null) {
 				try {
+					// the original configuration of the sharded test run
+					launchConfiguration = fTestRunSession
+							.getRerunConfiguration();
 					String oldName = launchConfiguration.getName();
 					String oldFailuresFilename = launchConfiguration
 							.getAttribute(
@@ -1304,8 +1326,28 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 	}
 
-	private void relaunch(ILaunchConfiguration configuration, String launchMode) {
-		DebugUITools.launch(configuration, launchMode);
+	private void relaunch(final ILaunchConfiguration configuration,
+			final String launchMode) {
+		final int shardCount = fTestRunSession.getShardCount();
+		if (shardCount <= 1) {
+			DebugUITools.launch(configuration, launchMode);
+			return;
+		}
+		if (!DebugUITools.saveAndBuildBeforeLaunch())
+			return;
+		final Job job = new Job(
+				DLTKTestingMessages.DLTKTestingCore_launchingShards) {
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					DLTKTestingCore.launchSharded(configuration, launchMode,
+							shardCount, monitor);
+					return Status.OK_STATUS;
+				} catch (CoreException e) {
+					return e.getStatus();
+				}
+			}
+		};
+		job.schedule();
 	}
 
 	public void setAutoScroll(boolean scroll) {
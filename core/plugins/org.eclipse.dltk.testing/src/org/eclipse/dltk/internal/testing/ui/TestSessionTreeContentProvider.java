@@ -43,7 +43,7 @@ public class TestSessionTreeContentProvider implements ITreeContentProvider {
 
 	public boolean hasChildren(Object element) {
 		if (element instanceof TestContainerElement)
-			return ((TestContainerElement) element).getChildren().length != 0;
+			return ((TestContainerElement) element).hasChildren();
 		else
 			return false;
 	}
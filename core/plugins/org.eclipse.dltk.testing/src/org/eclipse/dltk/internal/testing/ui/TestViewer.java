@@ -12,13 +12,16 @@
 package org.eclipse.dltk.internal.testing.ui;
 
 import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import org.eclipse.debug.core.ILaunchManager;
 import org.eclipse.dltk.internal.testing.model.TestCaseElement;
@@ -145,11 +148,18 @@ public class TestViewer {
 	private boolean fTreeNeedsRefresh;
 	private boolean fTableNeedsRefresh;
 	private HashSet/* <TestElement> */fNeedUpdate;
+	private LinkedHashSet/* <TestElement> */fNeedAdd;
 	private TestCaseElement fAutoScrollTarget;
 
 	private LinkedList/* <TestSuiteElement> */fAutoClose;
 	private HashSet/* <TestSuite> */fAutoExpand;
 
+	/**
+	 * The number of the tests added since the last update above which the
+	 * viewers are refreshed at once instead of adding the tests one by one.
+	 */
+	private static final int MAX_INCREMENTAL_ADDS = 2000;
+
 	public TestViewer(Composite parent, Clipboard clipboard,
 			TestRunnerViewPart runner) {
 		fTestRunnerPart = runner;
@@ -459,16 +469,32 @@ public class TestViewer {
 
 		StructuredViewer viewer = getActiveViewer();
 		if (getActiveViewerNeedsRefresh()) {
-			clearUpdateAndExpansion();
+			synchronized (this) {
+				if (!fNeedAdd.isEmpty()) {
+					// the other viewer has missed the added tests
+					fTreeNeedsRefresh = true;
+					fTableNeedsRefresh = true;
+				}
+				clearUpdateAndExpansion();
+			}
 			setActiveViewerRefreshed();
 			viewer.setInput(testRoot);
 
 		} else {
+			Object[] toAdd;
 			Object[] toUpdate;
 			synchronized (this) {
+				toAdd = fNeedAdd.toArray();
+				fNeedAdd.clear();
 				toUpdate = fNeedUpdate.toArray();
 				fNeedUpdate.clear();
 			}
+			if (!fTreeNeedsRefresh && toAdd.length > 0) {
+				addElementsInTree(toAdd);
+			}
+			if (!fTableNeedsRefresh && toAdd.length > 0) {
+				addElementsInTable(toAdd);
+			}
 			if (!fTreeNeedsRefresh && toUpdate.length > 0) {
 				if (fTreeHasFilter)
 					for (int i = 0; i < toUpdate.length; i++)
@@ -498,6 +524,47 @@ public class TestViewer {
 		autoScrollInUI();
 	}
 
+	/**
+	 * Adds the new elements to their parents, the elements of the same parent
+	 * are added with the single call. Parents are added before their children
+	 * since the elements are reported in that order. The elements registered
+	 * while the input was being reset are already shown and are skipped.
+	 */
+	private void addElementsInTree(Object[] elements) {
+		Map/* <TestContainerElement, List<TestElement>> */byParent = new LinkedHashMap();
+		for (int i = 0; i < elements.length; i++) {
+			TestElement element = (TestElement) elements[i];
+			if (fTreeViewer.testFindItem(element) != null) {
+				continue;
+			}
+			TestContainerElement parent = element.getParent();
+			List children = (List) byParent.get(parent);
+			if (children == null) {
+				children = new ArrayList();
+				byParent.put(parent, children);
+			}
+			children.add(element);
+		}
+		for (Iterator i = byParent.entrySet().iterator(); i.hasNext();) {
+			Map.Entry entry = (Map.Entry) i.next();
+			fTreeViewer.add(entry.getKey(), ((List) entry.getValue())
+					.toArray());
+		}
+	}
+
+	private void addElementsInTable(Object[] elements) {
+		List testCases = new ArrayList();
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] instanceof TestCaseElement
+					&& fTableViewer.testFindItem(elements[i]) == null) {
+				testCases.add(elements[i]);
+			}
+		}
+		if (!testCases.isEmpty()) {
+			fTableViewer.add(testCases.toArray());
+		}
+	}
+
 	private void updateElementInTree(final TestElement testElement) {
 		if (isShown(testElement)) {
 			updateShownElementInTree(testElement);
@@ -700,14 +767,23 @@ public class TestViewer {
 
 	private void clearUpdateAndExpansion() {
 		fNeedUpdate = new LinkedHashSet();
+		fNeedAdd = new LinkedHashSet();
 		fAutoClose = new LinkedList();
 		fAutoExpand = new HashSet();
 	}
 
 	public synchronized void registerTestAdded(TestElement testElement) {
-		// TODO: performance: would only need to refresh parent of added element
-		fTreeNeedsRefresh = true;
-		fTableNeedsRefresh = true;
+		if (fTreeNeedsRefresh && fTableNeedsRefresh) {
+			// both viewers are going to be refreshed anyway
+			return;
+		}
+		fNeedAdd.add(testElement);
+		if (fNeedAdd.size() > MAX_INCREMENTAL_ADDS) {
+			// too many tests at once, refreshing is faster
+			fTreeNeedsRefresh = true;
+			fTableNeedsRefresh = true;
+			fNeedAdd.clear();
+		}
 	}
 
 	public synchronized void registerViewerUpdate(final TestElement testElement) {
@@ -93,4 +93,29 @@ public class DLTKTestingConstants {
 	public static final String LAUNCH_ATTR_KEY = DLTKTestingPlugin.PLUGIN_ID
 			+ ".LAUNCH_KEY"; //$NON-NLS-1$
 
+	/**
+	 * The identifier of the sharded test run the launch configuration belongs
+	 * to. The launches of the same run are shown as the single test session.
+	 * 
+	 * @since 5.1
+	 */
+	public static final String ATTR_SHARD_GROUP = DLTKTestingPlugin.PLUGIN_ID
+			+ ".SHARD_GROUP"; //$NON-NLS-1$
+
+	/**
+	 * The index of the shard (starting from 0) in the sharded test run.
+	 * 
+	 * @since 5.1
+	 */
+	public static final String ATTR_SHARD_INDEX = DLTKTestingPlugin.PLUGIN_ID
+			+ ".SHARD_INDEX"; //$NON-NLS-1$
+
+	/**
+	 * The number of the shards in the sharded test run.
+	 * 
+	 * @since 5.1
+	 */
+	public static final String ATTR_SHARD_COUNT = DLTKTestingPlugin.PLUGIN_ID
+			+ ".SHARD_COUNT"; //$NON-NLS-1$
+
 }
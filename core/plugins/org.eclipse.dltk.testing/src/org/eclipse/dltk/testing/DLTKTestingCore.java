@@ -11,7 +11,17 @@
 
 package org.eclipse.dltk.testing;
 
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.dltk.internal.testing.model.TestShardPlanner;
 import org.eclipse.dltk.internal.testing.util.TestingConsoleListener;
 
 /**
@@ -60,4 +70,101 @@ public class DLTKTestingCore {
 		// DebugPlugin.getDefault().getLaunchManager().addLaunchListener(new
 		// TestingOutputListener(launch, processor));
 	}
+
+	/**
+	 * Launches the tests of the configuration split between the several
+	 * interpreter processes running in parallel. The results are shown as the
+	 * single test run. The tests are distributed by the durations of the
+	 * previous run of the same configuration.
+	 * 
+	 * <p>
+	 * If the testing engine of the configuration does not implement
+	 * {@link IShardableTestingEngine} the configuration is launched as usual.
+	 * </p>
+	 * 
+	 * @param configuration
+	 *            the launch configuration
+	 * @param mode
+	 *            the launch mode
+	 * @param shardCount
+	 *            the maximum number of the processes
+	 * @param monitor
+	 *            the progress monitor or <code>null</code>
+	 * @return the launches started
+	 * @throws CoreException
+	 *             if some shard fails to launch, the already started shards
+	 *             are terminated then
+	 * @since 5.1
+	 */
+	public static ILaunch[] launchSharded(ILaunchConfiguration configuration,
+			String mode, int shardCount, IProgressMonitor monitor)
+			throws CoreException {
+		if (monitor == null) {
+			monitor = new NullProgressMonitor();
+		}
+		final IShardableTestingEngine engine = TestShardPlanner
+				.getShardableEngine(configuration);
+		final String[] tests = shardCount > 1 && engine != null ? engine
+				.getShardableTests(configuration) : null;
+		if (tests == null || tests.length < 2) {
+			return new ILaunch[] { configuration.launch(mode, monitor) };
+		}
+		final Map<String, Double> durations = TestShardPlanner
+				.collectDurations(configuration.getName(), engine);
+		final String[][] shards = TestShardPlanner.plan(tests, shardCount,
+				durations);
+		final String group = configuration.getName() + "#" //$NON-NLS-1$
+				+ System.currentTimeMillis();
+		// the whole test run is relaunched from the original configuration
+		DLTKTestingPlugin.getTestingModel().addShardGroup(group, configuration);
+		final ILaunch[] launches = new ILaunch[shards.length];
+		monitor.beginTask(DLTKTestingMessages.DLTKTestingCore_launchingShards,
+				shards.length);
+		boolean launched = false;
+		try {
+			for (int i = 0; i < shards.length; ++i) {
+				final ILaunchConfigurationWorkingCopy copy = configuration
+						.copy(configuration.getName());
+				copy.setAttribute(DLTKTestingConstants.ATTR_SHARD_GROUP, group);
+				copy.setAttribute(DLTKTestingConstants.ATTR_SHARD_INDEX, i);
+				copy.setAttribute(DLTKTestingConstants.ATTR_SHARD_COUNT,
+						shards.length);
+				engine.configureShard(copy, shards[i]);
+				launches[i] = copy.launch(mode, new SubProgressMonitor(
+						monitor, 1));
+			}
+			launched = true;
+		} finally {
+			if (!launched) {
+				abortShards(group, launches);
+			}
+			monitor.done();
+		}
+		return launches;
+	}
+
+	/**
+	 * Terminates the shards started before the launch failed, the test run
+	 * does not wait for the shards which were not launched.
+	 */
+	private static void abortShards(String group, ILaunch[] launches) {
+		int launchedCount = 0;
+		for (int i = 0; i < launches.length; ++i) {
+			if (launches[i] != null) {
+				++launchedCount;
+			}
+		}
+		DLTKTestingPlugin.getTestingModel().abortShardGroup(group,
+				launchedCount);
+		for (int i = 0; i < launches.length; ++i) {
+			final ILaunch launch = launches[i];
+			if (launch != null && launch.canTerminate()) {
+				try {
+					launch.terminate();
+				} catch (DebugException e) {
+					DLTKTestingPlugin.log(e);
+				}
+			}
+		}
+	}
 }
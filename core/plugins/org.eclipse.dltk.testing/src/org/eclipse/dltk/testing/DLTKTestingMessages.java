@@ -334,4 +334,6 @@ public final class DLTKTestingMessages extends NLS {
 	public static String TestRunnerViewPart_toggle_sort_ascending;
 	public static String TestRunnerViewPart_toggle_sort_no_sort;
 	public static String TestRunnerViewPart_toggle_sort_descending;
+
+	public static String DLTKTestingCore_launchingShards;
 }
@@ -214,6 +214,10 @@ public class DLTKTestingPlugin extends AbstractUIPlugin {
 		return getDefault().fTestingModel;
 	}
 
+	static DLTKTestingModel getTestingModel() {
+		return getDefault().fTestingModel;
+	}
+
 	/**
 	 * Returns the bundle for a given bundle name,
 	 * regardless whether the bundle is resolved or not.
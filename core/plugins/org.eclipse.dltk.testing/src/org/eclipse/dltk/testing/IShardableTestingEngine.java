@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.testing;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.dltk.testing.model.ITestElement;
+
+/**
+ * Optional interface to be implemented by {@link ITestingEngine} (or provided
+ * as its adapter) if the tests selected by the launch configuration could be
+ * split between the several interpreter processes running in parallel.
+ *
+ * <p>
+ * The engine defines the units of distribution (e.g. test files or test
+ * classes) and restricts the launch to the subset of them. The results of all
+ * the launches are shown as the single test run.
+ * </p>
+ *
+ * @see DLTKTestingCore#launchSharded(ILaunchConfiguration, String, int,
+ *      org.eclipse.core.runtime.IProgressMonitor)
+ * @since 5.1
+ */
+public interface IShardableTestingEngine {
+
+	/**
+	 * Returns the units of distribution selected by the specified launch
+	 * configuration.
+	 */
+	String[] getShardableTests(ILaunchConfiguration configuration)
+			throws CoreException;
+
+	/**
+	 * Restricts the configuration to run the specified units only.
+	 */
+	void configureShard(ILaunchConfigurationWorkingCopy configuration,
+			String[] tests) throws CoreException;
+
+	/**
+	 * Returns the unit of distribution the element of the previous test run
+	 * corresponds to or <code>null</code> if the element is not the unit (its
+	 * children are checked then). Used to balance the shards by the durations
+	 * of the previous runs and to rerun the unit containing the element of the
+	 * sharded test run. The ids of the elements of the sharded test runs are
+	 * prefixed with the shard index, so the units should be recognized by the
+	 * names.
+	 */
+	String getShardableTest(ITestElement element);
+
+}
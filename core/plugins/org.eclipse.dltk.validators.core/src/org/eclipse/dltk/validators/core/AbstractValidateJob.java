@@ -23,13 +23,14 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.IScriptProject;
 import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.validators.internal.core.SynchronizedValidatorOutput;
+import org.eclipse.dltk.validators.internal.core.ValidationEngine;
 import org.eclipse.dltk.validators.internal.core.ValidatorUtils;
 
 public abstract class AbstractValidateJob extends Job {
@@ -63,6 +64,8 @@ public abstract class AbstractValidateJob extends Job {
 		}
 	}
 
+	private static final int PROJECT_WORK = 100;
+
 	private final Map byProject = new HashMap();
 
 	public void run(Object[] selection) {
@@ -121,19 +124,31 @@ public abstract class AbstractValidateJob extends Job {
 		IValidatorOutput output = null;
 		try {
 			output = createOutput();
+			// the projects are validated in parallel
+			final IValidatorOutput sharedOutput = SynchronizedValidatorOutput
+					.wrap(output);
+			monitor.beginTask(getName(), byProject.size() * PROJECT_WORK);
+			final ValidationEngine engine = new ValidationEngine(monitor, true);
 			for (Iterator i = byProject.entrySet().iterator(); i.hasNext();) {
 				Map.Entry entry = (Map.Entry) i.next();
 				final IProject project = (IProject) entry.getKey();
 				final ProjectInfo info = (ProjectInfo) entry.getValue();
-				invokeValidationFor(output, DLTKCore.create(project), info
-						.elementsToArray(), info.resourcesToArray(), monitor);
+				engine.add(new ValidationEngine.ITask() {
+					public void run(IProgressMonitor taskMonitor) {
+						invokeValidationFor(sharedOutput, DLTKCore
+								.create(project), info.elementsToArray(), info
+								.resourcesToArray(), taskMonitor);
+						taskMonitor.done();
+					}
+				}, PROJECT_WORK);
 			}
+			return engine.run();
 		} finally {
 			if (output != null) {
 				output.close();
 			}
+			monitor.done();
 		}
-		return Status.OK_STATUS;
 	}
 
 	protected IValidatorOutput createOutput() {
@@ -66,6 +66,18 @@ public abstract class AbstractValidator implements IValidator, Cloneable {
 		element.setAttribute(ATTR_ACTIVE, Boolean.toString(isAutomatic()));
 	}
 
+	/**
+	 * Stores the configuration the validation results depend on, the stored
+	 * results are discarded when it changes. Default implementation calls
+	 * {@link #storeTo(Document, Element)}. Sub-classes should override this
+	 * method to add the global settings they use.
+	 * 
+	 * @since 5.1
+	 */
+	public void storeConfigurationTo(Document doc, Element element) {
+		storeTo(doc, element);
+	}
+
 	public IValidatorType getValidatorType() {
 		return this.type;
 	}
@@ -1,11 +1,20 @@
 package org.eclipse.dltk.validators.core;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 
+import org.eclipse.dltk.validators.internal.core.ValidationState;
 import org.eclipse.dltk.validators.internal.core.ValidatorsCore;
 
 abstract class AbstractValidatorWorker {
@@ -100,8 +109,48 @@ abstract class AbstractValidatorWorker {
 			IValidatorReporter reporter, IProgressMonitor monitor)
 			throws CoreException;
 
+	/**
+	 * Validates the objects, the objects failed to validate are added to the
+	 * specified set.
+	 */
+	abstract void runBatch(List<?> objects, IValidatorOutput console,
+			IValidatorReporter reporter, Set<Object> failed,
+			IProgressMonitor monitor);
+
+	/**
+	 * Validates the objects one by one, the progress monitor is advanced by one
+	 * for each object. The objects failed to validate are added to the
+	 * specified set.
+	 */
+	final <T> void runEach(List<T> objects, IValidatorOutput console,
+			IValidatorReporter reporter, Set<? super T> failed,
+			IProgressMonitor monitor) {
+		for (int i = 0; i < objects.size(); ++i) {
+			if (monitor.isCanceled()) {
+				return;
+			}
+			try {
+				runValidator(objects.get(i), console, reporter, monitor);
+			} catch (CoreException e) {
+				failed.add(objects.get(i));
+				ValidatorsCore.log(e.getStatus());
+			}
+			monitor.worked(1);
+		}
+	}
+
 	final IStatus doValidate(Object[] objects, IValidatorOutput console,
 			IProgressMonitor monitor) {
+		return doValidate(objects, console, null, monitor);
+	}
+
+	/**
+	 * Validates the objects. If the state is specified the objects not changed
+	 * since their last successful validation are skipped and keep their
+	 * problem markers.
+	 */
+	final IStatus doValidate(Object[] objects, IValidatorOutput console,
+			ValidationState state, IProgressMonitor monitor) {
 		if (!isValidatorConfigured()) {
 			// don't bother continuing if we're not properly configured
 			return Status.CANCEL_STATUS;
@@ -111,23 +160,50 @@ abstract class AbstractValidatorWorker {
 		// so it begins... ;)
 		monitor.beginTask(getTaskName(), calcTotalWork(objects));
 
+		final Map<Object, ValidationState.Snapshot> snapshots = new HashMap<Object, ValidationState.Snapshot>();
+		final List<Object> valid = new ArrayList<Object>(objects.length);
+		final Set<Object> failed = Collections
+				.synchronizedSet(new HashSet<Object>());
 		try {
 			for (int i = 0; i < objects.length; i++) {
 				if (monitor.isCanceled()) {
 					return Status.CANCEL_STATUS;
 				}
 
-				if (getResource(objects[i]) == null) {
+				final IResource resource = getResource(objects[i]);
+				if (resource == null) {
 					// XXX: make this an error level instead?
 					IStatus status = new Status(IStatus.WARNING, getPluginId(),
 							getNullResourceMessage());
 					ValidatorsCore.log(status);
-				} else {
-					validate(objects[i], reporter, console, monitor);
+				} else if (isValidResource(objects[i])) {
+					final ValidationState.Snapshot snapshot = state != null ? state
+							.checkChanged(resource) : null;
+					if (state == null || snapshot != null) {
+						if (snapshot != null) {
+							snapshots.put(objects[i], snapshot);
+						}
+						clean(resource);
+						valid.add(objects[i]);
+						continue;
+					}
 				}
 
 				monitor.worked(1);
 			}
+			if (!valid.isEmpty()) {
+				runBatch(valid, console, reporter, failed, monitor);
+			}
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			if (state != null) {
+				// the state of the failed objects is not stored
+				synchronized (failed) {
+					snapshots.keySet().removeAll(failed);
+				}
+				storeState(state, snapshots);
+			}
 		} finally {
 			monitor.done();
 		}
@@ -135,19 +211,11 @@ abstract class AbstractValidatorWorker {
 		return Status.OK_STATUS;
 	}
 
-	private void validate(Object object, IValidatorReporter reporter,
-			IValidatorOutput console, IProgressMonitor monitor) {
-		if (!isValidResource(object)) {
-			return;
-		}
-
-		IResource resource = getResource(object);
-		clean(resource);
-
-		try {
-			runValidator(object, console, reporter, monitor);
-		} catch (CoreException e) {
-			ValidatorsCore.log(e.getStatus());
+	private void storeState(ValidationState state,
+			Map<Object, ValidationState.Snapshot> snapshots) {
+		for (Map.Entry<Object, ValidationState.Snapshot> entry : snapshots
+				.entrySet()) {
+			state.store(getResource(entry.getKey()), entry.getValue());
 		}
 	}
 }
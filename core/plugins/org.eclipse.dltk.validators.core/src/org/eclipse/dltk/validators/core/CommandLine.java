@@ -56,6 +56,27 @@ public class CommandLine {
 		}
 	}
 
+	/**
+	 * Replaces each argument containing the specified sequence with the
+	 * arguments for all the values, e.g. <code>-f%f</code> with
+	 * <code>-fa.tcl -fb.tcl</code>.
+	 * 
+	 * @since 5.1
+	 */
+	public void replaceSequence(char pattern, String[] values) {
+		for (int i = 0; i < args.size(); ++i) {
+			final String arg = args.get(i);
+			if (arg.indexOf("%" + pattern) < 0) { //$NON-NLS-1$
+				continue;
+			}
+			args.remove(i);
+			for (int j = 0; j < values.length; ++j) {
+				args.add(i + j, replace(arg, pattern, values[j]));
+			}
+			i += values.length - 1;
+		}
+	}
+
 	public void clear() {
 		args.clear();
 	}
@@ -1,5 +1,8 @@
 package org.eclipse.dltk.validators.core;
 
+import java.util.List;
+import java.util.Set;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -35,6 +38,28 @@ public abstract class ResourceValidatorWorker extends AbstractValidatorWorker
 			IValidatorOutput console, IValidatorReporter reporter,
 			IProgressMonitor monitor) throws CoreException;
 
+	/**
+	 * Executes the validator against all the valid resources, the progress
+	 * monitor should be advanced by one for each resource.
+	 * 
+	 * <p>
+	 * Default implementation calls
+	 * {@link #runValidator(IResource, IValidatorOutput, IValidatorReporter, IProgressMonitor)}
+	 * for each resource. Sub-classes may override this method if the resources
+	 * could be validated together more efficiently.
+	 * </p>
+	 * 
+	 * @param failed
+	 *            the set to add the resources failed to validate to, so they are
+	 *            validated again next time
+	 * @since 5.1
+	 */
+	protected void runValidator(List<IResource> resources,
+			IValidatorOutput console, IValidatorReporter reporter,
+			Set<? super IResource> failed, IProgressMonitor monitor) {
+		runEach(resources, console, reporter, failed, monitor);
+	}
+
 	@Override
 	protected final IResource getResource(Object object) {
 		return (IResource) object;
@@ -51,4 +76,13 @@ public abstract class ResourceValidatorWorker extends AbstractValidatorWorker
 			throws CoreException {
 		runValidator((IResource) object, console, reporter, monitor);
 	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	final void runBatch(List<?> objects, IValidatorOutput console,
+			IValidatorReporter reporter, Set<Object> failed,
+			IProgressMonitor monitor) {
+		runValidator((List<IResource>) objects, console, reporter, failed,
+				monitor);
+	}
 }
@@ -2,6 +2,7 @@ package org.eclipse.dltk.validators.core;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
@@ -50,6 +51,28 @@ public abstract class SourceModuleValidatorWorker extends
 			IValidatorOutput console, IValidatorReporter reporter,
 			IProgressMonitor monitor) throws CoreException;
 
+	/**
+	 * Executes the validator against all the valid source modules, the progress
+	 * monitor should be advanced by one for each module.
+	 * 
+	 * <p>
+	 * Default implementation calls
+	 * {@link #runValidator(ISourceModule, IValidatorOutput, IValidatorReporter, IProgressMonitor)}
+	 * for each module. Sub-classes may override this method if the modules
+	 * could be validated together more efficiently.
+	 * </p>
+	 * 
+	 * @param failed
+	 *            the set to add the modules failed to validate to, so they are
+	 *            validated again next time
+	 * @since 5.1
+	 */
+	protected void runValidator(List<ISourceModule> modules,
+			IValidatorOutput console, IValidatorReporter reporter,
+			Set<? super ISourceModule> failed, IProgressMonitor monitor) {
+		runEach(modules, console, reporter, failed, monitor);
+	}
+
 	@Override
 	protected final IResource getResource(Object object) {
 		return ((ISourceModule) object).getResource();
@@ -66,4 +89,13 @@ public abstract class SourceModuleValidatorWorker extends
 			throws CoreException {
 		runValidator((ISourceModule) object, console, reporter, monitor);
 	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	final void runBatch(List<?> objects, IValidatorOutput console,
+			IValidatorReporter reporter, Set<Object> failed,
+			IProgressMonitor monitor) {
+		runValidator((List<ISourceModule>) objects, console, reporter,
+				failed, monitor);
+	}
 }
@@ -12,6 +12,8 @@ package org.eclipse.dltk.validators.core;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -25,13 +27,15 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.Preferences;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.dltk.core.DLTKLanguageManager;
 import org.eclipse.dltk.core.IDLTKLanguageToolkit;
 import org.eclipse.dltk.core.IModelElement;
 import org.eclipse.dltk.core.IScriptProject;
 import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.validators.internal.core.SynchronizedValidatorOutput;
+import org.eclipse.dltk.validators.internal.core.ValidationEngine;
+import org.eclipse.dltk.validators.internal.core.ValidationState;
 import org.eclipse.dltk.validators.internal.core.ValidatorDefinitionsContainer;
 import org.eclipse.dltk.validators.internal.core.ValidatorManager;
 import org.eclipse.dltk.validators.internal.core.ValidatorsCore;
@@ -51,6 +55,14 @@ public final class ValidatorRuntime {
 	// public static final String MARKER_VALIDATOR = ValidatorsCore.PLUGIN_ID
 	//			+ ".marker_validator_id"; //$NON-NLS-1$
 
+	/**
+	 * The minimal number of the objects validated by the single worker when
+	 * they are split between the workers running in parallel
+	 */
+	private static final int MIN_CHUNK_SIZE = 16;
+
+	private static final int VALIDATOR_WORK = 100;
+
 	// lock for interpreter initialization
 	private static final Object fgValidatorLock = new Object();
 	private static boolean fgInitializingValidators = false;
@@ -415,11 +427,22 @@ public final class ValidatorRuntime {
 	public static IStatus executeSourceModuleValidators(IScriptProject project,
 			List sourceModules, IValidatorOutput output,
 			IValidatorPredicate predicate, IProgressMonitor monitor) {
+		return executeSourceModuleValidators(project, sourceModules, output,
+				predicate, false, monitor);
+	}
+
+	/**
+	 * @since 5.1
+	 */
+	public static IStatus executeSourceModuleValidators(IScriptProject project,
+			List sourceModules, IValidatorOutput output,
+			IValidatorPredicate predicate, boolean parallel,
+			IProgressMonitor monitor) {
 		final IValidator[] validators = getProjectValidators(project,
 				ISourceModuleValidator.class, predicate);
 		if (validators.length != 0) {
 			return executeSourceModuleValidators(project, sourceModules,
-					output, validators, monitor);
+					output, validators, parallel, monitor);
 		}
 		return Status.OK_STATUS;
 	}
@@ -427,8 +450,30 @@ public final class ValidatorRuntime {
 	public static IStatus executeSourceModuleValidators(IScriptProject project,
 			List sourceModules, IValidatorOutput output,
 			final IValidator[] validators, IProgressMonitor monitor) {
+		return executeSourceModuleValidators(project, sourceModules, output,
+				validators, false, monitor);
+	}
+
+	/**
+	 * Executes the validators against the source modules. The modules not
+	 * changed since their last successful validation are skipped.
+	 * 
+	 * @param parallel
+	 *            if the validators should run in parallel, the modules could
+	 *            be split between several workers of the same validator too.
+	 *            Should be <code>false</code> during the build.
+	 * @since 5.1
+	 */
+	public static IStatus executeSourceModuleValidators(
+			final IScriptProject project, List sourceModules,
+			IValidatorOutput output, final IValidator[] validators,
+			boolean parallel,
+			IProgressMonitor monitor) {
 		monitor.beginTask(Messages.ValidatorRuntime_runningValidators,
-				validators.length * 100);
+				validators.length * VALIDATOR_WORK);
+		final IValidatorOutput sharedOutput = SynchronizedValidatorOutput
+				.wrap(output);
+		final ValidationEngine engine = new ValidationEngine(monitor, parallel);
 		for (int i = 0; i < validators.length; ++i) {
 			if (monitor.isCanceled()) {
 				return Status.CANCEL_STATUS;
@@ -436,22 +481,87 @@ public final class ValidatorRuntime {
 			final IValidator validator = validators[i];
 			final ISourceModuleValidator mValidator = (ISourceModuleValidator) validator
 					.getValidator(project, ISourceModuleValidator.class);
-			if (mValidator != null) {
-				final ISourceModule[] mArray = filterModulesForValidator(
-						sourceModules, validator, monitor);
-				if (monitor.isCanceled()) {
-					return Status.CANCEL_STATUS;
-				}
-				final IProgressMonitor submonitor = new SubProgressMonitor(
-						monitor, 100);
-				if (mArray.length != 0) {
-					mValidator.validate(mArray, output, submonitor);
-				}
-				submonitor.done();
+			final ISourceModule[] mArray = mValidator != null ? filterModulesForValidator(
+					sourceModules, validator, monitor)
+					: new ISourceModule[0];
+			if (mArray.length == 0) {
+				monitor.worked(VALIDATOR_WORK);
+				continue;
+			}
+			final String configurationHash = ValidationState
+					.computeConfigurationHash(validator);
+			final List<List<ISourceModule>> chunks = split(Arrays
+					.asList(mArray), validator, project,
+					ISourceModuleValidator.class, mValidator);
+			int remaining = VALIDATOR_WORK;
+			for (int j = 0; j < chunks.size(); ++j) {
+				final ISourceModule[] chunk = chunks.get(j).toArray(
+						new ISourceModule[chunks.get(j).size()]);
+				final ISourceModuleValidator worker = j == 0 ? mValidator
+						: (ISourceModuleValidator) validator.getValidator(
+								project, ISourceModuleValidator.class);
+				final int work = j == chunks.size() - 1 ? remaining
+						: VALIDATOR_WORK * chunk.length / mArray.length;
+				remaining -= work;
+				engine.add(new ValidationEngine.ITask() {
+					public void run(IProgressMonitor taskMonitor) {
+						final ValidationState state = createState(worker,
+								validator, project, configurationHash);
+						if (state != null) {
+							((AbstractValidatorWorker) worker).doValidate(
+									chunk, sharedOutput, state, taskMonitor);
+						} else {
+							worker.validate(chunk, sharedOutput, taskMonitor);
+						}
+						taskMonitor.done();
+					}
+				}, work);
 			}
 		}
+		final IStatus status = engine.run();
 		monitor.done();
-		return Status.OK_STATUS;
+		return status;
+	}
+
+	/**
+	 * Splits the objects between the workers running in parallel. The objects
+	 * are split only if the validator creates the new worker each time, so the
+	 * workers do not share their state.
+	 */
+	private static <T> List<List<T>> split(List<T> objects,
+			IValidator validator, IScriptProject project, Class validatorType,
+			Object worker) {
+		final int count = Math.min(Runtime.getRuntime().availableProcessors(),
+				objects.size() / MIN_CHUNK_SIZE);
+		if (count <= 1
+				|| validator.getValidator(project, validatorType) == worker) {
+			return Collections.singletonList(objects);
+		}
+		final List<List<T>> chunks = new ArrayList<List<T>>(count);
+		for (int i = 0; i < count; ++i) {
+			chunks.add(objects.subList(objects.size() * i / count, objects
+					.size()
+					* (i + 1) / count));
+		}
+		return chunks;
+	}
+
+	/**
+	 * Returns the state of the previous validations by the worker or
+	 * <code>null</code> if it does not support the incremental validation.
+	 * The state is passed to the worker for the single validation, since the
+	 * same worker could be used by several validations at once.
+	 */
+	private static ValidationState createState(Object worker,
+			IValidator validator, IScriptProject project,
+			String configurationHash) {
+		if (configurationHash != null
+				&& worker instanceof AbstractValidatorWorker) {
+			return new ValidationState(validator.getID(), project
+					.getProject(), configurationHash,
+					((AbstractValidatorWorker) worker).getMarkerId());
+		}
+		return null;
 	}
 
 	public static IStatus executeAutomaticResourceValidators(
@@ -464,13 +574,35 @@ public final class ValidatorRuntime {
 	public static IStatus executeResourceValidators(IScriptProject project,
 			List resources, IValidatorOutput output,
 			IValidatorPredicate predicate, IProgressMonitor monitor) {
+		return executeResourceValidators(project, resources, output,
+				predicate, false, monitor);
+	}
+
+	/**
+	 * Executes the validators against the resources. The resources not changed
+	 * since their last successful validation are skipped.
+	 * 
+	 * @param parallel
+	 *            if the validators should run in parallel, the resources could
+	 *            be split between several workers of the same validator too.
+	 *            Should be <code>false</code> during the build.
+	 * @since 5.1
+	 */
+	public static IStatus executeResourceValidators(
+			final IScriptProject project, List resources,
+			IValidatorOutput output, IValidatorPredicate predicate,
+			boolean parallel,
+			IProgressMonitor monitor) {
 		final IValidator[] validators = getProjectValidators(project,
 				IResourceValidator.class, predicate);
 		if (validators.length != 0) {
-			final IResource[] resArray = (IResource[]) resources
-					.toArray(new IResource[resources.size()]);
+			final List<IResource> resList = new ArrayList<IResource>(resources);
+			final IValidatorOutput sharedOutput = SynchronizedValidatorOutput
+					.wrap(output);
+			final ValidationEngine engine = new ValidationEngine(monitor,
+					parallel);
 			monitor.beginTask(Messages.ValidatorRuntime_runningValidators,
-					validators.length * 100);
+					validators.length * VALIDATOR_WORK);
 			for (int i = 0; i < validators.length; ++i) {
 				if (monitor.isCanceled()) {
 					return Status.CANCEL_STATUS;
@@ -478,14 +610,43 @@ public final class ValidatorRuntime {
 				final IValidator validator = validators[i];
 				final IResourceValidator resourceValidator = (IResourceValidator) validator
 						.getValidator(project, IResourceValidator.class);
-				if (resourceValidator != null) {
-					final IProgressMonitor submonitor = new SubProgressMonitor(
-							monitor, 100);
-					resourceValidator.validate(resArray, output, submonitor);
-					submonitor.done();
+				if (resourceValidator == null || resList.isEmpty()) {
+					monitor.worked(VALIDATOR_WORK);
+					continue;
+				}
+				final String configurationHash = ValidationState
+						.computeConfigurationHash(validator);
+				final List<List<IResource>> chunks = split(resList, validator,
+						project, IResourceValidator.class, resourceValidator);
+				int remaining = VALIDATOR_WORK;
+				for (int j = 0; j < chunks.size(); ++j) {
+					final IResource[] chunk = chunks.get(j).toArray(
+							new IResource[chunks.get(j).size()]);
+					final IResourceValidator worker = j == 0 ? resourceValidator
+							: (IResourceValidator) validator.getValidator(
+									project, IResourceValidator.class);
+					final int work = j == chunks.size() - 1 ? remaining
+							: VALIDATOR_WORK * chunk.length / resList.size();
+					remaining -= work;
+					engine.add(new ValidationEngine.ITask() {
+						public void run(IProgressMonitor taskMonitor) {
+							final ValidationState state = createState(worker,
+									validator, project, configurationHash);
+							if (state != null) {
+								((AbstractValidatorWorker) worker).doValidate(
+										chunk, sharedOutput, state, taskMonitor);
+							} else {
+								worker.validate(chunk, sharedOutput,
+										taskMonitor);
+							}
+							taskMonitor.done();
+						}
+					}, work);
 				}
 			}
+			final IStatus status = engine.run();
 			monitor.done();
+			return status;
 		}
 		return Status.OK_STATUS;
 	}
@@ -509,11 +670,28 @@ public final class ValidatorRuntime {
 						.getValidator(project, ISourceModuleValidator.class);
 				if (smValidator != null) {
 					smValidator.clean(modules);
+					if (smValidator instanceof AbstractValidatorWorker) {
+						// the incremental state is reset too
+						for (int k = 0; k < modules.length; ++k) {
+							final IResource resource = modules[k]
+									.getResource();
+							if (resource != null) {
+								ValidationState.reset(validator.getID(),
+										resource);
+							}
+						}
+					}
 				}
 				final IResourceValidator rValidator = (IResourceValidator) validator
 						.getValidator(project, IResourceValidator.class);
 				if (rValidator != null) {
 					rValidator.clean(resources);
+					if (rValidator instanceof AbstractValidatorWorker) {
+						for (int k = 0; k < resources.length; ++k) {
+							ValidationState.reset(validator.getID(),
+									resources[k]);
+						}
+					}
 				}
 			}
 		}
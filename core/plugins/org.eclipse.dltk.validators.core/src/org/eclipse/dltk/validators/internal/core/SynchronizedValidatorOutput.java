@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.validators.internal.core;
+
+import java.io.OutputStream;
+
+import org.eclipse.dltk.validators.core.IValidatorOutput;
+
+/**
+ * The {@link IValidatorOutput} shared by the validators running in parallel,
+ * so the lines printed by them are not mixed.
+ */
+public class SynchronizedValidatorOutput implements IValidatorOutput {
+
+	private final IValidatorOutput output;
+
+	public SynchronizedValidatorOutput(IValidatorOutput output) {
+		this.output = output;
+	}
+
+	public static IValidatorOutput wrap(IValidatorOutput output) {
+		if (output instanceof SynchronizedValidatorOutput) {
+			return output;
+		}
+		return new SynchronizedValidatorOutput(output);
+	}
+
+	public synchronized boolean checkError() {
+		return output.checkError();
+	}
+
+	public synchronized void close() {
+		output.close();
+	}
+
+	public synchronized Object getAttribute(String name) {
+		return output.getAttribute(name);
+	}
+
+	public OutputStream getStream() {
+		return output.getStream();
+	}
+
+	public synchronized boolean isEnabled() {
+		return output.isEnabled();
+	}
+
+	public synchronized void println(String x) {
+		output.println(x);
+	}
+
+	public synchronized void setAttribute(String name, Object value) {
+		output.setAttribute(name, value);
+	}
+
+}
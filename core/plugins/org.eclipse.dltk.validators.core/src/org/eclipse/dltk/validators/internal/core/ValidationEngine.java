@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.validators.internal.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+/**
+ * Executes the validation tasks in parallel. The tasks report the progress to
+ * their own monitors, which is forwarded to the monitor of the engine by the
+ * calling thread, so the monitor of the engine is accessed by the single
+ * thread only.
+ *
+ * <p>
+ * All the engines share the single executor with the bounded number of the
+ * threads, so the nested validations (e.g. the validators of the projects
+ * validated in parallel) do not multiply the threads. The calling thread
+ * executes the tasks not started yet itself instead of waiting for them, so
+ * the nested validations could not deadlock when all the threads are busy.
+ * </p>
+ */
+public class ValidationEngine {
+
+	private static ThreadPoolExecutor executor = null;
+
+	/**
+	 * Returns the executor shared by all the validations. The tasks submitted
+	 * to it should be executed by the submitting thread if they are not
+	 * started yet before waiting for them, e.g. by calling
+	 * {@link FutureTask#run()}, since all the threads could be waiting too.
+	 */
+	public static synchronized Executor getExecutor() {
+		if (executor == null) {
+			final int threads = Math.max(1, Runtime.getRuntime()
+					.availableProcessors());
+			executor = new ThreadPoolExecutor(threads, threads, 10,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							final Thread thread = new Thread(r,
+									ValidationEngine.class.getSimpleName());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return executor;
+	}
+
+	/**
+	 * The validation task, executed by the single thread
+	 */
+	public static interface ITask {
+		void run(IProgressMonitor monitor);
+	}
+
+	private static class TaskInfo {
+		final ITask task;
+		final int work;
+		final TaskMonitor monitor;
+
+		TaskInfo(ITask task, int work, ValidationEngine engine) {
+			this.task = task;
+			this.work = work;
+			this.monitor = new TaskMonitor(engine, work);
+		}
+	}
+
+	/**
+	 * The progress monitor of the single task, collects the work done and
+	 * answers the cancellation state of the engine
+	 */
+	private static class TaskMonitor implements IProgressMonitor {
+		private final ValidationEngine engine;
+		private final int work;
+		private double scale = 1;
+		private double done = 0;
+		private int reported = 0;
+
+		TaskMonitor(ValidationEngine engine, int work) {
+			this.engine = engine;
+			this.work = work;
+		}
+
+		public synchronized void beginTask(String name, int totalWork) {
+			if (totalWork > 0) {
+				scale = (double) work / totalWork;
+			}
+		}
+
+		public synchronized void done() {
+			done = work;
+		}
+
+		public void internalWorked(double value) {
+			synchronized (this) {
+				done = Math.min(work, done + value * scale);
+			}
+			engine.taskWorked();
+		}
+
+		public void worked(int value) {
+			internalWorked(value);
+		}
+
+		/**
+		 * Returns the work done since the previous call
+		 */
+		synchronized int takeWorked() {
+			final int result = (int) done - reported;
+			reported = (int) done;
+			return result;
+		}
+
+		public boolean isCanceled() {
+			return engine.isCanceled();
+		}
+
+		public void setCanceled(boolean value) {
+			if (value) {
+				engine.cancel();
+			}
+		}
+
+		public void setTaskName(String name) {
+			// ignore
+		}
+
+		public void subTask(String name) {
+			// ignore
+		}
+	}
+
+	private final IProgressMonitor monitor;
+	private final List<TaskInfo> tasks = new ArrayList<TaskInfo>();
+	private final boolean parallel;
+	private volatile boolean canceled = false;
+	/**
+	 * The thread executing {@link #run()}, the only one accessing the monitor
+	 */
+	private volatile Thread owner;
+
+	/**
+	 * @param parallel
+	 *            if the tasks should be executed in parallel. It should be
+	 *            <code>false</code> during the build, since the other threads
+	 *            could not create the markers until the build completes.
+	 */
+	public ValidationEngine(IProgressMonitor monitor, boolean parallel) {
+		this.monitor = monitor;
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Adds the task to be executed
+	 *
+	 * @param work
+	 *            the amount of the work of the monitor of the engine the task
+	 *            is responsible for
+	 */
+	public void add(ITask task, int work) {
+		tasks.add(new TaskInfo(task, work, this));
+	}
+
+	boolean isCanceled() {
+		if (!canceled && Thread.currentThread() == owner
+				&& monitor.isCanceled()) {
+			cancel();
+		}
+		return canceled;
+	}
+
+	/**
+	 * Forwards the progress when the task is executed by the calling thread
+	 */
+	void taskWorked() {
+		if (Thread.currentThread() == owner) {
+			forwardProgress();
+		}
+	}
+
+	void cancel() {
+		canceled = true;
+	}
+
+	/**
+	 * Executes all the tasks and waits for them to complete
+	 */
+	public IStatus run() {
+		if (tasks.isEmpty()) {
+			return Status.OK_STATUS;
+		}
+		if (!parallel || tasks.size() == 1) {
+			for (TaskInfo info : tasks) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+				info.task.run(new SubProgressMonitor(monitor, info.work));
+			}
+			return monitor.isCanceled() ? Status.CANCEL_STATUS
+					: Status.OK_STATUS;
+		}
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+		owner = Thread.currentThread();
+		final List<FutureTask<?>> futures = new ArrayList<FutureTask<?>>(
+				tasks.size());
+		try {
+			for (final TaskInfo info : tasks) {
+				final FutureTask<?> future = new FutureTask<Object>(
+						new Runnable() {
+							public void run() {
+								if (!isCanceled()) {
+									info.task.run(info.monitor);
+								}
+							}
+						}, null);
+				futures.add(future);
+				getExecutor().execute(future);
+			}
+			for (int i = 0; i < futures.size(); ++i) {
+				final FutureTask<?> future = futures.get(i);
+				// executes the task if no other thread started it yet
+				future.run();
+				waitFor(future);
+			}
+			forwardProgress();
+		} finally {
+			for (FutureTask<?> future : futures) {
+				future.cancel(true);
+			}
+			owner = null;
+		}
+		return isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+	}
+
+	private void waitFor(FutureTask<?> future) {
+		for (;;) {
+			if (monitor.isCanceled()) {
+				cancel();
+			}
+			try {
+				future.get(100, TimeUnit.MILLISECONDS);
+				return;
+			} catch (TimeoutException e) {
+				forwardProgress();
+			} catch (InterruptedException e) {
+				cancel();
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (!(cause instanceof OperationCanceledException)) {
+					ValidatorsCore.error(cause.toString(), cause);
+				}
+				return;
+			}
+		}
+	}
+
+	private void forwardProgress() {
+		for (TaskInfo info : tasks) {
+			final int worked = info.monitor.takeWorked();
+			if (worked > 0) {
+				monitor.worked(worked);
+			}
+		}
+	}
+}
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.validators.internal.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.validators.core.AbstractValidator;
+import org.eclipse.dltk.validators.core.IValidator;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Remembers the content of the files at the time of their last successful
+ * validation, so the unchanged files are not validated again and the problem
+ * markers created before are kept.
+ *
+ * <p>
+ * The state is stored in the persistent property of the file per validator and
+ * consists of the hash of the validator configuration, the modification stamp
+ * and the hash of the file contents and the number of the problem markers. The
+ * file is validated again if any of them changes, e.g. the markers were
+ * removed or were not persisted by the workspace.
+ * </p>
+ */
+public class ValidationState {
+
+	private static final String PROPERTY_PREFIX = "validation."; //$NON-NLS-1$
+	private static final String EPOCH_PREFIX = "validationEpoch."; //$NON-NLS-1$
+	private static final char SEPARATOR = ';';
+	private static final String ALGORITHM = "SHA-1"; //$NON-NLS-1$
+	private static final int BUFFER_SIZE = 8192;
+
+	private final String configurationHash;
+	private final String markerId;
+	private final QualifiedName property;
+	private final QualifiedName epochProperty;
+
+	private static QualifiedName getProperty(String validatorId) {
+		return new QualifiedName(ValidatorsCore.PLUGIN_ID, PROPERTY_PREFIX
+				+ validatorId);
+	}
+
+	private static QualifiedName getEpochProperty(String validatorId) {
+		return new QualifiedName(ValidatorsCore.PLUGIN_ID, EPOCH_PREFIX
+				+ validatorId);
+	}
+
+	/**
+	 * The contents of the file before the validation
+	 */
+	public static class Snapshot {
+		final long stamp;
+		final String hash;
+
+		Snapshot(long stamp, String hash) {
+			this.stamp = stamp;
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * @param configurationHash
+	 *            the hash of the validator configuration, see
+	 *            {@link #computeConfigurationHash(IValidator)}
+	 * @param markerId
+	 *            the type of the problem markers created by the validator
+	 */
+	public ValidationState(String validatorId, IProject project,
+			String configurationHash, String markerId) {
+		this.markerId = markerId;
+		this.property = getProperty(validatorId);
+		this.epochProperty = getEpochProperty(validatorId);
+		// the states stored before the project was cleaned are ignored
+		String epoch = null;
+		try {
+			epoch = project.getPersistentProperty(epochProperty);
+		} catch (CoreException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+		}
+		this.configurationHash = epoch != null ? configurationHash + '@'
+				+ epoch : configurationHash;
+	}
+
+	/**
+	 * Answers if the file was validated successfully with the same
+	 * configuration and is not changed since then.
+	 */
+	public boolean isUnchanged(IResource resource) {
+		return checkChanged(resource) == null;
+	}
+
+	/**
+	 * Returns <code>null</code> if the file was validated successfully with
+	 * the same configuration and is not changed since then, otherwise the
+	 * snapshot of the file to be validated. The contents are hashed at most
+	 * once, the state is not stored if the hash could not be computed.
+	 */
+	public Snapshot checkChanged(IResource resource) {
+		if (resource.getType() != IResource.FILE || !resource.exists()) {
+			return new Snapshot(IResource.NULL_STAMP, null);
+		}
+		final long stamp = resource.getModificationStamp();
+		try {
+			final String value = resource.getPersistentProperty(property);
+			if (value != null) {
+				final String[] parts = split(value);
+				if (parts.length == 4 && configurationHash.equals(parts[0])
+						&& Integer.parseInt(parts[3]) == countMarkers(resource)) {
+					if (Long.parseLong(parts[1]) == stamp) {
+						return null;
+					}
+					// the file is touched, check if the contents changed
+					final String hash = computeHash((IFile) resource);
+					if (hash != null && hash.equals(parts[2])) {
+						store(resource, new Snapshot(stamp, hash));
+						return null;
+					}
+					return new Snapshot(stamp, hash);
+				}
+			}
+		} catch (CoreException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+		} catch (NumberFormatException e) {
+			// invalid value, validate again
+		}
+		return new Snapshot(stamp, computeHash((IFile) resource));
+	}
+
+	/**
+	 * Takes the snapshot of the file to be validated or returns
+	 * <code>null</code> if the state of this resource could not be remembered
+	 */
+	public Snapshot takeSnapshot(IResource resource) {
+		if (resource.getType() != IResource.FILE) {
+			return null;
+		}
+		final long stamp = resource.getModificationStamp();
+		final String hash = computeHash((IFile) resource);
+		if (hash == null) {
+			return null;
+		}
+		return new Snapshot(stamp, hash);
+	}
+
+	/**
+	 * Remembers the file was validated successfully, unless the snapshot has
+	 * no hash of the contents
+	 */
+	public void store(IResource resource, Snapshot snapshot) {
+		if (snapshot.hash == null) {
+			return;
+		}
+		try {
+			if (resource.exists()) {
+				final StringBuffer sb = new StringBuffer();
+				sb.append(configurationHash).append(SEPARATOR);
+				sb.append(snapshot.stamp).append(SEPARATOR);
+				sb.append(snapshot.hash).append(SEPARATOR);
+				sb.append(countMarkers(resource));
+				resource.setPersistentProperty(property, sb.toString());
+			}
+		} catch (CoreException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Forgets the state of the validator, so the file (or all the files of the
+	 * project if the container is specified) is validated next time
+	 */
+	public static void reset(String validatorId, IResource resource) {
+		try {
+			if (resource.getType() == IResource.FILE) {
+				if (resource.exists()) {
+					resource.setPersistentProperty(getProperty(validatorId),
+							null);
+				}
+			} else {
+				final IProject project = resource.getProject();
+				if (project != null && project.isAccessible()) {
+					project.setPersistentProperty(
+							getEpochProperty(validatorId), String
+									.valueOf(System.currentTimeMillis()));
+				}
+			}
+		} catch (CoreException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private int countMarkers(IResource resource) throws CoreException {
+		return resource.findMarkers(markerId, true, IResource.DEPTH_ZERO).length;
+	}
+
+	private static String[] split(String value) {
+		return value.split(String.valueOf(SEPARATOR));
+	}
+
+	private static String computeHash(IFile file) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+			final InputStream input = file.getContents(true);
+			try {
+				final byte[] buffer = new byte[BUFFER_SIZE];
+				int len;
+				while ((len = input.read(buffer)) != -1) {
+					digest.update(buffer, 0, len);
+				}
+			} finally {
+				input.close();
+			}
+			return toHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		} catch (CoreException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			return null;
+		} catch (IOException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Computes the hash of the validator configuration or returns
+	 * <code>null</code> if it could not be computed.
+	 * 
+	 * @see AbstractValidator#storeConfigurationTo(Document, Element)
+	 */
+	public static String computeConfigurationHash(IValidator validator) {
+		try {
+			final Document document = ValidatorsCore.getDocument();
+			final Element element = document.createElement("validator"); //$NON-NLS-1$
+			element.setAttribute("type", validator.getValidatorType().getID()); //$NON-NLS-1$
+			element.setAttribute("id", validator.getID()); //$NON-NLS-1$
+			document.appendChild(element);
+			if (validator instanceof AbstractValidator) {
+				((AbstractValidator) validator).storeConfigurationTo(document,
+						element);
+			} else {
+				validator.storeTo(document, element);
+			}
+			final MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+			return toHex(digest.digest(ValidatorsCore.serializeDocument(
+					document).getBytes("UTF-8"))); //$NON-NLS-1$
+		} catch (Exception e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			return null;
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		final StringBuffer sb = new StringBuffer(bytes.length * 2);
+		for (int i = 0; i < bytes.length; ++i) {
+			final int b = bytes[i] & 0xFF;
+			if (b < 0x10) {
+				sb.append('0');
+			}
+			sb.append(Integer.toHexString(b));
+		}
+		return sb.toString();
+	}
+}
@@ -27,7 +27,10 @@ public class ExternalChecker extends AbstractValidator {
 
 	private static final String EXTENSIONS = "scriptPattrn"; //$NON-NLS-1$
 	private static final String ARGUMENTS = "arguments"; //$NON-NLS-1$
+	private static final String WILDCARDS = "wildcards"; //$NON-NLS-1$
 	private static final String INTERPRETER_ENVIRONMENT_VARS = "interpreterEnvironmentVars"; //$NON-NLS-1$
+	private static final String BATCH_SIZE = "batchSize"; //$NON-NLS-1$
+	private static final String BATCH_FILE_LIST = "batchFileList"; //$NON-NLS-1$
 
 	private static final String PATH_TAG = "path"; //$NON-NLS-1$
 	private static final String ENVIRONMENT_ATTR = "environment"; //$NON-NLS-1$
@@ -38,6 +41,8 @@ public class ExternalChecker extends AbstractValidator {
 	private List<Rule> rules = new ArrayList<Rule>();
 	private String extensions;
 	private boolean passInterpreterEnvironmentVars;
+	private int batchSize = 1;
+	private boolean batchFileList;
 
 	public void setCommand(Map<IEnvironment, String> command) {
 		this.paths = command;
@@ -95,6 +100,9 @@ public class ExternalChecker extends AbstractValidator {
 		this.extensions = element.getAttribute(EXTENSIONS);
 		this.passInterpreterEnvironmentVars = Boolean.valueOf(element
 				.getAttribute(INTERPRETER_ENVIRONMENT_VARS));
+		this.batchSize = parseBatchSize(element.getAttribute(BATCH_SIZE));
+		this.batchFileList = Boolean.valueOf(
+				element.getAttribute(BATCH_FILE_LIST)).booleanValue();
 
 		NodeList nodes = element.getChildNodes();
 		rules.clear();
@@ -115,6 +123,9 @@ public class ExternalChecker extends AbstractValidator {
 		element.setAttribute(EXTENSIONS, this.extensions);
 		element.setAttribute(INTERPRETER_ENVIRONMENT_VARS, Boolean
 				.toString(this.passInterpreterEnvironmentVars));
+		element.setAttribute(BATCH_SIZE, Integer.toString(this.batchSize));
+		element.setAttribute(BATCH_FILE_LIST, Boolean
+				.toString(this.batchFileList));
 
 		for (int i = 0; i < rules.size(); i++) {
 			Element elem = doc.createElement("rule"); //$NON-NLS-1$
@@ -135,6 +146,15 @@ public class ExternalChecker extends AbstractValidator {
 		}
 	}
 
+	/**
+	 * The custom wildcards decide how the output of the checker is parsed
+	 */
+	public void storeConfigurationTo(Document doc, Element element) {
+		super.storeConfigurationTo(doc, element);
+		element.setAttribute(WILDCARDS, ExternalCheckerWildcardManager
+				.getWildcardsPreference());
+	}
+
 	public void setArguments(String arguments) {
 		this.arguments = arguments;
 		fireChanged();
@@ -199,6 +219,50 @@ public class ExternalChecker extends AbstractValidator {
 		fireChanged();
 	}
 
+	/**
+	 * Returns the maximum number of files checked by the single invocation of
+	 * the external checker, <code>1</code> means each file is checked
+	 * separately.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+		fireChanged();
+	}
+
+	/**
+	 * Answers if the files are passed to the external checker in the list file
+	 * (one path per line) instead of the command line arguments. In that case
+	 * <code>%f</code> in the arguments is replaced by the path of the list
+	 * file.
+	 */
+	public boolean isBatchFileList() {
+		return batchFileList;
+	}
+
+	public void setBatchFileList(boolean batchFileList) {
+		this.batchFileList = batchFileList;
+		fireChanged();
+	}
+
+	/**
+	 * Parses the stored batch size, the invalid or missing values are treated
+	 * as <code>1</code>
+	 */
+	public static int parseBatchSize(String value) {
+		if (value != null && value.trim().length() != 0) {
+			try {
+				return Math.max(1, Integer.parseInt(value.trim()));
+			} catch (NumberFormatException e) {
+				// fall thru
+			}
+		}
+		return 1;
+	}
+
 	public Object getValidator(IScriptProject project, Class validatorType) {
 		if (validatorType == IResourceValidator.class) {
 			return new ExternalResourceWorker(getEnvrironment(project), this);
@@ -1,6 +1,7 @@
 package org.eclipse.dltk.validators.internal.externalchecker.core;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
@@ -8,12 +9,25 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.dltk.compiler.CharOperation;
 import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.environment.IDeployment;
 import org.eclipse.dltk.core.environment.IEnvironment;
 import org.eclipse.dltk.core.environment.IExecutionEnvironment;
 import org.eclipse.dltk.core.environment.IFileHandle;
@@ -26,39 +40,73 @@ import org.eclipse.dltk.validators.core.IValidatorOutput;
 import org.eclipse.dltk.validators.core.IValidatorProblem;
 import org.eclipse.dltk.validators.core.IValidatorReporter;
 import org.eclipse.dltk.validators.core.ValidatorReporter;
+import org.eclipse.dltk.validators.internal.core.ValidationEngine;
 
 /**
  * Delegate implementation of execution of external validators.
  */
-class ExternalCheckerDelegate {
+public class ExternalCheckerDelegate {
 
 	public static final String MARKER_ID = ExternalCheckerPlugin.PLUGIN_ID
 			+ ".externalcheckerproblem"; // $NON-NLS-1$
 
+	/**
+	 * The maximum number of the checker processes running at the same time in
+	 * the remote environment
+	 */
+	private static final int MAX_REMOTE_PROCESSES = 2;
+
+	private static final String FILE_LIST_NAME = "files.txt"; //$NON-NLS-1$
+
+	/**
+	 * Limits the number of the checker processes per environment, shared by
+	 * all the validations
+	 */
+	private static final Map<String, Semaphore> processLimits = new HashMap<String, Semaphore>();
+
 	private final String arguments;
+	private final int batchSize;
+	private final boolean batchFileList;
 	private final String command;
 
 	private final IEnvironment environment;
 	private final IExecutionEnvironment execEnvironment;
 	private final String[] extensions;
 	private final boolean passInterpreterEnvironmentVars;
-	private final List<Rule> rules = new ArrayList<Rule>();
+	private final RuleMatcher matcher;
 
 	static interface IExternalReporterDelegate {
 		void report(IValidatorProblem problem) throws CoreException;
 	}
 
+	static interface IBatchReporterDelegate {
+		/**
+		 * Reports the problem of the resource with the specified index
+		 */
+		void report(int index, IValidatorProblem problem) throws CoreException;
+
+		/**
+		 * Notifies the resource with the specified index was not checked
+		 */
+		void failed(int index);
+	}
+
 	public ExternalCheckerDelegate(IEnvironment environment,
 			ExternalChecker externalChecker) {
 		this.environment = environment;
 		this.execEnvironment = (IExecutionEnvironment) environment
 				.getAdapter(IExecutionEnvironment.class);
 
+		final List<Rule> rules = new ArrayList<Rule>();
 		for (int i = 0; i < externalChecker.getNRules(); ++i) {
 			rules.add(externalChecker.getRule(i));
 		}
+		this.matcher = new RuleMatcher(rules, ExternalCheckerWildcardManager
+				.loadCustomWildcards());
 
 		this.arguments = externalChecker.getArguments();
+		this.batchSize = externalChecker.getBatchSize();
+		this.batchFileList = externalChecker.isBatchFileList();
 		this.extensions = prepareExtensions(externalChecker.getExtensions());
 		this.passInterpreterEnvironmentVars = externalChecker
 				.isPassInterpreterEnvironmentVars();
@@ -106,9 +154,315 @@ class ExternalCheckerDelegate {
 		CommandLine cmdLine = new CommandLine(arguments);
 		cmdLine.replaceSequence('f', getResourcePath(resource));
 		cmdLine.add(0, command);
+		final String[] env = getEnvironmentVars(resource.getProject());
+		Process process = execEnvironment.exec(cmdLine.toArray(), null, env);
+		BufferedReader input = new BufferedReader(new InputStreamReader(process
+				.getInputStream()));
+
+		try {
+			String line = null;
+			while ((line = input.readLine()) != null) {
+				console.println(line);
+
+				IValidatorProblem problem = parseProblem(line);
+				delegate.report(problem);
+			}
+		} catch (IOException e) {
+			// throw new CoreException();
+		}
+	}
+
+	/**
+	 * The single invocation of the checker for the several resources of the
+	 * same project
+	 */
+	private class Batch implements Callable<List<String>> {
+		final int offset;
+		final List<IResource> resources;
+		final String[] paths;
+		final String[] env;
+		private Process process;
+		private boolean canceled;
+
+		Batch(int offset, List<IResource> resources, String[] env) {
+			this.offset = offset;
+			this.resources = resources;
+			this.env = env;
+			this.paths = new String[resources.size()];
+			for (int i = 0; i < paths.length; ++i) {
+				paths[i] = getResourcePath(resources.get(i));
+			}
+		}
+
+		public List<String> call() throws Exception {
+			final Semaphore limit = getProcessLimit();
+			limit.acquire();
+			IDeployment deployment = null;
+			try {
+				final CommandLine cmdLine = new CommandLine(arguments);
+				if (batchFileList) {
+					deployment = execEnvironment.createDeployment();
+					if (deployment == null) {
+						return null;
+					}
+					final IPath listPath = deployment.add(
+							new ByteArrayInputStream(createFileList()),
+							FILE_LIST_NAME);
+					cmdLine.replaceSequence('f', deployment.getFile(listPath)
+							.toOSString());
+				} else {
+					cmdLine.replaceSequence('f', paths);
+				}
+				cmdLine.add(0, command);
+				final Process p = execEnvironment.exec(cmdLine.toArray(), null,
+						env);
+				if (p == null) {
+					return null;
+				}
+				synchronized (this) {
+					if (canceled) {
+						p.destroy();
+						return null;
+					}
+					process = p;
+				}
+				final List<String> lines = new ArrayList<String>();
+				final BufferedReader input = new BufferedReader(
+						new InputStreamReader(p.getInputStream()));
+				try {
+					String line;
+					while ((line = input.readLine()) != null) {
+						lines.add(line);
+					}
+				} finally {
+					input.close();
+				}
+				return lines;
+			} finally {
+				if (deployment != null) {
+					deployment.dispose();
+				}
+				limit.release();
+			}
+		}
+
+		private byte[] createFileList() {
+			final StringBuffer sb = new StringBuffer();
+			for (int i = 0; i < paths.length; ++i) {
+				sb.append(paths[i]).append('\n');
+			}
+			return sb.toString().getBytes();
+		}
+
+		synchronized void cancel() {
+			canceled = true;
+			if (process != null) {
+				process.destroy();
+			}
+		}
+
+		/**
+		 * Returns the index of the resource the problem belongs to or
+		 * <code>-1</code> if it is unknown.
+		 */
+		int indexOf(IValidatorProblem problem) {
+			return ExternalCheckerDelegate.indexOf(paths, problem
+					.getFileName());
+		}
+	}
+
+	/**
+	 * Returns the index of the path the file name reported by the checker
+	 * refers to or <code>-1</code> if it is unknown. The file name could be
+	 * in the other form or relative, then it is matched as the path suffix.
+	 * If there is the single path it is returned for any file name.
+	 */
+	public static int indexOf(String[] paths, String fileName) {
+		if (fileName == null || fileName.length() == 0) {
+			return paths.length == 1 ? 0 : -1;
+		}
+		for (int i = 0; i < paths.length; ++i) {
+			if (fileName.equals(paths[i])) {
+				return i;
+			}
+		}
+		// the checker could print the other form of the path
+		final IPath filePath = new Path(fileName.trim());
+		for (int i = 0; i < paths.length; ++i) {
+			if (filePath.equals(new Path(paths[i]))) {
+				return i;
+			}
+		}
+		if (!filePath.isAbsolute()) {
+			final String suffix = IPath.SEPARATOR + filePath.toString();
+			for (int i = 0; i < paths.length; ++i) {
+				if (new Path(paths[i]).toString().endsWith(suffix)) {
+					return i;
+				}
+			}
+		}
+		return paths.length == 1 ? 0 : -1;
+	}
+
+	/**
+	 * Runs the checker for all the resources. The resources are passed to the
+	 * checker in groups of the configured size and the checker processes are
+	 * executed in parallel by the threads shared by all the validations, the
+	 * number of the processes running at the same time is limited per
+	 * environment. The problems are attributed to the resources using the file
+	 * name reported by the checker.
+	 */
+	public void runValidator(List<IResource> resources,
+			IValidatorOutput console, IBatchReporterDelegate delegate,
+			IProgressMonitor monitor) {
+		final List<Batch> batches = createBatches(resources);
+		if (batches.isEmpty()) {
+			return;
+		}
+		final List<FutureTask<List<String>>> futures = new ArrayList<FutureTask<List<String>>>();
+		try {
+			for (Batch batch : batches) {
+				final FutureTask<List<String>> future = new FutureTask<List<String>>(
+						batch);
+				futures.add(future);
+				ValidationEngine.getExecutor().execute(future);
+			}
+			for (int i = 0; i < batches.size(); ++i) {
+				final Batch batch = batches.get(i);
+				final FutureTask<List<String>> future = futures.get(i);
+				// executes the batch if no other thread started it yet
+				future.run();
+				final List<String> lines = waitFor(future, monitor);
+				if (monitor.isCanceled()) {
+					for (Batch b : batches) {
+						b.cancel();
+					}
+					return;
+				}
+				if (lines != null) {
+					report(batch, lines, console, delegate);
+				} else {
+					for (int j = 0; j < batch.resources.size(); ++j) {
+						delegate.failed(batch.offset + j);
+					}
+				}
+				monitor.worked(batch.resources.size());
+			}
+		} finally {
+			for (FutureTask<List<String>> future : futures) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	private List<String> waitFor(Future<List<String>> future,
+			IProgressMonitor monitor) {
+		while (!monitor.isCanceled()) {
+			try {
+				return future.get(100, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				continue;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				final IStatus status;
+				if (cause instanceof CoreException) {
+					status = ((CoreException) cause).getStatus();
+				} else {
+					status = new Status(IStatus.ERROR,
+							ExternalCheckerPlugin.PLUGIN_ID, cause.toString(),
+							cause);
+				}
+				ExternalCheckerPlugin.getDefault().getLog().log(status);
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private void report(Batch batch, List<String> lines,
+			IValidatorOutput console, IBatchReporterDelegate delegate) {
+		for (String line : lines) {
+			console.println(line);
+			final IValidatorProblem problem = parseProblem(line);
+			if (problem == null) {
+				continue;
+			}
+			final int index = batch.indexOf(problem);
+			if (index >= 0) {
+				try {
+					delegate.report(batch.offset + index, problem);
+				} catch (CoreException e) {
+					ExternalCheckerPlugin.getDefault().getLog().log(
+							e.getStatus());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits the resources into the batches, each batch contains the resources
+	 * of the single project, since the environment could be different.
+	 */
+	private List<Batch> createBatches(List<IResource> resources) {
+		final List<IProject> projects = new ArrayList<IProject>(resources
+				.size());
+		for (IResource resource : resources) {
+			projects.add(resource.getProject());
+		}
+		final List<Batch> batches = new ArrayList<Batch>();
+		for (int[] range : split(projects, batchSize)) {
+			final int start = range[0];
+			batches.add(new Batch(start, resources.subList(start, range[1]),
+					getEnvironmentVars(projects.get(start))));
+		}
+		return batches;
+	}
+
+	/**
+	 * Splits the list into the ranges of the consecutive equal keys containing
+	 * at most <code>batchSize</code> elements, each range is returned as the
+	 * <code>{start, end}</code> pair.
+	 */
+	public static List<int[]> split(List<?> keys, int batchSize) {
+		final List<int[]> ranges = new ArrayList<int[]>();
+		int start = 0;
+		while (start < keys.size()) {
+			final Object key = keys.get(start);
+			int end = start + 1;
+			while (end < keys.size() && end - start < batchSize
+					&& key.equals(keys.get(end))) {
+				++end;
+			}
+			ranges.add(new int[] { start, end });
+			start = end;
+		}
+		return ranges;
+	}
+
+	private int getMaxProcesses() {
+		if (environment.isLocal()) {
+			return Math.max(1, Runtime.getRuntime().availableProcessors());
+		}
+		return MAX_REMOTE_PROCESSES;
+	}
+
+	private Semaphore getProcessLimit() {
+		synchronized (processLimits) {
+			Semaphore limit = processLimits.get(environment.getId());
+			if (limit == null) {
+				limit = new Semaphore(getMaxProcesses());
+				processLimits.put(environment.getId(), limit);
+			}
+			return limit;
+		}
+	}
+
+	private String[] getEnvironmentVars(IProject project) {
 		final String[] env;
 		if (passInterpreterEnvironmentVars) {
-			final IProject project = resource.getProject();
 			EnvContainer envContainer = projectEnvs.get(project);
 			if (envContainer == null) {
 				envContainer = new EnvContainer();
@@ -133,21 +487,7 @@ class ExternalCheckerDelegate {
 		} else {
 			env = null;
 		}
-		Process process = execEnvironment.exec(cmdLine.toArray(), null, env);
-		BufferedReader input = new BufferedReader(new InputStreamReader(process
-				.getInputStream()));
-
-		try {
-			String line = null;
-			while ((line = input.readLine()) != null) {
-				console.println(line);
-
-				IValidatorProblem problem = parseProblem(line);
-				delegate.report(problem);
-			}
-		} catch (IOException e) {
-			// throw new CoreException();
-		}
+		return env;
 	}
 
 	private String getResourcePath(IResource resource) {
@@ -160,28 +500,8 @@ class ExternalCheckerDelegate {
 		return file.toOSString();
 	}
 
-	private IValidatorProblem parseProblem(String problem) {
-		List wlist = ExternalCheckerWildcardManager.loadCustomWildcards();
-		for (int i = 0; i < rules.size(); i++) {
-			Rule rule = (Rule) this.rules.get(i);
-			// String wcard = rule.getDescription();
-			// List tlist = null;
-			try {
-				WildcardMatcher wmatcher = new WildcardMatcher(wlist);
-				IValidatorProblem cproblem = wmatcher.match(rule, problem);
-				if (cproblem != null) {
-					return cproblem;
-				}
-			} catch (Exception x) {
-				if (DLTKCore.DEBUG) {
-					System.out.println(x.toString());
-				}
-
-				continue;
-			}
-		}
-
-		return null;
+	private synchronized IValidatorProblem parseProblem(String problem) {
+		return matcher.match(problem);
 	}
 
 	private String prepareCommand(Map<IEnvironment, String> commands,
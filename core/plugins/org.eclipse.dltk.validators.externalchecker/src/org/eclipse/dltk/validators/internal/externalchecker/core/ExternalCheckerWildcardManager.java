@@ -41,11 +41,17 @@ public class ExternalCheckerWildcardManager {
 		return rulesToXML(wildcards);
 	}
 
+	/**
+	 * Returns the custom wildcards stored in the preferences as XML
+	 */
+	public static String getWildcardsPreference() {
+		return ExternalCheckerPlugin.getDefault().getPluginPreferences()
+				.getString(ExternalCheckerWildcardManager.WILDCARDS);
+	}
+
 	public static List loadCustomWildcards() {
 		List wildcards = new ArrayList();
-		String preference = ExternalCheckerPlugin.getDefault()
-				.getPluginPreferences().getString(
-						ExternalCheckerWildcardManager.WILDCARDS);
+		String preference = getWildcardsPreference();
 		if (DLTKCore.DEBUG) {
 			System.out.println(preference);
 		}
@@ -1,5 +1,8 @@
 package org.eclipse.dltk.validators.internal.externalchecker.core;
 
+import java.util.List;
+import java.util.Set;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -34,6 +37,22 @@ public class ExternalResourceWorker extends ResourceValidatorWorker {
 					}
 				});
 	}
+
+	protected void runValidator(final List<IResource> resources,
+			IValidatorOutput console, final IValidatorReporter reporter,
+			final Set<? super IResource> failed, IProgressMonitor monitor) {
+		delegate.runValidator(resources, console,
+				new ExternalCheckerDelegate.IBatchReporterDelegate() {
+					public void report(int index, IValidatorProblem problem)
+							throws CoreException {
+						reporter.report(resources.get(index), problem);
+					}
+
+					public void failed(int index) {
+						failed.add(resources.get(index));
+					}
+				}, monitor);
+	}
 	
 	protected IValidatorReporter createValidatorReporter() {
 		return delegate.createValidatorReporter();
@@ -11,6 +11,10 @@
  ******************************************************************************/
 package org.eclipse.dltk.validators.internal.externalchecker.core;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -77,4 +81,25 @@ public class ExternalSourceModuleWorker extends SourceModuleValidatorWorker {
 					}
 				});
 	}
+
+	protected void runValidator(final List<ISourceModule> modules,
+			IValidatorOutput console, final IValidatorReporter reporter,
+			final Set<? super ISourceModule> failed, IProgressMonitor monitor) {
+		final List<IResource> resources = new ArrayList<IResource>(modules
+				.size());
+		for (ISourceModule module : modules) {
+			resources.add(module.getResource());
+		}
+		delegate.runValidator(resources, console,
+				new ExternalCheckerDelegate.IBatchReporterDelegate() {
+					public void report(int index, IValidatorProblem problem)
+							throws CoreException {
+						reporter.report(modules.get(index), problem);
+					}
+
+					public void failed(int index) {
+						failed.add(modules.get(index));
+					}
+				}, monitor);
+	}
 }
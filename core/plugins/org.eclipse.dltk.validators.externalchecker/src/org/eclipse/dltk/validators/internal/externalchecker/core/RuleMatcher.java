@@ -0,0 +1,279 @@
+package org.eclipse.dltk.validators.internal.externalchecker.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.validators.core.IValidatorProblem;
+import org.eclipse.dltk.validators.core.ValidatorProblem;
+
+/**
+ * Matches the output lines of the external checker against its rules. The
+ * rules are compiled once, so the line is checked without compiling the
+ * regular expressions, the rules which could not match the line are skipped
+ * by their literal prefix.
+ *
+ * <p>
+ * The instances are not thread safe, since the matchers are reused.
+ * </p>
+ */
+public class RuleMatcher {
+
+	private static final char FILE = 'f';
+	private static final char LINE = 'n';
+	private static final char MESSAGE = 'm';
+	/**
+	 * The group of the literal part of the rule or of the wildcard pattern
+	 */
+	private static final char LITERAL = ' ';
+
+	private static final String REGEX_CHARS = "\\^$.|?*+()[]{}"; //$NON-NLS-1$
+	private static final String QUANTIFIER_CHARS = "?*{"; //$NON-NLS-1$
+
+	private static class CompiledRule {
+		final IValidatorProblem.Type type;
+		final String prefix;
+		final Matcher matcher;
+		/**
+		 * The wildcard letters of the groups or <code>null</code> if the groups
+		 * are not known and should be recognized by their contents. The groups
+		 * of the other wildcards are marked with <code>0</code> and are
+		 * recognized by their contents too.
+		 */
+		final char[] groups;
+
+		CompiledRule(IValidatorProblem.Type type, String prefix,
+				Matcher matcher, char[] groups) {
+			this.type = type;
+			this.prefix = prefix;
+			this.matcher = matcher;
+			this.groups = groups;
+		}
+	}
+
+	private final List<CompiledRule> rules = new ArrayList<CompiledRule>();
+	private final List wcards;
+
+	private Matcher lineMatcher;
+	private Matcher fileMatcher;
+	private Matcher messageMatcher;
+
+	public RuleMatcher(List<Rule> rules, List wcards) {
+		this.wcards = wcards;
+		for (Rule rule : rules) {
+			try {
+				this.rules.add(compile(rule));
+			} catch (PatternSyntaxException e) {
+				if (DLTKCore.DEBUG) {
+					System.out.println(e.toString());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the problem described by the line or <code>null</code> if no
+	 * rule matches it
+	 */
+	public IValidatorProblem match(String input) {
+		for (int i = 0, size = rules.size(); i < size; ++i) {
+			final CompiledRule rule = rules.get(i);
+			if (!input.startsWith(rule.prefix)) {
+				continue;
+			}
+			final Matcher matcher = rule.matcher.reset(input);
+			if (matcher.matches()) {
+				return createProblem(rule, matcher, input);
+			}
+		}
+		return null;
+	}
+
+	private IValidatorProblem createProblem(CompiledRule rule,
+			Matcher matcher, String input) {
+		String fileName = null;
+		int lineNumber = -1;
+		String message = null;
+		for (int i = 1; i <= matcher.groupCount(); i++) {
+			final String group = matcher.group(i);
+			final char letter = rule.groups != null ? rule.groups[i] : 0;
+			if (group == null || letter == LITERAL) {
+				continue;
+			}
+			if (letter == LINE) {
+				lineNumber = parseLineNumber(group);
+			} else if (letter == FILE) {
+				if (fileName == null) {
+					fileName = group;
+				}
+			} else if (letter == MESSAGE) {
+				message = group;
+			} else if (letter == 0) {
+				// unknown group, recognize it by contents
+				final Matcher lMatch = find(getLineMatcher(), group);
+				if (lMatch != null) {
+					lineNumber = parseLineNumber(lMatch.group());
+					continue;
+				}
+				final Matcher fMatch = find(getFileMatcher(), group);
+				if (fMatch != null && fileName == null) {
+					fileName = fMatch.group();
+					continue;
+				}
+				final Matcher mMatch = find(getMessageMatcher(), group);
+				if (mMatch != null) {
+					message = mMatch.group();
+				}
+			}
+		}
+		if (message == null) {
+			message = input;
+		}
+		return new ValidatorProblem(fileName, message, lineNumber, rule.type);
+	}
+
+	private static Matcher find(Matcher matcher, String input) {
+		if (matcher != null && matcher.reset(input).find()) {
+			return matcher;
+		}
+		return null;
+	}
+
+	private static int parseLineNumber(String value) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private Matcher getLineMatcher() {
+		if (lineMatcher == null) {
+			lineMatcher = createMatcher(LINE);
+		}
+		return lineMatcher;
+	}
+
+	private Matcher getFileMatcher() {
+		if (fileMatcher == null) {
+			fileMatcher = createMatcher(FILE);
+		}
+		return fileMatcher;
+	}
+
+	private Matcher getMessageMatcher() {
+		if (messageMatcher == null) {
+			messageMatcher = createMatcher(MESSAGE);
+		}
+		return messageMatcher;
+	}
+
+	private Matcher createMatcher(char letter) {
+		final String pattern = getPattern(letter);
+		return Pattern.compile(pattern != null ? pattern : "") //$NON-NLS-1$
+				.matcher(""); //$NON-NLS-1$
+	}
+
+	private CompiledRule compile(Rule rule) {
+		final String input = rule.getDescription();
+		final StringBuffer sb = new StringBuffer();
+		final List<Character> letters = new ArrayList<Character>();
+		// group 0 is the whole match
+		letters.add(Character.valueOf((char) 0));
+		boolean groupsKnown = true;
+		for (int i = 0; i < input.length(); i++) {
+			char c = input.charAt(i);
+			if (c != '%' || i + 1 == input.length()) {
+				if (Character.isWhitespace(c)) {
+					sb.append("[\\s]+"); //$NON-NLS-1$
+				} else {
+					sb.append(c);
+				}
+			} else {
+				final char letter = input.charAt(i + 1);
+				String pattern = getPattern(letter);
+				if (pattern == null) {
+					pattern = ""; //$NON-NLS-1$
+				}
+				if (groupsKnown) {
+					try {
+						// the literal parts are regular expressions too
+						final int before = countGroups(sb.toString());
+						while (letters.size() <= before) {
+							letters.add(Character.valueOf(LITERAL));
+						}
+						letters.add(Character.valueOf(isKnown(letter) ? letter
+								: (char) 0));
+					} catch (PatternSyntaxException e) {
+						groupsKnown = false;
+					}
+				}
+				sb.append("("); //$NON-NLS-1$
+				sb.append(pattern);
+				sb.append(")"); //$NON-NLS-1$
+				i = i + 1;
+			}
+		}
+		sb.append(".*"); //$NON-NLS-1$
+		final Pattern pattern = Pattern.compile(sb.toString());
+		final Matcher matcher = pattern.matcher(""); //$NON-NLS-1$
+		char[] groups = null;
+		if (groupsKnown) {
+			while (letters.size() <= matcher.groupCount()) {
+				letters.add(Character.valueOf(LITERAL));
+			}
+			groups = new char[letters.size()];
+			for (int i = 0; i < groups.length; ++i) {
+				groups[i] = letters.get(i).charValue();
+			}
+		}
+		return new CompiledRule(rule.getProblemType(), getLiteralPrefix(input),
+				matcher, groups);
+	}
+
+	private static boolean isKnown(char letter) {
+		return letter == FILE || letter == LINE || letter == MESSAGE;
+	}
+
+	private static int countGroups(String regex) {
+		return Pattern.compile(regex).matcher("").groupCount(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the leading part of the rule which should be matched literally
+	 */
+	private static String getLiteralPrefix(String rule) {
+		if (rule.indexOf('|') >= 0) {
+			// the alternatives could start differently
+			return ""; //$NON-NLS-1$
+		}
+		int end = 0;
+		while (end < rule.length()) {
+			final char c = rule.charAt(end);
+			if (c == '%' || Character.isWhitespace(c)
+					|| REGEX_CHARS.indexOf(c) >= 0) {
+				if (end > 0 && QUANTIFIER_CHARS.indexOf(c) >= 0) {
+					// the previous character is optional
+					--end;
+				}
+				break;
+			}
+			++end;
+		}
+		return rule.substring(0, end);
+	}
+
+	private String getPattern(char c) {
+		String s = null;
+		for (int i = 0; i < wcards.size(); i++) {
+			CustomWildcard cwcard = (CustomWildcard) wcards.get(i);
+			if (cwcard.getLetter().indexOf(c) != -1) {
+				s = cwcard.getSpattern();
+			}
+		}
+		return s;
+	}
+}
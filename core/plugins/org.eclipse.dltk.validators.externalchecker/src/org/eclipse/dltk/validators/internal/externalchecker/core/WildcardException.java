@@ -1,5 +0,0 @@
-package org.eclipse.dltk.validators.internal.externalchecker.core;
-
-public class WildcardException extends Exception {
-
-}
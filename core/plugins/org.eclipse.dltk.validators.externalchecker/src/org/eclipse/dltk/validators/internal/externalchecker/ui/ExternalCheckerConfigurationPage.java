@@ -11,6 +11,8 @@ import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.dltk.core.environment.IEnvironment;
 import org.eclipse.dltk.core.environment.IFileHandle;
+import org.eclipse.dltk.internal.ui.wizards.dialogfields.DialogField;
+import org.eclipse.dltk.internal.ui.wizards.dialogfields.IDialogFieldListener;
 import org.eclipse.dltk.internal.ui.wizards.dialogfields.SelectionButtonDialogField;
 import org.eclipse.dltk.internal.ui.wizards.dialogfields.StringDialogField;
 import org.eclipse.dltk.ui.environment.EnvironmentPathBlock;
@@ -47,6 +49,8 @@ public class ExternalCheckerConfigurationPage extends
 	private EnvironmentPathBlock fPath;
 	private StringDialogField fExtensions;
 	private SelectionButtonDialogField fPassInterpreterEnvironmentVars;
+	private StringDialogField fBatchSize;
+	private SelectionButtonDialogField fBatchFileList;
 
 	private Table fTable;
 	private TableViewer tableViewer;
@@ -128,9 +132,23 @@ public class ExternalCheckerConfigurationPage extends
 	protected void validate() {
 		resetMessage();
 		validateTclCheckerPath();
+		validateBatchSize();
 		updateStatus();
 	}
 
+	private void validateBatchSize() {
+		final String value = fBatchSize.getText().trim();
+		try {
+			if (value.length() != 0 && Integer.parseInt(value) > 0) {
+				return;
+			}
+		} catch (NumberFormatException e) {
+			// fall thru
+		}
+		setMessage(Messages.ExternalCheckerConfigurationPage_invalidBatchSize,
+				IStatus.ERROR);
+	}
+
 	public void applyChanges() {
 		ExternalChecker externalChecker = getExtrenalChecker();
 		externalChecker.setArguments(this.fArguments.getText());
@@ -140,6 +158,9 @@ public class ExternalCheckerConfigurationPage extends
 		externalChecker
 				.setPassInterpreterEnvironmentVars(this.fPassInterpreterEnvironmentVars
 						.isSelected());
+		externalChecker.setBatchSize(ExternalChecker
+				.parseBatchSize(this.fBatchSize.getText()));
+		externalChecker.setBatchFileList(this.fBatchFileList.isSelected());
 	}
 
 	private void createPathBrowse(final Composite parent, int columns) {
@@ -159,6 +180,8 @@ public class ExternalCheckerConfigurationPage extends
 		this.fArguments.doFillIntoGrid(ancestor, columns);
 		this.fExtensions.doFillIntoGrid(ancestor, columns);
 		this.fPassInterpreterEnvironmentVars.doFillIntoGrid(ancestor, columns);
+		this.fBatchSize.doFillIntoGrid(ancestor, columns);
+		this.fBatchFileList.doFillIntoGrid(ancestor, columns);
 
 		Label label = new Label(ancestor, SWT.WRAP);
 		label
@@ -276,6 +299,9 @@ public class ExternalCheckerConfigurationPage extends
 		this.fExtensions.setText(externalChecker.getExtensions());
 		this.fPassInterpreterEnvironmentVars.setSelection(externalChecker
 				.isPassInterpreterEnvironmentVars());
+		this.fBatchSize.setText(Integer.toString(externalChecker
+				.getBatchSize()));
+		this.fBatchFileList.setSelection(externalChecker.isBatchFileList());
 
 		this.rulesList.getRules().clear();
 		for (int i = 0; i < externalChecker.getNRules(); i++) {
@@ -295,6 +321,17 @@ public class ExternalCheckerConfigurationPage extends
 				SWT.CHECK);
 		this.fPassInterpreterEnvironmentVars
 				.setLabelText(Messages.ExternalCheckerConfigurationPage_passInterpreterEnvironmentVariables);
+		this.fBatchSize = new StringDialogField();
+		this.fBatchSize
+				.setLabelText(Messages.ExternalCheckerConfigurationPage_filesPerInvocation);
+		this.fBatchSize.setDialogFieldListener(new IDialogFieldListener() {
+			public void dialogFieldChanged(DialogField field) {
+				validate();
+			}
+		});
+		this.fBatchFileList = new SelectionButtonDialogField(SWT.CHECK);
+		this.fBatchFileList
+				.setLabelText(Messages.ExternalCheckerConfigurationPage_passFilesInListFile);
 	}
 
 	public class RulesContentProvider implements IStructuredContentProvider,
@@ -9,8 +9,7 @@ import org.eclipse.dltk.validators.core.ValidatorRuntime;
 import org.eclipse.dltk.validators.internal.externalchecker.core.ExternalChecker;
 import org.eclipse.dltk.validators.internal.externalchecker.core.ExternalCheckerWildcardManager;
 import org.eclipse.dltk.validators.internal.externalchecker.core.Rule;
-import org.eclipse.dltk.validators.internal.externalchecker.core.WildcardException;
-import org.eclipse.dltk.validators.internal.externalchecker.core.WildcardMatcher;
+import org.eclipse.dltk.validators.internal.externalchecker.core.RuleMatcher;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.ui.console.IHyperlink;
@@ -22,11 +21,12 @@ import org.eclipse.ui.console.TextConsole;
 public class ExternalCheckerConsoleTracker implements IPatternMatchListener {
 
 	protected TextConsole console;
-	private List rules = new ArrayList();
+	private final RuleMatcher matcher;
 
 	public ExternalCheckerConsoleTracker() {
 		super();
 
+		final List<Rule> rules = new ArrayList<Rule>();
 		IValidator[] validators = ValidatorRuntime.getAllValidators();
 		for (int i = 0; i < validators.length; i++) {
 			if (validators[i] instanceof ExternalChecker) {
@@ -38,6 +38,8 @@ public class ExternalCheckerConsoleTracker implements IPatternMatchListener {
 				}
 			}
 		}
+		matcher = new RuleMatcher(rules, ExternalCheckerWildcardManager
+				.loadCustomWildcards());
 	}
 
 	public void connect(TextConsole console) {
@@ -69,21 +71,14 @@ public class ExternalCheckerConsoleTracker implements IPatternMatchListener {
 			int length = event.getLength();
 			String text = doc.get(offset, length);
 
-			List wlist = ExternalCheckerWildcardManager.loadCustomWildcards();
-			WildcardMatcher wmatcher = new WildcardMatcher(wlist);
-
-			for (int i = 0; i < rules.size(); i++) {
-				Rule rule = (Rule) rules.get(i);
-				try {
-					IValidatorProblem problem = wmatcher.match(rule, text);
-					if (problem != null) {
-						IHyperlink link = new ExternalCheckerSyntaxHyperlink(
-								console, problem);
-						console.addHyperlink(link, offset, text.length());
-						break;
-					}
-				} catch (WildcardException x) {
-				}
+			final IValidatorProblem problem;
+			synchronized (matcher) {
+				problem = matcher.match(text);
+			}
+			if (problem != null) {
+				IHyperlink link = new ExternalCheckerSyntaxHyperlink(console,
+						problem);
+				console.addHyperlink(link, offset, text.length());
 			}
 			// offset = offset + text.length() + 1;
 		} catch (BadLocationException e) {
@@ -13,7 +13,10 @@ public class Messages extends NLS {
 	public static String ExternalCheckerConfigurationPage_commaSeparatedListOfExtensions;
 	public static String ExternalCheckerConfigurationPage_deleteRule;
 	public static String ExternalCheckerConfigurationPage_filenameExtensions;
+	public static String ExternalCheckerConfigurationPage_filesPerInvocation;
+	public static String ExternalCheckerConfigurationPage_invalidBatchSize;
 	public static String ExternalCheckerConfigurationPage_outputRule;
+	public static String ExternalCheckerConfigurationPage_passFilesInListFile;
 	public static String ExternalCheckerConfigurationPage_passInterpreterEnvironmentVariables;
 	public static String ExternalCheckerConfigurationPage_patternIsARegularExpression;
 	public static String ExternalCheckerConfigurationPage_patternRules;
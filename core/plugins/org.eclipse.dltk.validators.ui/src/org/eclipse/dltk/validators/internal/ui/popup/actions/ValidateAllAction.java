@@ -15,6 +15,7 @@ import java.util.Arrays;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.dltk.core.IScriptProject;
 import org.eclipse.dltk.core.ISourceModule;
 import org.eclipse.dltk.validators.core.IValidatorOutput;
@@ -49,11 +50,14 @@ public class ValidateAllAction extends Action {
 			protected void invokeValidationFor(IValidatorOutput out,
 					IScriptProject project, ISourceModule[] modules,
 					IResource[] resources, IProgressMonitor monitor) {
-				// TODO create sub monitors
+				monitor.beginTask("", 2); //$NON-NLS-1$
 				ValidatorRuntime.executeSourceModuleValidators(project, Arrays
-						.asList(modules), out, ValidatorRuntime.ALL, monitor);
+						.asList(modules), out, ValidatorRuntime.ALL, true,
+						new SubProgressMonitor(monitor, 1));
 				ValidatorRuntime.executeResourceValidators(project, Arrays
-						.asList(resources), out, ValidatorRuntime.ALL, monitor);
+						.asList(resources), out, ValidatorRuntime.ALL, true,
+						new SubProgressMonitor(monitor, 1));
+				monitor.done();
 			}
 		};
 		delegate.run(selection.toArray());
@@ -18,11 +18,14 @@ import org.eclipse.dltk.core.tests.buildpath.BuildpathTests;
 import org.eclipse.dltk.core.tests.buildpath.SetContainerEventsTest;
 import org.eclipse.dltk.core.tests.cache.CacheTests;
 import org.eclipse.dltk.core.tests.cache.SourceModuleInfoCacheTest;
+import org.eclipse.dltk.core.tests.codeassist.CompletionSessionTests;
 import org.eclipse.dltk.core.tests.compiler.CompilerCharOperationTests;
 import org.eclipse.dltk.core.tests.compiler.CompilerUtilTests;
 import org.eclipse.dltk.core.tests.ddp.CoreDDPTests;
 import org.eclipse.dltk.core.tests.launching.EnvironmentResolverTests;
 import org.eclipse.dltk.core.tests.launching.InterpreterConfigTests;
+import org.eclipse.dltk.core.tests.launching.InterpreterProcessPoolTests;
+import org.eclipse.dltk.core.tests.launching.RuntimeBuildpathCacheTests;
 import org.eclipse.dltk.core.tests.mixin.MixinIndexTests;
 import org.eclipse.dltk.core.tests.mixin.MixinModelTests;
 import org.eclipse.dltk.core.tests.model.BufferTests;
@@ -31,6 +34,10 @@ import org.eclipse.dltk.core.tests.model.NamespaceTests;
 import org.eclipse.dltk.core.tests.model.WorkingCopyTests;
 import org.eclipse.dltk.core.tests.parser.SourceParserTests;
 import org.eclipse.dltk.core.tests.search.Bug387751Test;
+import org.eclipse.dltk.core.tests.search.DLTKSearchScopeTests;
+import org.eclipse.dltk.core.tests.search.IndexManagerTests;
+import org.eclipse.dltk.core.tests.search.NameSearchCacheTests;
+import org.eclipse.dltk.core.tests.search.ReadWriteMonitorTests;
 import org.eclipse.dltk.core.tests.util.CharacterStackTests;
 import org.eclipse.dltk.core.tests.utils.CharOperationTests;
 import org.eclipse.dltk.core.tests.utils.IntListTests;
@@ -55,6 +62,8 @@ public class AllTests {
 
 		suite.addTest(EnvironmentResolverTests.suite());
 		suite.addTest(InterpreterConfigTests.suite());
+		suite.addTestSuite(InterpreterProcessPoolTests.class);
+		suite.addTest(new JUnit4TestAdapter(RuntimeBuildpathCacheTests.class));
 
 		suite.addTest(new TestSuite(MixinIndexTests.class));
 		suite.addTest(new TestSuite(MixinModelTests.class));
@@ -72,8 +81,13 @@ public class AllTests {
 		suite.addTest(new TestSuite(InternalCoreUtilTest.class));
 		suite.addTest(TextUtilsTest.suite());
 		suite.addTest(new JUnit4TestAdapter(Bug387751Test.class));
+		suite.addTestSuite(ReadWriteMonitorTests.class);
+		suite.addTestSuite(IndexManagerTests.class);
+		suite.addTestSuite(NameSearchCacheTests.class);
+		suite.addTestSuite(DLTKSearchScopeTests.class);
 		suite.addTest(new JUnit4TestAdapter(SourceModuleInfoCacheTest.class));
 		suite.addTest(new JUnit4TestAdapter(SetContainerEventsTest.class));
+		suite.addTest(new JUnit4TestAdapter(CompletionSessionTests.class));
 		// $JUnit-END$
 		return suite;
 	}
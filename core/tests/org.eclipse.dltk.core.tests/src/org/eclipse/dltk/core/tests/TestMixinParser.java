@@ -18,9 +18,22 @@ import org.eclipse.dltk.core.mixin.IMixinRequestor.ElementInfo;
 
 public class TestMixinParser implements IMixinParser {
 
+	/**
+	 * Allows the tests to perform some actions while the module is parsed
+	 */
+	public interface IParseHook {
+		void parsing(ISourceModule module);
+	}
+
+	public static volatile IParseHook hook = null;
+
 	private IMixinRequestor requestor;
 
 	public void parserSourceModule(boolean signature, ISourceModule module) {
+		final IParseHook h = hook;
+		if (h != null) {
+			h.parsing(module);
+		}
 		if (module.getElementName().equals("X.txt")) {
 			requestor.reportElement(key("{foo"));
 			requestor.reportElement(key("{foo{$a"));
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.codeassist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.dltk.codeassist.CompletionSession;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.ModelException;
+import org.eclipse.dltk.core.tests.CodeAssistUtil;
+import org.eclipse.dltk.core.tests.CodeAssistUtil.CodeCompletionResult;
+import org.eclipse.dltk.core.tests.ProjectSetup;
+import org.eclipse.dltk.core.tests.model.ModelTestsPlugin;
+import org.eclipse.dltk.core.tests.model.TestCompletionEngine;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link CompletionSession} reused by the completion engine of
+ * the test language, the module ends with the incomplete "Alpi" identifier.
+ */
+public class CompletionSessionTests extends Assert {
+
+	private static final String SITE = "\n\n";
+
+	@Rule
+	public final ProjectSetup project = new ProjectSetup(
+			ModelTestsPlugin.WORKSPACE, "completion");
+
+	private ISourceModule module;
+
+	@Before
+	public void setUp() {
+		module = project.getSourceModule("", "test.txt");
+		TestCompletionEngine.discardSessions();
+	}
+
+	@After
+	public void tearDown() {
+		TestCompletionEngine.discardSessions();
+	}
+
+	private CodeCompletionResult complete(String prefix) throws ModelException {
+		return CodeAssistUtil.on(module).after(SITE + prefix).codeComplete();
+	}
+
+	private CodeCompletionResult completeFresh(String prefix)
+			throws ModelException {
+		TestCompletionEngine.discardSessions();
+		return complete(prefix);
+	}
+
+	private static List<String> names(CodeCompletionResult result) {
+		final List<String> names = new ArrayList<String>();
+		for (int i = 0; i < result.size(); ++i) {
+			names.add(result.get(i).getName());
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+	@Test
+	public void refinedProposals() throws ModelException {
+		final String[] prefixes = { "", "A", "Al", "Alp", "Alpi" };
+		final List<List<String>> refined = new ArrayList<List<String>>();
+		final int searchCount = TestCompletionEngine.getSearchCount();
+		for (String prefix : prefixes) {
+			refined.add(names(complete(prefix)));
+		}
+		assertEquals(searchCount + 1, TestCompletionEngine.getSearchCount());
+		for (int i = 0; i < prefixes.length; ++i) {
+			assertEquals(prefixes[i], names(completeFresh(prefixes[i])),
+					refined.get(i));
+		}
+		complete("Alpi").assertEquals("Alpine");
+	}
+
+	@Test
+	public void prefixExtended() throws ModelException {
+		complete("").assertEquals("Alpha", "Alpine", "Alps", "Beta");
+		complete("Al").assertEquals("Alpha", "Alpine", "Alps");
+		final int searchCount = TestCompletionEngine.getSearchCount();
+		complete("Alp").assertEquals("Alpha", "Alpine", "Alps");
+		complete("Alpi").assertEquals("Alpine");
+		assertEquals(searchCount, TestCompletionEngine.getSearchCount());
+	}
+
+	@Test
+	public void prefixShortened() throws ModelException {
+		complete("Alpi").assertEquals("Alpine");
+		final int searchCount = TestCompletionEngine.getSearchCount();
+		complete("Al").assertEquals("Alpha", "Alpine", "Alps");
+		assertEquals(searchCount + 1, TestCompletionEngine.getSearchCount());
+	}
+
+	@Test
+	public void otherSite() throws ModelException {
+		complete("Al").assertEquals("Alpha", "Alpine", "Alps");
+		final int searchCount = TestCompletionEngine.getSearchCount();
+		CodeAssistUtil.on(module).after("enterType Al").codeComplete()
+				.assertEquals("Alpha", "Alpine", "Alps");
+		assertEquals(searchCount + 1, TestCompletionEngine.getSearchCount());
+		complete("Alp").assertEquals("Alpha", "Alpine", "Alps");
+		assertEquals(searchCount + 2, TestCompletionEngine.getSearchCount());
+	}
+
+}
@@ -0,0 +1,272 @@
+package org.eclipse.dltk.core.tests.launching;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.ILog;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Preferences;
+import org.eclipse.dltk.core.environment.IDeployment;
+import org.eclipse.dltk.core.environment.IEnvironment;
+import org.eclipse.dltk.core.environment.IExecutionEnvironment;
+import org.eclipse.dltk.core.environment.IExecutionLogger;
+import org.eclipse.dltk.internal.launching.AbstractInterpreterInstallType;
+import org.eclipse.dltk.internal.launching.DLTKLaunchingPlugin;
+import org.eclipse.dltk.internal.launching.InterpreterProcessPool;
+import org.eclipse.dltk.launching.AbstractInterpreterInstall;
+import org.eclipse.dltk.launching.IInterpreterInstall;
+import org.eclipse.dltk.launching.IInterpreterServerBootstrap;
+import org.eclipse.dltk.launching.InterpreterConfig;
+import org.eclipse.dltk.launching.ScriptRuntime;
+
+@SuppressWarnings("nls")
+public class InterpreterProcessPoolTests extends TestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private static class TestProcess extends Process {
+		volatile boolean destroyed = false;
+
+		@Override
+		public OutputStream getOutputStream() {
+			return new ByteArrayOutputStream();
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public int waitFor() throws InterruptedException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int exitValue() {
+			if (destroyed) {
+				return 1;
+			}
+			throw new IllegalThreadStateException();
+		}
+
+		@Override
+		public void destroy() {
+			destroyed = true;
+		}
+	}
+
+	private static class TestExecEnvironment implements IExecutionEnvironment {
+		final List<TestProcess> processes = new ArrayList<TestProcess>();
+
+		public Map<String, String> getEnvironmentVariables(boolean realyNeed) {
+			return null;
+		}
+
+		public IDeployment createDeployment() {
+			return null;
+		}
+
+		public Process exec(String[] cmdLine, IPath workingDir,
+				String[] environment) {
+			final TestProcess process = new TestProcess();
+			synchronized (processes) {
+				processes.add(process);
+			}
+			return process;
+		}
+
+		public Process exec(String[] cmdLine, IPath workingDir,
+				String[] environment, IExecutionLogger logger) {
+			return exec(cmdLine, workingDir, environment);
+		}
+
+		public IEnvironment getEnvironment() {
+			return null;
+		}
+
+		public boolean isValidExecutableAndEquals(String name, IPath fName) {
+			return false;
+		}
+
+		public boolean isSafeEnvironmentVariable(String envVarName) {
+			return true;
+		}
+
+		int getCount() {
+			synchronized (processes) {
+				return processes.size();
+			}
+		}
+
+		TestProcess get(int index) {
+			synchronized (processes) {
+				return processes.get(index);
+			}
+		}
+	}
+
+	private static class TestInstallType extends
+			AbstractInterpreterInstallType implements
+			IInterpreterServerBootstrap {
+		final TestExecEnvironment exeEnv = new TestExecEnvironment();
+		final List<Process> activated = new ArrayList<Process>();
+
+		@Override
+		protected IInterpreterInstall doCreateInterpreterInstall(String id) {
+			return new AbstractInterpreterInstall(this, id) {
+				@Override
+				public IExecutionEnvironment getExecEnvironment() {
+					return exeEnv;
+				}
+			};
+		}
+
+		public String getName() {
+			return "Test";
+		}
+
+		public String getNatureId() {
+			return "org.eclipse.dltk.core.tests.nature";
+		}
+
+		@Override
+		protected String[] getPossibleInterpreterNames() {
+			return new String[0];
+		}
+
+		@Override
+		protected String getPluginId() {
+			return DLTKLaunchingPlugin.PLUGIN_ID;
+		}
+
+		@Override
+		protected ILog getLog() {
+			return DLTKLaunchingPlugin.getDefault().getLog();
+		}
+
+		@Override
+		protected IPath createPathFile(IDeployment deployment) {
+			return null;
+		}
+
+		public String[] getServerCommandLine(IInterpreterInstall install) {
+			return new String[] { "server" };
+		}
+
+		public boolean canActivate(IInterpreterInstall install,
+				InterpreterConfig config) {
+			return true;
+		}
+
+		public void activate(Process process, InterpreterConfig config,
+				String[] environment) throws IOException {
+			synchronized (activated) {
+				activated.add(process);
+			}
+		}
+	}
+
+	private interface Condition {
+		boolean isSatisfied();
+	}
+
+	private static void waitFor(Condition condition)
+			throws InterruptedException {
+		final long start = System.currentTimeMillis();
+		while (!condition.isSatisfied()) {
+			assertTrue(System.currentTimeMillis() - start < TIMEOUT);
+			Thread.sleep(50);
+		}
+	}
+
+	private final InterpreterProcessPool pool = InterpreterProcessPool
+			.getInstance();
+	private Preferences preferences;
+	private TestInstallType type;
+	private IInterpreterInstall install;
+
+	@Override
+	protected void setUp() throws Exception {
+		preferences = DLTKLaunchingPlugin.getDefault().getPluginPreferences();
+		type = new TestInstallType();
+		install = type.createInterpreterInstall(getName());
+		preferences.setValue(ScriptRuntime.PREF_PROCESS_POOL_SIZE, 1);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		preferences.setToDefault(ScriptRuntime.PREF_PROCESS_POOL_SIZE);
+		pool.dispose(install);
+	}
+
+	private Process acquire() {
+		return pool.acquire(install, new InterpreterConfig(), new String[0]);
+	}
+
+	public void testDisabled() {
+		preferences.setValue(ScriptRuntime.PREF_PROCESS_POOL_SIZE, 0);
+		assertNull(acquire());
+		assertNull(acquire());
+		assertEquals(0, type.exeEnv.getCount());
+	}
+
+	public void testWarmProcessActivated() throws Exception {
+		assertNull(acquire());
+		waitFor(new Condition() {
+			public boolean isSatisfied() {
+				return type.exeEnv.getCount() == 1;
+			}
+		});
+		Process process = null;
+		final long start = System.currentTimeMillis();
+		while (process == null) {
+			// the process could be not added to the pool yet
+			assertTrue(System.currentTimeMillis() - start < TIMEOUT);
+			Thread.sleep(50);
+			process = acquire();
+		}
+		assertSame(type.exeEnv.get(0), process);
+		assertEquals(1, type.activated.size());
+		assertSame(process, type.activated.get(0));
+		// refilled after the use
+		waitFor(new Condition() {
+			public boolean isSatisfied() {
+				return type.exeEnv.getCount() == 2;
+			}
+		});
+		assertFalse(type.exeEnv.get(0).destroyed);
+	}
+
+	public void testDrainedWhenDisabled() throws Exception {
+		assertNull(acquire());
+		waitFor(new Condition() {
+			public boolean isSatisfied() {
+				return type.exeEnv.getCount() == 1;
+			}
+		});
+		preferences.setValue(ScriptRuntime.PREF_PROCESS_POOL_SIZE, 0);
+		waitFor(new Condition() {
+			public boolean isSatisfied() {
+				return type.exeEnv.get(0).destroyed;
+			}
+		});
+		assertNull(acquire());
+		assertEquals(1, type.exeEnv.getCount());
+		assertTrue(type.activated.isEmpty());
+	}
+
+}
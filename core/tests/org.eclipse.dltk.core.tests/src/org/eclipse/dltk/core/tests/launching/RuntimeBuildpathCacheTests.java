@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.launching;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.IBuildpathEntry;
+import org.eclipse.dltk.core.IScriptProject;
+import org.eclipse.dltk.core.tests.ProjectSetup;
+import org.eclipse.dltk.core.tests.model.ModelTestsPlugin;
+import org.eclipse.dltk.internal.launching.RuntimeBuildpathCache;
+import org.eclipse.dltk.launching.IInterpreterInstallChangedListener;
+import org.eclipse.dltk.launching.IRuntimeBuildpathEntry;
+import org.eclipse.dltk.launching.PropertyChangeEvent;
+import org.eclipse.dltk.launching.ScriptRuntime;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link RuntimeBuildpathCache}, the buildpath of the project
+ * consists of the single source folder.
+ */
+public class RuntimeBuildpathCacheTests extends Assert {
+
+	@Rule
+	public final ProjectSetup project = new ProjectSetup(
+			ModelTestsPlugin.WORKSPACE, "completion");
+
+	private final RuntimeBuildpathCache cache = RuntimeBuildpathCache
+			.getInstance();
+
+	private IScriptProject scriptProject;
+
+	@Before
+	public void setUp() {
+		scriptProject = project.getScriptProject();
+		cache.startup();
+		cache.flush();
+	}
+
+	private IRuntimeBuildpathEntry[] compute() throws CoreException {
+		return ScriptRuntime.computeUnresolvedRuntimeBuildpath(scriptProject);
+	}
+
+	@Test
+	public void cachedCopies() throws CoreException {
+		final IRuntimeBuildpathEntry[] computed = compute();
+		assertTrue(computed.length > 0);
+		final IRuntimeBuildpathEntry[] cached = compute();
+		assertNotSame(computed, cached);
+		assertEquals(computed.length, cached.length);
+		for (int i = 0; i < computed.length; ++i) {
+			assertNotSame(computed[i], cached[i]);
+			assertEquals(computed[i], cached[i]);
+		}
+		final int property = cached[0].getBuildpathProperty();
+		computed[0].setBuildpathProperty(IRuntimeBuildpathEntry.BOOTSTRAP_ENTRY);
+		cached[0].setBuildpathProperty(IRuntimeBuildpathEntry.BOOTSTRAP_ENTRY);
+		cached[0] = null;
+		final IRuntimeBuildpathEntry[] again = compute();
+		assertNotNull(again[0]);
+		assertEquals(property, again[0].getBuildpathProperty());
+	}
+
+	@Test
+	public void unmodifiableLibraryPath() {
+		final List<String> entries = new ArrayList<String>();
+		entries.add("a");
+		cache.putLibraryPathEntries(scriptProject, false, entries,
+				cache.getGeneration());
+		entries.add("b");
+		final List<String> cached = cache.getLibraryPathEntries(
+				scriptProject, false);
+		assertEquals(1, cached.size());
+		try {
+			cached.add("c");
+			fail("the cached library path is modifiable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertNull(cache.getLibraryPathEntries(scriptProject, true));
+	}
+
+	/**
+	 * The values computed before the flush are not cached
+	 */
+	@Test
+	public void generationGuard() {
+		final int generation = cache.getGeneration();
+		cache.flush();
+		cache.putProjectBuildpath(scriptProject,
+				new IRuntimeBuildpathEntry[0], generation);
+		final List<String> entries = new ArrayList<String>();
+		cache.putLibraryPathEntries(scriptProject, false, entries, generation);
+		assertNull(cache.getProjectBuildpath(scriptProject));
+		assertNull(cache.getLibraryPathEntries(scriptProject, false));
+		cache.putProjectBuildpath(scriptProject,
+				new IRuntimeBuildpathEntry[0], cache.getGeneration());
+		assertNotNull(cache.getProjectBuildpath(scriptProject));
+	}
+
+	@Test
+	public void flushedOnBuildpathChange() throws CoreException {
+		compute();
+		assertNotNull(cache.getProjectBuildpath(scriptProject));
+		final IBuildpathEntry[] buildpath = scriptProject.getRawBuildpath();
+		final IBuildpathEntry[] changed = new IBuildpathEntry[buildpath.length];
+		for (int i = 0; i < buildpath.length; ++i) {
+			final IBuildpathEntry entry = buildpath[i];
+			if (entry.getEntryKind() == IBuildpathEntry.BPE_SOURCE) {
+				changed[i] = DLTKCore.newSourceEntry(entry.getPath(),
+						new IPath[] { new Path("excluded/") });
+			} else {
+				changed[i] = entry;
+			}
+		}
+		scriptProject.setRawBuildpath(changed, null);
+		assertNull(cache.getProjectBuildpath(scriptProject));
+	}
+
+	@Test
+	public void flushedOnInterpreterChange() throws CoreException {
+		final IInterpreterInstallChangedListener listener = cache;
+		compute();
+		listener.interpreterChanged(new PropertyChangeEvent(this,
+				IInterpreterInstallChangedListener.PROPERTY_NAME, "a", "b"));
+		assertNull(cache.getProjectBuildpath(scriptProject));
+		compute();
+		listener.interpreterAdded(null);
+		assertNull(cache.getProjectBuildpath(scriptProject));
+		compute();
+		listener.interpreterRemoved(null);
+		assertNull(cache.getProjectBuildpath(scriptProject));
+		compute();
+		listener.defaultInterpreterInstallChanged(null, null);
+		assertNull(cache.getProjectBuildpath(scriptProject));
+	}
+
+}
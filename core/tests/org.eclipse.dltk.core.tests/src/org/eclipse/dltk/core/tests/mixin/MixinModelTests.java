@@ -11,12 +11,20 @@
  *******************************************************************************/
 package org.eclipse.dltk.core.tests.mixin;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.dltk.core.ISourceModule;
 import org.eclipse.dltk.core.mixin.IMixinElement;
 import org.eclipse.dltk.core.mixin.MixinModel;
 import org.eclipse.dltk.core.search.index.MixinIndex;
+import org.eclipse.dltk.core.tests.TestMixinParser;
 import org.eclipse.dltk.core.tests.model.AbstractModelTests;
 import org.eclipse.dltk.core.tests.model.TestLanguageToolkit;
 
@@ -26,6 +34,8 @@ import org.eclipse.dltk.core.tests.model.TestLanguageToolkit;
 @SuppressWarnings("deprecation")
 public class MixinModelTests extends AbstractModelTests {
 
+	private static final long TIMEOUT = 10000;
+
 	private IProject project;
 
 	public MixinModelTests(String name) {
@@ -74,4 +84,65 @@ public class MixinModelTests extends AbstractModelTests {
 			model.stop();
 		}
 	}
+
+	/**
+	 * Each of the threads parses the module requesting the module parsed by
+	 * the other thread at the same time.
+	 */
+	public void testCrossReportModule() throws Throwable {
+		final MixinModel model = new MixinModel(TestLanguageToolkit
+				.getDefault());
+		final ISourceModule x = getSourceModule(project.getName(), "", "X.txt");
+		final ISourceModule x2 = getSourceModule(project.getName(), "",
+				"X2.txt");
+		final CyclicBarrier barrier = new CyclicBarrier(2);
+		final Set<ISourceModule> parsed = Collections
+				.synchronizedSet(new HashSet<ISourceModule>());
+		final Thread[] threads = new Thread[2];
+		final Throwable[] errors = new Throwable[2];
+		for (int i = 0; i < threads.length; ++i) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						model.reportModule(index == 0 ? x : x2);
+					} catch (Throwable e) {
+						errors[index] = e;
+					}
+				}
+			};
+		}
+		TestMixinParser.hook = new TestMixinParser.IParseHook() {
+			public void parsing(ISourceModule module) {
+				final Thread thread = Thread.currentThread();
+				if (thread != threads[0] && thread != threads[1]
+						|| !parsed.add(module)) {
+					return;
+				}
+				try {
+					barrier.await(TIMEOUT, TimeUnit.MILLISECONDS);
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+				model.reportModule(module.equals(x) ? x2 : x);
+			}
+		};
+		try {
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			for (int i = 0; i < threads.length; ++i) {
+				threads[i].join(TIMEOUT);
+				assertFalse("deadlock", threads[i].isAlive());
+				if (errors[i] != null) {
+					throw errors[i];
+				}
+			}
+			TestCase.assertEquals(1, model.find("{foo").length);
+		} finally {
+			TestMixinParser.hook = null;
+			model.stop();
+		}
+	}
 }
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.dltk.codeassist.CompletionSession;
+import org.eclipse.dltk.codeassist.ScriptCompletionEngine;
+import org.eclipse.dltk.compiler.env.IModuleSource;
+import org.eclipse.dltk.core.DLTKCore;
+import org.eclipse.dltk.core.IModelElement;
+import org.eclipse.dltk.core.ISourceModule;
+import org.eclipse.dltk.core.IType;
+import org.eclipse.dltk.core.ModelException;
+
+/**
+ * Completes the names of the types declared in the module, keeping the found
+ * types in the {@link CompletionSession}, so the following keystrokes at the
+ * same site only refine them.
+ */
+public class TestCompletionEngine extends ScriptCompletionEngine {
+
+	private static final String TYPES = "types";
+
+	private static int searchCount = 0;
+
+	/**
+	 * Returns the number of times the types were searched in the module
+	 * instead of being taken from the session.
+	 */
+	public static synchronized int getSearchCount() {
+		return searchCount;
+	}
+
+	private static synchronized void searched() {
+		++searchCount;
+	}
+
+	/**
+	 * Discards the session, so the next completion starts from scratch.
+	 */
+	public static void discardSessions() {
+		new TestCompletionEngine().discardSession();
+	}
+
+	public void complete(IModuleSource module, int position, int i) {
+		this.actualCompletionPosition = position;
+		this.offset = i;
+		final String contents = module.getSourceContents();
+		int start = position;
+		while (start > 0
+				&& Character.isJavaIdentifierPart(contents.charAt(start - 1))) {
+			--start;
+		}
+		final char[] prefix = contents.substring(start, position)
+				.toCharArray();
+		setSourceRange(start, position);
+		final CompletionSession session = openSession(module, start, null,
+				prefix);
+		List<IType> types = session != null ? session
+				.<IType> getCandidates(TYPES) : null;
+		if (types == null) {
+			types = collectTypes(module.getModelElement());
+			searched();
+			if (session != null) {
+				session.putCandidates(TYPES, types);
+			}
+		}
+		findTypes(prefix, true, types);
+	}
+
+	private static List<IType> collectTypes(IModelElement element) {
+		if (!(element instanceof ISourceModule)) {
+			return Collections.emptyList();
+		}
+		try {
+			final List<IType> types = new ArrayList<IType>();
+			Collections.addAll(types, ((ISourceModule) element).getTypes());
+			return types;
+		} catch (ModelException e) {
+			if (DLTKCore.DEBUG) {
+				e.printStackTrace();
+			}
+			return Collections.emptyList();
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.core.tests.model.TestLanguageToolkit;
+import org.eclipse.dltk.internal.compiler.env.AccessRuleSet;
+import org.eclipse.dltk.internal.core.search.DLTKSearchScope;
+
+/**
+ * Compares the membership of the paths in the scope with the sequential
+ * comparison of all the paths of the scope.
+ */
+public class DLTKSearchScopeTests extends TestCase {
+
+	private static final String[] SEGMENTS = { "P", "Q", "R", "S", "T3", "U",
+			"src", "pkg", "sub", "lib", "a", "b", "X.tcl", "srcx" };
+
+	private static class Entry {
+		final String fullPath;
+		final boolean isPackage;
+
+		Entry(String containerPath, String relativePath, boolean isPackage) {
+			this.fullPath = relativePath.length() == 0 ? containerPath
+					: containerPath + '/' + relativePath;
+			this.isPackage = isPackage;
+		}
+	}
+
+	private final DLTKSearchScope scope = new DLTKSearchScope(
+			TestLanguageToolkit.getDefault());
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	private void add(String containerPath, String relativePath,
+			boolean isPackage) throws Exception {
+		final Method method = DLTKSearchScope.class.getDeclaredMethod("add",
+				String.class, String.class, String.class, boolean.class,
+				AccessRuleSet.class);
+		method.setAccessible(true);
+		final String project = containerPath.substring(1).split("/")[0];
+		method.invoke(scope, project, relativePath, containerPath, isPackage,
+				null);
+		entries.add(new Entry(containerPath, relativePath, isPackage));
+	}
+
+	/*
+	 * The lookup performed before the full paths were hashed
+	 */
+	private boolean enclosesSequentially(String path) {
+		for (Entry entry : entries) {
+			if (encloses(entry.fullPath, path, entry.isPackage)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean encloses(String enclosingPath, String path,
+			boolean isPackage) {
+		path = normalize(path);
+		int pathLength = path.length();
+		int enclosingLength = enclosingPath.length();
+		if (pathLength < enclosingLength) {
+			return false;
+		}
+		if (enclosingLength == 0) {
+			return true;
+		}
+		if (pathLength == enclosingLength) {
+			return path.equals(enclosingPath);
+		}
+		if (!isPackage) {
+			return path.startsWith(enclosingPath)
+					&& path.charAt(enclosingLength) == '/';
+		}
+		return path.startsWith(enclosingPath)
+				&& (enclosingLength == path.lastIndexOf('/') || enclosingLength == path
+						.length());
+	}
+
+	private static String normalize(String path) {
+		int index = path.length() - 1;
+		while (index >= 0 && path.charAt(index) == '/') {
+			index--;
+		}
+		return path.substring(0, index + 1);
+	}
+
+	private static void collectPaths(String prefix, int depth,
+			List<String> paths) {
+		if (depth == 0) {
+			return;
+		}
+		for (String segment : SEGMENTS) {
+			final String path = prefix + '/' + segment;
+			paths.add(path);
+			collectPaths(path, depth - 1, paths);
+		}
+	}
+
+	private void assertSameMembership() {
+		final List<String> paths = new ArrayList<String>();
+		paths.add("");
+		paths.add("/");
+		collectPaths("", 4, paths);
+		int enclosed = 0;
+		for (String path : paths) {
+			final String[] variants = { path, path + '/', path + "//X.tcl",
+					path + "X.tcl" };
+			for (String variant : variants) {
+				final boolean expected = enclosesSequentially(variant);
+				assertEquals(variant, expected, scope.encloses(variant));
+				if (expected) {
+					++enclosed;
+				}
+			}
+		}
+		assertTrue(enclosed > 0);
+	}
+
+	public void testFolders() throws Exception {
+		add("/P", "", false);
+		add("/Q/src", "", false);
+		add("/R", "lib", false);
+		assertSameMembership();
+	}
+
+	public void testPackages() throws Exception {
+		add("/Q/src", "pkg", true);
+		add("/Q/src", "pkg/sub", true);
+		add("/S/a", "b", true);
+		add("/R/lib", "", true);
+		assertSameMembership();
+	}
+
+	public void testSamePathAsFolderAndPackage() throws Exception {
+		add("/R/lib", "", true);
+		add("/R", "lib", false);
+		add("/Q", "src/pkg", false);
+		add("/Q/src", "pkg", true);
+		assertSameMembership();
+	}
+
+	public void testNestedEntries() throws Exception {
+		add("/Q", "", false);
+		add("/Q/src", "", false);
+		add("/Q/src", "pkg", true);
+		add("/Q/src/pkg", "sub", false);
+		assertSameMembership();
+	}
+
+	public void testModified() throws Exception {
+		add("/Q/src", "pkg", true);
+		assertSameMembership();
+		add("/P", "src", false);
+		assertSameMembership();
+		// rehashed
+		for (int i = 0; i < 20; ++i) {
+			add("/U" + i, "src", false);
+		}
+		add("/U", "a", true);
+		assertSameMembership();
+	}
+
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.core.search.indexing.IndexManager;
+import org.eclipse.dltk.internal.core.ModelManager;
+
+public class IndexManagerTests extends TestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	/**
+	 * The reader admitted while the index is merged requests the index from
+	 * the manager, so the index should be saved without holding the lock of
+	 * the manager.
+	 */
+	public void testReaderRequestsIndexDuringSave() throws Exception {
+		final IndexManager manager = ModelManager.getModelManager()
+				.getIndexManager();
+		final boolean[] requested = new boolean[1];
+		final boolean[] admitted = new boolean[1];
+		final Index index = new Index("test.index", "/test") {
+			@Override
+			public boolean hasChanged() {
+				return true;
+			}
+
+			@Override
+			public boolean isRebuildable() {
+				return false;
+			}
+
+			@Override
+			public void save() throws IOException {
+				// simulates the merge admitting the snapshot readers
+				monitor.enterSnapshotReads();
+				try {
+					final Thread reader = new Thread() {
+						@Override
+						public void run() {
+							monitor.enterRead();
+							try {
+								manager.getIndex("test.index");
+								requested[0] = true;
+							} finally {
+								monitor.exitRead();
+							}
+						}
+					};
+					reader.setDaemon(true);
+					reader.start();
+					reader.join(TIMEOUT);
+					admitted[0] = !reader.isAlive();
+				} catch (InterruptedException e) {
+					// fail below
+				} finally {
+					monitor.exitSnapshotReads();
+				}
+			}
+		};
+		final Exception[] error = new Exception[1];
+		final Thread saver = new Thread() {
+			@Override
+			public void run() {
+				index.monitor.enterWrite();
+				try {
+					manager.saveIndex(index);
+				} catch (IOException e) {
+					error[0] = e;
+				} finally {
+					index.monitor.exitWrite();
+				}
+			}
+		};
+		saver.setDaemon(true);
+		saver.start();
+		saver.join(TIMEOUT * 2);
+		assertFalse("deadlock", saver.isAlive());
+		if (error[0] != null) {
+			throw error[0];
+		}
+		assertTrue(admitted[0]);
+		assertTrue(requested[0]);
+	}
+
+}
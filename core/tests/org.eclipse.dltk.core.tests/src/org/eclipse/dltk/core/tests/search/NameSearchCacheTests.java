@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.core.search.SearchPattern;
+import org.eclipse.dltk.core.search.index.Index;
+import org.eclipse.dltk.internal.core.search.NameSearchCache;
+
+public class NameSearchCacheTests extends TestCase {
+
+	private static final String KEY = "key";
+
+	private static final int PREFIX = SearchPattern.R_PREFIX_MATCH;
+	private static final int PREFIX_CASE = SearchPattern.R_PREFIX_MATCH
+			| SearchPattern.R_CASE_SENSITIVE;
+	private static final int EXACT = SearchPattern.R_EXACT_MATCH;
+
+	private static class TestRecord extends NameSearchCache.Record {
+		TestRecord(String name) {
+			super(name.toCharArray(), "/" + name);
+		}
+	}
+
+	private static class TestIndex extends Index {
+		TestIndex() {
+			super("test.index", "/test");
+		}
+
+		void touch() {
+			modified();
+		}
+	}
+
+	private final NameSearchCache<TestRecord> cache = new NameSearchCache<TestRecord>(
+			3, 100);
+	private final TestIndex index = new TestIndex();
+	private final Index[] indexes = new Index[] { index };
+
+	private static List<TestRecord> records(String... names) {
+		final List<TestRecord> records = new ArrayList<TestRecord>();
+		for (String name : names) {
+			records.add(new TestRecord(name));
+		}
+		return records;
+	}
+
+	private static void assertNames(List<TestRecord> records, String... names) {
+		assertNotNull(records);
+		assertEquals(names.length, records.size());
+		for (int i = 0; i < names.length; ++i) {
+			assertEquals(names[i], new String(records.get(i).simpleName));
+		}
+	}
+
+	private void store(String name, int matchRule, String... names) {
+		cache.store(KEY, name != null ? name.toCharArray() : null, matchRule,
+				new NameSearchCache.IndexState(indexes), records(names));
+	}
+
+	private List<TestRecord> lookup(String name, int matchRule) {
+		return cache.lookup(KEY, name.toCharArray(), matchRule, indexes);
+	}
+
+	public void testSameQuery() {
+		store("Fo", PREFIX, "Foo", "fob");
+		assertNames(lookup("Fo", PREFIX), "Foo", "fob");
+		assertNull(cache.lookup("other", "Fo".toCharArray(), PREFIX, indexes));
+	}
+
+	public void testLongerPrefixCovered() {
+		store("Fo", PREFIX, "Foo", "fob", "Fox");
+		assertNames(lookup("foo", PREFIX), "Foo");
+		assertNames(lookup("Fo", PREFIX_CASE), "Foo", "Fox");
+		assertNames(lookup("fox", EXACT), "Fox");
+	}
+
+	public void testShorterPrefixNotCovered() {
+		store("Foo", PREFIX, "Foo");
+		assertNull(lookup("Fo", PREFIX));
+	}
+
+	public void testCaseSensitivePrefix() {
+		store("Fo", PREFIX_CASE, "Foo", "Fox");
+		assertNames(lookup("Fox", PREFIX_CASE), "Fox");
+		assertNull(lookup("fox", PREFIX));
+		assertNull(lookup("fo", PREFIX_CASE));
+	}
+
+	public void testExactNotCovering() {
+		store("Foo", EXACT, "Foo");
+		assertNull(lookup("Foox", PREFIX));
+		assertNull(lookup("Foox", EXACT));
+	}
+
+	public void testAllNamesCovering() {
+		store(null, PREFIX, "Foo", "Bar", "Baz");
+		assertNames(lookup("Ba", PREFIX), "Bar", "Baz");
+	}
+
+	public void testPatternNotCovered() {
+		store("Fo", PREFIX, "Foo");
+		assertNull(lookup("F*o", SearchPattern.R_PATTERN_MATCH));
+		assertNull(lookup("FO", SearchPattern.R_CAMELCASE_MATCH));
+	}
+
+	public void testInvalidatedByModification() {
+		store("Fo", PREFIX, "Foo");
+		index.touch();
+		assertNull(lookup("Fo", PREFIX));
+		assertNull(lookup("Foo", PREFIX));
+	}
+
+	public void testInvalidatedByOtherIndexes() {
+		store("Fo", PREFIX, "Foo");
+		final Index[] other = new Index[] { index, new TestIndex() };
+		assertNull(cache.lookup(KEY, "Fo".toCharArray(), PREFIX, other));
+	}
+
+	public void testModifiedWhileQueried() {
+		final NameSearchCache.IndexState state = new NameSearchCache.IndexState(
+				indexes);
+		index.touch();
+		cache.store(KEY, "Fo".toCharArray(), PREFIX, state, records("Foo"));
+		assertNull(lookup("Fo", PREFIX));
+	}
+
+	public void testResultLimit() {
+		final NameSearchCache<TestRecord> small = new NameSearchCache<TestRecord>(
+				3, 1);
+		small.store(KEY, "Fo".toCharArray(), PREFIX,
+				new NameSearchCache.IndexState(indexes), records("Foo", "Fox"));
+		assertNull(small.lookup(KEY, "Fo".toCharArray(), PREFIX, indexes));
+	}
+
+	public void testEntryLimit() {
+		store("A", PREFIX, "A");
+		store("B", PREFIX, "B");
+		store("C", PREFIX, "C");
+		// the most recently used
+		assertNames(lookup("A", PREFIX), "A");
+		store("D", PREFIX, "D");
+		assertNull(lookup("B", PREFIX));
+		assertNames(lookup("A", PREFIX), "A");
+	}
+
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.core.tests.search;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.core.search.indexing.ReadWriteMonitor;
+
+public class ReadWriteMonitorTests extends TestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private final ReadWriteMonitor monitor = new ReadWriteMonitor();
+
+	/**
+	 * The reader admitted during the merge enters the nested read after the
+	 * writer stopped admitting the new readers.
+	 */
+	public void testNestedReadDuringMerge() throws InterruptedException {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch closing = new CountDownLatch(1);
+		final boolean[] nested = new boolean[1];
+		monitor.enterWrite();
+		monitor.enterSnapshotReads();
+		final Thread reader = new Thread() {
+			@Override
+			public void run() {
+				monitor.enterRead();
+				try {
+					entered.countDown();
+					closing.await(TIMEOUT, TimeUnit.MILLISECONDS);
+					// let the writer block in exitSnapshotReads()
+					Thread.sleep(100);
+					monitor.enterRead();
+					nested[0] = true;
+					monitor.exitRead();
+				} catch (InterruptedException e) {
+					// fail below
+				} finally {
+					monitor.exitRead();
+				}
+			}
+		};
+		final Thread writer = new Thread() {
+			@Override
+			public void run() {
+				closing.countDown();
+				monitor.exitSnapshotReads();
+			}
+		};
+		reader.setDaemon(true);
+		writer.setDaemon(true);
+		reader.start();
+		assertTrue(entered.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		writer.start();
+		reader.join(TIMEOUT);
+		writer.join(TIMEOUT);
+		assertFalse("deadlock", reader.isAlive() || writer.isAlive());
+		assertTrue(nested[0]);
+		monitor.exitWrite();
+	}
+
+	/**
+	 * The new readers are blocked after the merge until the writer exits.
+	 */
+	public void testNewReaderWaitsAfterMerge() throws InterruptedException {
+		final CountDownLatch entered = new CountDownLatch(1);
+		monitor.enterWrite();
+		monitor.enterSnapshotReads();
+		monitor.exitSnapshotReads();
+		final Thread reader = new Thread() {
+			@Override
+			public void run() {
+				monitor.enterRead();
+				entered.countDown();
+				monitor.exitRead();
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+		assertFalse(entered.await(200, TimeUnit.MILLISECONDS));
+		monitor.exitWrite();
+		assertTrue(entered.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		reader.join(TIMEOUT);
+	}
+
+}
@@ -13,12 +13,36 @@ package org.eclipse.dltk.debug.dbgp.tests;
 
 import org.eclipse.dltk.dbgp.DbgpRequest;
 import org.eclipse.dltk.dbgp.IDbgpCommunicator;
+import org.eclipse.dltk.dbgp.IDbgpResponseFuture;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.debug.core.IDebugOptions;
 import org.eclipse.dltk.debug.core.model.DefaultDebugOptions;
+import org.w3c.dom.Element;
 
 public abstract class AbstractCommunicator implements IDbgpCommunicator {
 
+	public IDbgpResponseFuture communicateAsync(final DbgpRequest request)
+			throws DbgpException {
+		final Element response = communicate(request);
+		return new IDbgpResponseFuture() {
+			public DbgpRequest getRequest() {
+				return request;
+			}
+
+			public boolean isDone() {
+				return true;
+			}
+
+			public Element get() {
+				return response;
+			}
+
+			public void cancel() {
+				// empty
+			}
+		};
+	}
+
 	public void send(DbgpRequest request) throws DbgpException {
 		// empty
 	}
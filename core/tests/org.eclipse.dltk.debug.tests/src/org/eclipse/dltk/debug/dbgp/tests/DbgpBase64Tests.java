@@ -35,6 +35,12 @@ public class DbgpBase64Tests extends TestCase {
 		assertEquals("123456789", Base64Helper.decodeString("MTIzNDU2Nzg5"));
 	}
 
+	public void testDecodePadded() {
+		assertEquals("1", Base64Helper.decodeString("MQ=="));
+		assertEquals("12", Base64Helper.decodeString("MTI="));
+		assertEquals("1234", Base64Helper.decodeString("MTIz\r\nNA=="));
+	}
+
 	public void testDecodeChunked() {
 		assertEquals("123", Base64Helper.decodeString("MTIz"));
 		assertEquals("123456789", Base64Helper.decodeString("MTIz" + "\n"
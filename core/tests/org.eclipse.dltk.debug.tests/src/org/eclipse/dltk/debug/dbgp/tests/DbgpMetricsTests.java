@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.debug.dbgp.tests;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.dbgp.DbgpMetrics;
+import org.eclipse.dltk.dbgp.DbgpMetrics.CommandMetrics;
+import org.eclipse.dltk.dbgp.internal.DbgpRawPacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpPacketReceiver;
+
+@SuppressWarnings("nls")
+public class DbgpMetricsTests extends TestCase {
+
+	private static final long MILLIS = 1000000;
+
+	private final DbgpMetrics metrics = new DbgpMetrics(1);
+
+	public void testTraffic() {
+		metrics.packetSent(10);
+		metrics.packetSent(5);
+		metrics.packetReceived(7, 100);
+		assertEquals(15, metrics.getBytesOut());
+		assertEquals(2, metrics.getPacketsOut());
+		assertEquals(7, metrics.getBytesIn());
+		assertEquals(1, metrics.getPacketsIn());
+		assertEquals(100, metrics.getParseTime());
+	}
+
+	public void testQueueWait() {
+		metrics.requestQueued(3);
+		metrics.requestQueued(4);
+		assertEquals(2, metrics.getQueueWaitCount());
+		assertEquals(7, metrics.getQueueWaitTime());
+	}
+
+	public void testCommandHistogram() {
+		metrics.commandCompleted("run", MILLIS / 2);
+		metrics.commandCompleted("run", 3 * MILLIS);
+		metrics.commandCompleted("run", 2000 * MILLIS);
+		final List<CommandMetrics> commands = metrics.getCommands();
+		assertEquals(1, commands.size());
+		final CommandMetrics command = commands.get(0);
+		assertEquals("run", command.getCommand());
+		assertEquals(3, command.getCount());
+		assertEquals(MILLIS / 2 + 2003 * MILLIS, command.getTotalTime());
+		assertEquals(2000 * MILLIS, command.getMaxTime());
+		final long[] histogram = command.getHistogram();
+		assertEquals(DbgpMetrics.getBucketBounds().length + 1,
+				histogram.length);
+		// < 1ms, 2..5ms and the longer ones
+		assertEquals(1, histogram[0]);
+		assertEquals(1, histogram[2]);
+		assertEquals(1, histogram[histogram.length - 1]);
+		long total = 0;
+		for (long count : histogram) {
+			total += count;
+		}
+		assertEquals(3, total);
+	}
+
+	public void testCommandsSortedByTotalTime() {
+		metrics.commandCompleted("a", 1);
+		metrics.commandCompleted("b", 5);
+		metrics.commandCompleted("c", 2);
+		metrics.commandCompleted("a", 3);
+		final List<CommandMetrics> commands = metrics.getCommands();
+		assertEquals(3, commands.size());
+		assertEquals("b", commands.get(0).getCommand());
+		assertEquals("a", commands.get(1).getCommand());
+		assertEquals("c", commands.get(2).getCommand());
+	}
+
+	public void testReceiverCountsPackets() throws Exception {
+		final DbgpPacketReceiver receiver = new DbgpPacketReceiver();
+		receiver.setMetrics(metrics);
+		final String xml = "<notify name=\"n\"/>";
+		for (int i = 0; i < 3; ++i) {
+			receiver.dispatch(DbgpRawPacket.readPacket(new ByteArrayInputStream(
+					(xml.length() + "\0" + xml + "\0").getBytes("ASCII"))));
+		}
+		assertEquals(3, metrics.getPacketsIn());
+		assertEquals(3 * xml.length(), metrics.getBytesIn());
+		assertEquals(0, metrics.getPacketsOut());
+		for (int i = 0; i < 3; ++i) {
+			assertEquals("n", receiver.getNotifyPacket().getName());
+		}
+	}
+
+}
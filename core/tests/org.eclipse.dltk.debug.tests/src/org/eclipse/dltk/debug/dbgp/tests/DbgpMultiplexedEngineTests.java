@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.debug.dbgp.tests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.dbgp.IDbgpRawListener;
+import org.eclipse.dltk.dbgp.IDbgpRawPacket;
+import org.eclipse.dltk.dbgp.internal.DbgpMultiplexedEngine;
+import org.eclipse.dltk.dbgp.internal.DbgpMultiplexer;
+import org.eclipse.dltk.dbgp.internal.IDbgpTerminationListener;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpNotifyPacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpPacketReceiver;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpStreamPacket;
+
+@SuppressWarnings("nls")
+public class DbgpMultiplexedEngineTests extends TestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private ServerSocketChannel server;
+	private Socket client;
+	private DbgpMultiplexedEngine engine;
+
+	protected void setUp() throws Exception {
+		server = ServerSocketChannel.open();
+		server.socket().bind(
+				new InetSocketAddress(InetAddress.getByName(null), 0));
+		client = new Socket(InetAddress.getByName(null), server.socket()
+				.getLocalPort());
+	}
+
+	protected void tearDown() throws Exception {
+		if (engine != null) {
+			engine.requestTermination();
+		}
+		client.close();
+		server.close();
+	}
+
+	private void createEngine(int readTimeout) throws IOException {
+		engine = new DbgpMultiplexedEngine(server.accept(), DbgpMultiplexer
+				.getDefault(), readTimeout);
+	}
+
+	private static byte[] createNotify(int index) throws IOException {
+		final String xml = "<notify name=\"n" + index + "\"/>";
+		return (xml.length() + "\0" + xml + "\0").getBytes("ASCII");
+	}
+
+	private static byte[] createStream(String type) throws IOException {
+		final String xml = "<stream type=\"" + type + "\"></stream>";
+		return (xml.length() + "\0" + xml + "\0").getBytes("ASCII");
+	}
+
+	private static class TerminationListener implements
+			IDbgpTerminationListener {
+		final CountDownLatch terminated = new CountDownLatch(1);
+		Exception cause;
+
+		public void objectTerminated(Object object, Exception e) {
+			cause = e;
+			terminated.countDown();
+		}
+	}
+
+	/**
+	 * More packets than the workers are allowed to queue are sent while the
+	 * delivery is blocked, so the reading is suspended and resumed.
+	 */
+	public void testPacketsDeliveredInOrder() throws Exception {
+		createEngine(0);
+		final CountDownLatch firstReceived = new CountDownLatch(1);
+		engine.addRawListener(new IDbgpRawListener() {
+			public void dbgpPacketReceived(int sessionId, IDbgpRawPacket content) {
+				if (firstReceived.getCount() != 0) {
+					firstReceived.countDown();
+					try {
+						Thread.sleep(500);
+					} catch (InterruptedException e) {
+						// ignore
+					}
+				}
+			}
+
+			public void dbgpPacketSent(int sessionId, IDbgpRawPacket content) {
+			}
+		});
+		final int count = 5000;
+		final Thread writer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					final OutputStream output = client.getOutputStream();
+					for (int i = 0; i < count; ++i) {
+						output.write(createNotify(i));
+					}
+					output.flush();
+				} catch (IOException e) {
+					// fail below
+				}
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		assertTrue(firstReceived.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		for (int i = 0; i < count; ++i) {
+			assertEquals("n" + i, engine.getNotifyPacket().getName());
+		}
+		writer.join(TIMEOUT);
+		assertFalse(writer.isAlive());
+	}
+
+	public void testReadTimeout() throws Exception {
+		createEngine(300);
+		final TerminationListener listener = new TerminationListener();
+		engine.addTerminationListener(listener);
+		assertTrue(listener.terminated.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertTrue(listener.cause instanceof SocketTimeoutException);
+	}
+
+	public void testReceivingResetsReadTimeout() throws Exception {
+		createEngine(1500);
+		final TerminationListener listener = new TerminationListener();
+		engine.addTerminationListener(listener);
+		final OutputStream output = client.getOutputStream();
+		for (int i = 0; i < 5; ++i) {
+			output.write(createNotify(i));
+			output.flush();
+			assertFalse(listener.terminated.await(500, TimeUnit.MILLISECONDS));
+		}
+		for (int i = 0; i < 5; ++i) {
+			assertEquals("n" + i, engine.getNotifyPacket().getName());
+		}
+	}
+
+	public void testTerminatedWhenClosed() throws Exception {
+		createEngine(0);
+		final TerminationListener listener = new TerminationListener();
+		engine.addTerminationListener(listener);
+		client.close();
+		assertTrue(listener.terminated.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertNull(listener.cause);
+		engine.waitTerminated();
+	}
+
+	/**
+	 * The packets queued before the handler is set are delivered to it first,
+	 * the others are delivered by the workers as they are received.
+	 */
+	public void testPacketHandler() throws Exception {
+		createEngine(0);
+		final OutputStream output = client.getOutputStream();
+		output.write(createNotify(0));
+		output.write(createNotify(1));
+		output.flush();
+		assertEquals("n0", engine.getNotifyPacket().getName());
+		final List<String> received = new ArrayList<String>();
+		final List<Thread> threads = new ArrayList<Thread>();
+		final CountDownLatch done = new CountDownLatch(1);
+		engine.setPacketHandler(new DbgpPacketReceiver.IPacketHandler() {
+			public void notifyReceived(DbgpNotifyPacket packet) {
+				synchronized (received) {
+					received.add(packet.getName());
+					threads.add(Thread.currentThread());
+				}
+			}
+
+			public void streamReceived(DbgpStreamPacket packet) {
+				synchronized (received) {
+					received.add(packet.isStdout() ? "stdout" : "stderr");
+					threads.add(Thread.currentThread());
+				}
+				done.countDown();
+			}
+		});
+		output.write(createNotify(2));
+		output.write(createNotify(3));
+		output.write(createStream("stdout"));
+		output.flush();
+		assertTrue(done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		synchronized (received) {
+			assertEquals("[n1, n2, n3, stdout]", received.toString());
+			assertTrue(threads.get(threads.size() - 1) != Thread
+					.currentThread());
+		}
+	}
+
+}
@@ -10,12 +10,21 @@
 package org.eclipse.dltk.debug.dbgp.tests;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.eclipse.dltk.dbgp.DbgpRequest;
+import org.eclipse.dltk.dbgp.IDbgpProperty;
+import org.eclipse.dltk.dbgp.IDbgpResponseFuture;
 import org.eclipse.dltk.dbgp.commands.IDbgpPropertyCommands;
+import org.eclipse.dltk.dbgp.exceptions.DbgpDebuggingEngineException;
 import org.eclipse.dltk.dbgp.exceptions.DbgpException;
 import org.eclipse.dltk.dbgp.exceptions.DbgpProtocolException;
 import org.eclipse.dltk.dbgp.internal.commands.DbgpPropertyCommands;
+import org.eclipse.dltk.debug.core.DebugOption;
+import org.eclipse.dltk.debug.core.IDebugOptions;
+import org.eclipse.dltk.debug.core.model.DefaultDebugOptions;
 import org.eclipse.osgi.util.NLS;
 import org.w3c.dom.Element;
 
@@ -97,4 +106,126 @@ public class DbgpPropertyCommandsTests extends DbgpProtocolTests {
 		// boolean success = commands.setPropery("prop", 1, "val");
 		// assertTrue(success);
 	}
+
+	/**
+	 * Returns the pages of the property and records the sent requests and
+	 * the received responses, the page 5 is missing.
+	 */
+	private class PagingCommunicator extends AbstractCommunicator {
+		private static final int MISSING_PAGE = 5;
+
+		final List<String> log = new ArrayList<String>();
+		private final boolean pipelined;
+
+		PagingCommunicator(boolean pipelined) {
+			this.pipelined = pipelined;
+		}
+
+		public Element communicate(DbgpRequest request) throws DbgpException {
+			log.add("send " + request.getOption("-p"));
+			return receive(request);
+		}
+
+		Element receive(DbgpRequest request) throws DbgpException {
+			final String page = request.getOption("-p");
+			log.add("receive " + page);
+			assertEquals("name", request.getOption("-n"));
+			assertEquals("2", request.getOption("-d"));
+			if (Integer.parseInt(page) == MISSING_PAGE) {
+				throw new DbgpDebuggingEngineException(300);
+			}
+			try {
+				return makePropertyGetResponse("name", "name", "array");
+			} catch (IOException e) {
+				throw new DbgpException(e);
+			}
+		}
+
+		public IDbgpResponseFuture communicateAsync(final DbgpRequest request)
+				throws DbgpException {
+			log.add("send " + request.getOption("-p"));
+			return new IDbgpResponseFuture() {
+				public DbgpRequest getRequest() {
+					return request;
+				}
+
+				public boolean isDone() {
+					return false;
+				}
+
+				public Element get() throws DbgpException {
+					return receive(request);
+				}
+
+				public void cancel() {
+					// empty
+				}
+			};
+		}
+
+		public IDebugOptions getDebugOptions() {
+			return new DefaultDebugOptions() {
+				public boolean get(BooleanOption option) {
+					if (option == DebugOption.DBGP_ASYNC) {
+						return pipelined;
+					}
+					return super.get(option);
+				}
+			};
+		}
+	}
+
+	public void testPipelinedPages() throws Exception {
+		final PagingCommunicator communicator = new PagingCommunicator(true);
+		final DbgpPropertyCommands pageCommands = new DbgpPropertyCommands(
+				communicator);
+		assertTrue(pageCommands.isPipelined());
+		final IDbgpProperty[] properties = pageCommands.getPropertyPages(
+				new int[] { 3, 2, 4 }, "name", 2);
+		assertEquals(3, properties.length);
+		for (int i = 0; i < properties.length; ++i) {
+			assertNotNull(properties[i]);
+		}
+		// all the requests are sent before the first response is awaited
+		assertEquals(Arrays.asList("send 3", "send 2", "send 4", "receive 3",
+				"receive 2", "receive 4"), communicator.log);
+	}
+
+	public void testSequentialPages() throws Exception {
+		final PagingCommunicator communicator = new PagingCommunicator(false);
+		final DbgpPropertyCommands pageCommands = new DbgpPropertyCommands(
+				communicator);
+		assertFalse(pageCommands.isPipelined());
+		final IDbgpProperty[] properties = pageCommands.getPropertyPages(
+				new int[] { 3, 2 }, "name", 2);
+		assertNotNull(properties[0]);
+		assertNotNull(properties[1]);
+		assertEquals(Arrays.asList("send 3", "receive 3", "send 2",
+				"receive 2"), communicator.log);
+	}
+
+	public void testMissingNeighbourPage() throws Exception {
+		for (int i = 0; i < 2; ++i) {
+			final boolean pipelined = i == 0;
+			final IDbgpProperty[] properties = new DbgpPropertyCommands(
+					new PagingCommunicator(pipelined)).getPropertyPages(
+					new int[] { 4, 5, 6 }, "name", 2);
+			assertNotNull(properties[0]);
+			assertNull(properties[1]);
+			assertNotNull(properties[2]);
+		}
+	}
+
+	public void testMissingRequiredPage() throws Exception {
+		for (int i = 0; i < 2; ++i) {
+			final boolean pipelined = i == 0;
+			try {
+				new DbgpPropertyCommands(new PagingCommunicator(pipelined))
+						.getPropertyPages(new int[] { 5, 4 }, "name", 2);
+				fail();
+			} catch (DbgpDebuggingEngineException e) {
+				assertEquals(300, e.getCode());
+			}
+		}
+	}
 }
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.debug.dbgp.tests;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.dbgp.DbgpBaseCommands;
+import org.eclipse.dltk.dbgp.DbgpMetrics;
+import org.eclipse.dltk.dbgp.DbgpRequest;
+import org.eclipse.dltk.dbgp.IDbgpRawListener;
+import org.eclipse.dltk.dbgp.IDbgpResponseFuture;
+import org.eclipse.dltk.dbgp.internal.DbgpRawPacket;
+import org.eclipse.dltk.dbgp.internal.IDbgpDebugingEngine;
+import org.eclipse.dltk.dbgp.internal.IDbgpTerminationListener;
+import org.eclipse.dltk.dbgp.internal.commands.DbgpDebuggingEngineCommunicator;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpNotifyPacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpPacketReceiver;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpResponsePacket;
+import org.eclipse.dltk.dbgp.internal.packets.DbgpStreamPacket;
+import org.eclipse.dltk.debug.core.model.DefaultDebugOptions;
+
+@SuppressWarnings("nls")
+public class DbgpResponseFutureTests extends TestCase {
+
+	/**
+	 * The engine delivering the responses supplied by the test
+	 */
+	private static class TestEngine implements IDbgpDebugingEngine {
+		final DbgpPacketReceiver receiver = new DbgpPacketReceiver();
+		final List<DbgpRequest> sent = new ArrayList<DbgpRequest>();
+		final DbgpMetrics metrics = new DbgpMetrics(0);
+
+		public void sendCommand(DbgpRequest command) {
+			sent.add(command);
+		}
+
+		public DbgpResponsePacket getResponsePacket(int transactionId,
+				int timeout) throws InterruptedException {
+			return receiver.getResponsePacket(transactionId, timeout);
+		}
+
+		public boolean hasResponsePacket(int transactionId) {
+			return receiver.hasResponsePacket(transactionId);
+		}
+
+		public void discardResponsePacket(int transactionId) {
+			receiver.discardResponsePacket(transactionId);
+		}
+
+		public DbgpNotifyPacket getNotifyPacket() throws InterruptedException {
+			return receiver.getNotifyPacket();
+		}
+
+		public DbgpStreamPacket getStreamPacket() throws InterruptedException {
+			return receiver.getStreamPacket();
+		}
+
+		public DbgpMetrics getMetrics() {
+			return metrics;
+		}
+
+		public void addRawListener(IDbgpRawListener listener) {
+		}
+
+		public void removeRawListenr(IDbgpRawListener listener) {
+		}
+
+		public void addTerminationListener(IDbgpTerminationListener listener) {
+		}
+
+		public void removeTerminationListener(
+				IDbgpTerminationListener listener) {
+		}
+
+		public void requestTermination() {
+			receiver.terminate();
+		}
+
+		public void waitTerminated() {
+		}
+
+		void respond(int transactionId) throws Exception {
+			final String xml = "<response command=\"status\" transaction_id=\""
+					+ transactionId + "\" status=\"break\" reason=\"ok\"/>";
+			final byte[] bytes = xml.getBytes("ASCII");
+			final byte[] packet = (bytes.length + "\0" + xml + "\0")
+					.getBytes("ASCII");
+			receiver.dispatch(DbgpRawPacket.readPacket(new ByteArrayInputStream(
+					packet)));
+		}
+	}
+
+	private TestEngine engine;
+	private DbgpDebuggingEngineCommunicator communicator;
+
+	protected void setUp() throws Exception {
+		engine = new TestEngine();
+		communicator = new DbgpDebuggingEngineCommunicator(engine,
+				DefaultDebugOptions.getDefaultInstance());
+	}
+
+	private static DbgpRequest createRequest(int transactionId) {
+		final DbgpRequest request = new DbgpRequest("status", true);
+		request.addOption(DbgpBaseCommands.ID_OPTION, transactionId);
+		return request;
+	}
+
+	private static String getTransactionId(IDbgpResponseFuture future)
+			throws Exception {
+		return future.get().getAttribute("transaction_id");
+	}
+
+	public void testOutOfOrderResponses() throws Exception {
+		final IDbgpResponseFuture first = communicator
+				.communicateAsync(createRequest(1));
+		final IDbgpResponseFuture second = communicator
+				.communicateAsync(createRequest(2));
+		assertEquals(2, engine.sent.size());
+		assertFalse(first.isDone());
+		assertFalse(second.isDone());
+		engine.respond(2);
+		assertFalse(first.isDone());
+		assertTrue(second.isDone());
+		engine.respond(1);
+		assertTrue(first.isDone());
+		assertEquals("1", getTransactionId(first));
+		assertEquals("2", getTransactionId(second));
+	}
+
+	public void testCancelledResponseIsDropped() throws Exception {
+		final IDbgpResponseFuture future = communicator
+				.communicateAsync(createRequest(3));
+		future.cancel();
+		assertEquals(1, engine.receiver.getDiscardedCount());
+		engine.respond(3);
+		assertFalse(engine.hasResponsePacket(3));
+		assertEquals(0, engine.receiver.getDiscardedCount());
+	}
+
+	public void testCancelReceivedResponse() throws Exception {
+		final IDbgpResponseFuture future = communicator
+				.communicateAsync(createRequest(4));
+		engine.respond(4);
+		future.cancel();
+		assertFalse(engine.hasResponsePacket(4));
+		assertEquals(0, engine.receiver.getDiscardedCount());
+	}
+
+	public void testDiscardedIdsAreBounded() {
+		for (int i = 0; i < 5000; ++i) {
+			engine.discardResponsePacket(i);
+		}
+		assertTrue(engine.receiver.getDiscardedCount() < 5000);
+		engine.requestTermination();
+		assertEquals(0, engine.receiver.getDiscardedCount());
+		engine.discardResponsePacket(5000);
+		assertEquals(0, engine.receiver.getDiscardedCount());
+	}
+
+}
@@ -17,8 +17,11 @@ import org.eclipse.dltk.debug.dbgp.tests.DbgpBreakpointCommandsTests;
 import org.eclipse.dltk.debug.dbgp.tests.DbgpContextCommandsTests;
 import org.eclipse.dltk.debug.dbgp.tests.DbgpContinuationCommandsTests;
 import org.eclipse.dltk.debug.dbgp.tests.DbgpFeatureCommandsTests;
+import org.eclipse.dltk.debug.dbgp.tests.DbgpMetricsTests;
+import org.eclipse.dltk.debug.dbgp.tests.DbgpMultiplexedEngineTests;
 import org.eclipse.dltk.debug.dbgp.tests.DbgpPropertyCommandsTests;
 import org.eclipse.dltk.debug.dbgp.tests.DbgpRequestTests;
+import org.eclipse.dltk.debug.dbgp.tests.DbgpResponseFutureTests;
 import org.eclipse.dltk.debug.dbgp.tests.DbgpStackCommandsTests;
 import org.eclipse.dltk.debug.dbgp.tests.DbgpStackLevelTests;
 import org.eclipse.dltk.debug.dbgp.tests.DbgpStatusCommandsTests;
@@ -27,6 +30,7 @@ import org.eclipse.dltk.debug.dbgp.tests.DbgpStreamCommandsTests;
 import org.eclipse.dltk.debug.dbgp.tests.service.DbgpServiceDispatcherTests;
 import org.eclipse.dltk.debug.dbgp.tests.service.DbgpServiceTests;
 import org.eclipse.dltk.debug.tests.breakpoints.BreakpointTests;
+import org.eclipse.dltk.internal.debug.tests.ScriptStreamBufferTests;
 import org.eclipse.dltk.internal.debug.tests.VariableNameComparatorTest;
 
 public class AllTests {
@@ -50,6 +54,9 @@ public class AllTests {
 		dbgpSuite.addTestSuite(DbgpStatusCommandsTests.class);
 		dbgpSuite.addTestSuite(DbgpBase64Tests.class);
 		dbgpSuite.addTestSuite(DbgpStatusTests.class);
+		dbgpSuite.addTestSuite(DbgpResponseFutureTests.class);
+		dbgpSuite.addTestSuite(DbgpMultiplexedEngineTests.class);
+		dbgpSuite.addTestSuite(DbgpMetricsTests.class);
 		suite.addTest(dbgpSuite);
 
 		final TestSuite serviceSuite = new TestSuite("DBGP Service tests");
@@ -63,6 +70,7 @@ public class AllTests {
 		// Internal debug tests
 		final TestSuite internalSuite = new TestSuite("Internal debug tests");
 		internalSuite.addTestSuite(VariableNameComparatorTest.class);
+		internalSuite.addTestSuite(ScriptStreamBufferTests.class);
 		suite.addTest(internalSuite);
 
 		// // $JUnit-END$
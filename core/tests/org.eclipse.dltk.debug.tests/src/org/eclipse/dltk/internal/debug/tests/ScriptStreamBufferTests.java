@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.internal.debug.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.dbgp.IDbgpStreamFilter;
+import org.eclipse.dltk.internal.debug.core.model.Messages;
+import org.eclipse.dltk.internal.debug.core.model.ScriptStreamBuffer;
+import org.eclipse.osgi.util.NLS;
+
+@SuppressWarnings("nls")
+public class ScriptStreamBufferTests extends TestCase {
+
+	private static final int OUT = IDbgpStreamFilter.STDOUT;
+	private static final int ERR = IDbgpStreamFilter.STDERR;
+
+	private static final long TIMEOUT = 10000;
+
+	/**
+	 * Larger than the capacity of the buffer
+	 */
+	private static final String LARGE = createLarge();
+
+	private static String createLarge() {
+		final char[] chars = new char[2 * 1024 * 1024];
+		Arrays.fill(chars, 'x');
+		return new String(chars);
+	}
+
+	private final List<String> written = Collections
+			.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * The buffer which is flushed by the test only
+	 */
+	private class TestBuffer extends ScriptStreamBuffer {
+		TestBuffer(boolean dropOnOverflow) {
+			super(new IStreamWriter() {
+				public void write(int stream, String data) {
+					written(stream, data);
+				}
+			}, dropOnOverflow);
+		}
+
+		@Override
+		protected void scheduleFlush(long delay) {
+			// flushed explicitly
+		}
+	}
+
+	private ScriptStreamBuffer buffer;
+
+	/**
+	 * The number of the written chunks to append more data at, while the
+	 * buffer is being flushed
+	 */
+	private int appendWhenWritten = -1;
+
+	private void written(int stream, String data) {
+		written.add(entry(stream, data));
+		if (written.size() == appendWhenWritten) {
+			buffer.append(ERR, "after");
+		}
+	}
+
+	private static String entry(int stream, String data) {
+		return (stream == ERR ? "err:" : "out:") + data;
+	}
+
+	private static String dropped(int stream, int count) {
+		return entry(stream, NLS.bind(Messages.ScriptStreamBuffer_dropped,
+				String.valueOf(count)));
+	}
+
+	public void testCoalesced() {
+		buffer = new TestBuffer(true);
+		buffer.append(OUT, "a");
+		buffer.append(OUT, "b");
+		buffer.append(ERR, "c");
+		buffer.append(OUT, "d");
+		assertTrue(written.isEmpty());
+		buffer.flush();
+		assertEquals(Arrays.asList("out:ab", "err:c", "out:d"), written);
+	}
+
+	public void testDropped() {
+		buffer = new TestBuffer(true);
+		buffer.append(OUT, LARGE);
+		buffer.append(ERR, "lost");
+		buffer.append(OUT, "late");
+		buffer.flush();
+		assertEquals(Arrays.asList(entry(OUT, LARGE), dropped(ERR, 8)),
+				written);
+		written.clear();
+		buffer.append(OUT, "after");
+		buffer.flush();
+		assertEquals(Arrays.asList("out:after"), written);
+	}
+
+	/**
+	 * The data accepted after some was dropped is written after the marker,
+	 * even if it could be appended to the pending segment of its stream.
+	 */
+	public void testDroppedMarkerInOrder() {
+		final int segments = 256;
+		buffer = new TestBuffer(true);
+		for (int i = 0; i < segments; ++i) {
+			buffer.append(i % 2 == 0 ? OUT : ERR, "s");
+		}
+		// no room for another segment
+		buffer.append(OUT, "lost");
+		appendWhenWritten = 3;
+		buffer.flush();
+		assertEquals(segments + 2, written.size());
+		assertEquals("err:s", written.get(segments - 1));
+		assertEquals(dropped(OUT, 4), written.get(segments));
+		assertEquals("err:after", written.get(segments + 1));
+	}
+
+	public void testBlocked() throws Exception {
+		buffer = new TestBuffer(false);
+		buffer.append(OUT, LARGE);
+		final Thread appender = new Thread() {
+			@Override
+			public void run() {
+				buffer.append(ERR, "more");
+			}
+		};
+		appender.setDaemon(true);
+		appender.start();
+		appender.join(300);
+		assertTrue(appender.isAlive());
+		buffer.flush();
+		appender.join(TIMEOUT);
+		assertFalse(appender.isAlive());
+		buffer.flush();
+		assertEquals(Arrays.asList(entry(OUT, LARGE), "err:more"), written);
+	}
+
+}
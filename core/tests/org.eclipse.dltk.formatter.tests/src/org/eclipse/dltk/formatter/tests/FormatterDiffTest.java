@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.formatter.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.formatter.internal.FormatterDiff;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+
+@SuppressWarnings("nls")
+public class FormatterDiffTest extends TestCase {
+
+	private static String apply(String source, MultiTextEdit edit)
+			throws BadLocationException {
+		final IDocument document = new Document(source);
+		edit.apply(document);
+		return document.get();
+	}
+
+	public void testUnchanged() {
+		final MultiTextEdit edit = FormatterDiff.diff("a b", 0, 3, "a b");
+		assertNotNull(edit);
+		assertEquals(0, edit.getChildrenSize());
+	}
+
+	public void testIndent() throws BadLocationException {
+		final String source = "if(a){\nfoo()\n}";
+		final String output = "if(a){\n\tfoo()\n}";
+		final MultiTextEdit edit = FormatterDiff.diff(source, 0, source
+				.length(), output);
+		assertNotNull(edit);
+		assertEquals(1, edit.getChildrenSize());
+		final ReplaceEdit child = (ReplaceEdit) edit.getChildren()[0];
+		assertEquals(7, child.getOffset());
+		assertEquals(0, child.getLength());
+		assertEquals("\t", child.getText());
+		assertEquals(output, apply(source, edit));
+	}
+
+	public void testSpacesInserted() throws BadLocationException {
+		final MultiTextEdit edit = FormatterDiff.diff("a=b", 0, 3, "a = b");
+		assertNotNull(edit);
+		assertEquals(2, edit.getChildrenSize());
+		assertEquals("a = b", apply("a=b", edit));
+	}
+
+	public void testRegion() throws BadLocationException {
+		final String source = "x  y\n  z  w";
+		final MultiTextEdit edit = FormatterDiff.diff(source, 5, 6, "z w");
+		assertNotNull(edit);
+		assertEquals(2, edit.getChildrenSize());
+		assertEquals("x  y\nz w", apply(source, edit));
+	}
+
+	public void testTextChanged() {
+		assertNull(FormatterDiff.diff("ab", 0, 2, "a"));
+		assertNull(FormatterDiff.diff("a", 0, 1, "ab"));
+		assertNull(FormatterDiff.diff("a(b)", 0, 4, "a b"));
+	}
+
+}
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.testing.tests;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class AllTests {
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite("org.eclipse.dltk.testing.tests"); //$NON-NLS-1$
+		// $JUnit-BEGIN$
+		suite.addTestSuite(TestRunSwapFileTests.class);
+		suite.addTestSuite(TestShardPlannerTests.class);
+		suite.addTestSuite(TestRunEventQueueTests.class);
+		// $JUnit-END$
+		return suite;
+	}
+
+}
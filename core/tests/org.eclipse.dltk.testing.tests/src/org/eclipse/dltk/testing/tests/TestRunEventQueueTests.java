@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.testing.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.internal.testing.model.TestRunEventQueue;
+
+public class TestRunEventQueueTests extends TestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private final List<Integer> delivered = Collections
+			.synchronizedList(new ArrayList<Integer>());
+
+	private TestRunEventQueue queue;
+
+	protected void tearDown() throws Exception {
+		if (queue != null) {
+			queue.close();
+		}
+	}
+
+	private Runnable event(final int value) {
+		return new Runnable() {
+			public void run() {
+				delivered.add(new Integer(value));
+			}
+		};
+	}
+
+	private static Runnable await(final CountDownLatch latch) {
+		return new Runnable() {
+			public void run() {
+				try {
+					latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+	}
+
+	private void assertDelivered(int count) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (queue.getDeliveredCount() < count
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, queue.getDeliveredCount());
+		assertEquals(count, delivered.size());
+		for (int i = 0; i < count; ++i) {
+			assertEquals(i, delivered.get(i).intValue());
+		}
+	}
+
+	public void testOrder() throws Exception {
+		queue = new TestRunEventQueue("test");
+		final int count = 10000;
+		for (int i = 0; i < count; ++i) {
+			queue.post(event(i));
+		}
+		assertEquals(count, queue.getPostedCount());
+		assertDelivered(count);
+		assertEquals(0, queue.getDepth());
+	}
+
+	public void testFailedEventDoesNotStopDelivery() throws Exception {
+		queue = new TestRunEventQueue("test");
+		queue.post(event(0));
+		queue.post(new Runnable() {
+			public void run() {
+				throw new IllegalStateException();
+			}
+		});
+		queue.post(event(1));
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (delivered.size() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, delivered.size());
+		assertEquals(1, delivered.get(1).intValue());
+	}
+
+	/**
+	 * The events posted before the queue is closed are delivered, the later
+	 * ones are ignored.
+	 */
+	public void testDrainedOnClose() throws Exception {
+		queue = new TestRunEventQueue("test");
+		final CountDownLatch release = new CountDownLatch(1);
+		queue.post(await(release));
+		for (int i = 0; i < 100; ++i) {
+			queue.post(event(i));
+		}
+		queue.close();
+		queue.post(event(100));
+		release.countDown();
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (queue.getDeliveredCount() < 101
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(101, queue.getPostedCount());
+		assertEquals(101, queue.getDeliveredCount());
+		assertEquals(100, delivered.size());
+		for (int i = 0; i < 100; ++i) {
+			assertEquals(i, delivered.get(i).intValue());
+		}
+	}
+
+	/**
+	 * The posting thread waits while the queue is full, until the stalled
+	 * event is delivered.
+	 */
+	public void testBounded() throws Exception {
+		final int capacity = 10;
+		queue = new TestRunEventQueue("test", capacity);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		queue.post(new Runnable() {
+			public void run() {
+				started.countDown();
+				await(release).run();
+			}
+		});
+		assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		final Thread producer = new Thread() {
+			public void run() {
+				for (int i = 0; i < 3 * capacity; ++i) {
+					queue.post(event(i));
+				}
+			}
+		};
+		producer.setDaemon(true);
+		producer.start();
+		producer.join(300);
+		assertTrue(producer.isAlive());
+		assertEquals(capacity, queue.getDepth());
+		release.countDown();
+		producer.join(TIMEOUT);
+		assertFalse(producer.isAlive());
+		assertTrue(queue.getMaxDepth() <= capacity);
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (delivered.size() < 3 * capacity
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(3 * capacity, delivered.size());
+		for (int i = 0; i < 3 * capacity; ++i) {
+			assertEquals(i, delivered.get(i).intValue());
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.testing.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.internal.testing.model.TestCaseElement;
+import org.eclipse.dltk.internal.testing.model.TestCategoryElement;
+import org.eclipse.dltk.internal.testing.model.TestContainerElement;
+import org.eclipse.dltk.internal.testing.model.TestElement;
+import org.eclipse.dltk.internal.testing.model.TestRoot;
+import org.eclipse.dltk.internal.testing.model.TestRunSession;
+import org.eclipse.dltk.internal.testing.model.TestRunSwapFile;
+import org.eclipse.dltk.internal.testing.model.TestSuiteElement;
+import org.eclipse.dltk.internal.testing.model.TestElement.Status;
+import org.eclipse.dltk.testing.model.ITestElement;
+
+@SuppressWarnings("nls")
+public class TestRunSwapFileTests extends TestCase {
+
+	private File file;
+	private TestRunSwapFile swapFile;
+
+	protected void setUp() throws Exception {
+		file = File.createTempFile("dltk", ".testrun");
+	}
+
+	protected void tearDown() throws Exception {
+		if (swapFile != null) {
+			swapFile.dispose();
+		}
+		file.delete();
+	}
+
+	private static String createLongString(char c) {
+		// longer than the DataOutputStream.writeUTF() limit
+		final char[] chars = new char[70000];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+	private TestRunSession restore(TestRunSession session) throws IOException {
+		TestRunSwapFile.write(session, file);
+		final TestRunSession restored = new TestRunSession("run", null);
+		swapFile = new TestRunSwapFile(file);
+		swapFile.load(restored);
+		return restored;
+	}
+
+	private static TestElement getChild(TestContainerElement container,
+			int index) {
+		return (TestElement) container.getChildren()[index];
+	}
+
+	public void testRoundTrip() throws IOException {
+		final TestRunSession session = new TestRunSession("run", null);
+		final TestRoot root = session.getTestRoot();
+		final TestSuiteElement suite = new TestSuiteElement(root, "1",
+				"suite", 3);
+		new TestCaseElement(suite, "2", "passed").setStatus(Status.OK);
+		new TestCaseElement(suite, "3", "failed").setStatus(Status.FAILURE,
+				"trace", "expected", "actual");
+		final TestCaseElement ignored = new TestCaseElement(suite, "4",
+				"ignored");
+		ignored.setIgnored(true);
+		ignored.setStatus(Status.OK);
+		session.setTotalCount(3);
+
+		final TestRunSession restored = restore(session);
+		assertEquals(3, restored.getTotalCount());
+		final TestRoot restoredRoot = restored.getTestRoot();
+		assertEquals(1, restoredRoot.getChildren().length);
+		final TestSuiteElement restoredSuite = (TestSuiteElement) getChild(
+				restoredRoot, 0);
+		assertEquals("1", restoredSuite.getId());
+		assertEquals("suite", restoredSuite.getTestName());
+		assertEquals(suite.getStatus(), restoredSuite.getStatus());
+		final ITestElement[] cases = restoredSuite.getChildren();
+		assertEquals(3, cases.length);
+		final TestCaseElement passed = (TestCaseElement) cases[0];
+		assertEquals("passed", passed.getTestName());
+		assertEquals(Status.OK, passed.getStatus());
+		assertNull(passed.getTrace());
+		final TestCaseElement failed = (TestCaseElement) cases[1];
+		assertEquals(Status.FAILURE, failed.getStatus());
+		assertEquals("trace", failed.getTrace());
+		assertEquals("expected", failed.getExpected());
+		assertEquals("actual", failed.getActual());
+		assertTrue(((TestCaseElement) cases[2]).isIgnored());
+		assertFalse(passed.isIgnored());
+	}
+
+	public void testLongStrings() throws IOException {
+		final TestRunSession session = new TestRunSession("run", null);
+		final String name = createLongString('n');
+		final String trace = createLongString('t');
+		new TestCaseElement(session.getTestRoot(), "1", name).setStatus(
+				Status.ERROR, trace, null, null);
+
+		final TestElement restored = getChild(restore(session).getTestRoot(),
+				0);
+		assertEquals(name, restored.getTestName());
+		assertEquals(trace, restored.getTrace());
+		assertNull(restored.getExpected());
+	}
+
+	public void testChildrenLoadedLazily() throws IOException {
+		final TestRunSession session = new TestRunSession("run", null);
+		final TestRoot root = session.getTestRoot();
+		final TestCategoryElement category = new TestCategoryElement(root,
+				"category", "Category");
+		final TestSuiteElement suite = new TestSuiteElement(category, "1",
+				"suite", 1);
+		new TestCaseElement(suite, "2", "test").setStatus(Status.OK);
+
+		final TestRunSession restored = restore(session);
+		assertNull(restored.getTestElement("category"));
+		final TestRoot restoredRoot = restored.getTestRoot();
+		assertTrue(restoredRoot.hasChildren());
+		final TestElement restoredCategory = getChild(restoredRoot, 0);
+		assertTrue(restoredCategory instanceof TestCategoryElement);
+		assertSame(restoredCategory, restored.getTestElement("category"));
+		assertNull(restored.getTestElement("2"));
+		final TestSuiteElement restoredSuite = (TestSuiteElement) getChild(
+				(TestContainerElement) restoredCategory, 0);
+		assertTrue(restoredSuite.hasChildren());
+		assertNull(restored.getTestElement("2"));
+		assertEquals("test", getChild(restoredSuite, 0).getTestName());
+		assertNotNull(restored.getTestElement("2"));
+	}
+
+}
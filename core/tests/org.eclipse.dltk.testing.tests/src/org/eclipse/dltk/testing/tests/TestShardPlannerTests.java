@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.testing.tests;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.internal.testing.model.TestShardPlanner;
+
+@SuppressWarnings("nls")
+public class TestShardPlannerTests extends TestCase {
+
+	private final Map<String, Double> durations = new HashMap<String, Double>();
+
+	private void setDuration(String test, double duration) {
+		durations.put(test, Double.valueOf(duration));
+	}
+
+	private void assertShards(String[][] expected, String[][] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; ++i) {
+			assertEquals(Arrays.asList(expected[i]), Arrays.asList(actual[i]));
+		}
+	}
+
+	public void testWithoutDurations() {
+		assertShards(new String[][] { { "a", "c" }, { "b", "d" } },
+				TestShardPlanner.plan(new String[] { "a", "b", "c", "d" }, 2,
+						durations));
+	}
+
+	public void testLongestFirst() {
+		setDuration("a", 10);
+		setDuration("b", 1);
+		setDuration("c", 1);
+		setDuration("d", 8);
+		assertShards(new String[][] { { "a" }, { "b", "c", "d" } },
+				TestShardPlanner.plan(new String[] { "a", "b", "c", "d" }, 2,
+						durations));
+	}
+
+	public void testUnknownDurationIsAverage() {
+		setDuration("a", 4);
+		setDuration("b", 2);
+		assertShards(new String[][] { { "a" }, { "b", "c" } },
+				TestShardPlanner.plan(new String[] { "a", "b", "c" }, 2,
+						durations));
+	}
+
+	public void testZeroDurations() {
+		setDuration("a", 0);
+		setDuration("b", 0);
+		assertShards(new String[][] { { "c" }, { "a", "b" } },
+				TestShardPlanner.plan(new String[] { "a", "b", "c" }, 2,
+						durations));
+	}
+
+	public void testMoreShardsThanTests() {
+		assertShards(new String[][] { { "a" }, { "b" } }, TestShardPlanner
+				.plan(new String[] { "a", "b" }, 5, durations));
+	}
+
+	public void testSingleShard() {
+		final String[] tests = { "a", "b", "c" };
+		assertShards(new String[][] { tests }, TestShardPlanner.plan(tests,
+				0, durations));
+		assertShards(new String[][] { tests }, TestShardPlanner.plan(tests,
+				1, durations));
+	}
+
+	public void testNoTests() {
+		assertEquals(0, TestShardPlanner.plan(new String[0], 3, durations).length);
+	}
+
+}
@@ -11,6 +11,10 @@ public class AllTests {
 		// $JUnit-BEGIN$
 		suite.addTestSuite(ValidatorContainerTests.class);
 		suite.addTestSuite(CommandLineTests.class);
+		suite.addTestSuite(ExternalCheckerBatchTests.class);
+		suite.addTestSuite(RuleMatcherTests.class);
+		suite.addTestSuite(ValidationEngineTests.class);
+		suite.addTestSuite(ValidationStateTests.class);
 		// $JUnit-END$
 		return suite;
 	}
@@ -74,4 +74,12 @@ public class CommandLineTests extends TestCase {
 		commandLine.replaceSequence('c', "CC");
 		assertEquals("A B CC", commandLine.toString());
 	}
+
+	public void testReplaceArray() {
+		CommandLine commandLine = new CommandLine("A -f%f B");
+		commandLine.replaceSequence('f', new String[] { "X", "Y" });
+		assertEquals("A -fX -fY B", commandLine.toString());
+		commandLine.replaceSequence('c', new String[] { "Z" });
+		assertEquals("A -fX -fY B", commandLine.toString());
+	}
 }
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.validators.core.tests;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.validators.internal.externalchecker.core.ExternalCheckerDelegate;
+
+@SuppressWarnings("nls")
+public class ExternalCheckerBatchTests extends TestCase {
+
+	private static final String[] PATHS = { "/work/project/a.tcl",
+			"/work/project/sub/a.tcl", "/work/project/b.tcl" };
+
+	private static void assertRanges(int[][] expected, List<int[]> actual) {
+		assertEquals(expected.length, actual.size());
+		for (int i = 0; i < expected.length; ++i) {
+			assertTrue(Arrays.equals(expected[i], actual.get(i)));
+		}
+	}
+
+	public void testSplitEmpty() {
+		assertTrue(ExternalCheckerDelegate.split(Collections.emptyList(), 10)
+				.isEmpty());
+	}
+
+	public void testSplitBySize() {
+		assertRanges(new int[][] { { 0, 2 }, { 2, 4 }, { 4, 5 } },
+				ExternalCheckerDelegate.split(Arrays.asList("p", "p", "p",
+						"p", "p"), 2));
+	}
+
+	public void testSplitByKey() {
+		assertRanges(new int[][] { { 0, 2 }, { 2, 3 }, { 3, 4 } },
+				ExternalCheckerDelegate.split(Arrays.asList("p", "p", "q",
+						"p"), 10));
+	}
+
+	public void testSplitSingle() {
+		assertRanges(new int[][] { { 0, 1 }, { 1, 2 } },
+				ExternalCheckerDelegate.split(Arrays.asList("p", "p"), 1));
+	}
+
+	public void testIndexOfExact() {
+		for (int i = 0; i < PATHS.length; ++i) {
+			assertEquals(i, ExternalCheckerDelegate.indexOf(PATHS, PATHS[i]));
+		}
+	}
+
+	public void testIndexOfOtherForm() {
+		assertEquals(1, ExternalCheckerDelegate.indexOf(PATHS,
+				"/work/project//sub/a.tcl"));
+		assertEquals(2, ExternalCheckerDelegate.indexOf(PATHS,
+				"/work/project/b.tcl "));
+	}
+
+	public void testIndexOfRelative() {
+		assertEquals(1, ExternalCheckerDelegate.indexOf(PATHS, "sub/a.tcl"));
+		assertEquals(2, ExternalCheckerDelegate.indexOf(PATHS, "b.tcl"));
+		assertEquals(2, ExternalCheckerDelegate.indexOf(PATHS,
+				"project/b.tcl"));
+	}
+
+	public void testIndexOfRelativeMatchesWholeSegments() {
+		assertEquals(-1, ExternalCheckerDelegate.indexOf(PATHS, "ub/a.tcl"));
+		assertEquals(-1, ExternalCheckerDelegate.indexOf(PATHS, ".tcl"));
+	}
+
+	public void testIndexOfUnknown() {
+		assertEquals(-1, ExternalCheckerDelegate.indexOf(PATHS,
+				"/other/a.tcl"));
+		assertEquals(-1, ExternalCheckerDelegate.indexOf(PATHS, "c.tcl"));
+		assertEquals(-1, ExternalCheckerDelegate.indexOf(PATHS, null));
+		assertEquals(-1, ExternalCheckerDelegate.indexOf(PATHS, ""));
+	}
+
+	public void testIndexOfSinglePath() {
+		final String[] paths = { PATHS[0] };
+		assertEquals(0, ExternalCheckerDelegate.indexOf(paths, "/other/a.tcl"));
+		assertEquals(0, ExternalCheckerDelegate.indexOf(paths, null));
+		assertEquals(0, ExternalCheckerDelegate.indexOf(paths, ""));
+	}
+
+}
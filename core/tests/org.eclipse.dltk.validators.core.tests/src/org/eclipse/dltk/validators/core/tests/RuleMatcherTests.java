@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.validators.core.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.dltk.validators.core.IValidatorProblem;
+import org.eclipse.dltk.validators.internal.externalchecker.core.CustomWildcard;
+import org.eclipse.dltk.validators.internal.externalchecker.core.Messages;
+import org.eclipse.dltk.validators.internal.externalchecker.core.Rule;
+import org.eclipse.dltk.validators.internal.externalchecker.core.RuleMatcher;
+
+@SuppressWarnings("nls")
+public class RuleMatcherTests extends TestCase {
+
+	private static List<CustomWildcard> createWildcards() {
+		final List<CustomWildcard> wcards = new ArrayList<CustomWildcard>();
+		wcards.add(new CustomWildcard("f", "[\\w]?:?.+", "file"));
+		wcards.add(new CustomWildcard("m", ".*", "message"));
+		wcards.add(new CustomWildcard("n", "[0-9]+", "line"));
+		return wcards;
+	}
+
+	private static RuleMatcher create(String... rules) {
+		final List<Rule> list = new ArrayList<Rule>();
+		for (String rule : rules) {
+			list.add(new Rule(rule, Messages.ExternalChecker_error));
+		}
+		return new RuleMatcher(list, createWildcards());
+	}
+
+	private static void assertProblem(String fileName, int lineNumber,
+			String message, IValidatorProblem problem) {
+		assertNotNull(problem);
+		assertEquals(fileName, problem.getFileName());
+		assertEquals(lineNumber, problem.getLineNumber());
+		assertEquals(message, problem.getMessage());
+	}
+
+	public void testMatch() {
+		final RuleMatcher matcher = create("%f:%n: %m");
+		assertProblem("/work/a.tcl", 12, "undefined variable", matcher
+				.match("/work/a.tcl:12: undefined variable"));
+		assertNull(matcher.match("undefined variable"));
+	}
+
+	public void testNoMessage() {
+		assertProblem("a.tcl", 5, "a.tcl:5", create("%f:%n").match("a.tcl:5"));
+	}
+
+	/**
+	 * The groups are resolved by the position of the wildcards, so the message
+	 * containing numbers is not taken for the line number.
+	 */
+	public void testGroupsByPosition() {
+		assertProblem("a.tcl", 3, "expected 2 arguments, got 10", create(
+				"%f:%n: %m").match("a.tcl:3: expected 2 arguments, got 10"));
+		assertProblem("a.tcl", 3, "42", create("%m at %f line %n").match(
+				"42 at a.tcl line 3"));
+	}
+
+	public void testLiteralGroups() {
+		final RuleMatcher matcher = create("(E|W)(\\d+) %f:%n %m");
+		assertProblem("a.tcl", 7, "unused 5", matcher
+				.match("W123 a.tcl:7 unused 5"));
+		assertNull(matcher.match("X123 a.tcl:7 unused"));
+	}
+
+	public void testRulesDispatchedByPrefix() {
+		final List<Rule> rules = Arrays.asList(new Rule("error: %f:%n %m",
+				Messages.ExternalChecker_error), new Rule(
+				"warning: %f:%n %m", Messages.ExternalChecker_warning));
+		final RuleMatcher matcher = new RuleMatcher(rules, createWildcards());
+		final IValidatorProblem error = matcher.match("error: a.tcl:1 bad");
+		assertProblem("a.tcl", 1, "bad", error);
+		assertTrue(error.isError());
+		final IValidatorProblem warning = matcher
+				.match("warning: a.tcl:2 odd");
+		assertProblem("a.tcl", 2, "odd", warning);
+		assertTrue(warning.isWarning());
+		assertNull(matcher.match("note: a.tcl:3 fine"));
+	}
+
+	public void testPrefixOptionalCharacter() {
+		final RuleMatcher matcher = create("errors? %f:%n %m");
+		assertProblem("a.tcl", 1, "bad", matcher.match("error a.tcl:1 bad"));
+		assertProblem("a.tcl", 1, "bad", matcher.match("errors a.tcl:1 bad"));
+		final RuleMatcher starMatcher = create("Ex* %f:%n %m");
+		assertProblem("a.tcl", 1, "bad", starMatcher.match("E a.tcl:1 bad"));
+		assertProblem("a.tcl", 1, "bad", starMatcher
+				.match("Exxx a.tcl:1 bad"));
+		final RuleMatcher braceMatcher = create("ab{0,1}c %f:%n %m");
+		assertProblem("a.tcl", 1, "bad", braceMatcher.match("ac a.tcl:1 bad"));
+	}
+
+	public void testPrefixRepeatedCharacter() {
+		final RuleMatcher matcher = create("Ex+ %f:%n %m");
+		assertProblem("a.tcl", 1, "bad", matcher.match("Exx a.tcl:1 bad"));
+		assertNull(matcher.match("E a.tcl:1 bad"));
+	}
+
+	public void testPrefixEscaped() {
+		final RuleMatcher matcher = create("\\[E\\] %f:%n %m");
+		assertProblem("a.tcl", 4, "bad", matcher.match("[E] a.tcl:4 bad"));
+	}
+
+	public void testPrefixAlternatives() {
+		final RuleMatcher matcher = create("error|warning: %f:%n %m");
+		assertNotNull(matcher.match("warning: a.tcl:4 bad"));
+	}
+
+	public void testPrefixWhitespace() {
+		final RuleMatcher matcher = create("Error %f:%n %m");
+		assertProblem("a.tcl", 4, "bad", matcher.match("Error\ta.tcl:4 bad"));
+	}
+
+	public void testRuleEndingWithLiteral() {
+		final RuleMatcher matcher = create("%f:%n: %m -- lint");
+		assertProblem("a.tcl", 3, "bad", matcher.match("a.tcl:3: bad -- lint"));
+		assertNull(matcher.match("a.tcl:3: bad"));
+	}
+
+	public void testInvalidRuleSkipped() {
+		final RuleMatcher matcher = create("%f:%n (%m", "%f:%n %m");
+		assertProblem("a.tcl", 2, "bad", matcher.match("a.tcl:2 bad"));
+	}
+
+}
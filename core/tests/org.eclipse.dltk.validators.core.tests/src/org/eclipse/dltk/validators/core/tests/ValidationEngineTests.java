@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.validators.core.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.dltk.validators.internal.core.ValidationEngine;
+
+@SuppressWarnings("nls")
+public class ValidationEngineTests extends TestCase {
+
+	private static class CountingMonitor extends NullProgressMonitor {
+		int totalWork;
+		int worked;
+		final Thread owner = Thread.currentThread();
+		boolean otherThread;
+
+		@Override
+		public void beginTask(String name, int totalWork) {
+			this.totalWork = totalWork;
+		}
+
+		@Override
+		public void worked(int work) {
+			if (Thread.currentThread() != owner) {
+				otherThread = true;
+			}
+			worked += work;
+		}
+	}
+
+	private static class CountingTask implements ValidationEngine.ITask {
+		final AtomicInteger runs;
+
+		CountingTask(AtomicInteger runs) {
+			this.runs = runs;
+		}
+
+		public void run(IProgressMonitor monitor) {
+			monitor.beginTask("", 4);
+			for (int i = 0; i < 4; ++i) {
+				monitor.worked(1);
+			}
+			runs.incrementAndGet();
+			monitor.done();
+		}
+	}
+
+	private static int getThreads() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors());
+	}
+
+	public void testSequential() {
+		final CountingMonitor monitor = new CountingMonitor();
+		monitor.beginTask("", 30);
+		final ValidationEngine engine = new ValidationEngine(monitor, false);
+		final List<String> order = Collections
+				.synchronizedList(new ArrayList<String>());
+		for (int i = 0; i < 3; ++i) {
+			final String name = String.valueOf(i);
+			engine.add(new ValidationEngine.ITask() {
+				public void run(IProgressMonitor taskMonitor) {
+					order.add(name);
+					taskMonitor.done();
+				}
+			}, 10);
+		}
+		assertTrue(engine.run().isOK());
+		assertEquals(3, order.size());
+		assertEquals("0", order.get(0));
+		assertEquals("2", order.get(2));
+		assertEquals(30, monitor.worked);
+	}
+
+	public void testParallelProgress() {
+		final CountingMonitor monitor = new CountingMonitor();
+		final ValidationEngine engine = new ValidationEngine(monitor, true);
+		final AtomicInteger runs = new AtomicInteger();
+		final int count = getThreads() * 3;
+		for (int i = 0; i < count; ++i) {
+			engine.add(new CountingTask(runs), 10);
+		}
+		assertTrue(engine.run().isOK());
+		assertEquals(count, runs.get());
+		assertEquals(count * 10, monitor.worked);
+		assertFalse(monitor.otherThread);
+	}
+
+	/**
+	 * The tasks of the nested engines wait for their own tasks, all the shared
+	 * threads are busy, so the waiting threads have to run them.
+	 */
+	public void testNested() {
+		final CountingMonitor monitor = new CountingMonitor();
+		final ValidationEngine engine = new ValidationEngine(monitor, true);
+		final AtomicInteger runs = new AtomicInteger();
+		final int count = getThreads() * 2;
+		for (int i = 0; i < count; ++i) {
+			engine.add(new ValidationEngine.ITask() {
+				public void run(IProgressMonitor taskMonitor) {
+					final ValidationEngine nested = new ValidationEngine(
+							taskMonitor, true);
+					for (int j = 0; j < count; ++j) {
+						nested.add(new CountingTask(runs), 1);
+					}
+					nested.run();
+					taskMonitor.done();
+				}
+			}, count);
+		}
+		assertTrue(engine.run().isOK());
+		assertEquals(count * count, runs.get());
+		assertEquals(count * count, monitor.worked);
+	}
+
+	public void testCanceled() {
+		final CountingMonitor monitor = new CountingMonitor();
+		monitor.setCanceled(true);
+		final ValidationEngine engine = new ValidationEngine(monitor, true);
+		final AtomicInteger runs = new AtomicInteger();
+		for (int i = 0; i < 3; ++i) {
+			engine.add(new CountingTask(runs), 1);
+		}
+		assertEquals(IStatus.CANCEL, engine.run().getSeverity());
+		assertEquals(0, runs.get());
+	}
+
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2008 xored software, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     xored software, Inc. - initial API and Implementation
+ *******************************************************************************/
+package org.eclipse.dltk.validators.core.tests;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.dltk.validators.core.IValidator;
+import org.eclipse.dltk.validators.internal.core.ValidationState;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+@SuppressWarnings("nls")
+public class ValidationStateTests extends TestCase {
+
+	private static final String VALIDATOR_ID = "validator";
+
+	private IProject project;
+	private IFile file;
+
+	@Override
+	protected void setUp() throws Exception {
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(
+				"ValidationStateTests");
+		if (!project.exists()) {
+			project.create(null);
+		}
+		project.open(null);
+		file = project.getFile("file.txt");
+		file.create(new ByteArrayInputStream("text".getBytes()), true, null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		project.delete(true, true, null);
+	}
+
+	private ValidationState createState(String configurationHash) {
+		return new ValidationState(VALIDATOR_ID, project, configurationHash,
+				IMarker.PROBLEM);
+	}
+
+	private void setContents(String contents) throws CoreException {
+		file.setContents(new ByteArrayInputStream(contents.getBytes()), true,
+				false, null);
+	}
+
+	private void validate(ValidationState state) {
+		state.store(file, state.takeSnapshot(file));
+	}
+
+	public void testNotValidated() {
+		assertFalse(createState("hash").isUnchanged(file));
+	}
+
+	public void testUnchanged() {
+		validate(createState("hash"));
+		assertTrue(createState("hash").isUnchanged(file));
+	}
+
+	public void testContentsChanged() throws CoreException {
+		validate(createState("hash"));
+		setContents("changed");
+		assertFalse(createState("hash").isUnchanged(file));
+	}
+
+	public void testTouched() throws CoreException {
+		validate(createState("hash"));
+		final long stamp = file.getModificationStamp();
+		setContents("text");
+		assertTrue(stamp != file.getModificationStamp());
+		assertTrue(createState("hash").isUnchanged(file));
+	}
+
+	/**
+	 * The snapshot of the changed file is stored after its validation
+	 */
+	public void testCheckChanged() throws CoreException {
+		final ValidationState state = createState("hash");
+		validate(state);
+		assertNull(state.checkChanged(file));
+		setContents("changed");
+		final ValidationState.Snapshot snapshot = state.checkChanged(file);
+		assertNotNull(snapshot);
+		assertFalse(state.isUnchanged(file));
+		state.store(file, snapshot);
+		assertTrue(state.isUnchanged(file));
+		assertNotNull(state.checkChanged(project));
+	}
+
+	public void testConfigurationChanged() {
+		validate(createState("hash"));
+		assertFalse(createState("other").isUnchanged(file));
+	}
+
+	public void testMarkersChanged() throws CoreException {
+		final ValidationState state = createState("hash");
+		file.createMarker(IMarker.PROBLEM);
+		validate(state);
+		assertTrue(state.isUnchanged(file));
+		file.deleteMarkers(IMarker.PROBLEM, true, 0);
+		assertFalse(state.isUnchanged(file));
+	}
+
+	public void testResetFile() {
+		validate(createState("hash"));
+		ValidationState.reset(VALIDATOR_ID, file);
+		assertFalse(createState("hash").isUnchanged(file));
+	}
+
+	public void testResetProject() {
+		validate(createState("hash"));
+		ValidationState.reset(VALIDATOR_ID, project);
+		assertFalse(createState("hash").isUnchanged(file));
+		ValidationState.reset("other", project);
+		validate(createState("hash"));
+		assertTrue(createState("hash").isUnchanged(file));
+	}
+
+	public void testConfigurationHash() throws CoreException {
+		final SimpleValidatorType type = SimpleValidatorUtils.find();
+		final SimpleValidator validator = (SimpleValidator) type
+				.createValidator("v1");
+		final String hash = ValidationState.computeConfigurationHash(validator);
+		assertNotNull(hash);
+		assertEquals(hash, ValidationState.computeConfigurationHash(validator));
+		validator.setValue("value");
+		assertFalse(hash.equals(ValidationState
+				.computeConfigurationHash(validator)));
+	}
+
+	public void testGlobalConfigurationHash() throws CoreException {
+		final String[] global = { "a" };
+		final IValidator validator = new SimpleValidator("v1",
+				SimpleValidatorUtils.find()) {
+			@Override
+			public void storeConfigurationTo(Document doc, Element element) {
+				super.storeConfigurationTo(doc, element);
+				element.setAttribute("global", global[0]);
+			}
+		};
+		final String hash = ValidationState.computeConfigurationHash(validator);
+		global[0] = "b";
+		assertFalse(hash.equals(ValidationState
+				.computeConfigurationHash(validator)));
+	}
+
+}
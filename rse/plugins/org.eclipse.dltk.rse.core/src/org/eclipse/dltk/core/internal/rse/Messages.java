@@ -31,6 +31,8 @@ public class Messages extends NLS {
 	public static String RSEExecEnvironment_NoFileServicerError;
 	public static String RSEExecEnvironment_NoShellService;
 	public static String RSEExecEnvironment_NotConnected;
+	public static String RSEExecEnvironment_prepareDeploymentCache;
+	public static String RSEExecEnvironment_deploymentCacheNotUsed;
 	static {
 		// initialize resource bundle
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
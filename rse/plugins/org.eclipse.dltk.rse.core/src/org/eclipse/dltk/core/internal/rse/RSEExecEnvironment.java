@@ -21,6 +21,7 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.dltk.compiler.util.Util;
 import org.eclipse.dltk.core.DLTKCore;
@@ -44,6 +45,19 @@ import org.eclipse.rse.subsystems.shells.core.subsystems.servicesubsystem.IShell
 public class RSEExecEnvironment implements IExecutionEnvironment {
 
 	private static final String EXEC_BIN_SH = "exec /bin/sh "; //$NON-NLS-1$
+	/**
+	 * The location of the deployment cache relative to the home directory
+	 */
+	private static final String DEPLOYMENT_CACHE = "$HOME/.dltk/deployment-cache"; //$NON-NLS-1$
+	private static final String DEPLOYMENT_CACHE_PREFIX = "DLTK_DEPLOYMENT_CACHE:"; //$NON-NLS-1$
+	/**
+	 * The preference enabling the deployment cache, disabled by default since
+	 * the cached bundle entries are resolved with
+	 * {@link IDeployment#getFile(IPath)} only, but not against
+	 * {@link IDeployment#getAbsolutePath()}, so it could be enabled only if
+	 * the launchers used do not rely on the latter.
+	 */
+	public static final String PREF_DEPLOYMENT_CACHE = "deploymentCache"; //$NON-NLS-1$
 	private static final String TOKEN_PREFIX = "DLTK_INITIAL_PREFIX_EXECUTION_STRING:"; //$NON-NLS-1$
 
 	private final RSEEnvironment environment;
@@ -51,6 +65,12 @@ public class RSEExecEnvironment implements IExecutionEnvironment {
 
 	private static final Map<IHost, Map<String, String>> hostToEnvironment = new HashMap<IHost, Map<String, String>>();
 
+	/**
+	 * The verified locations of the deployment caches by the host, the empty
+	 * string if the cache could not be prepared
+	 */
+	private static final Map<IHost, String> hostToDeploymentCache = new HashMap<IHost, String>();
+
 	public RSEExecEnvironment(RSEEnvironment env) {
 		this.environment = env;
 	}
@@ -68,8 +88,13 @@ public class RSEExecEnvironment implements IExecutionEnvironment {
 			String rootPath = tmpDir + environment.getSeparator()
 					+ getTempName("dltk", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
 			URI rootUri = createRemoteURI(environment.getHost(), rootPath);
+			// bundle entries are kept between the launches if enabled
+			String cacheDir = isDeploymentCacheEnabled() ? getDeploymentCache()
+					: null;
+			URI cacheUri = cacheDir != null ? createRemoteURI(environment
+					.getHost(), cacheDir) : null;
 			try {
-				return new EFSDeployment(environment, rootUri);
+				return new EFSDeployment(environment, rootUri, cacheUri);
 			} catch (CoreException e) {
 				if (DLTKCore.DEBUG) {
 					e.printStackTrace();
@@ -127,6 +152,98 @@ public class RSEExecEnvironment implements IExecutionEnvironment {
 		return null;
 	}
 
+	private static boolean isDeploymentCacheEnabled() {
+		return Platform.getPreferencesService().getBoolean(
+				DLTKRSEPlugin.PLUGIN_ID, PREF_DEPLOYMENT_CACHE, false, null);
+	}
+
+	private String getDeploymentCache() {
+		final IHost host = environment.getHost();
+		synchronized (hostToDeploymentCache) {
+			final String cacheDir = hostToDeploymentCache.get(host);
+			if (cacheDir != null) {
+				return cacheDir.length() != 0 ? cacheDir : null;
+			}
+		}
+		final String cacheDir = host.getSystemType().isWindows() ? null
+				: prepareDeploymentCache();
+		synchronized (hostToDeploymentCache) {
+			hostToDeploymentCache.put(host, cacheDir != null ? cacheDir
+					: Util.EMPTY_STRING);
+		}
+		return cacheDir;
+	}
+
+	/**
+	 * Creates the deployment cache directory in the home directory of the
+	 * user, accessible to that user only. The scripts in the cache are
+	 * executed on the next launches, so the cache is not used if the
+	 * directory is owned by the other user or is the symbolic link.
+	 * 
+	 * @return the location of the cache or <code>null</code>
+	 */
+	private String prepareDeploymentCache() {
+		final String dir = "\"" + DEPLOYMENT_CACHE + "\""; //$NON-NLS-1$ //$NON-NLS-2$
+		final String parent = "\"`dirname " + dir + "`\""; //$NON-NLS-1$ //$NON-NLS-2$
+		final String script = "umask 077 && mkdir -p " + dir //$NON-NLS-1$
+				+ " && test -O " + parent + " && test ! -h " + parent //$NON-NLS-1$ //$NON-NLS-2$
+				+ " && test -O " + dir + " && test ! -h " + dir //$NON-NLS-1$ //$NON-NLS-2$
+				+ " && chmod 700 " + parent + " " + dir //$NON-NLS-1$ //$NON-NLS-2$
+				+ " && cd " + dir + " && echo \"" + DEPLOYMENT_CACHE_PREFIX //$NON-NLS-1$ //$NON-NLS-2$
+				+ "`pwd`\""; //$NON-NLS-1$
+		final String[] result = new String[1];
+		try {
+			final Process process = exec(new String[] { script }, Path.EMPTY,
+					null);
+			if (process == null) {
+				return null;
+			}
+			final BufferedReader input = new BufferedReader(
+					new InputStreamReader(process.getInputStream()));
+			final Thread t = new Thread(NLS.bind(
+					Messages.RSEExecEnvironment_prepareDeploymentCache,
+					environment.getHost().getName())) {
+				@Override
+				public void run() {
+					try {
+						String line;
+						while ((line = input.readLine()) != null) {
+							line = line.trim();
+							if (line.startsWith(DEPLOYMENT_CACHE_PREFIX)) {
+								synchronized (result) {
+									result[0] = line
+											.substring(DEPLOYMENT_CACHE_PREFIX
+													.length());
+								}
+								break;
+							}
+						}
+					} catch (IOException e) {
+						if (DLTKCore.DEBUG)
+							DLTKRSEPlugin.log(e);
+					}
+				}
+			};
+			t.start();
+			try {
+				t.join(25000);// No more than 25 seconds
+			} catch (InterruptedException e) {
+				DLTKRSEPlugin.log(e);
+			}
+			process.destroy();
+		} catch (CoreException e) {
+			DLTKRSEPlugin.log(e);
+		}
+		synchronized (result) {
+			if (result[0] == null) {
+				DLTKRSEPlugin.logWarning(NLS.bind(
+						Messages.RSEExecEnvironment_deploymentCacheNotUsed,
+						environment.getHost().getName()));
+			}
+			return result[0];
+		}
+	}
+
 	public Process exec(String[] cmdLine, IPath workingDir, String[] environment)
 			throws CoreException {
 		return exec(cmdLine, workingDir, environment, null);